@@ -31,6 +31,7 @@ package org.n52.sos.decode.kvp.v2;
 import org.n52.shetland.ogc.sos.Sos2Constants;
 import org.n52.shetland.ogc.sos.SosConstants;
 import org.n52.sos.decode.kvp.AbstractSosKvpDecoder;
+import org.n52.sos.ds.GetFeatureOfInterestSettings;
 import org.n52.shetland.ogc.sos.request.GetFeatureOfInterestRequest;
 
 /**
@@ -57,6 +58,10 @@ public class GetFeatureOfInterestKvpDecoderv20 extends AbstractSosKvpDecoder<Get
                     decodeList(decodeSpatialFilter(asList(GetFeatureOfInterestRequest::setSpatialFilters))));
         builder.add(Sos2Constants.GetObservationParams.namespaces,
                     decodeNamespaces(GetFeatureOfInterestRequest::setNamespaces));
+        builder.add(GetFeatureOfInterestSettings.EXTENSION_LIMIT,
+                    GetFeatureOfInterestRequest::addSweTextExtension);
+        builder.add(GetFeatureOfInterestSettings.EXTENSION_CONTINUATION_TOKEN,
+                    GetFeatureOfInterestRequest::addSweTextExtension);
     }
 
 }
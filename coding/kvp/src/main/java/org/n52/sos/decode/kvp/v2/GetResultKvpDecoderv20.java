@@ -31,6 +31,7 @@ package org.n52.sos.decode.kvp.v2;
 import org.n52.shetland.ogc.sos.Sos2Constants;
 import org.n52.shetland.ogc.sos.SosConstants;
 import org.n52.sos.decode.kvp.AbstractSosKvpDecoder;
+import org.n52.sos.ds.AggregationConstants;
 import org.n52.shetland.ogc.sos.request.GetResultRequest;
 
 /**
@@ -59,6 +60,8 @@ public class GetResultKvpDecoderv20 extends AbstractSosKvpDecoder<GetResultReque
                     decodeList(decodeSpatialFilter(GetResultRequest::setSpatialFilter)));
         builder.add(Sos2Constants.GetObservationParams.namespaces,
                     decodeNamespaces(GetResultRequest::setNamespaces));
+        builder.add(AggregationConstants.EXTENSION_AGGREGATION,
+                    GetResultRequest::addSweTextExtension);
     }
 
 }
@@ -31,8 +31,11 @@ package org.n52.sos.encode;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -83,9 +86,9 @@ import org.n52.shetland.ogc.sos.SosProcedureDescription;
 import org.n52.shetland.ogc.sos.SosProcedureDescriptionUnknownType;
 import org.n52.shetland.ogc.sos.request.DescribeSensorRequest;
 import org.n52.shetland.ogc.sos.response.AbstractObservationResponse;
-import org.n52.shetland.ogc.sos.response.BinaryAttachmentResponse;
 import org.n52.shetland.ogc.sos.response.DescribeSensorResponse;
 import org.n52.shetland.util.DateTimeHelper;
+import org.n52.sos.coding.encode.FileAttachmentResponse;
 import org.n52.sos.coding.encode.ProcedureDescriptionFormatRepository;
 import org.n52.sos.ds.AbstractDescribeSensorHandler;
 import org.n52.sos.netcdf.Nc4ForceTimeChunkingStategy;
@@ -142,7 +145,7 @@ import ucar.nc2.jni.netcdf.Nc4Iosp;
  *
  */
 public abstract class AbstractNetcdfEncoder
-        implements ObservationEncoder<BinaryAttachmentResponse, Object>, NetCDFUtil {
+        implements ObservationEncoder<FileAttachmentResponse, Object>, NetCDFUtil {
 
     private final Set<SupportedType> SUPPORTED_TYPES =
             ImmutableSet.<SupportedType>builder().add(OmConstants.OBS_TYPE_TRUTH_OBSERVATION_TYPE).build();
@@ -156,6 +159,8 @@ public abstract class AbstractNetcdfEncoder
     private GeometryHandler geometryHandler;
     private NetcdfHelper netcdfHelper;
 
+    private static final String TEMP_DIRECTORY_PREFIX = "sos-netcdf";
+
     public AbstractNetcdfEncoder() {
 
     }
@@ -225,12 +230,12 @@ public abstract class AbstractNetcdfEncoder
     }
 
     @Override
-    public BinaryAttachmentResponse encode(Object element) throws EncodingException {
+    public FileAttachmentResponse encode(Object element) throws EncodingException {
         return encode(element, EncodingContext.empty());
     }
 
     @Override
-    public BinaryAttachmentResponse encode(Object objectToEncode, EncodingContext additionalValues)
+    public FileAttachmentResponse encode(Object objectToEncode, EncodingContext additionalValues)
             throws EncodingException {
         if (objectToEncode instanceof AbstractObservationResponse) {
             AbstractObservationResponse aor = (AbstractObservationResponse) objectToEncode;
@@ -290,7 +295,7 @@ public abstract class AbstractNetcdfEncoder
         return null;
     }
 
-    private BinaryAttachmentResponse encodeGetObsResponse(ObservationStream sosObservationCollection, Version version)
+    private FileAttachmentResponse encodeGetObsResponse(ObservationStream sosObservationCollection, Version version)
             throws EncodingException {
         List<NetCDFObservation> netCDFSosObsList;
         try {
@@ -315,9 +320,53 @@ public abstract class AbstractNetcdfEncoder
         }
     }
 
-    protected abstract BinaryAttachmentResponse encodeNetCDFObsToNetcdf(List<NetCDFObservation> netCDFSosObsList,
+    protected abstract FileAttachmentResponse encodeNetCDFObsToNetcdf(List<NetCDFObservation> netCDFSosObsList,
             Version version) throws EncodingException, IOException;
 
+    /**
+     * Encode the sensor datasets to netCDF files in a new temporary directory.
+     * The directory is deleted if the encoding fails, otherwise by the
+     * returned response after it is written.
+     *
+     * @param sensorDatasets
+     *            the datasets to encode, one file per dataset
+     * @param version
+     *            the netCDF version
+     * @param zipFilename
+     *            the filename of the ZIP archive, formatted with the current
+     *            time, or {@code null} to write the single file as is
+     * @return the response streaming the files
+     * @throws EncodingException
+     *             if the encoding fails
+     */
+    protected FileAttachmentResponse encodeSensorDatasetsToFiles(List<AbstractSensorDataset> sensorDatasets,
+            Version version, String zipFilename) throws EncodingException {
+        Path directory;
+        try {
+            directory = FileAttachmentResponse.createTempDirectory(TEMP_DIRECTORY_PREFIX);
+        } catch (IOException e) {
+            throw new EncodingException("Couldn't create temporary directory for netCDF files", e);
+        }
+        try {
+            Path file = null;
+            for (AbstractSensorDataset sensorDataset : sensorDatasets) {
+                file = directory.resolve(getFilename(sensorDataset));
+                encodeSensorDataToNetcdf(file.toFile(), sensorDataset, version);
+            }
+            if (zipFilename != null) {
+                return new FileAttachmentResponse(directory, getContentType(),
+                        String.format(zipFilename, makeDateSafe(new DateTime(DateTimeZone.UTC))));
+            }
+            return new FileAttachmentResponse(directory, file, getContentType(), file.getFileName().toString());
+        } catch (IOException e) {
+            FileAttachmentResponse.delete(directory);
+            throw new EncodingException("Couldn't create netCDF file", e);
+        } catch (EncodingException | RuntimeException e) {
+            FileAttachmentResponse.delete(directory);
+            throw e;
+        }
+    }
+
     protected abstract void addProfileSpecificGlobalAttributes(NetcdfFileWriter writer,
             AbstractSensorDataset sensorDataset) throws EncodingException;
 
@@ -337,6 +386,15 @@ public abstract class AbstractNetcdfEncoder
                 getProcedureDescription(sensor, sensorDataset.getProcedureDescription()));
 
         NetcdfFileWriter writer = getNetcdfFileWriter(netcdfFile, version);
+        try {
+            encodeSensorDataToNetcdf(writer, sensorDataset);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void encodeSensorDataToNetcdf(NetcdfFileWriter writer, AbstractSensorDataset sensorDataset)
+            throws EncodingException, IOException {
         // set fill on, doesn't seem to have any effect though
         writer.setFill(true);
 
@@ -398,8 +456,6 @@ public abstract class AbstractNetcdfEncoder
         if (numTimes > 1 && writer.getVersion().isNetdf4format()) {
             vTime.addAttribute(new Attribute(CDM.CHUNK_SIZES, getNetcdfHelper().getChunkSizeTime()));
         }
-        ArrayDouble timeArray = new ArrayDouble(getDimShapes(timeDims));
-        initArrayWithFillValue(timeArray, getNetcdfHelper().getFillValue());
 
         Array latArray = getLatitudeArray(sensorDataset);
         Array lonArray = getLongitudeArray(sensorDataset);
@@ -446,17 +502,17 @@ public abstract class AbstractNetcdfEncoder
                         Lists.newArrayList(vTime.getFullName(), vLat.getFullName(), vLon.getFullName(),
                                 vHeightDepth.getFullName()));
 
-        Map<OmObservableProperty, Variable> obsPropVarMap = Maps.newHashMap();
-        Map<Variable, Array> varDataArrayMap = Maps.newHashMap();
+        Map<OmObservableProperty, Variable> obsPropVariableMap = Maps.newLinkedHashMap();
         for (OmObservableProperty obsProp : sensorDataset.getPhenomena()) {
             // obs prop var
-            Variable vObsProp = addVariableForObservedProperty(writer, obsProp, obsPropDims, coordinateString);
-            obsPropVarMap.put(obsProp, vObsProp);
-
-            // init obs prop data array
-            Array obsPropArray = getArray(obsPropDims);
-            initArrayWithFillValue(obsPropArray, getNetcdfHelper().getFillValue());
-            varDataArrayMap.put(vObsProp, obsPropArray);
+            obsPropVariableMap.put(obsProp,
+                    addVariableForObservedProperty(writer, obsProp, obsPropDims, coordinateString));
+        }
+        Map<SubSensor, Integer> subSensorIndexMap = new HashMap<>();
+        if (dZ.getLength() > 1) {
+            for (SubSensor subSensor : sensorDataset.getSubSensors()) {
+                subSensorIndexMap.put(subSensor, subSensorIndexMap.size());
+            }
         }
 
         // populate heights array for profile
@@ -477,60 +533,16 @@ public abstract class AbstractNetcdfEncoder
 
         }
 
-        // iterate through sensorDataset, set values
+        // create the empty netCDF with dims/vars/attributes defined
+        writer.create();
+
+        // time values
+        double[] timeColumn = new double[numTimes];
         int timeCounter = 0;
         for (Time time : sensorDataset.getTimes()) {
-            // set time value
-            Index timeIndex = timeArray.getIndex();
-            int timeIndexCounter = 0;
-            // if (hasDimension(timeDims, dFeatureTypeInstance)) {
-            // timeIndex.setDim(timeIndexCounter++, 0);
-            // }
-            if (hasDimension(timeDims, dTime)) {
-                timeIndex.setDim(timeIndexCounter++, timeCounter++);
-            }
-            timeArray.set(timeIndex, getTimeValue(time));
-
-            // data values
-            Map<OmObservableProperty, Map<SubSensor, Value<?>>> obsPropMap = sensorDataset.getDataValues().get(time);
-            for (Entry<OmObservableProperty, Map<SubSensor, Value<?>>> entry : obsPropMap.entrySet()) {
-                OmObservableProperty obsProp = entry.getKey();
-                Variable variable = obsPropVarMap.get(obsProp);
-                Array array = varDataArrayMap.get(variable);
-                for (Entry<SubSensor, Value<?>> subSensorEntry : obsPropMap.get(obsProp).entrySet()) {
-                    SubSensor subSensor = subSensorEntry.getKey();
-                    Value<?> value = subSensorEntry.getValue();
-                    Object valObj = value.getValue();
-                    if (!(valObj instanceof Number)) {
-                        throw new EncodingException("Value class %s not supported",
-                                valObj.getClass().getCanonicalName());
-                    }
-                    Index index = array.getIndex();
-                    int obsPropDimCounter = 0;
-                    for (Dimension dim : obsPropDims) {
-                        // if (dim.equals(dFeatureTypeInstance)){
-                        // feature type instance index
-                        // index.setDim(obsPropDimCounter++, 0);
-                        // } else if (dim.equals(dTime)){
-                        if (dim.equals(dTime)) {
-                            // time index dim
-                            index.setDim(obsPropDimCounter++, timeCounter - 1);
-                        } else if (dim.equals(dZ) && dim.getLength() > 1) {
-                            // height/depth index dim
-                            index.setDim(obsPropDimCounter++, sensorDataset.getSubSensors().indexOf(subSensor));
-                        }
-                    }
-                    if (array instanceof ArrayFloat) {
-                        ((ArrayFloat) array).set(index, ((Number) valObj).floatValue());
-                    } else {
-                        ((ArrayDouble) array).set(index, ((Number) valObj).doubleValue());
-                    }
-                }
-            }
+            timeColumn[timeCounter++] = getTimeValue(time);
         }
-
-        // create the empty netCDF with dims/vars/attributes defined
-        variableArrayMap.put(vTime, timeArray);
+        variableArrayMap.put(vTime, Array.factory(DataType.DOUBLE, getDimShapes(timeDims), timeColumn));
         if (latArray != null) {
             variableArrayMap.put(vLat, latArray);
         }
@@ -540,10 +552,34 @@ public abstract class AbstractNetcdfEncoder
         if (heightDephtArray != null) {
             variableArrayMap.put(vHeightDepth, heightDephtArray);
         }
-        variableArrayMap.putAll(varDataArrayMap);
-        // create the empty netCDF with dims/vars/attributes defined
-        writeToFile(writer, variableArrayMap);
-        writer.close();
+        for (Entry<Variable, Array> varEntry : variableArrayMap.entrySet()) {
+            write(writer, varEntry.getKey(), varEntry.getValue());
+        }
+
+        // data values, one primitive column per observed property in (time,
+        // height/depth) order that is written as soon as it is populated
+        int[] obsPropShape = getDimShapes(obsPropDims);
+        for (Entry<OmObservableProperty, Variable> obsPropEntry : obsPropVariableMap.entrySet()) {
+            Array obsPropArray = getArray(obsPropShape);
+            initArrayWithFillValue(obsPropArray, getNetcdfHelper().getFillValue());
+            Object storage = obsPropArray.getStorage();
+            int timeOffset = 0;
+            for (Time time : sensorDataset.getTimes()) {
+                Map<SubSensor, Value<?>> subSensorMap =
+                        sensorDataset.getDataValues().get(time).get(obsPropEntry.getKey());
+                if (subSensorMap != null) {
+                    for (Entry<SubSensor, Value<?>> subSensorEntry : subSensorMap.entrySet()) {
+                        // height/depth index, only set if there is more than
+                        // one
+                        Integer subSensorIndex = subSensorIndexMap.get(subSensorEntry.getKey());
+                        setColumnValue(storage, timeOffset + (subSensorIndex != null ? subSensorIndex : 0),
+                                subSensorEntry.getValue().getValue());
+                    }
+                }
+                timeOffset += dZ.getLength();
+            }
+            write(writer, obsPropEntry.getValue(), obsPropArray);
+        }
     }
 
     protected void addGlobaleAttributes(NetcdfFileWriter writer, AbstractSensorDataset sensorDataset)
@@ -835,15 +871,21 @@ public abstract class AbstractNetcdfEncoder
         return Maps.newHashMap();
     }
 
-    private void writeToFile(NetcdfFileWriter writer, Map<Variable, Array> variableArrayMap)
-            throws EncodingException, IOException {
-        writer.create();
+    private void setColumnValue(Object storage, int offset, Object value) throws EncodingException {
+        if (!(value instanceof Number)) {
+            throw new EncodingException("Value class %s not supported", value.getClass().getCanonicalName());
+        }
+        if (storage instanceof float[]) {
+            ((float[]) storage)[offset] = ((Number) value).floatValue();
+        } else {
+            ((double[]) storage)[offset] = ((Number) value).doubleValue();
+        }
+    }
 
-        // fill the netCDF file with data
+    private void write(NetcdfFileWriter writer, Variable variable, Array array)
+            throws EncodingException, IOException {
         try {
-            for (Entry<Variable, Array> varEntry : variableArrayMap.entrySet()) {
-                writer.write(varEntry.getKey(), varEntry.getValue());
-            }
+            writer.write(variable, array);
         } catch (InvalidRangeException e) {
             throw new EncodingException("Error writing netCDF variable data");
         }
@@ -1048,9 +1090,16 @@ public abstract class AbstractNetcdfEncoder
     }
 
     private void initArrayWithFillValue(Array array, Object fillValue) {
-        IndexIterator indexIterator = array.getIndexIterator();
-        while (indexIterator.hasNext()) {
-            indexIterator.setObjectNext(fillValue);
+        Object storage = array.getStorage();
+        if (storage instanceof double[] && fillValue instanceof Number) {
+            Arrays.fill((double[]) storage, ((Number) fillValue).doubleValue());
+        } else if (storage instanceof float[] && fillValue instanceof Number) {
+            Arrays.fill((float[]) storage, ((Number) fillValue).floatValue());
+        } else {
+            IndexIterator indexIterator = array.getIndexIterator();
+            while (indexIterator.hasNext()) {
+                indexIterator.setObjectNext(fillValue);
+            }
         }
     }
 
@@ -67,7 +67,6 @@ import org.n52.shetland.ogc.ows.service.OwsServiceResponse;
 import org.n52.shetland.ogc.sos.Sos2Constants;
 import org.n52.shetland.ogc.sos.request.GetFeatureOfInterestRequest;
 import org.n52.shetland.ogc.sos.request.GetObservationRequest;
-import org.n52.shetland.ogc.sos.response.AbstractStreaming;
 import org.n52.shetland.ogc.sos.response.GetFeatureOfInterestResponse;
 import org.n52.shetland.ogc.sos.response.GetObservationResponse;
 import org.n52.shetland.ogc.swe.SweAbstractDataComponent;
@@ -79,8 +78,9 @@ import org.n52.shetland.ogc.swe.simpleType.SweBoolean;
 import org.n52.shetland.ogc.swe.simpleType.SweQuantity;
 import org.n52.shetland.ogc.swe.simpleType.SweText;
 import org.n52.shetland.ogc.swe.simpleType.SweTime;
-import org.n52.shetland.util.CollectionHelper;
 import org.n52.shetland.util.JavaHelper;
+import org.n52.sos.util.KeyedObservationMerger;
+import org.n52.sos.util.MergingObservationStream;
 import org.n52.svalbard.decode.Decoder;
 import org.n52.svalbard.decode.DecoderKey;
 import org.n52.svalbard.decode.DecoderRepository;
@@ -90,7 +90,6 @@ import org.n52.svalbard.decode.exception.NoDecoderForKeyException;
 import org.w3c.dom.Node;
 
 import com.google.common.base.Joiner;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 public class EprtrConverter implements RequestResponseModifier {
@@ -190,41 +189,21 @@ public class EprtrConverter implements RequestResponseModifier {
     }
 
     private OwsServiceResponse mergeObservations(GetObservationResponse response) throws OwsExceptionReport {
-        response.setObservationCollection(
-                ObservationStream.of(mergeObservations(mergeStreamingData(response.getObservationCollection()))));
-        checkObservationFeatures(response.getObservationCollection());
-        return response;
-    }
-
-    private List<OmObservation> mergeObservations(List<OmObservation> observations) throws OwsExceptionReport {
-        if (CollectionHelper.isNotEmpty(observations)) {
-            final List<OmObservation> mergedObservations = new LinkedList<OmObservation>();
-            int obsIdCounter = 1;
-            for (final OmObservation sosObservation : observations) {
-                if (checkForProcedure(sosObservation)) {
-                    if (mergedObservations.isEmpty()) {
-                        if (!sosObservation.isSetGmlID()) {
-                            sosObservation.setObservationID(Integer.toString(obsIdCounter++));
-                        }
-                        mergedObservations.add(convertObservation(sosObservation));
-                    } else {
-                        boolean combined = false;
-                        for (final OmObservation combinedSosObs : mergedObservations) {
-                            if (checkForMerge(combinedSosObs, sosObservation, INDICATOR)) {
-                                mergeValues(combinedSosObs, convertObservation(sosObservation));
-                                combined = true;
-                                break;
-                            }
-                        }
-                        if (!combined) {
-                            mergedObservations.add(convertObservation(sosObservation));
-                        }
-                    }
-                }
+        ObservationStream observations =
+                MergingObservationStream.flatten(response.getObservationCollection(), INDICATOR);
+        KeyedObservationMerger merger = new KeyedObservationMerger(INDICATOR,
+                (merged, toAdd) -> checkForMerge(merged, toAdd, INDICATOR), this::mergeValues);
+        while (observations.hasNext()) {
+            OmObservation observation = observations.next();
+            if (checkForProcedure(observation)) {
+                merger.add(convertObservation(observation));
             }
-            return mergedObservations;
         }
-        return Lists.newArrayList(observations);
+        for (OmObservation observation : merger.getMergedObservations()) {
+            checkFeature(observation.getObservationConstellation().getFeatureOfInterest());
+        }
+        response.setObservationCollection(merger.toStream());
+        return response;
     }
 
     private OwsServiceResponse checkGetObservationFeatures(GetObservationResponse response)
@@ -303,22 +282,6 @@ public class EprtrConverter implements RequestResponseModifier {
         return false;
     }
 
-    private List<OmObservation> mergeStreamingData(ObservationStream observationStream) throws OwsExceptionReport {
-        List<OmObservation> processed = new LinkedList<>();
-        while (observationStream.hasNext()) {
-            OmObservation observation = observationStream.next();
-            if (observation.getValue() instanceof AbstractStreaming) {
-                ObservationStream valueStream = ((AbstractStreaming) observation.getValue()).merge(INDICATOR);
-                while (valueStream.hasNext()) {
-                    processed.add(valueStream.next());
-                }
-            } else {
-                processed.add(observation);
-            }
-        }
-        return processed;
-    }
-
     private boolean checkForProcedure(OmObservation sosObservation) {
         return POLLUTANT_RELEASE.equals(sosObservation.getObservationConstellation().getProcedureIdentifier())
                 || POLLUTANT_TRANSFER.equals(sosObservation.getObservationConstellation().getProcedureIdentifier())
@@ -28,10 +28,7 @@
  */
 package org.n52.sos.convert;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
@@ -69,11 +66,10 @@ import org.n52.shetland.ogc.sos.request.GetObservationRequest;
 import org.n52.shetland.ogc.sos.response.AbstractObservationResponse;
 import org.n52.shetland.ogc.sos.response.GetObservationByIdResponse;
 import org.n52.shetland.ogc.sos.response.GetObservationResponse;
-import org.n52.shetland.util.CollectionHelper;
 import org.n52.sos.cache.SosContentCache;
 import org.n52.sos.service.SosSettings;
+import org.n52.sos.util.MergingObservationStream;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -174,207 +170,56 @@ public class InspireObservationResponseConverter extends AbstractRequestResponse
      *             If an error occurs
      */
     private void checkData(OwsServiceRequest request, AbstractObservationResponse response) throws OwsExceptionReport {
-        Map<String, List<OmObservation>> map = Maps.newHashMap();
-        while (response.getObservationCollection().hasNext()) {
-            OmObservation omObservation = response.getObservationCollection().next();
-            if (omObservation.getValue() instanceof StreamingValue<?>) {
-                if (checkRequestedObservationTypeForOffering(omObservation, request)) {
-                    String observationType = checkForObservationTypeForStreaming(omObservation, request);
-                    while (((StreamingValue<?>) omObservation.getValue()).hasNext()) {
-                        OmObservation observation = ((StreamingValue<?>) omObservation.getValue()).next();
-                        if (InspireOMSOConstants.OBS_TYPE_PROFILE_OBSERVATION.equals(observationType)) {
-                            putOrAdd(map, InspireOMSOConstants.OBS_TYPE_PROFILE_OBSERVATION,
-                                    convertToProfileObservations(observation));
-                        } else if (InspireOMSOConstants.OBS_TYPE_TRAJECTORY_OBSERVATION.equals(observationType)) {
-                            putOrAdd(map, InspireOMSOConstants.OBS_TYPE_TRAJECTORY_OBSERVATION,
-                                    convertToTrajectoryObservations(observation));
-                        } else if (InspireOMSOConstants.OBS_TYPE_MULTI_POINT_OBSERVATION.equals(observationType)) {
-                            putOrAdd(map, InspireOMSOConstants.OBS_TYPE_MULTI_POINT_OBSERVATION,
-                                    convertToMultiPointObservations(observation));
-                        } else if (InspireOMSOConstants.OBS_TYPE_POINT_TIME_SERIES_OBSERVATION
-                                .equals(observationType)) {
-                            putOrAdd(map, InspireOMSOConstants.OBS_TYPE_POINT_TIME_SERIES_OBSERVATION,
-                                    convertToPointTimeSeriesObservations(observation));
-                        } else if (InspireOMSOConstants.OBS_TYPE_POINT_OBSERVATION.equals(observationType)) {
-                            putOrAdd(map, InspireOMSOConstants.OBS_TYPE_POINT_OBSERVATION,
-                                    convertToPointObservations(observation));
-                        }
-                    }
-                }
-            }
-        }
-        response.setObservationCollection(mergeObservations(map));
-    }
-
-    /**
-     * Merge the observations depending on their observationType
-     *
-     * @param map
-     *            {@link Map} with observationType key
-     * @return Merged observations
-     * @throws OwsExceptionReport
-     *             If an error occurs
-     */
-    private ObservationStream mergeObservations(Map<String, List<OmObservation>> map) throws OwsExceptionReport {
-        List<OmObservation> mergedObservations = Lists.newArrayList();
-        for (Entry<String, List<OmObservation>> entry : map.entrySet()) {
-            switch (entry.getKey()) {
-                case InspireOMSOConstants.OBS_TYPE_PROFILE_OBSERVATION:
-                    mergedObservations.addAll(mergeProfileObservation(ObservationStream.of(map.get(entry.getKey()))));
-                    break;
-                case InspireOMSOConstants.OBS_TYPE_TRAJECTORY_OBSERVATION:
-                    mergedObservations.addAll(mergeTrajectoryObservation(
-                            ObservationStream.of(map.get(entry.getKey()))));
-                    break;
-                case InspireOMSOConstants.OBS_TYPE_MULTI_POINT_OBSERVATION:
-                    mergedObservations.addAll(mergeMultiPointObservation(
-                            ObservationStream.of(map.get(entry.getKey()))));
-                    break;
-                case InspireOMSOConstants.OBS_TYPE_POINT_TIME_SERIES_OBSERVATION:
-                    mergedObservations
-                            .addAll(mergePointTimeSeriesObservation(ObservationStream.of(map.get(entry.getKey()))));
-                    break;
-                default:
-                    mergedObservations.addAll(map.get(entry.getKey()));
-                    break;
-            }
-        }
-        return ObservationStream.of(mergedObservations);
-    }
-
-    /**
-     * Merge observation of observationType
-     * {@link InspireOMSOConstants#OBS_TYPE_POINT_TIME_SERIES_OBSERVATION}
-     *
-     * @param observations
-     *            {@link OmObservation}s to merge
-     * @return Merged observations
-     * @throws OwsExceptionReport
-     *             If an error occurs
-     */
-    private Collection<? extends OmObservation> mergePointTimeSeriesObservation(ObservationStream observations)
-            throws OwsExceptionReport {
-        return toList(observations.merge(
-                ObservationMergeIndicator.sameObservationConstellation().setResultTime(includeResultTimeForMerging)));
-    }
-
-    /**
-     ** Merge observation of observationType
-     * {@link InspireOMSOConstants#OBS_TYPE_MULTI_POINT_OBSERVATION}
-     *
-     * @param observations
-     *            {@link OmObservation}s to merge
-     * @return Merged observations
-     * @throws OwsExceptionReport
-     *             If an error occurs
-     */
-    private Collection<? extends OmObservation> mergeMultiPointObservation(ObservationStream observations)
-            throws OwsExceptionReport {
-        ObservationMergeIndicator observationMergeIndicator = new ObservationMergeIndicator();
-        observationMergeIndicator.setObservableProperty(true).setProcedure(true).setPhenomenonTime(true);
-        return toList(observations.merge(observationMergeIndicator));
-    }
-
-    /**
-     * Merge observation of observationType
-     * {@link InspireOMSOConstants#OBS_TYPE_PROFILE_OBSERVATION}
-     *
-     * @param observations
-     *            {@link OmObservation}s to merge
-     * @return Merged observations
-     * @throws OwsExceptionReport
-     *             If an error occurs
-     */
-    private Collection<? extends OmObservation> mergeProfileObservation(ObservationStream observations)
-            throws OwsExceptionReport {
-        ObservationMergeIndicator observationMergeIndicator = new ObservationMergeIndicator();
-        observationMergeIndicator.setObservableProperty(true).setProcedure(true).setFeatureOfInterest(true)
-                .setPhenomenonTime(true).setOfferings(true);
-        return toList(observations.merge(observationMergeIndicator));
-    }
-
-    /**
-     * Merge observation of observationType
-     * {@link InspireOMSOConstants#OBS_TYPE_TRAJECTORY_OBSERVATION}
-     *
-     * @param observations
-     *            {@link OmObservation}s to merge
-     * @return Merged observations
-     * @throws OwsExceptionReport
-     *             If an error occurs
-     */
-    private Collection<? extends OmObservation> mergeTrajectoryObservation(ObservationStream observations)
-            throws OwsExceptionReport {
-        ObservationMergeIndicator observationMergeIndicator = new ObservationMergeIndicator();
-        observationMergeIndicator.setObservableProperty(true).setProcedure(true).setFeatureOfInterest(true)
+        ObservationMergeIndicator pointTimeSeries =
+                ObservationMergeIndicator.sameObservationConstellation().setResultTime(includeResultTimeForMerging);
+        ObservationMergeIndicator multiPoint = new ObservationMergeIndicator();
+        multiPoint.setObservableProperty(true).setProcedure(true).setPhenomenonTime(true);
+        ObservationMergeIndicator profile = new ObservationMergeIndicator();
+        profile.setObservableProperty(true).setProcedure(true).setFeatureOfInterest(true).setPhenomenonTime(true)
                 .setOfferings(true);
-        return toList(observations.merge(observationMergeIndicator));
-    }
-
-    private Collection<? extends OmObservation> toList(ObservationStream stream)
-            throws NoSuchElementException, OwsExceptionReport {
-        List<OmObservation> observations = new ArrayList<>();
-        while (stream.hasNext()) {
-            observations.add(stream.next());
-        }
-        return observations;
-    }
-
-    /**
-     * Convert observation to {@link PointObservation}
-     *
-     * @param observation
-     *            {@link OmObservation} to convert
-     * @return Converted observation
-     */
-    private List<OmObservation> convertToPointObservations(OmObservation observation) {
-        return Lists.<OmObservation> newArrayList(new PointObservation(observation));
-    }
-
-    /**
-     * Convert observation to {@link PointTimeSeriesObservation}
-     *
-     * @param observation
-     *            {@link OmObservation} to convert
-     * @return Converted observation
-     */
-    private List<OmObservation> convertToPointTimeSeriesObservations(OmObservation observation) {
-        return Lists.<OmObservation> newArrayList(new PointTimeSeriesObservation(observation));
+        ObservationMergeIndicator trajectory = new ObservationMergeIndicator();
+        trajectory.setObservableProperty(true).setProcedure(true).setFeatureOfInterest(true).setOfferings(true);
+        // convert and merge the observations while the response is encoded, point observations are not merged.
+        // The values of a streaming value belong to one feature and are adjacent, multi point observations merge
+        // the values of different features and are therefore merged by key independent of their order.
+        response.setObservationCollection(new MergingObservationStream(
+                new ConvertingObservationStream(request, response.getObservationCollection()), observation -> {
+                    if (observation instanceof TrajectoryObservation) {
+                        return trajectory;
+                    } else if (observation instanceof ProfileObservation) {
+                        return profile;
+                    } else if (observation instanceof MultiPointObservation) {
+                        return multiPoint;
+                    } else if (observation instanceof PointTimeSeriesObservation) {
+                        return pointTimeSeries;
+                    }
+                    return null;
+                }).mergeKeyed(multiPoint));
     }
 
     /**
-     * Convert observation to {@link MultiPointObservation}
+     * Convert the observation to the INSPIRE OM Specialised Observation of
+     * the observation type
      *
      * @param observation
      *            {@link OmObservation} to convert
+     * @param observationType
+     *            the INSPIRE observation type
      * @return Converted observation
      * @throws CodedException
      *             If an error occurs
      */
-    private List<OmObservation> convertToMultiPointObservations(OmObservation observation) throws CodedException {
-        return Lists.<OmObservation> newArrayList(new MultiPointObservation(observation));
-    }
-
-    /**
-     * Convert observation to {@link ProfileObservation}
-     *
-     * @param observation
-     *            {@link OmObservation} to convert
-     * @return Converted observation
-     */
-    private List<OmObservation> convertToProfileObservations(OmObservation observation) {
-        return Lists.<OmObservation> newArrayList(new ProfileObservation(observation));
-    }
-
-    /**
-     * Convert observation to {@link TrajectoryObservation}
-     *
-     * @param observation
-     *            {@link OmObservation} to convert
-     * @return Converted observation
-     */
-    private List<OmObservation> convertToTrajectoryObservations(OmObservation observation) {
-        return Lists.<OmObservation> newArrayList(new TrajectoryObservation(observation));
+    private OmObservation convert(OmObservation observation, String observationType) throws CodedException {
+        if (InspireOMSOConstants.OBS_TYPE_PROFILE_OBSERVATION.equals(observationType)) {
+            return new ProfileObservation(observation);
+        } else if (InspireOMSOConstants.OBS_TYPE_TRAJECTORY_OBSERVATION.equals(observationType)) {
+            return new TrajectoryObservation(observation);
+        } else if (InspireOMSOConstants.OBS_TYPE_MULTI_POINT_OBSERVATION.equals(observationType)) {
+            return new MultiPointObservation(observation);
+        } else if (InspireOMSOConstants.OBS_TYPE_POINT_TIME_SERIES_OBSERVATION.equals(observationType)) {
+            return new PointTimeSeriesObservation(observation);
+        }
+        return new PointObservation(observation);
     }
 
     /**
@@ -510,22 +355,54 @@ public class InspireObservationResponseConverter extends AbstractRequestResponse
     }
 
     /**
-     * Put/add {@link OmObservation}s to the map
-     *
-     * @param map
-     *            The map to put/add
-     * @param type
-     *            The key to put/add values for
-     * @param observations
-     *            The values to add
+     * Lazily converts the observations of the {@link StreamingValue}s of the
+     * response into INSPIRE OM Specialised Observations.
      */
-    private void putOrAdd(Map<String, List<OmObservation>> map, String type, List<OmObservation> observations) {
-        if (CollectionHelper.isNotEmpty(observations)) {
-            if (map.containsKey(type)) {
-                map.get(type).addAll(observations);
-            } else {
-                map.put(type, observations);
+    private final class ConvertingObservationStream implements ObservationStream {
+
+        private final OwsServiceRequest request;
+
+        private final ObservationStream source;
+
+        private StreamingValue<?> streamingValue;
+
+        private String observationType;
+
+        private OmObservation lookahead;
+
+        ConvertingObservationStream(OwsServiceRequest request, ObservationStream source) {
+            this.request = request;
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNext() throws OwsExceptionReport {
+            while (lookahead == null) {
+                if (streamingValue != null && streamingValue.hasNext()) {
+                    lookahead = convert(streamingValue.next(), observationType);
+                } else if (source.hasNext()) {
+                    streamingValue = null;
+                    OmObservation omObservation = source.next();
+                    if (omObservation.getValue() instanceof StreamingValue<?>
+                            && checkRequestedObservationTypeForOffering(omObservation, request)) {
+                        observationType = checkForObservationTypeForStreaming(omObservation, request);
+                        streamingValue = (StreamingValue<?>) omObservation.getValue();
+                    }
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public OmObservation next() throws OwsExceptionReport {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
+            OmObservation next = lookahead;
+            lookahead = null;
+            return next;
         }
     }
 
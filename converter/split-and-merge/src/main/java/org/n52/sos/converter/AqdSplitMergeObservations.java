@@ -38,6 +38,7 @@ import org.n52.iceland.convert.RequestResponseModifierFacilitator;
 import org.n52.iceland.convert.RequestResponseModifierKey;
 import org.n52.shetland.aqd.AqdConstants;
 import org.n52.shetland.ogc.om.ObservationMergeIndicator;
+import org.n52.shetland.ogc.om.ObservationStream;
 import org.n52.shetland.ogc.om.OmObservation;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
@@ -45,6 +46,7 @@ import org.n52.shetland.ogc.ows.service.OwsServiceResponse;
 import org.n52.shetland.ogc.sos.request.GetObservationRequest;
 import org.n52.shetland.ogc.sos.response.GetObservationResponse;
 import org.n52.shetland.ogc.swe.SweDataArray;
+import org.n52.sos.util.MergingObservationStream;
 
 public class AqdSplitMergeObservations implements RequestResponseModifier {
 
@@ -73,8 +75,12 @@ public class AqdSplitMergeObservations implements RequestResponseModifier {
                     ObservationMergeIndicator.sameObservationConstellation().withoutObservationType();
             GetObservationResponse observationResponse = (GetObservationResponse) response;
             observationResponse.setMergeObservations(true);
-            observationResponse
-                    .setObservationCollection(observationResponse.getObservationCollection().merge(indicator));
+            // the indicator ignores the observation type, so observations with the same key can come from
+            // different datasets and are not adjacent, merge them by key while the response is encoded
+            ObservationStream observations =
+                    MergingObservationStream.flatten(observationResponse.getObservationCollection(), indicator);
+            observationResponse.setObservationCollection(
+                    new MergingObservationStream(observations, indicator).mergeKeyed(indicator));
         }
         return response;
     }
@@ -32,7 +32,6 @@ import static java.util.stream.Collectors.toSet;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -50,7 +49,6 @@ import org.n52.shetland.ogc.gml.time.Time;
 import org.n52.shetland.ogc.gml.time.TimeInstant;
 import org.n52.shetland.ogc.om.AbstractPhenomenon;
 import org.n52.shetland.ogc.om.ObservationMergeIndicator;
-import org.n52.shetland.ogc.om.ObservationStream;
 import org.n52.shetland.ogc.om.ObservationValue;
 import org.n52.shetland.ogc.om.OmConstants;
 import org.n52.shetland.ogc.om.OmObservation;
@@ -73,7 +71,6 @@ import org.n52.shetland.ogc.sos.request.AbstractObservationRequest;
 import org.n52.shetland.ogc.sos.request.GetObservationRequest;
 import org.n52.shetland.ogc.sos.request.InsertObservationRequest;
 import org.n52.shetland.ogc.sos.response.AbstractObservationResponse;
-import org.n52.shetland.ogc.sos.response.AbstractStreaming;
 import org.n52.shetland.ogc.sos.response.GetObservationResponse;
 import org.n52.shetland.ogc.sos.response.InsertObservationResponse;
 import org.n52.shetland.ogc.swe.SweDataRecord;
@@ -85,6 +82,7 @@ import org.n52.shetland.util.DateTimeHelper;
 import org.n52.shetland.util.OMHelper;
 import org.n52.sos.service.SosSettings;
 import org.n52.sos.service.profile.ProfileHandler;
+import org.n52.sos.util.MergingObservationStream;
 import org.n52.svalbard.encode.EncoderRepository;
 import org.n52.svalbard.encode.ObservationEncoder;
 import org.n52.svalbard.encode.OperationResponseEncoderKey;
@@ -350,24 +348,24 @@ public class SplitMergeObservations
         ObservationMergeIndicator indicator =
                 ObservationMergeIndicator.sameObservationConstellation().setResultTime(includeResultTimeForMerging);
         if (checkForMergeObservationsInResponse || checkEncoderForMergeObservations) {
-            ObservationStream observationStream = response.getObservationCollection().merge(indicator);
-            List<OmObservation> processed = new LinkedList<>();
-            while (observationStream.hasNext()) {
-                OmObservation observation = observationStream.next();
-                if (observation.getValue() instanceof AbstractStreaming) {
-                    ObservationStream valueStream = ((AbstractStreaming) observation.getValue()).merge(indicator);
-                    while (valueStream.hasNext()) {
-                        processed.add(valueStream.next());
-                    }
-                } else {
-                    processed.add(observation);
-                }
+            // merge adjacent observations while the response is encoded instead of materializing all
+            MergingObservationStream observations = new MergingObservationStream(
+                    MergingObservationStream.flatten(response.getObservationCollection(), indicator), indicator);
+            if (isFirstLatestRequest(request)) {
+                // first and latest observations are returned per filter, so the observations of a series are not
+                // adjacent, merge the few observations independent of their order
+                observations.mergeKeyed(indicator);
             }
-            response.setObservationCollection(ObservationStream.of(processed));
+            response.setObservationCollection(observations);
         }
         return response;
     }
 
+    private boolean isFirstLatestRequest(AbstractObservationRequest request) {
+        return request instanceof GetObservationRequest
+                && ((GetObservationRequest) request).hasFirstLatestTemporalFilter();
+    }
+
     private boolean checkEncoderForMergeObservations(AbstractObservationResponse response)
             throws OwsExceptionReport {
         if (response.isSetResponseFormat()) {
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.converter;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.n52.shetland.ogc.om.ObservationMergeIndicator;
+import org.n52.shetland.ogc.om.ObservationStream;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.OmObservationConstellation;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.request.GetObservationRequest;
+import org.n52.shetland.ogc.sos.response.GetObservationResponse;
+
+public class AqdSplitMergeObservationsTest {
+
+    @Test
+    public void shouldNotConsumeObservationsWhenModifyingResponse() throws OwsExceptionReport {
+        CountingObservationStream source = new CountingObservationStream();
+        GetObservationResponse response = new GetObservationResponse();
+        response.setObservationCollection(source);
+
+        new AqdSplitMergeObservations().modifyResponse(new GetObservationRequest(), response);
+
+        MatcherAssert.assertThat(source.calls, Matchers.is(0));
+        MatcherAssert.assertThat(response.getObservationCollection().hasNext(), Matchers.is(false));
+        MatcherAssert.assertThat(source.calls, Matchers.greaterThan(0));
+    }
+
+    @Test
+    public void shouldMergeObservationsThatAreNotAdjacent() throws OwsExceptionReport {
+        OmObservation a1 = createObservation();
+        OmObservation b1 = createObservation();
+        OmObservation a2 = createObservation();
+        OmObservation b2 = createObservation();
+        when(a1.checkForMerge(any(OmObservation.class), any(ObservationMergeIndicator.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0) == a2);
+        when(b1.checkForMerge(any(OmObservation.class), any(ObservationMergeIndicator.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0) == b2);
+        GetObservationResponse response = new GetObservationResponse();
+        response.setObservationCollection(ObservationStream.of(Arrays.asList(a1, b1, a2, b2)));
+
+        new AqdSplitMergeObservations().modifyResponse(new GetObservationRequest(), response);
+
+        MatcherAssert.assertThat(toList(response.getObservationCollection()), Matchers.contains(a1, b1));
+        verify(a1).mergeWithObservation(a2);
+        verify(b1).mergeWithObservation(b2);
+        verify(a1, never()).mergeWithObservation(b1);
+    }
+
+    @Test
+    public void shouldKeepOrderOfFirstOccurrence() throws OwsExceptionReport {
+        OmObservation b1 = createObservation();
+        OmObservation a1 = createObservation();
+        OmObservation c = createObservation();
+        OmObservation a2 = createObservation();
+        when(a1.checkForMerge(any(OmObservation.class), any(ObservationMergeIndicator.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0) == a2);
+        GetObservationResponse response = new GetObservationResponse();
+        response.setObservationCollection(ObservationStream.of(Arrays.asList(b1, a1, c, a2)));
+
+        new AqdSplitMergeObservations().modifyResponse(new GetObservationRequest(), response);
+
+        MatcherAssert.assertThat(toList(response.getObservationCollection()), Matchers.contains(b1, a1, c));
+        verify(a1).mergeWithObservation(a2);
+    }
+
+    private OmObservation createObservation() {
+        OmObservation observation = mock(OmObservation.class);
+        when(observation.getObservationConstellation()).thenReturn(mock(OmObservationConstellation.class));
+        return observation;
+    }
+
+    private List<OmObservation> toList(ObservationStream stream) throws OwsExceptionReport {
+        List<OmObservation> list = new ArrayList<>();
+        while (stream.hasNext()) {
+            list.add(stream.next());
+        }
+        return list;
+    }
+
+    private static final class CountingObservationStream implements ObservationStream {
+
+        private int calls;
+
+        @Override
+        public boolean hasNext() throws OwsExceptionReport {
+            calls++;
+            return false;
+        }
+
+        @Override
+        public OmObservation next() throws OwsExceptionReport {
+            calls++;
+            throw new NoSuchElementException();
+        }
+    }
+
+}
@@ -28,13 +28,23 @@
  */
 package org.n52.sos.converter;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
 import java.util.List;
 
 import org.hamcrest.CoreMatchers;
 import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.hamcrest.core.Is;
 import org.junit.Test;
 import org.n52.shetland.ogc.om.MultiObservationValues;
+import org.n52.shetland.ogc.om.ObservationMergeIndicator;
+import org.n52.shetland.ogc.om.ObservationStream;
 import org.n52.shetland.ogc.om.ObservationValue;
 import org.n52.shetland.ogc.om.OmConstants;
 import org.n52.shetland.ogc.om.OmObservableProperty;
@@ -45,7 +55,9 @@ import org.n52.shetland.ogc.om.values.SweDataArrayValue;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
 import org.n52.shetland.ogc.sos.Sos2Constants;
+import org.n52.shetland.ogc.sos.request.GetObservationRequest;
 import org.n52.shetland.ogc.sos.request.InsertObservationRequest;
+import org.n52.shetland.ogc.sos.response.GetObservationResponse;
 import org.n52.shetland.ogc.swe.SweDataArray;
 import org.n52.shetland.ogc.swe.SweDataRecord;
 import org.n52.shetland.ogc.swe.SweField;
@@ -54,6 +66,8 @@ import org.n52.shetland.ogc.swe.simpleType.SweBoolean;
 import org.n52.shetland.ogc.swe.simpleType.SweQuantity;
 import org.n52.shetland.ogc.swe.simpleType.SweTime;
 import org.n52.shetland.ogc.swes.SwesExtension;
+import org.n52.sos.service.profile.Profile;
+import org.n52.sos.service.profile.ProfileHandler;
 import org.n52.sos.util.builder.InsertObservationRequestBuilder;
 import org.n52.sos.util.builder.ObservationBuilder;
 
@@ -143,4 +157,65 @@ public class SplitMergeObservationsTest {
        MatcherAssert.assertThat(obs1.getIdentifier(), Is.is(identifier + "2"));
     }
 
+    @Test
+    public void shouldMergeFirstAndLatestObservationOfSeries() throws OwsExceptionReport {
+        OmObservation firstA = createObservation();
+        OmObservation firstB = createObservation();
+        OmObservation latestA = createObservation();
+        OmObservation latestB = createObservation();
+        when(firstA.checkForMerge(any(OmObservation.class), any(ObservationMergeIndicator.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0) == latestA);
+        when(firstB.checkForMerge(any(OmObservation.class), any(ObservationMergeIndicator.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0) == latestB);
+        GetObservationRequest request = mock(GetObservationRequest.class);
+        when(request.hasFirstLatestTemporalFilter()).thenReturn(true);
+        GetObservationResponse response = new GetObservationResponse();
+        response.setObservationCollection(ObservationStream.of(Lists.newArrayList(firstA, firstB, latestA, latestB)));
+
+        createMergingSplitMergeObservations().modifyResponse(request, response);
+
+        MatcherAssert.assertThat(toList(response.getObservationCollection()), Matchers.contains(firstA, firstB));
+        verify(firstA).mergeWithObservation(latestA);
+        verify(firstB).mergeWithObservation(latestB);
+        verify(firstA, never()).mergeWithObservation(firstB);
+    }
+
+    @Test
+    public void shouldMergeFirstAndLatestObservationOfSingleSeries() throws OwsExceptionReport {
+        OmObservation first = createObservation();
+        OmObservation latest = createObservation();
+        when(first.checkForMerge(any(OmObservation.class), any(ObservationMergeIndicator.class))).thenReturn(true);
+        GetObservationRequest request = mock(GetObservationRequest.class);
+        when(request.hasFirstLatestTemporalFilter()).thenReturn(true);
+        GetObservationResponse response = new GetObservationResponse();
+        response.setObservationCollection(ObservationStream.of(Lists.newArrayList(first, latest)));
+
+        createMergingSplitMergeObservations().modifyResponse(request, response);
+
+        MatcherAssert.assertThat(toList(response.getObservationCollection()), Matchers.contains(first));
+        verify(first).mergeWithObservation(latest);
+    }
+
+    private SplitMergeObservations createMergingSplitMergeObservations() {
+        ProfileHandler profileHandler = mock(ProfileHandler.class);
+        when(profileHandler.getActiveProfile()).thenReturn(new Profile("merging").setMergeValues(true));
+        SplitMergeObservations splitMergeObservations = new SplitMergeObservations();
+        splitMergeObservations.setProfileHandler(profileHandler);
+        return splitMergeObservations;
+    }
+
+    private OmObservation createObservation() {
+        OmObservation observation = mock(OmObservation.class);
+        when(observation.getObservationConstellation()).thenReturn(mock(OmObservationConstellation.class));
+        return observation;
+    }
+
+    private List<OmObservation> toList(ObservationStream stream) throws OwsExceptionReport {
+        List<OmObservation> list = new ArrayList<>();
+        while (stream.hasNext()) {
+            list.add(stream.next());
+        }
+        return list;
+    }
+
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the progress of a running complete cache update, split up into the
+ * phases of the update, for the administration interface. Each phase records
+ * its state, duration and, if known, the number of processed units (e.g.
+ * offerings or procedures). The expected remaining time is extrapolated from
+ * the elapsed time and the overall fraction of completed work.
+ *
+ * @since 5.3.2
+ */
+public class CacheUpdateProgress {
+
+    private volatile Run current;
+
+    private volatile Run last;
+
+    /**
+     * Start tracking a new cache update.
+     *
+     * @param phases
+     *            the names of the phases of the update
+     */
+    public synchronized void start(Collection<String> phases) {
+        this.current = new Run(phases);
+    }
+
+    /**
+     * Finish the currently tracked cache update.
+     */
+    public synchronized void finish() {
+        if (current != null) {
+            current.end = System.currentTimeMillis();
+            this.last = current;
+            this.current = null;
+        }
+    }
+
+    /**
+     * Get the phase with the supplied name of the currently tracked cache
+     * update.
+     *
+     * @param name
+     *            the phase name
+     * @return the phase, or a detached phase if no update is tracked or the
+     *         name is unknown
+     */
+    public Phase getPhase(String name) {
+        Run run = this.current;
+        if (run != null) {
+            for (Phase phase : run.phases) {
+                if (phase.getName().equals(name)) {
+                    return phase;
+                }
+            }
+        }
+        return new Phase(name);
+    }
+
+    public boolean isRunning() {
+        return current != null;
+    }
+
+    /**
+     * @return the progress of the running cache update, or the summary of the
+     *         last one if none is running
+     */
+    public Map<String, Object> toMap() {
+        Run run = current != null ? current : last;
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("running", current != null);
+        if (run != null) {
+            run.toMap(map);
+        }
+        return map;
+    }
+
+    private static final class Run {
+        private final long start = System.currentTimeMillis();
+        private final List<Phase> phases = new ArrayList<>();
+        private volatile long end = -1;
+
+        Run(Collection<String> names) {
+            for (String name : names) {
+                phases.add(new Phase(name));
+            }
+        }
+
+        void toMap(Map<String, Object> map) {
+            long now = end < 0 ? System.currentTimeMillis() : end;
+            long elapsed = now - start;
+            double fraction = 0;
+            List<Map<String, Object>> phaseMaps = new ArrayList<>(phases.size());
+            for (Phase phase : phases) {
+                fraction += phase.getFraction() / phases.size();
+                phaseMaps.add(phase.toMap(now));
+            }
+            map.put("start", start);
+            map.put("elapsed", elapsed);
+            map.put("percent", Math.round(fraction * 1000) / 10.0);
+            if (end < 0 && fraction > 0) {
+                map.put("eta", Math.round(elapsed * (1 - fraction) / fraction));
+            }
+            map.put("phases", Collections.unmodifiableList(phaseMaps));
+        }
+    }
+
+    /**
+     * Progress of a single phase of the cache update.
+     */
+    public static final class Phase {
+        private final String name;
+        private final AtomicLong completed = new AtomicLong();
+        private volatile long total = -1;
+        private volatile long start = -1;
+        private volatile long end = -1;
+        private volatile boolean failed;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void start() {
+            this.start = System.currentTimeMillis();
+        }
+
+        /**
+         * @param total
+         *            the number of units this phase has to process
+         */
+        public void setTotal(long total) {
+            this.total = total;
+        }
+
+        /**
+         * Mark one unit of this phase as processed.
+         */
+        public void increment() {
+            completed.incrementAndGet();
+        }
+
+        public void finish(boolean failed) {
+            this.failed = failed;
+            this.end = System.currentTimeMillis();
+        }
+
+        double getFraction() {
+            if (end >= 0) {
+                return 1;
+            }
+            long t = total;
+            return t > 0 ? Math.min(1, completed.get() / (double) t) : 0;
+        }
+
+        private String getState() {
+            if (end >= 0) {
+                return failed ? "failed" : "finished";
+            }
+            return start >= 0 ? "running" : "waiting";
+        }
+
+        Map<String, Object> toMap(long now) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("state", getState());
+            if (start >= 0) {
+                map.put("duration", (end >= 0 ? end : now) - start);
+            }
+            map.put("completed", completed.get());
+            if (total >= 0) {
+                map.put("total", total);
+            }
+            return map;
+        }
+    }
+}
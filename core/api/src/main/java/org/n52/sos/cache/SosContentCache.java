@@ -614,6 +614,58 @@ public interface SosContentCache
      */
     Set<String> getChildOfferings(Set<String> offering, boolean fullHierarchy, boolean includeSelves);
 
+    /**
+     * Returns all direct and indirect parent procedures of the passed procedure. Implementations may
+     * answer it from a precomputed closure, the default implementation traverses the hierarchy with
+     * {@link #getParentProcedures(String, boolean, boolean)} on each call.
+     *
+     * @param procedure the procedure id to find ancestors for
+     *
+     * @return an unmodifiable set containing the ancestors of the procedure
+     */
+    default Set<String> getAncestorProcedures(String procedure) {
+        return Collections.unmodifiableSet(getParentProcedures(procedure, true, false));
+    }
+
+    /**
+     * Returns all direct and indirect child procedures of the passed procedure. Implementations may
+     * answer it from a precomputed closure, the default implementation traverses the hierarchy with
+     * {@link #getChildProcedures(String, boolean, boolean)} on each call.
+     *
+     * @param procedure the procedure id to find descendants for
+     *
+     * @return an unmodifiable set containing the descendants of the procedure
+     */
+    default Set<String> getDescendantProcedures(String procedure) {
+        return Collections.unmodifiableSet(getChildProcedures(procedure, true, false));
+    }
+
+    /**
+     * Returns all direct and indirect parent offerings of the passed offering. Implementations may
+     * answer it from a precomputed closure, the default implementation traverses the hierarchy with
+     * {@link #getParentOfferings(String, boolean, boolean)} on each call.
+     *
+     * @param offering the offering id to find ancestors for
+     *
+     * @return an unmodifiable set containing the ancestors of the offering
+     */
+    default Set<String> getAncestorOfferings(String offering) {
+        return Collections.unmodifiableSet(getParentOfferings(offering, true, false));
+    }
+
+    /**
+     * Returns all direct and indirect child offerings of the passed offering. Implementations may
+     * answer it from a precomputed closure, the default implementation traverses the hierarchy with
+     * {@link #getChildOfferings(String, boolean, boolean)} on each call.
+     *
+     * @param offering the offering id to find descendants for
+     *
+     * @return an unmodifiable set containing the descendants of the offering
+     */
+    default Set<String> getDescendantOfferings(String offering) {
+        return Collections.unmodifiableSet(getChildOfferings(offering, true, false));
+    }
+
     /**
      * Returns <code>true</code> if the passed offering has parent offerings.
      *
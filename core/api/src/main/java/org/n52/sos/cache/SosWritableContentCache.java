@@ -256,6 +256,20 @@ public interface SosWritableContentCache
      */
     void addParentOfferings(String offering, Collection<String> parentOfferings);
 
+    /**
+     * Remove all parent and child relations of the specified procedure.
+     *
+     * @param procedure the procedure
+     */
+    void removeProcedureHierarchy(String procedure);
+
+    /**
+     * Remove all parent and child relations of the specified offering.
+     *
+     * @param offering the offering
+     */
+    void removeOfferingHierarchy(String offering);
+
     /**
      * Add the specified procedure.
      *
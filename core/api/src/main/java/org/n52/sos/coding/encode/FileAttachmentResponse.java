@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.coding.encode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.n52.janmayen.http.MediaType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Binary attachment whose content is stored in files of a temporary
+ * directory. The content is streamed from disk to the response, a single file
+ * as is or all files of the directory as ZIP archive, instead of being held in
+ * memory. The directory is owned by the response and deleted when the
+ * response is closed, which {@link FileAttachmentResponseWriter} does after
+ * writing.
+ *
+ * @since 5.3.2
+ */
+public class FileAttachmentResponse implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileAttachmentResponse.class);
+
+    private final Path directory;
+
+    private final Path file;
+
+    private final MediaType contentType;
+
+    private final String filename;
+
+    /**
+     * Create a response for a single file.
+     *
+     * @param directory
+     *            the temporary directory, deleted on {@link #close()}
+     * @param file
+     *            the file to write
+     * @param contentType
+     *            the content type
+     * @param filename
+     *            the attachment filename
+     */
+    public FileAttachmentResponse(Path directory, Path file, MediaType contentType, String filename) {
+        this.directory = directory;
+        this.file = file;
+        this.contentType = contentType;
+        this.filename = filename;
+    }
+
+    /**
+     * Create a response that writes all files of the directory as ZIP
+     * archive.
+     *
+     * @param directory
+     *            the temporary directory, deleted on {@link #close()}
+     * @param contentType
+     *            the content type
+     * @param filename
+     *            the attachment filename
+     */
+    public FileAttachmentResponse(Path directory, MediaType contentType, String filename) {
+        this(directory, null, contentType, filename);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public MediaType getContentType() {
+        return contentType;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public boolean isZip() {
+        return file == null;
+    }
+
+    /**
+     * @return the size of the content or {@code -1} if it is only known after
+     *         writing
+     * @throws IOException
+     *             if the size can not be read
+     */
+    public long getContentLength() throws IOException {
+        return isZip() ? -1 : Files.size(file);
+    }
+
+    /**
+     * Stream the content to the output. Files of a ZIP archive are deleted as
+     * soon as they are written.
+     *
+     * @param out
+     *            the output, not closed
+     * @throws IOException
+     *             if reading or writing fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (!isZip()) {
+            Files.copy(file, out);
+            return;
+        }
+        ZipOutputStream zip = new ZipOutputStream(out);
+        for (Path entry : listFiles()) {
+            zip.putNextEntry(new ZipEntry(entry.getFileName().toString()));
+            Files.copy(entry, zip);
+            zip.closeEntry();
+            Files.deleteIfExists(entry);
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    @Override
+    public void close() {
+        delete(directory);
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Create a temporary directory for the files of a response.
+     *
+     * @param prefix
+     *            the directory name prefix
+     * @return the directory
+     * @throws IOException
+     *             if the directory can not be created
+     */
+    public static Path createTempDirectory(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix);
+    }
+
+    /**
+     * Delete the directory and its content, failures are logged.
+     *
+     * @param directory
+     *            the directory to delete, may be {@code null}
+     */
+    public static void delete(Path directory) {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(paths::add);
+        } catch (IOException e) {
+            LOGGER.warn("Error while listing temporary directory {}", directory, e);
+        }
+        for (Path path : paths) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                LOGGER.warn("Error while deleting temporary file {}", path, e);
+            }
+        }
+        LOGGER.debug("Temporary directory deleted: {}", !Files.exists(directory));
+    }
+}
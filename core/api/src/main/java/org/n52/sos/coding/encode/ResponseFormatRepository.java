@@ -46,11 +46,17 @@ import org.n52.iceland.util.activation.ActivationListeners;
 import org.n52.iceland.util.activation.ActivationManager;
 import org.n52.janmayen.function.Functions;
 import org.n52.janmayen.lifecycle.Constructable;
+import org.n52.shetland.ogc.SupportedType;
+import org.n52.shetland.ogc.om.ObservationType;
 import org.n52.shetland.ogc.ows.service.OwsServiceKey;
 import org.n52.svalbard.encode.EncoderRepository;
 import org.n52.svalbard.encode.ObservationEncoder;
 
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
 
 /**
  * TODO JavaDoc
@@ -59,7 +65,19 @@ import com.google.common.collect.Maps;
  */
 public class ResponseFormatRepository implements ActivationManager<ResponseFormatKey> {
     private final Map<String, Map<String, Set<String>>> responseFormats = Maps.newHashMap();
+    /**
+     * observation type to response format mapping of all encoders by service
+     * and version.
+     */
+    private final Map<OwsServiceKey, SetMultimap<String, String>> observationTypeResponseFormats = Maps.newHashMap();
     private final ActivationListeners<ResponseFormatKey> activation = new ActivationListeners<>(true);
+    /**
+     * immutable snapshot of {@link #observationTypeResponseFormats} restricted
+     * to active response formats, rebuilt if the encoders or the activation
+     * state changes.
+     */
+    private volatile Map<OwsServiceKey, ImmutableSetMultimap<String, String>> activeObservationTypeResponseFormats =
+            Collections.emptyMap();
 
     private ServiceOperatorRepository serviceOperatorRepository;
     private EncoderRepository encoderRepository;
@@ -80,19 +98,48 @@ public class ResponseFormatRepository implements ActivationManager<ResponseForma
 
     private void generateResponseFormatMaps() {
         this.responseFormats.clear();
+        this.observationTypeResponseFormats.clear();
         Set<OwsServiceKey> serviceOperatorKeyTypes = getServiceOperatorKeys();
         this.encoderRepository.getEncoders().stream()
                 .filter(x -> x instanceof ObservationEncoder)
                 .map(x -> (ObservationEncoder<?, ?>) x)
                 .forEach((ObservationEncoder<?, ?> encoder) -> {
                     serviceOperatorKeyTypes.forEach(key -> {
-                        Optional.ofNullable(encoder.getSupportedResponseFormats(key))
-                                .orElseGet(Collections::emptySet).stream()
+                        Set<String> formats = Optional.ofNullable(encoder.getSupportedResponseFormats(key))
+                                .orElseGet(Collections::emptySet);
+                        formats.stream()
                                 .map((String rf) -> new ResponseFormatKey(key, rf))
                                 .forEach(ResponseFormatRepository.this::addResponseFormat);
+                        addObservationTypes(key, formats, encoder.getSupportedResponseFormatObservationTypes());
                     });
                 });
-
+        updateObservationTypeIndex();
+    }
+
+    private void addObservationTypes(OwsServiceKey key, Set<String> formats,
+                                     Map<String, Set<SupportedType>> observationTypes) {
+        if (observationTypes != null) {
+            observationTypes.entrySet().stream()
+                    .filter(e -> formats.contains(e.getKey()) && e.getValue() != null)
+                    .forEach(e -> e.getValue().stream()
+                            .filter(st -> st instanceof ObservationType)
+                            .map(st -> ((ObservationType) st).getValue())
+                            .forEach(observationType -> this.observationTypeResponseFormats
+                                    .computeIfAbsent(key, k -> HashMultimap.create())
+                                    .put(observationType, e.getKey())));
+        }
+    }
+
+    private synchronized void updateObservationTypeIndex() {
+        ImmutableMap.Builder<OwsServiceKey, ImmutableSetMultimap<String, String>> index = ImmutableMap.builder();
+        this.observationTypeResponseFormats.forEach((key, formats) -> {
+            ImmutableSetMultimap.Builder<String, String> active = ImmutableSetMultimap.builder();
+            formats.entries().stream()
+                    .filter(e -> isActive(new ResponseFormatKey(key, e.getValue())))
+                    .forEach(active::put);
+            index.put(key, active.build());
+        });
+        this.activeObservationTypeResponseFormats = index.build();
     }
 
     protected void addResponseFormat(ResponseFormatKey key) {
@@ -135,6 +182,22 @@ public class ResponseFormatRepository implements ActivationManager<ResponseForma
         return getAllSupportedResponseFormats(sokt.getService(), sokt.getVersion());
     }
 
+    /**
+     * Get the active response formats that support the observation type.
+     *
+     * @param service         the service
+     * @param version         the version
+     * @param observationType the observation type
+     *
+     * @return the response formats
+     */
+    public Set<String> getResponseFormatsForObservationType(String service, String version,
+                                                            String observationType) {
+        ImmutableSetMultimap<String, String> index =
+                this.activeObservationTypeResponseFormats.get(new OwsServiceKey(service, version));
+        return index == null ? Collections.emptySet() : index.get(observationType);
+    }
+
     private Set<OwsServiceKey> getServiceOperatorKeys() {
         return this.serviceOperatorRepository.getServiceOperatorKeys();
     }
@@ -142,16 +205,19 @@ public class ResponseFormatRepository implements ActivationManager<ResponseForma
     @Override
     public void setActive(ResponseFormatKey rfkt, boolean active) {
         this.activation.setActive(rfkt, active);
+        updateObservationTypeIndex();
     }
 
     @Override
     public void activate(ResponseFormatKey key) {
         this.activation.activate(key);
+        updateObservationTypeIndex();
     }
 
     @Override
     public void deactivate(ResponseFormatKey key) {
         this.activation.deactivate(key);
+        updateObservationTypeIndex();
     }
 
     @Override
@@ -36,8 +36,6 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
 
-import javax.inject.Inject;
-
 import org.joda.time.DateTime;
 import org.n52.shetland.ogc.om.OmConstants;
 import org.n52.shetland.ogc.ows.OwsAllowedValues;
@@ -57,7 +55,6 @@ import org.n52.shetland.ogc.sos.request.GetObservationRequest;
 import org.n52.shetland.ogc.sos.response.GetObservationResponse;
 import org.n52.shetland.util.DateTimeFormatException;
 import org.n52.shetland.util.DateTimeHelper;
-import org.n52.sos.coding.encode.ResponseFormatRepository;
 import org.n52.sos.util.SosHelper;
 
 /**
@@ -71,21 +68,10 @@ import org.n52.sos.util.SosHelper;
  */
 public abstract class AbstractGetObservationHandler extends AbstractSosOperationHandler {
 
-    private ResponseFormatRepository responseFormatRepository;
-
     public AbstractGetObservationHandler(final String service) {
         super(service, SosConstants.Operations.GetObservation.name());
     }
 
-    @Inject
-    public void setResponseFormatRepository(ResponseFormatRepository responseFormatRepository) {
-        this.responseFormatRepository = responseFormatRepository;
-    }
-
-    protected ResponseFormatRepository getResponseFormatRepository() {
-        return this.responseFormatRepository;
-    }
-
     /**
      * Get the min/max phenomenon time of contained observations
      *
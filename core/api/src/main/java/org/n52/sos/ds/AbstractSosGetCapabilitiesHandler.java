@@ -105,7 +105,6 @@ import org.n52.shetland.util.CollectionHelper;
 import org.n52.shetland.util.DateTimeHelper;
 import org.n52.shetland.util.ReferencedEnvelope;
 import org.n52.sos.coding.encode.ProcedureDescriptionFormatRepository;
-import org.n52.sos.coding.encode.ResponseFormatRepository;
 import org.n52.sos.config.CapabilitiesExtensionService;
 import org.n52.sos.ogc.sos.SosObservationOfferingExtensionRepository;
 import org.n52.sos.request.operator.AbstractTransactionalRequestOperator;
@@ -162,9 +161,6 @@ public abstract class AbstractSosGetCapabilitiesHandler extends AbstractGetCapab
     @Inject
     private RequestOperatorRepository requestOperatorRepository;
 
-    @Inject
-    private ResponseFormatRepository responseFormatRepository;
-
     @Inject
     private GeometryHandler geometryHandler;
 
@@ -957,10 +953,6 @@ public abstract class AbstractSosGetCapabilitiesHandler extends AbstractGetCapab
         return this.requestOperatorRepository;
     }
 
-    protected ResponseFormatRepository getResponseFormatRepository() {
-        return this.responseFormatRepository;
-    }
-
     private void createStaticCapabilities(GetCapabilitiesRequest request, GetCapabilitiesResponse response)
             throws OwsExceptionReport {
         response.setXmlString(this.capabilitiesExtensionService.getActiveStaticCapabilitiesDocument());
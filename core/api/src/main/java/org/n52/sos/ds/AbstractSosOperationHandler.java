@@ -30,8 +30,6 @@ package org.n52.sos.ds;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -40,8 +38,6 @@ import org.n52.faroe.annotation.Configurable;
 import org.n52.faroe.annotation.Setting;
 import org.n52.iceland.cache.ContentCacheController;
 import org.n52.iceland.request.handler.OperationHandlerKey;
-import org.n52.shetland.ogc.SupportedType;
-import org.n52.shetland.ogc.om.ObservationType;
 import org.n52.shetland.ogc.ows.OwsAllowedValues;
 import org.n52.shetland.ogc.ows.OwsAnyValue;
 import org.n52.shetland.ogc.ows.OwsDomain;
@@ -50,16 +46,13 @@ import org.n52.shetland.ogc.ows.OwsValue;
 import org.n52.shetland.ogc.sos.SosConstants;
 import org.n52.shetland.util.ReferencedEnvelope;
 import org.n52.sos.cache.SosContentCache;
+import org.n52.sos.coding.encode.ResponseFormatRepository;
 import org.n52.sos.request.operator.AbstractRequestOperator;
 import org.n52.sos.service.SosSettings;
 import org.n52.sos.service.profile.Profile;
 import org.n52.sos.service.profile.ProfileHandler;
 import org.n52.sos.util.SosHelper;
-import org.n52.svalbard.encode.Encoder;
 import org.n52.svalbard.encode.EncoderRepository;
-import org.n52.svalbard.encode.ObservationEncoder;
-
-import com.google.common.collect.Sets;
 
 /**
  * Renamed, in version 4.x called AbstractOperationDAO
@@ -79,6 +72,7 @@ public abstract class AbstractSosOperationHandler
     private boolean includeChildObservableProperties;
     private ProfileHandler profileHandler;
     private EncoderRepository encoderRepository;
+    private ResponseFormatRepository responseFormatRepository;
     private boolean listOnlyParentOfferings;
     private boolean allowQueryingForInstancesOnly;
     private boolean showOnlyAggregatedProcedures;
@@ -128,6 +122,15 @@ public abstract class AbstractSosOperationHandler
         this.contentCacheController = contentCacheController;
     }
 
+    protected ResponseFormatRepository getResponseFormatRepository() {
+        return this.responseFormatRepository;
+    }
+
+    @Inject
+    public void setResponseFormatRepository(ResponseFormatRepository responseFormatRepository) {
+        this.responseFormatRepository = responseFormatRepository;
+    }
+
     protected EncoderRepository getEncoderRepository() {
         return this.encoderRepository;
     }
@@ -279,27 +282,7 @@ public abstract class AbstractSosOperationHandler
 
     protected Set<String> getResponseFormatsForObservationType(String observationType, String service,
             String version) {
-        Set<String> responseFormats = Sets.newHashSet();
-        for (Encoder<?, ?> e : getEncoderRepository().getEncoders()) {
-            if (e instanceof ObservationEncoder) {
-                final ObservationEncoder<?, ?> oe = (ObservationEncoder<?, ?>) e;
-                Map<String, Set<SupportedType>> supportedResponseFormatObservationTypes =
-                        oe.getSupportedResponseFormatObservationTypes();
-                if (supportedResponseFormatObservationTypes != null
-                        && !supportedResponseFormatObservationTypes.isEmpty()) {
-                    for (final Entry<String, Set<SupportedType>> entry : supportedResponseFormatObservationTypes
-                            .entrySet()) {
-                        for (SupportedType st : supportedResponseFormatObservationTypes.get(entry.getKey())) {
-                            if (st instanceof ObservationType
-                                    && observationType.equals(((ObservationType) st).getValue())) {
-                                responseFormats.add(entry.getKey());
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return responseFormats;
+        return getResponseFormatRepository().getResponseFormatsForObservationType(service, version, observationType);
     }
 
 }
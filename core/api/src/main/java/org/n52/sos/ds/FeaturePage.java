@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+import org.n52.shetland.ogc.gml.AbstractFeature;
+
+import com.google.common.base.Strings;
+
+/**
+ * A page of features as returned by
+ * {@link FeatureQueryHandler#getFeaturePage(FeatureQueryHandlerQueryObject)}.
+ * If the result was truncated, the page carries an opaque continuation token
+ * the client can send with the next request.
+ *
+ * @since 5.3.2
+ */
+public class FeaturePage {
+
+    private final Map<String, AbstractFeature> features;
+
+    private final String continuationToken;
+
+    public FeaturePage(Map<String, AbstractFeature> features) {
+        this(features, null);
+    }
+
+    public FeaturePage(Map<String, AbstractFeature> features, String continuationToken) {
+        this.features = features != null ? features : Collections.emptyMap();
+        this.continuationToken = continuationToken;
+    }
+
+    public Map<String, AbstractFeature> getFeatures() {
+        return features;
+    }
+
+    public Optional<String> getContinuationToken() {
+        return Optional.ofNullable(Strings.emptyToNull(continuationToken));
+    }
+
+    public boolean isTruncated() {
+        return getContinuationToken().isPresent();
+    }
+}
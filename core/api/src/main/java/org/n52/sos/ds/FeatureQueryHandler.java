@@ -81,6 +81,23 @@ public interface FeatureQueryHandler {
      */
     Map<String, AbstractFeature> getFeatures(FeatureQueryHandlerQueryObject queryObject) throws OwsExceptionReport;
 
+    /**
+     * Get a page of feature data for identifiers and/or for a spatial filter.
+     * Implementations may iterate the data source with a cursor and honor the
+     * limit and continuation token of the query object. The default
+     * implementation returns all features as a single page.
+     *
+     * @param queryObject
+     *            {@link FeatureQueryHandlerQueryObject} that holds the
+     *            identifiers, spatial filter, limit and continuation token
+     * @return Page of SOS FOI representations in data source order
+     *
+     * @throws OwsExceptionReport if an error occurs
+     */
+    default FeaturePage getFeaturePage(FeatureQueryHandlerQueryObject queryObject) throws OwsExceptionReport {
+        return new FeaturePage(getFeatures(queryObject));
+    }
+
     /**
      * Query the envelope for feature ids
      *
@@ -53,6 +53,12 @@ public class FeatureQueryHandlerQueryObject {
 
     private String version;
 
+    private int limit;
+
+    private int fetchSize;
+
+    private String continuationToken;
+
     public FeatureQueryHandlerQueryObject(Object connection) {
         this.connection = connection;
     }
@@ -179,4 +185,46 @@ public class FeatureQueryHandlerQueryObject {
     public boolean isSetFeatureObject() {
         return getFeatureObject() != null;
     }
+
+    /**
+     * @return the maximum number of features to return, <code>0</code> means
+     *         unlimited
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public FeatureQueryHandlerQueryObject setLimit(int limit) {
+        this.limit = Math.max(0, limit);
+        return this;
+    }
+
+    public boolean isSetLimit() {
+        return getLimit() > 0;
+    }
+
+    /**
+     * @return the JDBC fetch size hint for cursor based queries
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public FeatureQueryHandlerQueryObject setFetchSize(int fetchSize) {
+        this.fetchSize = Math.max(0, fetchSize);
+        return this;
+    }
+
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public FeatureQueryHandlerQueryObject setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+        return this;
+    }
+
+    public boolean isSetContinuationToken() {
+        return !Strings.isNullOrEmpty(getContinuationToken());
+    }
 }
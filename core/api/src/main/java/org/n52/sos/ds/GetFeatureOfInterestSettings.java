@@ -26,24 +26,29 @@
  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
  * Public License for more details.
  */
-package org.n52.sos.ds.cache;
+package org.n52.sos.ds;
 
-import org.n52.series.db.HibernateSessionStore;
+/**
+ * Setting keys and request extension names for the paged GetFeatureOfInterest
+ * mode.
+ *
+ * @since 5.3.2
+ */
+public interface GetFeatureOfInterestSettings {
+
+    String GFOI_STREAMING = "operation.gfoi.streaming";
 
-public class ParallelCacheUpdate
-        extends AbstractQueueingDatasourceCacheUpdate<AbstractThreadableDatasourceCacheUpdate> {
-    private static final String THREAD_GROUP_NAME = "parallel-cache-update";
+    String GFOI_RESPONSE_LIMIT = "operation.gfoi.responseLimit";
 
-    private final AbstractThreadableDatasourceCacheUpdate[] updates;
+    String GFOI_FETCH_SIZE = "operation.gfoi.fetchSize";
 
-    public ParallelCacheUpdate(int threads, HibernateSessionStore sessionStore,
-            AbstractThreadableDatasourceCacheUpdate... updates) {
-        super(threads, THREAD_GROUP_NAME, sessionStore);
-        this.updates = updates;
-    }
+    /**
+     * Request extension to limit the number of returned features
+     */
+    String EXTENSION_LIMIT = "limit";
 
-    @Override
-    protected AbstractThreadableDatasourceCacheUpdate[] getUpdatesToExecute() {
-        return updates;
-    }
+    /**
+     * Request/response extension to continue a paged response
+     */
+    String EXTENSION_CONTINUATION_TOKEN = "continuationToken";
 }
@@ -112,6 +112,10 @@ public interface HibernateDatasourceConstants {
 
     String DATABASE_CONCEPT_KEY = "sos.database.concept";
 
+    String PARTITION_INTERVAL_KEY = "sos.partition.interval";
+
+    String REFERENCE_CACHE_KEY = "sos.cache.reference";
+
     enum DatabaseConcept {
         SIMPLE("Simple database model"), TRANSACTIONAL("Transactional database model"), EREPORTING(
                 "eReporting database model");
@@ -154,4 +158,18 @@ public interface HibernateDatasourceConstants {
             return displayName;
         }
     }
+
+    enum PartitionInterval {
+        NONE("No partitioning"), MONTH("Monthly partitions"), YEAR("Yearly partitions");
+
+        private final String displayName;
+
+        PartitionInterval(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
 }
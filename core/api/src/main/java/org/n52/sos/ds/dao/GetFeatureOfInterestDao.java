@@ -33,6 +33,7 @@ import java.util.Map;
 import org.n52.shetland.ogc.gml.AbstractFeature;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.sos.request.GetFeatureOfInterestRequest;
+import org.n52.sos.ds.FeaturePage;
 
 public interface GetFeatureOfInterestDao extends DefaultDao {
 
@@ -40,4 +41,21 @@ public interface GetFeatureOfInterestDao extends DefaultDao {
 
     Map<String, AbstractFeature> getFeatureOfInterest(GetFeatureOfInterestRequest request, Object connection)
             throws OwsExceptionReport;
+
+    /**
+     * Query a page of features. The default implementation returns all
+     * features as a single page.
+     *
+     * @param request
+     *            the request
+     * @param connection
+     *            the connection
+     * @return the page of features
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    default FeaturePage getFeatureOfInterestPage(GetFeatureOfInterestRequest request, Object connection)
+            throws OwsExceptionReport {
+        return new FeaturePage(getFeatureOfInterest(request, connection));
+    }
 }
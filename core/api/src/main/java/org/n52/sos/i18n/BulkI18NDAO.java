@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.i18n;
+
+import java.util.Collection;
+import java.util.Locale;
+
+import org.n52.iceland.i18n.I18NDAO;
+import org.n52.iceland.i18n.metadata.AbstractI18NMetadata;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+
+/**
+ * {@link I18NDAO} that is able to load the translations of all entities of its
+ * type at once instead of querying them per entity identifier.
+ *
+ * @param <T>
+ *            the metadata type
+ *
+ * @since 5.3.2
+ */
+public interface BulkI18NDAO<T extends AbstractI18NMetadata> extends I18NDAO<T> {
+
+    /**
+     * Get the metadata of all entities that have translations in one of the
+     * requested locales (or one of their equivalents) with a single query.
+     *
+     * @param locales
+     *            the requested locales, all locales are loaded if empty
+     * @return the metadata
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    Collection<T> getMetadataForLocales(Collection<Locale> locales) throws OwsExceptionReport;
+
+}
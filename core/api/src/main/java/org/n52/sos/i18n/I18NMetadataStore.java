@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.i18n;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+
+import org.n52.iceland.i18n.I18NDAO;
+import org.n52.iceland.i18n.I18NDAORepository;
+import org.n52.iceland.i18n.metadata.AbstractI18NMetadata;
+import org.n52.iceland.i18n.metadata.I18NFeatureMetadata;
+import org.n52.iceland.i18n.metadata.I18NObservablePropertyMetadata;
+import org.n52.iceland.i18n.metadata.I18NOfferingMetadata;
+import org.n52.iceland.i18n.metadata.I18NProcedureMetadata;
+import org.n52.janmayen.event.Event;
+import org.n52.janmayen.event.EventListener;
+import org.n52.janmayen.i18n.LocaleHelper;
+import org.n52.janmayen.i18n.LocalizedString;
+import org.n52.janmayen.i18n.MultilingualString;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.sos.event.events.FeatureInsertion;
+import org.n52.sos.event.events.SensorDeletion;
+import org.n52.sos.event.events.SensorInsertion;
+import org.n52.sos.event.events.SensorModification;
+import org.n52.sos.event.events.UpdateCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * In-memory store of the I18N metadata of offerings, procedures, features and
+ * observable properties, indexed by identifier and locale.
+ *
+ * The metadata of a type is loaded with a single query through a
+ * {@link BulkI18NDAO} when it is first requested and dropped again when a
+ * transactional operation or a complete cache update could have changed it.
+ *
+ * @since 5.3.2
+ */
+public class I18NMetadataStore implements EventListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(I18NMetadataStore.class);
+
+    private static final Set<Class<? extends Event>> TYPES = ImmutableSet.of(
+            SensorInsertion.class,
+            SensorModification.class,
+            SensorDeletion.class,
+            FeatureInsertion.class,
+            UpdateCache.class);
+
+    private final Map<Class<? extends AbstractI18NMetadata>, Entry> entries = new ConcurrentHashMap<>();
+
+    private I18NDAORepository i18NDAORepository;
+
+    @Inject
+    public void setI18NDAORepository(I18NDAORepository i18NDAORepository) {
+        this.i18NDAORepository = i18NDAORepository;
+    }
+
+    /**
+     * Check if the metadata of the type is available from this store. Loads
+     * the metadata if it is not yet present.
+     *
+     * @param type
+     *            the metadata type
+     * @return <code>true</code>, if the metadata could be loaded
+     */
+    public boolean isAvailable(Class<? extends AbstractI18NMetadata> type) {
+        return getEntry(type) != null;
+    }
+
+    /**
+     * Get the metadata of the entity.
+     *
+     * @param <T>
+     *            the metadata type
+     * @param type
+     *            the metadata type
+     * @param identifier
+     *            the entity identifier
+     * @return the metadata or empty, if the entity has no translations or the
+     *         store is not available for the type
+     */
+    public <T extends AbstractI18NMetadata> Optional<T> get(Class<T> type, String identifier) {
+        Entry entry = getEntry(type);
+        if (entry == null || identifier == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(entry.getMetadata().get(identifier)).map(type::cast);
+    }
+
+    /**
+     * Get the metadata of all entities of the type.
+     *
+     * @param <T>
+     *            the metadata type
+     * @param type
+     *            the metadata type
+     * @return the metadata
+     */
+    public <T extends AbstractI18NMetadata> Collection<T> getAll(Class<T> type) {
+        Entry entry = getEntry(type);
+        if (entry == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableCollection(Maps.transformValues(entry.getMetadata(), type::cast).values());
+    }
+
+    /**
+     * Get the locales for which translations of the type exist.
+     *
+     * @param type
+     *            the metadata type
+     * @return the locales
+     */
+    public Set<Locale> getLocales(Class<? extends AbstractI18NMetadata> type) {
+        Entry entry = getEntry(type);
+        return entry == null ? Collections.emptySet() : entry.getIdentifiersByLocale().keySet();
+    }
+
+    /**
+     * Get the identifiers of the entities with translations in the locale.
+     *
+     * @param type
+     *            the metadata type
+     * @param locale
+     *            the locale
+     * @return the identifiers
+     */
+    public Set<String> getIdentifiers(Class<? extends AbstractI18NMetadata> type, Locale locale) {
+        Entry entry = getEntry(type);
+        if (entry == null) {
+            return Collections.emptySet();
+        }
+        return entry.getIdentifiersByLocale().getOrDefault(locale, Collections.emptySet());
+    }
+
+    public Optional<LocalizedString> getName(Class<? extends AbstractI18NMetadata> type, String identifier,
+            Locale locale) {
+        return get(type, identifier).flatMap(m -> getLocalization(m.getName(), locale));
+    }
+
+    public Optional<LocalizedString> getDescription(Class<? extends AbstractI18NMetadata> type, String identifier,
+            Locale locale) {
+        return get(type, identifier).flatMap(m -> getLocalization(m.getDescription(), locale));
+    }
+
+    /**
+     * (Re-)Load the metadata of the type with a single query.
+     *
+     * @param type
+     *            the metadata type
+     * @return <code>true</code>, if the metadata could be loaded
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    public boolean load(Class<? extends AbstractI18NMetadata> type) throws OwsExceptionReport {
+        Entry entry = createEntry(type);
+        if (entry != null) {
+            entries.put(type, entry);
+            return true;
+        }
+        entries.remove(type);
+        return false;
+    }
+
+    /**
+     * Replace the stored metadata of a single entity, e.g. after it was
+     * changed by the administrator. Ignored if the type is not loaded.
+     *
+     * @param metadata
+     *            the new metadata
+     */
+    public void update(AbstractI18NMetadata metadata) {
+        entries.computeIfPresent(metadata.getClass(), (k, v) -> v.with(metadata));
+    }
+
+    public void invalidate(Class<? extends AbstractI18NMetadata> type) {
+        LOGGER.debug("Invalidating stored I18N metadata of type {}", type.getSimpleName());
+        entries.remove(type);
+    }
+
+    public void invalidate() {
+        LOGGER.debug("Invalidating all stored I18N metadata");
+        entries.clear();
+    }
+
+    @Override
+    public Set<Class<? extends Event>> getTypes() {
+        return Collections.unmodifiableSet(TYPES);
+    }
+
+    @Override
+    public void handle(Event event) {
+        if (event instanceof FeatureInsertion) {
+            invalidate(I18NFeatureMetadata.class);
+        } else if (event instanceof SensorInsertion || event instanceof SensorModification
+                || event instanceof SensorDeletion) {
+            invalidate(I18NProcedureMetadata.class);
+            invalidate(I18NOfferingMetadata.class);
+            invalidate(I18NObservablePropertyMetadata.class);
+        } else if (event instanceof UpdateCache) {
+            invalidate();
+        }
+    }
+
+    private Entry getEntry(Class<? extends AbstractI18NMetadata> type) {
+        Entry entry = entries.get(type);
+        if (entry == null) {
+            try {
+                load(type);
+            } catch (OwsExceptionReport e) {
+                LOGGER.warn("Error while loading I18N metadata of type {}", type.getSimpleName(), e);
+            }
+            entry = entries.get(type);
+        }
+        return entry;
+    }
+
+    private Entry createEntry(Class<? extends AbstractI18NMetadata> type) throws OwsExceptionReport {
+        if (i18NDAORepository == null) {
+            return null;
+        }
+        I18NDAO<? extends AbstractI18NMetadata> dao = i18NDAORepository.getDAO(type);
+        if (!(dao instanceof BulkI18NDAO) || !dao.isSupported()) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        Collection<? extends AbstractI18NMetadata> metadata =
+                ((BulkI18NDAO<? extends AbstractI18NMetadata>) dao).getMetadataForLocales(Collections.emptySet());
+        Map<String, AbstractI18NMetadata> map = Maps.newHashMapWithExpectedSize(metadata.size());
+        for (AbstractI18NMetadata m : metadata) {
+            map.put(m.getIdentifier(), m);
+        }
+        Entry entry = new Entry(map);
+        LOGGER.debug("Loaded I18N metadata of {} entities of type {} in {} ms", metadata.size(),
+                type.getSimpleName(), System.currentTimeMillis() - start);
+        return entry;
+    }
+
+    /**
+     * Get the localization for the locale or one of its equivalents.
+     *
+     * @param string
+     *            the multilingual string
+     * @param locale
+     *            the locale
+     * @return the localization
+     */
+    public static Optional<LocalizedString> getLocalization(MultilingualString string, Locale locale) {
+        if (string == null || locale == null) {
+            return Optional.empty();
+        }
+        Optional<LocalizedString> localization = string.getLocalization(locale);
+        if (localization.isPresent()) {
+            return localization;
+        }
+        for (Locale equivalent : LocaleHelper.getEquivalents(locale)) {
+            localization = string.getLocalization(equivalent);
+            if (localization.isPresent()) {
+                return localization;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Immutable snapshot of the metadata of one type.
+     */
+    private static final class Entry {
+        private final Map<String, AbstractI18NMetadata> metadata;
+
+        private final Map<Locale, Set<String>> identifiersByLocale;
+
+        Entry(Map<String, AbstractI18NMetadata> metadata) {
+            this.metadata = ImmutableMap.copyOf(metadata);
+            Map<Locale, Set<String>> index = Maps.newHashMap();
+            for (AbstractI18NMetadata m : metadata.values()) {
+                for (Locale locale : m.getLocales()) {
+                    index.computeIfAbsent(locale, l -> Sets.newHashSet()).add(m.getIdentifier());
+                }
+            }
+            this.identifiersByLocale = ImmutableMap.copyOf(Maps.transformValues(index, ImmutableSet::copyOf));
+        }
+
+        Map<String, AbstractI18NMetadata> getMetadata() {
+            return metadata;
+        }
+
+        Map<Locale, Set<String>> getIdentifiersByLocale() {
+            return identifiersByLocale;
+        }
+
+        Entry with(AbstractI18NMetadata update) {
+            Map<String, AbstractI18NMetadata> map = Maps.newHashMap(metadata);
+            map.put(update.getIdentifier(), update);
+            return new Entry(map);
+        }
+    }
+
+}
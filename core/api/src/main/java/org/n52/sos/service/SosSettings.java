@@ -37,10 +37,13 @@ public interface SosSettings {
     String EXPOSE_CHILD_OBSERVABLE_PROPERTIES = "service.exposeChildObservableProperties";
     String LIST_ONLY_PARENT_OFFERINGS = "service.capabilities.listOnlyParentOfferings";
     String UPDATE_FEATURE_GEOMETRY = "service.updateFeatureGeometry";
+    String TRAJECTORY_MODE = "service.trajectoryMode";
+    String TRAJECTORY_SIMPLIFICATION_TOLERANCE = "service.trajectory.simplificationTolerance";
     String CACHE_FILE_FOLDER = "service.cacheFileFolder";
     String CREATE_FOI_GEOM_FROM_SAMPLING_GEOMS = "service.createFeatureGeometryFromSamplingGeometries";
     String ALLOW_TEMPLATE_WITHOUT_PROCEDURE_FEATURE = "service.allowTemplateWithoutProcedureAndFeature";
     String INCLUDE_RESULT_TIME_FOR_MERGING = "service.includeResultTimeForMerging";
     String CHECK_FOR_DUPLICITY = "service.checkForDuplicity";
     String STA_SUPPORTS_URLS = "service.sta.supports.urls";
+    String BULK_INGEST = "service.bulkIngest";
 }
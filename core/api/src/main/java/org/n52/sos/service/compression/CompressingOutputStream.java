@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.service.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+/**
+ * {@link ServletOutputStream} that buffers the first bytes of a response up to a threshold. If the threshold is
+ * exceeded, the coding selector decides whether the response is compressed and all further data is compressed
+ * while it is written. Responses smaller than the threshold are written as they are.
+ *
+ * @since 5.3.2
+ */
+class CompressingOutputStream extends ServletOutputStream {
+
+    private final OutputStream target;
+
+    private final int threshold;
+
+    private final int level;
+
+    private final CodingSelector selector;
+
+    private ByteArrayOutputStream buffer;
+
+    private OutputStream out;
+
+    private boolean compressing;
+
+    private boolean finished;
+
+    CompressingOutputStream(OutputStream target, int threshold, int level, CodingSelector selector) {
+        this.target = target;
+        this.threshold = threshold;
+        this.level = level;
+        this.selector = selector;
+        this.buffer = new ByteArrayOutputStream(Math.min(threshold, 8192));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        checkFinished();
+        if (out == null && buffer.size() < threshold) {
+            buffer.write(b);
+        } else {
+            select(true).write(b);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        checkFinished();
+        if (out == null && buffer.size() + len <= threshold) {
+            buffer.write(b, off, len);
+        } else {
+            select(true).write(b, off, len);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // an undecided response is kept in the buffer, flushing it would commit the headers
+        if (out != null && !finished) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    /**
+     * Write the remaining buffered data and the trailer of the compressed stream.
+     *
+     * @throws IOException
+     *             if writing fails
+     */
+    void finish() throws IOException {
+        if (!finished) {
+            select(false);
+            if (compressing) {
+                // closes the target as well, the response is complete
+                out.close();
+            } else {
+                out.flush();
+            }
+            finished = true;
+        }
+    }
+
+    /**
+     * Discard the buffered data if no data was written to the target yet.
+     *
+     * @return <code>true</code> if the buffer could be reset
+     */
+    boolean resetBuffer() {
+        if (out == null) {
+            buffer.reset();
+            return true;
+        }
+        return false;
+    }
+
+    boolean isSelected() {
+        return out != null;
+    }
+
+    boolean isCompressing() {
+        return compressing;
+    }
+
+    @Override
+    public boolean isReady() {
+        return !(target instanceof ServletOutputStream) || ((ServletOutputStream) target).isReady();
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+        if (target instanceof ServletOutputStream) {
+            ((ServletOutputStream) target).setWriteListener(writeListener);
+        } else {
+            throw new UnsupportedOperationException("Non-blocking writes are not supported!");
+        }
+    }
+
+    private OutputStream select(boolean exceedsThreshold) throws IOException {
+        if (out == null) {
+            ContentCoding coding = selector.select(exceedsThreshold);
+            if (coding != null) {
+                out = coding.wrap(target, level);
+                compressing = true;
+            } else {
+                out = target;
+            }
+            buffer.writeTo(out);
+            buffer = null;
+        }
+        return out;
+    }
+
+    private void checkFinished() throws IOException {
+        if (finished) {
+            throw new IOException("Stream is already finished!");
+        }
+    }
+
+    /**
+     * Decides about the compression of a response once the threshold is exceeded or the response is finished.
+     */
+    @FunctionalInterface
+    interface CodingSelector {
+        /**
+         * @param exceedsThreshold
+         *            whether the response is larger than the threshold
+         * @return the coding to use or <code>null</code> if the response is not compressed
+         */
+        ContentCoding select(boolean exceedsThreshold);
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.service.compression;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import com.google.common.net.HttpHeaders;
+
+/**
+ * Response wrapper that compresses the response body with the negotiated {@link ContentCoding} while it is written.
+ * The decision is deferred until the size threshold is exceeded, so that the content type is known and small
+ * responses are not compressed. Responses that already carry a <code>Content-Encoding</code> are passed through.
+ * {@link #finish()} has to be called after the response is written.
+ *
+ * @since 5.3.2
+ */
+public class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final ResponseCompression compression;
+
+    private final ContentCoding coding;
+
+    private CompressingOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    private boolean encoded;
+
+    private long contentLength = -1;
+
+    public CompressingResponseWrapper(HttpServletResponse response, ResponseCompression compression,
+            ContentCoding coding) {
+        super(response);
+        this.compression = compression;
+        this.coding = coding;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called!");
+        }
+        return getCompressingOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (outputStream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called!");
+            }
+            writer = new PrintWriter(new OutputStreamWriter(getCompressingOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if (isSelected()) {
+            if (!isCompressing()) {
+                super.setContentLengthLong(len);
+            }
+        } else {
+            this.contentLength = len;
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value != null ? Long.parseLong(value.trim()) : -1);
+        } else {
+            checkContentEncoding(name);
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value != null ? Long.parseLong(value.trim()) : -1);
+        } else {
+            checkContentEncoding(name);
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.addIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        // committing the response before the decision would prevent setting the Content-Encoding header
+        if (outputStream == null || outputStream.isSelected()) {
+            if (outputStream != null) {
+                outputStream.flush();
+            }
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        checkReset();
+        super.resetBuffer();
+    }
+
+    @Override
+    public void reset() {
+        checkReset();
+        super.reset();
+        this.encoded = false;
+        this.contentLength = -1;
+    }
+
+    /**
+     * Write the remaining data of the response.
+     *
+     * @throws IOException
+     *             if writing fails
+     */
+    public void finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (outputStream != null) {
+            outputStream.finish();
+        }
+    }
+
+    private CompressingOutputStream getCompressingOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CompressingOutputStream(super.getOutputStream(), compression.getThreshold(),
+                    compression.getLevel(), this::select);
+        }
+        return outputStream;
+    }
+
+    private ContentCoding select(boolean exceedsThreshold) {
+        boolean compressible = !encoded && compression.isCompressible(getContentType());
+        if (compressible) {
+            super.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (compressible && exceedsThreshold) {
+            super.setHeader(HttpHeaders.CONTENT_ENCODING, coding.getName());
+            return coding;
+        }
+        if (contentLength >= 0) {
+            super.setContentLengthLong(contentLength);
+        }
+        return null;
+    }
+
+    private void checkContentEncoding(String name) {
+        if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)) {
+            this.encoded = true;
+        }
+    }
+
+    private void checkReset() {
+        if (outputStream != null && !outputStream.resetBuffer()) {
+            throw new IllegalStateException("Response is already committed!");
+        }
+    }
+
+    private boolean isSelected() {
+        return outputStream != null && outputStream.isSelected();
+    }
+
+    private boolean isCompressing() {
+        return outputStream != null && outputStream.isCompressing();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.service.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP content codings supported for response compression.
+ *
+ * @since 5.3.2
+ */
+public enum ContentCoding {
+    GZIP("gzip") {
+        @Override
+        public DeflaterOutputStream wrap(OutputStream out, int level) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE, true) {
+                {
+                    def.setLevel(level);
+                }
+            };
+        }
+    },
+    DEFLATE("deflate") {
+        @Override
+        public DeflaterOutputStream wrap(OutputStream out, int level) throws IOException {
+            return new DeflaterOutputStream(out, new Deflater(level), BUFFER_SIZE, true) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+        }
+    };
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String name;
+
+    ContentCoding(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the name of the coding as used in the <code>Accept-Encoding</code> and
+     *         <code>Content-Encoding</code> headers
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Wrap the stream into a compressing stream. Flushing the returned stream flushes all data written so far, so
+     * streamed responses reach the client without waiting for the end of the response.
+     *
+     * @param out
+     *            the stream to write the compressed data to
+     * @param level
+     *            the compression level
+     * @return the compressing stream
+     * @throws IOException
+     *             if the stream can not be created
+     */
+    public abstract DeflaterOutputStream wrap(OutputStream out, int level) throws IOException;
+
+    public static ContentCoding fromName(String name) {
+        String lowerCase = name.trim().toLowerCase(Locale.ROOT);
+        for (ContentCoding coding : values()) {
+            if (coding.getName().equals(lowerCase)) {
+                return coding;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.service.compression;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.n52.faroe.ConfigurationError;
+import org.n52.faroe.annotation.Configurable;
+import org.n52.faroe.annotation.Setting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.net.HttpHeaders;
+
+/**
+ * Compresses responses according to the <code>Accept-Encoding</code> header of the request. The compression is done
+ * while the response is written, so streamed responses are compressed as well.
+ *
+ * @since 5.3.2
+ */
+@Configurable
+public class ResponseCompression {
+
+    public static final String ENABLED = "service.compression.enabled";
+
+    public static final String LEVEL = "service.compression.level";
+
+    public static final String THRESHOLD = "service.compression.threshold";
+
+    public static final String CONTENT_TYPES = "service.compression.contentTypes";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResponseCompression.class);
+
+    private static final Splitter SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    private static final String QUALITY = "q=";
+
+    private static final String WILDCARD = "*";
+
+    private boolean enabled;
+
+    private int level = Deflater.DEFAULT_COMPRESSION;
+
+    private int threshold;
+
+    private Set<String> contentTypes = Collections.emptySet();
+
+    @Setting(ENABLED)
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Setting(LEVEL)
+    public void setLevel(int level) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new ConfigurationError(String.format("The compression level has to be between %d and %d!",
+                    Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION));
+        }
+        this.level = level;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    @Setting(THRESHOLD)
+    public void setThreshold(int threshold) {
+        this.threshold = Math.max(0, threshold);
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    @Setting(CONTENT_TYPES)
+    public void setContentTypes(String contentTypes) {
+        this.contentTypes = Strings.isNullOrEmpty(contentTypes) ? Collections.emptySet()
+                : ImmutableSet.copyOf(SPLITTER.splitToList(contentTypes.toLowerCase(Locale.ROOT)));
+    }
+
+    public Set<String> getContentTypes() {
+        return Collections.unmodifiableSet(contentTypes);
+    }
+
+    /**
+     * Check if responses of the content type should be compressed.
+     *
+     * @param contentType
+     *            the content type, may contain parameters
+     * @return <code>true</code> if the content type is enabled for compression
+     */
+    public boolean isCompressible(String contentType) {
+        if (Strings.isNullOrEmpty(contentType)) {
+            return false;
+        }
+        int parameters = contentType.indexOf(';');
+        String mediaType = parameters < 0 ? contentType : contentType.substring(0, parameters);
+        return contentTypes.contains(mediaType.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Wrap the response into a {@link CompressingResponseWrapper} if compression is enabled and the client accepts a
+     * supported coding.
+     *
+     * @param request
+     *            the request
+     * @param response
+     *            the response
+     * @return the wrapped response or the passed response if it should not be compressed
+     */
+    public HttpServletResponse wrap(HttpServletRequest request, HttpServletResponse response) {
+        if (isEnabled()) {
+            ContentCoding coding = negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+            if (coding != null) {
+                LOGGER.trace("Compressing response with {}", coding.getName());
+                return new CompressingResponseWrapper(response, this, coding);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Select the coding with the highest quality value from an <code>Accept-Encoding</code> header. <code>gzip</code>
+     * is preferred for equal quality values.
+     *
+     * @param acceptEncoding
+     *            the header value
+     * @return the selected coding or <code>null</code> if no supported coding is accepted
+     */
+    public static ContentCoding negotiate(String acceptEncoding) {
+        if (Strings.isNullOrEmpty(acceptEncoding)) {
+            return null;
+        }
+        Map<ContentCoding, Double> qualities = new EnumMap<>(ContentCoding.class);
+        double wildcardQuality = 0;
+        for (String element : SPLITTER.split(acceptEncoding)) {
+            int parameters = element.indexOf(';');
+            String name = parameters < 0 ? element : element.substring(0, parameters).trim();
+            double quality = parameters < 0 ? 1 : getQuality(element.substring(parameters + 1));
+            if (WILDCARD.equals(name)) {
+                wildcardQuality = quality;
+            } else {
+                ContentCoding coding = ContentCoding.fromName(name);
+                if (coding != null) {
+                    qualities.put(coding, quality);
+                }
+            }
+        }
+        ContentCoding selected = null;
+        double selectedQuality = 0;
+        for (ContentCoding coding : ContentCoding.values()) {
+            double quality = qualities.getOrDefault(coding, wildcardQuality);
+            if (quality > selectedQuality) {
+                selected = coding;
+                selectedQuality = quality;
+            }
+        }
+        return selected;
+    }
+
+    private static double getQuality(String parameters) {
+        for (String parameter : Splitter.on(';').trimResults().split(parameters)) {
+            if (parameter.startsWith(QUALITY)) {
+                try {
+                    return Double.parseDouble(parameter.substring(QUALITY.length()));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+import org.n52.shetland.ogc.om.ObservationMergeIndicator;
+import org.n52.shetland.ogc.om.ObservationStream;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.OmObservationConstellation;
+
+/**
+ * Merges observations of arbitrary order by looking up the merge candidates
+ * in a hash map keyed by the fields of the {@link ObservationMergeIndicator}.
+ * Each added observation is compared only with the already merged
+ * observations of the same key instead of with all merged observations.
+ *
+ * The merged observations are returned in the order in which their first
+ * observation was added.
+ *
+ * @since 5.3.2
+ */
+public class KeyedObservationMerger {
+
+    private final ObservationMergeIndicator indicator;
+
+    private final BiPredicate<OmObservation, OmObservation> mergeCheck;
+
+    private final BiConsumer<OmObservation, OmObservation> valueMerger;
+
+    private final Map<MergeKey, List<OmObservation>> candidates = new HashMap<>();
+
+    private final List<OmObservation> mergedObservations = new ArrayList<>();
+
+    private int obsIdCounter = 1;
+
+    /**
+     * Merger that uses {@link OmObservation#checkForMerge(OmObservation, ObservationMergeIndicator)} and
+     * {@link OmObservation#mergeWithObservation(OmObservation)}.
+     *
+     * @param indicator
+     *            the indicator to check if two observations should be merged
+     */
+    public KeyedObservationMerger(ObservationMergeIndicator indicator) {
+        this(indicator, (merged, toAdd) -> merged.checkForMerge(toAdd, indicator),
+                OmObservation::mergeWithObservation);
+    }
+
+    /**
+     * @param indicator
+     *            the indicator to build the merge key from
+     * @param mergeCheck
+     *            the final check if an added observation should be merged
+     *            into an already merged observation with the same key
+     * @param valueMerger
+     *            merges the added observation into the merged observation
+     */
+    public KeyedObservationMerger(ObservationMergeIndicator indicator,
+            BiPredicate<OmObservation, OmObservation> mergeCheck,
+            BiConsumer<OmObservation, OmObservation> valueMerger) {
+        this.indicator = Objects.requireNonNull(indicator);
+        this.mergeCheck = Objects.requireNonNull(mergeCheck);
+        this.valueMerger = Objects.requireNonNull(valueMerger);
+    }
+
+    /**
+     * Merge the observation into an already added observation or add it as
+     * new merged observation.
+     *
+     * @param observation
+     *            the observation to add
+     */
+    public void add(OmObservation observation) {
+        List<OmObservation> sameKey =
+                candidates.computeIfAbsent(new MergeKey(observation, indicator), key -> new LinkedList<>());
+        for (OmObservation merged : sameKey) {
+            if (mergeCheck.test(merged, observation)) {
+                valueMerger.accept(merged, observation);
+                return;
+            }
+        }
+        if (!observation.isSetGmlID()) {
+            observation.setObservationID(Integer.toString(obsIdCounter++));
+        }
+        sameKey.add(observation);
+        mergedObservations.add(observation);
+    }
+
+    /**
+     * @return the merged observations in the order of their first occurrence
+     */
+    public List<OmObservation> getMergedObservations() {
+        return Collections.unmodifiableList(mergedObservations);
+    }
+
+    /**
+     * @return the merged observations as {@link ObservationStream}
+     */
+    public ObservationStream toStream() {
+        return ObservationStream.of(mergedObservations);
+    }
+
+    /**
+     * Key of the observation constellation fields that are checked by the
+     * {@link ObservationMergeIndicator}.
+     */
+    private static final class MergeKey {
+
+        private final Object additionalMergeIndicator;
+
+        private final String procedure;
+
+        private final String observableProperty;
+
+        private final String featureOfInterest;
+
+        private final Set<String> offerings;
+
+        private final String observationType;
+
+        private final int hashCode;
+
+        MergeKey(OmObservation observation, ObservationMergeIndicator indicator) {
+            OmObservationConstellation constellation = observation.getObservationConstellation();
+            this.additionalMergeIndicator =
+                    observation.isSetAdditionalMergeIndicator() ? observation.getAdditionalMergeIndicator() : null;
+            this.procedure = indicator.isProcedure() ? constellation.getProcedureIdentifier() : null;
+            this.observableProperty =
+                    indicator.isObservableProperty() ? constellation.getObservablePropertyIdentifier() : null;
+            this.featureOfInterest =
+                    indicator.isFeatureOfInterest() ? constellation.getFeatureOfInterestIdentifier() : null;
+            this.offerings = indicator.isOfferings() ? constellation.getOfferings() : null;
+            this.observationType = indicator.isObservationType() ? constellation.getObservationType() : null;
+            this.hashCode = Objects.hash(additionalMergeIndicator, procedure, observableProperty, featureOfInterest,
+                    offerings, observationType);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MergeKey)) {
+                return false;
+            }
+            MergeKey that = (MergeKey) obj;
+            return hashCode == that.hashCode
+                    && Objects.equals(additionalMergeIndicator, that.additionalMergeIndicator)
+                    && Objects.equals(procedure, that.procedure)
+                    && Objects.equals(observableProperty, that.observableProperty)
+                    && Objects.equals(featureOfInterest, that.featureOfInterest)
+                    && Objects.equals(offerings, that.offerings)
+                    && Objects.equals(observationType, that.observationType);
+        }
+
+    }
+
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import org.n52.shetland.ogc.om.ObservationMergeIndicator;
+import org.n52.shetland.ogc.om.ObservationStream;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.StreamingValue;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.response.AbstractStreaming;
+
+/**
+ * {@link ObservationStream} that merges adjacent observations of a source
+ * stream on the fly. Unlike {@link ObservationStream#merge()} it never
+ * materializes the source, only the observation currently being merged is
+ * kept in memory.
+ *
+ * This relies on the source returning observations that should be merged
+ * next to each other, as the datasource does when values are ordered by
+ * observation constellation and time. Observations with the same merge key
+ * that are not adjacent are returned separately. Indicators that merge
+ * observations of different constellations, e.g. of different features, can
+ * be registered with {@link #mergeKeyed(ObservationMergeIndicator)}. Their
+ * observations are merged with a {@link KeyedObservationMerger} regardless of
+ * their order and are returned after the source is exhausted, so only they
+ * are kept in memory.
+ *
+ * @since 5.3.2
+ */
+public class MergingObservationStream implements ObservationStream {
+
+    private final ObservationStream source;
+
+    private final Function<OmObservation, ObservationMergeIndicator> indicators;
+
+    private final Map<ObservationMergeIndicator, KeyedObservationMerger> keyedMergers = new IdentityHashMap<>();
+
+    private final List<KeyedObservationMerger> keyedMergerOrder = new ArrayList<>();
+
+    private OmObservation lookahead;
+
+    private Iterator<OmObservation> keyedObservations;
+
+    private int obsIdCounter = 1;
+
+    /**
+     * @param source
+     *            the observations to merge
+     * @param indicator
+     *            the indicator to check if two observations should be merged
+     */
+    public MergingObservationStream(ObservationStream source, ObservationMergeIndicator indicator) {
+        this(source, o -> indicator);
+    }
+
+    /**
+     * @param source
+     *            the observations to merge
+     * @param indicators
+     *            provides the indicator for an observation, only observations
+     *            with the same indicator are merged, <code>null</code> means
+     *            the observation is not merged at all
+     */
+    public MergingObservationStream(ObservationStream source,
+            Function<OmObservation, ObservationMergeIndicator> indicators) {
+        this.source = source;
+        this.indicators = indicators;
+    }
+
+    /**
+     * Merge the observations of the indicator independent of their order in
+     * the source. The merged observations are returned after all other
+     * observations.
+     *
+     * @param indicator
+     *            the indicator, as returned by the indicator function
+     * @return this
+     */
+    public MergingObservationStream mergeKeyed(ObservationMergeIndicator indicator) {
+        if (!keyedMergers.containsKey(indicator)) {
+            KeyedObservationMerger merger = new KeyedObservationMerger(indicator);
+            keyedMergers.put(indicator, merger);
+            keyedMergerOrder.add(merger);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() throws OwsExceptionReport {
+        while (lookahead == null && source.hasNext()) {
+            OmObservation observation = source.next();
+            if (!addKeyed(observation)) {
+                lookahead = observation;
+            }
+        }
+        if (lookahead != null) {
+            return true;
+        }
+        if (keyedObservations == null) {
+            List<OmObservation> observations = new ArrayList<>();
+            keyedMergerOrder.forEach(merger -> observations.addAll(merger.getMergedObservations()));
+            keyedMergers.clear();
+            keyedMergerOrder.clear();
+            keyedObservations = observations.iterator();
+        }
+        return keyedObservations.hasNext();
+    }
+
+    @Override
+    public OmObservation next() throws OwsExceptionReport {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (lookahead == null) {
+            return keyedObservations.next();
+        }
+        OmObservation merged = lookahead;
+        lookahead = null;
+        setObservationId(merged);
+        ObservationMergeIndicator indicator = indicators.apply(merged);
+        if (indicator != null) {
+            while (source.hasNext()) {
+                OmObservation candidate = source.next();
+                if (addKeyed(candidate)) {
+                    continue;
+                }
+                if (indicator == indicators.apply(candidate) && merged.checkForMerge(candidate, indicator)) {
+                    merged.mergeWithObservation(candidate);
+                } else {
+                    lookahead = candidate;
+                    break;
+                }
+            }
+        }
+        return merged;
+    }
+
+    private boolean addKeyed(OmObservation observation) {
+        if (keyedMergers.isEmpty()) {
+            return false;
+        }
+        ObservationMergeIndicator indicator = indicators.apply(observation);
+        KeyedObservationMerger merger = indicator != null ? keyedMergers.get(indicator) : null;
+        if (merger == null) {
+            return false;
+        }
+        // assign the id from this stream to avoid duplicates with the adjacent merged observations
+        setObservationId(observation);
+        merger.add(observation);
+        return true;
+    }
+
+    private void setObservationId(OmObservation observation) {
+        if (!observation.isSetGmlID()) {
+            observation.setObservationID(Integer.toString(obsIdCounter++));
+        }
+    }
+
+    /**
+     * Lazily replace observations with {@link StreamingValue}s by the
+     * observations of the streaming value.
+     *
+     * @param source
+     *            the observations
+     * @param indicator
+     *            indicator for other {@link AbstractStreaming} values, which
+     *            are merged by themselves
+     * @return the flattened observations
+     */
+    public static ObservationStream flatten(ObservationStream source, ObservationMergeIndicator indicator) {
+        return new FlatteningObservationStream(source, indicator);
+    }
+
+    private static final class FlatteningObservationStream implements ObservationStream {
+
+        private final ObservationStream source;
+
+        private final ObservationMergeIndicator indicator;
+
+        private StreamingValue<?> streamingValue;
+
+        private ObservationStream values;
+
+        private OmObservation lookahead;
+
+        FlatteningObservationStream(ObservationStream source, ObservationMergeIndicator indicator) {
+            this.source = source;
+            this.indicator = indicator;
+        }
+
+        @Override
+        public boolean hasNext() throws OwsExceptionReport {
+            while (lookahead == null) {
+                if (streamingValue != null && streamingValue.hasNext()) {
+                    lookahead = streamingValue.next();
+                } else if (values != null && values.hasNext()) {
+                    lookahead = values.next();
+                } else if (source.hasNext()) {
+                    streamingValue = null;
+                    values = null;
+                    OmObservation observation = source.next();
+                    if (observation.getValue() instanceof StreamingValue) {
+                        streamingValue = (StreamingValue<?>) observation.getValue();
+                    } else if (observation.getValue() instanceof AbstractStreaming) {
+                        values = ((AbstractStreaming) observation.getValue()).merge(indicator);
+                    } else {
+                        lookahead = observation;
+                    }
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public OmObservation next() throws OwsExceptionReport {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            OmObservation next = lookahead;
+            lookahead = null;
+            return next;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+public class CacheUpdateProgressTest {
+
+    @Test
+    public void shouldReportProgressOfPhases() {
+        CacheUpdateProgress progress = new CacheUpdateProgress();
+        progress.start(Arrays.asList("a", "b"));
+        progress.getPhase("a").start();
+        progress.getPhase("a").finish(false);
+        CacheUpdateProgress.Phase b = progress.getPhase("b");
+        b.start();
+        b.setTotal(4);
+        b.increment();
+        b.increment();
+
+        Map<String, Object> map = progress.toMap();
+        MatcherAssert.assertThat(map.get("running"), Matchers.is(true));
+        MatcherAssert.assertThat(map.get("percent"), Matchers.is(75.0));
+        MatcherAssert.assertThat(map, Matchers.hasKey("eta"));
+        List<?> phases = (List<?>) map.get("phases");
+        MatcherAssert.assertThat(((Map<?, ?>) phases.get(0)).get("state"), Matchers.is("finished"));
+        MatcherAssert.assertThat(((Map<?, ?>) phases.get(1)).get("completed"), Matchers.is(2L));
+        MatcherAssert.assertThat(((Map<?, ?>) phases.get(1)).get("total"), Matchers.is(4L));
+    }
+
+    @Test
+    public void shouldKeepLastRunAfterFinish() {
+        CacheUpdateProgress progress = new CacheUpdateProgress();
+        progress.start(Arrays.asList("a"));
+        progress.getPhase("a").finish(true);
+        progress.finish();
+
+        Map<String, Object> map = progress.toMap();
+        MatcherAssert.assertThat(progress.isRunning(), Matchers.is(false));
+        MatcherAssert.assertThat(map.get("running"), Matchers.is(false));
+        MatcherAssert.assertThat(map, Matchers.not(Matchers.hasKey("eta")));
+        MatcherAssert.assertThat(((Map<?, ?>) ((List<?>) map.get("phases")).get(0)).get("state"),
+                Matchers.is("failed"));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.coding.encode;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Test;
+
+public class FileAttachmentResponseTest {
+
+    @Test
+    public void shouldStreamSingleFileAndDeleteDirectory() throws IOException {
+        Path directory = FileAttachmentResponse.createTempDirectory("sos-test");
+        Path file = Files.write(directory.resolve("a.nc"), "netcdf".getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FileAttachmentResponse response = new FileAttachmentResponse(directory, file, null, "a.nc")) {
+            assertThat(response.isZip(), is(false));
+            assertThat(response.getContentLength(), is(6L));
+            response.writeTo(out);
+        }
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is("netcdf"));
+        assertThat(Files.exists(directory), is(false));
+    }
+
+    @Test
+    public void shouldStreamZipAndDeleteDirectory() throws IOException {
+        Path directory = FileAttachmentResponse.createTempDirectory("sos-test");
+        Files.write(directory.resolve("b.nc"), "second".getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("a.nc"), "first".getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FileAttachmentResponse response = new FileAttachmentResponse(directory, null, "a.zip")) {
+            assertThat(response.isZip(), is(true));
+            assertThat(response.getContentLength(), is(-1L));
+            response.writeTo(out);
+        }
+        assertThat(Files.exists(directory), is(false));
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry = zip.getNextEntry();
+            assertThat(entry.getName(), is("a.nc"));
+            assertThat(read(zip), is("first"));
+            entry = zip.getNextEntry();
+            assertThat(entry.getName(), is("b.nc"));
+            assertThat(read(zip), is("second"));
+        }
+    }
+
+    @Test
+    public void shouldDeleteDirectoryWithoutWriting() throws IOException {
+        Path directory = FileAttachmentResponse.createTempDirectory("sos-test");
+        Files.write(directory.resolve("a.nc"), new byte[] { 1 });
+        new FileAttachmentResponse(directory, null, "a.zip").close();
+        assertThat(Files.exists(directory), is(false));
+    }
+
+    private static String read(ZipInputStream zip) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64];
+        int read;
+        while ((read = zip.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
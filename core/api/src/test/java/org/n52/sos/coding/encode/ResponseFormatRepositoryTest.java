@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.coding.encode;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.iceland.coding.encode.ResponseFormatKey;
+import org.n52.iceland.service.operator.ServiceOperatorRepository;
+import org.n52.shetland.ogc.SupportedType;
+import org.n52.shetland.ogc.om.ObservationType;
+import org.n52.shetland.ogc.om.OmConstants;
+import org.n52.shetland.ogc.ows.service.OwsServiceKey;
+import org.n52.svalbard.encode.EncoderRepository;
+import org.n52.svalbard.encode.ObservationEncoder;
+
+public class ResponseFormatRepositoryTest {
+
+    private static final String SERVICE = "SOS";
+
+    private static final String VERSION = "2.0.0";
+
+    private static final String RESPONSE_FORMAT = "http://www.opengis.net/om/2.0";
+
+    private static final String OBSERVATION_TYPE = OmConstants.OBS_TYPE_MEASUREMENT;
+
+    private static final OwsServiceKey SERVICE_KEY = new OwsServiceKey(SERVICE, VERSION);
+
+    private static final ResponseFormatKey RESPONSE_FORMAT_KEY = new ResponseFormatKey(SERVICE_KEY, RESPONSE_FORMAT);
+
+    private ResponseFormatRepository repository;
+
+    @Before
+    public void setUp() {
+        ObservationEncoder<?, ?> encoder = mock(ObservationEncoder.class);
+        when(encoder.getSupportedResponseFormats(SERVICE_KEY)).thenReturn(Collections.singleton(RESPONSE_FORMAT));
+        Set<SupportedType> observationTypes = Collections.singleton(new ObservationType(OBSERVATION_TYPE));
+        doReturn(Collections.singletonMap(RESPONSE_FORMAT, observationTypes)).when(encoder)
+                .getSupportedResponseFormatObservationTypes();
+        EncoderRepository encoderRepository = mock(EncoderRepository.class);
+        doReturn(Collections.singleton(encoder)).when(encoderRepository).getEncoders();
+        ServiceOperatorRepository serviceOperatorRepository = mock(ServiceOperatorRepository.class);
+        when(serviceOperatorRepository.getServiceOperatorKeys()).thenReturn(Collections.singleton(SERVICE_KEY));
+        repository = new ResponseFormatRepository();
+        repository.init(serviceOperatorRepository, encoderRepository);
+    }
+
+    @Test
+    public void shouldIndexActiveResponseFormats() {
+        assertThat(getResponseFormats(), contains(RESPONSE_FORMAT));
+        assertThat(repository.getResponseFormatsForObservationType(SERVICE, "1.0.0", OBSERVATION_TYPE), is(empty()));
+    }
+
+    @Test
+    public void shouldRebuildIndexWhenResponseFormatIsDeactivated() {
+        repository.deactivate(RESPONSE_FORMAT_KEY);
+        assertThat(getResponseFormats(), is(empty()));
+
+        repository.activate(RESPONSE_FORMAT_KEY);
+        assertThat(getResponseFormats(), contains(RESPONSE_FORMAT));
+    }
+
+    @Test
+    public void shouldRebuildIndexWhenActivationIsSet() {
+        repository.setActive(RESPONSE_FORMAT_KEY, false);
+        assertThat(getResponseFormats(), is(empty()));
+        assertThat(repository.getSupportedResponseFormats(SERVICE, VERSION), is(empty()));
+
+        repository.setActive(RESPONSE_FORMAT_KEY, true);
+        assertThat(getResponseFormats(), contains(RESPONSE_FORMAT));
+    }
+
+    private Set<String> getResponseFormats() {
+        return repository.getResponseFormatsForObservationType(SERVICE, VERSION, OBSERVATION_TYPE);
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.i18n;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.n52.iceland.i18n.I18NDAORepository;
+import org.n52.iceland.i18n.metadata.I18NFeatureMetadata;
+import org.n52.iceland.i18n.metadata.I18NOfferingMetadata;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.ifoi.InsertFeatureOfInterestRequest;
+import org.n52.shetland.ogc.sos.ifoi.InsertFeatureOfInterestResponse;
+import org.n52.sos.event.events.FeatureInsertion;
+import org.n52.sos.event.events.UpdateCache;
+
+public class I18NMetadataStoreTest {
+
+    private BulkI18NDAO<I18NFeatureMetadata> dao;
+
+    private I18NMetadataStore store;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws OwsExceptionReport {
+        dao = Mockito.mock(BulkI18NDAO.class);
+        Mockito.when(dao.isSupported()).thenReturn(true);
+        Mockito.when(dao.getMetadataForLocales(Mockito.anyCollection()))
+                .thenReturn(Arrays.asList(feature("f1", Locale.GERMAN, "Messstelle"),
+                        feature("f2", Locale.ENGLISH, "Station")));
+        I18NDAORepository repository = Mockito.mock(I18NDAORepository.class);
+        Mockito.doReturn(dao).when(repository).getDAO(I18NFeatureMetadata.class);
+        store = new I18NMetadataStore();
+        store.setI18NDAORepository(repository);
+    }
+
+    @Test
+    public void shouldIndexMetadataByIdentifierAndLocale() {
+        assertThat(store.isAvailable(I18NFeatureMetadata.class), is(true));
+        assertThat(store.getName(I18NFeatureMetadata.class, "f1", Locale.GERMAN).get().getText(),
+                is("Messstelle"));
+        assertThat(store.getName(I18NFeatureMetadata.class, "f1", Locale.ENGLISH).isPresent(), is(false));
+        assertThat(store.getIdentifiers(I18NFeatureMetadata.class, Locale.ENGLISH), contains("f2"));
+        assertThat(store.getLocales(I18NFeatureMetadata.class),
+                containsInAnyOrder(Locale.GERMAN, Locale.ENGLISH));
+    }
+
+    @Test
+    public void shouldLoadTypeWithSingleQuery() throws OwsExceptionReport {
+        store.get(I18NFeatureMetadata.class, "f1");
+        store.get(I18NFeatureMetadata.class, "f2");
+        store.getAll(I18NFeatureMetadata.class);
+        Mockito.verify(dao, Mockito.times(1)).getMetadataForLocales(Mockito.anyCollection());
+    }
+
+    @Test
+    public void shouldReloadAfterInvalidatingEvent() throws OwsExceptionReport {
+        store.get(I18NFeatureMetadata.class, "f1");
+        store.handle(new FeatureInsertion(Mockito.mock(InsertFeatureOfInterestRequest.class),
+                Mockito.mock(InsertFeatureOfInterestResponse.class)));
+        store.get(I18NFeatureMetadata.class, "f1");
+        store.handle(new UpdateCache());
+        store.get(I18NFeatureMetadata.class, "f1");
+        Mockito.verify(dao, Mockito.times(3)).getMetadataForLocales(Mockito.anyCollection());
+    }
+
+    @Test
+    public void shouldUpdateSingleEntry() {
+        store.get(I18NFeatureMetadata.class, "f1");
+        store.update(feature("f1", Locale.GERMAN, "Pegel"));
+        assertThat(store.getName(I18NFeatureMetadata.class, "f1", Locale.GERMAN).get().getText(), is("Pegel"));
+        assertThat(store.getIdentifiers(I18NFeatureMetadata.class, Locale.ENGLISH), contains("f2"));
+    }
+
+    @Test
+    public void shouldNotBeAvailableWithoutBulkDao() {
+        assertThat(store.isAvailable(I18NOfferingMetadata.class), is(false));
+        assertThat(store.getAll(I18NOfferingMetadata.class).isEmpty(), is(true));
+    }
+
+    private static I18NFeatureMetadata feature(String identifier, Locale locale, String name) {
+        I18NFeatureMetadata metadata = new I18NFeatureMetadata(identifier);
+        metadata.getName().addLocalization(locale, name);
+        return metadata;
+    }
+}
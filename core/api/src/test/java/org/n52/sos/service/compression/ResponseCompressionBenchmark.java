@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.service.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.zip.Deflater;
+
+/**
+ * Measures throughput, CPU time and compression ratio of the {@link CompressingOutputStream} for every coding and
+ * compression level with an O&amp;M like payload. This is not executed by the test suite, run it with
+ * <code>main()</code> from the test classpath.
+ *
+ * @since 5.3.2
+ */
+public final class ResponseCompressionBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20;
+
+    private static final int ITERATIONS = 50;
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final double MB = 1024 * 1024;
+
+    private ResponseCompressionBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        byte[] payload = ResponseCompressionTest.payload();
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        System.out.printf("payload: %d bytes%n", payload.length);
+        System.out.printf("%-8s %5s %10s %12s %14s%n", "coding", "level", "ratio", "MB/s", "CPU ms/MB");
+        for (ContentCoding coding : ContentCoding.values()) {
+            for (int level = Deflater.BEST_SPEED; level <= Deflater.BEST_COMPRESSION; level++) {
+                for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                    compress(payload, coding, level);
+                }
+                long compressed = 0;
+                long cpu = threadMXBean.getCurrentThreadCpuTime();
+                long start = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    compressed = compress(payload, coding, level);
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                double cpuMillis = (threadMXBean.getCurrentThreadCpuTime() - cpu) / 1e6;
+                double megabytes = payload.length * (double) ITERATIONS / MB;
+                System.out.printf("%-8s %5d %10.1f %12.1f %14.2f%n", coding.getName(), level,
+                        payload.length / (double) compressed, megabytes / seconds, cpuMillis / megabytes);
+            }
+        }
+    }
+
+    private static long compress(byte[] payload, ContentCoding coding, int level) throws IOException {
+        CountingOutputStream target = new CountingOutputStream();
+        CompressingOutputStream out = new CompressingOutputStream(target, 0, level, exceedsThreshold -> coding);
+        for (int i = 0; i < payload.length; i += CHUNK_SIZE) {
+            out.write(payload, i, Math.min(CHUNK_SIZE, payload.length - i));
+        }
+        out.finish();
+        return target.count;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.service.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.Is;
+import org.hamcrest.core.IsNull;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * @since 5.3.2
+ */
+public class ResponseCompressionTest {
+
+    private static final byte[] PAYLOAD = payload();
+
+    @Test
+    public void shouldNegotiateCoding() {
+        MatcherAssert.assertThat(ResponseCompression.negotiate(null), IsNull.nullValue());
+        MatcherAssert.assertThat(ResponseCompression.negotiate("identity"), IsNull.nullValue());
+        MatcherAssert.assertThat(ResponseCompression.negotiate("gzip"), Is.is(ContentCoding.GZIP));
+        MatcherAssert.assertThat(ResponseCompression.negotiate("deflate, gzip"), Is.is(ContentCoding.GZIP));
+        MatcherAssert.assertThat(ResponseCompression.negotiate("gzip;q=0.5, deflate"), Is.is(ContentCoding.DEFLATE));
+        MatcherAssert.assertThat(ResponseCompression.negotiate("gzip;q=0, *"), Is.is(ContentCoding.DEFLATE));
+        MatcherAssert.assertThat(ResponseCompression.negotiate("*;q=0"), IsNull.nullValue());
+        MatcherAssert.assertThat(ResponseCompression.negotiate("br, GZIP"), Is.is(ContentCoding.GZIP));
+    }
+
+    @Test
+    public void shouldMatchContentTypesWithoutParameters() {
+        ResponseCompression compression = new ResponseCompression();
+        compression.setContentTypes("application/xml, application/json");
+        MatcherAssert.assertThat(compression.isCompressible("application/xml; charset=UTF-8"), Is.is(true));
+        MatcherAssert.assertThat(compression.isCompressible("Application/JSON"), Is.is(true));
+        MatcherAssert.assertThat(compression.isCompressible("application/zip"), Is.is(false));
+        MatcherAssert.assertThat(compression.isCompressible(null), Is.is(false));
+    }
+
+    @Test
+    public void shouldNotCompressBelowThreshold() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        CompressingOutputStream out = new CompressingOutputStream(target, PAYLOAD.length + 1, 5,
+            exceedsThreshold -> exceedsThreshold ? ContentCoding.GZIP : null);
+        out.write(PAYLOAD);
+        out.finish();
+        MatcherAssert.assertThat(out.isCompressing(), Is.is(false));
+        MatcherAssert.assertThat(target.toByteArray(), Is.is(PAYLOAD));
+    }
+
+    @Test
+    public void shouldCompressAboveThreshold() throws IOException {
+        for (ContentCoding coding : ContentCoding.values()) {
+            ByteArrayOutputStream target = new ByteArrayOutputStream();
+            CompressingOutputStream out = new CompressingOutputStream(target, 100, 5, exceedsThreshold -> coding);
+            // write in chunks and flush in between like a streaming encoder
+            for (int i = 0; i < PAYLOAD.length; i += 1000) {
+                out.write(PAYLOAD, i, Math.min(1000, PAYLOAD.length - i));
+                out.flush();
+            }
+            out.finish();
+            MatcherAssert.assertThat(out.isCompressing(), Is.is(true));
+            MatcherAssert.assertThat(target.size() < PAYLOAD.length / 5, Is.is(true));
+            MatcherAssert.assertThat(decompress(coding, target.toByteArray()), Is.is(PAYLOAD));
+        }
+    }
+
+    @Test
+    public void shouldNotCompressIfRejected() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        CompressingOutputStream out = new CompressingOutputStream(target, 100, 5, exceedsThreshold -> null);
+        out.write(PAYLOAD);
+        out.finish();
+        MatcherAssert.assertThat(target.toByteArray(), Is.is(PAYLOAD));
+    }
+
+    private static byte[] decompress(ContentCoding coding, byte[] bytes) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        return ByteStreams.toByteArray(coding == ContentCoding.GZIP ? new GZIPInputStream(in)
+                : new InflaterInputStream(in));
+    }
+
+    static byte[] payload() {
+        StringBuilder builder = new StringBuilder("<sos:GetObservationResponse>");
+        for (int i = 0; i < 2000; i++) {
+            builder.append("<sos:observationData><om:OM_Observation gml:id=\"o_").append(i)
+                    .append("\"><om:phenomenonTime><gml:TimeInstant><gml:timePosition>2012-11-19T13:")
+                    .append(String.format("%02d:%02d", i / 60 % 60, i % 60))
+                    .append(".000Z</gml:timePosition></gml:TimeInstant></om:phenomenonTime>")
+                    .append("<om:result xsi:type=\"gml:MeasureType\" uom=\"test_unit_9_3\">")
+                    .append(i * 0.7).append("</om:result></om:OM_Observation></sos:observationData>");
+        }
+        return builder.append("</sos:GetObservationResponse>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
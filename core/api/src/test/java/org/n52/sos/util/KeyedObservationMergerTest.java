@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.n52.shetland.ogc.gml.CodeWithAuthority;
+import org.n52.shetland.ogc.om.ObservationMergeIndicator;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.OmObservationConstellation;
+import org.n52.shetland.ogc.om.features.samplingFeatures.SamplingFeature;
+
+public class KeyedObservationMergerTest {
+
+    private static final ObservationMergeIndicator INDICATOR =
+            new ObservationMergeIndicator().setFeatureOfInterest(true);
+
+    @Test
+    public void shouldMergeObservationsWithSameKeyInOrderOfFirstOccurrence() {
+        List<OmObservation[]> merges = new ArrayList<>();
+        KeyedObservationMerger merger =
+                new KeyedObservationMerger(INDICATOR, (merged, toAdd) -> true, (merged, toAdd) -> {
+                    merges.add(new OmObservation[] { merged, toAdd });
+                });
+        OmObservation a1 = createObservation("a");
+        OmObservation b = createObservation("b");
+        OmObservation a2 = createObservation("a");
+        merger.add(a1);
+        merger.add(b);
+        merger.add(a2);
+
+        MatcherAssert.assertThat(merger.getMergedObservations(), Matchers.contains(a1, b));
+        MatcherAssert.assertThat(merges.size(), Matchers.is(1));
+        MatcherAssert.assertThat(merges.get(0)[0], Matchers.sameInstance(a1));
+        MatcherAssert.assertThat(merges.get(0)[1], Matchers.sameInstance(a2));
+    }
+
+    @Test
+    public void shouldNotMergeWhenCheckFailsForSameKey() {
+        KeyedObservationMerger merger = new KeyedObservationMerger(INDICATOR, (merged, toAdd) -> false,
+                (merged, toAdd) -> {
+                    throw new AssertionError("should not merge");
+                });
+        OmObservation a1 = createObservation("a");
+        OmObservation a2 = createObservation("a");
+        merger.add(a1);
+        merger.add(a2);
+
+        MatcherAssert.assertThat(merger.getMergedObservations(), Matchers.contains(a1, a2));
+    }
+
+    private OmObservation createObservation(String feature) {
+        OmObservationConstellation constellation = new OmObservationConstellation();
+        constellation.setFeatureOfInterest(new SamplingFeature(new CodeWithAuthority(feature)));
+        OmObservation observation = new OmObservation();
+        observation.setObservationConstellation(constellation);
+        return observation;
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.util;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.n52.shetland.ogc.om.ObservationMergeIndicator;
+import org.n52.shetland.ogc.om.ObservationStream;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.OmObservationConstellation;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+
+public class MergingObservationStreamTest {
+
+    private static final ObservationMergeIndicator ADJACENT = ObservationMergeIndicator.sameObservationConstellation();
+
+    private static final ObservationMergeIndicator KEYED = new ObservationMergeIndicator().setProcedure(true);
+
+    private final Map<OmObservation, ObservationMergeIndicator> indicators = new IdentityHashMap<>();
+
+    @Test
+    public void shouldMergeAdjacentObservations() throws OwsExceptionReport {
+        OmObservation a1 = createObservation(ADJACENT);
+        OmObservation a2 = createObservation(ADJACENT);
+        when(a1.checkForMerge(a2, ADJACENT)).thenReturn(true);
+
+        MatcherAssert.assertThat(toList(createStream(a1, a2)), Matchers.contains(a1));
+        verify(a1).mergeWithObservation(a2);
+    }
+
+    @Test
+    public void shouldNotMergeObservationsThatAreNotAdjacent() throws OwsExceptionReport {
+        OmObservation a1 = createObservation(ADJACENT);
+        OmObservation b = createObservation(null);
+        OmObservation a2 = createObservation(ADJACENT);
+        when(a1.checkForMerge(a2, ADJACENT)).thenReturn(true);
+
+        MatcherAssert.assertThat(toList(createStream(a1, b, a2)), Matchers.contains(a1, b, a2));
+        verify(a1, never()).mergeWithObservation(any(OmObservation.class));
+    }
+
+    @Test
+    public void shouldMergeKeyedObservationsIndependentOfOrder() throws OwsExceptionReport {
+        OmObservation m1 = createObservation(KEYED);
+        OmObservation a = createObservation(ADJACENT);
+        OmObservation m2 = createObservation(KEYED);
+        OmObservation b = createObservation(null);
+        when(m1.checkForMerge(m2, KEYED)).thenReturn(true);
+
+        MatcherAssert.assertThat(toList(createStream(m1, a, m2, b).mergeKeyed(KEYED)), Matchers.contains(a, b, m1));
+        verify(m1).mergeWithObservation(m2);
+        verify(a, never()).mergeWithObservation(any(OmObservation.class));
+    }
+
+    @Test
+    public void shouldAssignUniqueObservationIds() throws OwsExceptionReport {
+        OmObservation a = createObservation(null);
+        OmObservation m = createObservation(KEYED);
+        OmObservation b = createObservation(null);
+
+        toList(createStream(a, m, b).mergeKeyed(KEYED));
+        verify(a).setObservationID("1");
+        verify(m).setObservationID("2");
+        verify(b).setObservationID("3");
+    }
+
+    private MergingObservationStream createStream(OmObservation... observations) {
+        return new MergingObservationStream(ObservationStream.of(Arrays.asList(observations)), indicators::get);
+    }
+
+    private OmObservation createObservation(ObservationMergeIndicator indicator) {
+        OmObservation observation = mock(OmObservation.class);
+        when(observation.getObservationConstellation()).thenReturn(mock(OmObservationConstellation.class));
+        if (indicator != null) {
+            indicators.put(observation, indicator);
+        }
+        return observation;
+    }
+
+    private List<OmObservation> toList(ObservationStream stream) throws OwsExceptionReport {
+        List<OmObservation> list = new ArrayList<>();
+        while (stream.hasNext()) {
+            list.add(stream.next());
+        }
+        return list;
+    }
+
+}
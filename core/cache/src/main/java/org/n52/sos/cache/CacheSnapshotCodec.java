@@ -0,0 +1,656 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.locationtech.jts.geom.Envelope;
+import org.n52.shetland.util.ReferencedEnvelope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Reads and writes snapshots of an {@link InMemoryCacheImpl} in a compact
+ * binary format.
+ * <p/>
+ * A snapshot file starts with a magic number and a format version, followed
+ * by a sequence of segments. Each segment is prefixed with its length and a
+ * CRC32 checksum and contains a string dictionary and a number of sections,
+ * one per persistent field of the cache. Sets and relations of identifiers
+ * are stored as dictionary indices, times and envelopes as columns of
+ * primitives. Fields of other types are stored Java serialized.
+ * <p/>
+ * {@link #write(InMemoryCacheImpl, Path)} replaces the file with a single
+ * segment containing all sections, {@link #append(InMemoryCacheImpl, Path)}
+ * appends a segment containing only the sections whose fields were marked as
+ * changed by the mutators of the cache since the last write. When reading,
+ * later sections replace earlier ones and a truncated or corrupt trailing
+ * segment is ignored.
+ *
+ * @since 5.3.2
+ */
+public class CacheSnapshotCodec {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheSnapshotCodec.class);
+
+    private static final int MAGIC = 0x534F5343;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_LENGTH = 8;
+
+    private static final int SEGMENT_HEADER_LENGTH = 8;
+
+    private static final int CHECKSUM_CHUNK_SIZE = 8192;
+
+    private static final int NULL = -1;
+
+    private static final byte STRING_SET = 1;
+
+    private static final byte STRING_MAP = 2;
+
+    private static final byte RELATION = 3;
+
+    private static final byte TIME_MAP = 4;
+
+    private static final byte ENVELOPE_MAP = 5;
+
+    private static final byte SERIALIZED = 6;
+
+    private static final byte NO_ENVELOPE = 0;
+
+    private static final byte EMPTY_ENVELOPE = 1;
+
+    private static final byte ENVELOPE = 2;
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final Map<Field, Byte> FIELDS = getPersistentFields();
+
+    /**
+     * The cache whose state is contained in the snapshot file, appending
+     * changes of other caches requires a complete write.
+     */
+    private InMemoryCacheImpl written;
+
+    /**
+     * Replace the snapshot file with a snapshot of all sections of the cache.
+     *
+     * @param cache
+     *            the cache
+     * @param file
+     *            the snapshot file
+     * @return the size of the written file
+     * @throws IOException
+     *             if the file could not be written
+     */
+    public synchronized long write(InMemoryCacheImpl cache, Path file) throws IOException {
+        written = null;
+        // drained before the snapshot, changes made during the snapshot stay marked
+        cache.drainDirtyFields();
+        ByteBuffer segment = encode(snapshot(cache, name -> true));
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            writeFully(channel, segment);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        written = cache;
+        return HEADER_LENGTH + segment.limit();
+    }
+
+    /**
+     * Append the sections of the fields of the cache that were changed since
+     * the last write or append to the snapshot file. Only these sections are
+     * copied and encoded. If the file does not exist or does not contain the
+     * state of this cache, the file is rewritten completely.
+     *
+     * @param cache
+     *            the cache
+     * @param file
+     *            the snapshot file
+     * @return the number of written bytes
+     * @throws IOException
+     *             if the file could not be written
+     */
+    public synchronized long append(InMemoryCacheImpl cache, Path file) throws IOException {
+        if (cache != written || !Files.exists(file)) {
+            return write(cache, file);
+        }
+        Set<String> dirty = cache.drainDirtyFields();
+        if (dirty.isEmpty()) {
+            return 0;
+        }
+        // a failed append may leave a partial segment, so the next call rewrites the file
+        written = null;
+        List<Section> changed = snapshot(cache, dirty::contains);
+        ByteBuffer segment = encode(changed);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            writeFully(channel, segment);
+        }
+        written = cache;
+        LOGGER.debug("Appended {} changed cache sections ({} bytes)", changed.size(), segment.limit());
+        return segment.limit();
+    }
+
+    /**
+     * Read a cache from the snapshot file. The file is read into a heap
+     * buffer, which is released with the decoded segments.
+     *
+     * @param file
+     *            the snapshot file
+     * @return the cache, or nothing if the file is not a snapshot of a
+     *         supported version
+     * @throws IOException
+     *             if the file could not be read
+     */
+    public synchronized Optional<InMemoryCacheImpl> read(Path file) throws IOException {
+        Map<String, Section> sections = new HashMap<>();
+        written = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = readFully(channel);
+            if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC) {
+                LOGGER.warn("{} is not a cache snapshot", file);
+                return Optional.empty();
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                LOGGER.info("Ignoring cache snapshot {} of unsupported version {}", file, version);
+                return Optional.empty();
+            }
+            while (buffer.remaining() >= SEGMENT_HEADER_LENGTH) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    LOGGER.warn("Ignoring truncated segment of cache snapshot {}", file);
+                    break;
+                }
+                ByteBuffer payload = buffer.slice();
+                payload.limit(length);
+                if (checksum != checksum(payload.duplicate())) {
+                    LOGGER.warn("Ignoring corrupt segment of cache snapshot {}", file);
+                    break;
+                }
+                for (Section section : decode(payload)) {
+                    sections.put(section.name, section);
+                }
+                buffer.position(buffer.position() + length);
+            }
+        }
+        InMemoryCacheImpl cache = new InMemoryCacheImpl();
+        for (Map.Entry<Field, Byte> field : FIELDS.entrySet()) {
+            Section section = sections.get(field.getKey().getName());
+            if (section != null && section.kind == field.getValue()) {
+                restore(field.getKey(), cache, section.value);
+            }
+        }
+        cache.rebuildHierarchies();
+        // the file contains the state of the read cache, so its changes can be appended
+        written = cache;
+        return Optional.of(cache);
+    }
+
+    private static List<Section> snapshot(InMemoryCacheImpl cache, Predicate<String> include) throws IOException {
+        List<Section> sections = new ArrayList<>();
+        for (Map.Entry<Field, Byte> field : FIELDS.entrySet()) {
+            String name = field.getKey().getName();
+            if (include.test(name)) {
+                sections.add(snapshot(name, field.getValue(), get(field.getKey(), cache)));
+            }
+        }
+        return sections;
+    }
+
+    private static Section snapshot(String name, byte kind, Object value) throws IOException {
+        if (value instanceof Map || value instanceof Collection) {
+            // the synchronized collections of the cache use themselves as mutex
+            synchronized (value) {
+                return createSection(name, kind, value);
+            }
+        }
+        return createSection(name, value == null ? SERIALIZED : kind, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Section createSection(String name, byte kind, Object value) throws IOException {
+        switch (kind) {
+            case STRING_SET:
+                return new Section(name, kind, new ArrayList<>((Collection<String>) value));
+            case STRING_MAP:
+                return new Section(name, kind, new HashMap<>((Map<String, String>) value));
+            case RELATION:
+                Map<String, List<String>> relation = new HashMap<>();
+                for (Map.Entry<String, Set<String>> e : ((Map<String, Set<String>>) value).entrySet()) {
+                    relation.put(e.getKey(), copy(e.getValue()));
+                }
+                return new Section(name, kind, relation);
+            case TIME_MAP:
+                return new Section(name, kind, new HashMap<>((Map<String, DateTime>) value));
+            case ENVELOPE_MAP:
+                Map<String, ReferencedEnvelope> envelopes = new HashMap<>();
+                for (Map.Entry<String, ReferencedEnvelope> e
+                        : ((Map<String, ReferencedEnvelope>) value).entrySet()) {
+                    envelopes.put(e.getKey(), AbstractContentCache.copyOf(e.getValue()));
+                }
+                return new Section(name, kind, envelopes);
+            default:
+                return new Section(name, kind, serialize(value));
+        }
+    }
+
+    private static List<String> copy(Set<String> set) {
+        if (set == null) {
+            return Collections.emptyList();
+        }
+        synchronized (set) {
+            return new ArrayList<>(set);
+        }
+    }
+
+    private static long toMillis(DateTime time) {
+        return time == null ? NO_TIME : time.getMillis();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ByteBuffer encode(List<Section> sections) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeInt(sections.size());
+        for (Section section : sections) {
+            out.writeInt(index(dictionary, section.name));
+            out.writeByte(section.kind);
+            switch (section.kind) {
+                case STRING_SET:
+                    List<String> set = (List<String>) section.value;
+                    out.writeInt(set.size());
+                    for (String value : set) {
+                        out.writeInt(index(dictionary, value));
+                    }
+                    break;
+                case STRING_MAP:
+                    Map<String, String> strings = (Map<String, String>) section.value;
+                    out.writeInt(strings.size());
+                    for (Map.Entry<String, String> e : strings.entrySet()) {
+                        out.writeInt(index(dictionary, e.getKey()));
+                        out.writeInt(index(dictionary, e.getValue()));
+                    }
+                    break;
+                case RELATION:
+                    Map<String, List<String>> relation = (Map<String, List<String>>) section.value;
+                    out.writeInt(relation.size());
+                    for (Map.Entry<String, List<String>> e : relation.entrySet()) {
+                        out.writeInt(index(dictionary, e.getKey()));
+                        out.writeInt(e.getValue().size());
+                        for (String value : e.getValue()) {
+                            out.writeInt(index(dictionary, value));
+                        }
+                    }
+                    break;
+                case TIME_MAP:
+                    Map<String, DateTime> times = (Map<String, DateTime>) section.value;
+                    List<DateTime> timeColumn = new ArrayList<>(times.size());
+                    out.writeInt(times.size());
+                    for (Map.Entry<String, DateTime> e : times.entrySet()) {
+                        out.writeInt(index(dictionary, e.getKey()));
+                        timeColumn.add(e.getValue());
+                    }
+                    for (DateTime time : timeColumn) {
+                        out.writeLong(toMillis(time));
+                    }
+                    break;
+                case ENVELOPE_MAP:
+                    Map<String, ReferencedEnvelope> envelopes = (Map<String, ReferencedEnvelope>) section.value;
+                    List<ReferencedEnvelope> envelopeColumn = new ArrayList<>(envelopes.size());
+                    out.writeInt(envelopes.size());
+                    for (Map.Entry<String, ReferencedEnvelope> e : envelopes.entrySet()) {
+                        out.writeInt(index(dictionary, e.getKey()));
+                        envelopeColumn.add(e.getValue());
+                    }
+                    for (ReferencedEnvelope envelope : envelopeColumn) {
+                        writeEnvelope(out, envelope);
+                    }
+                    break;
+                default:
+                    byte[] bytes = (byte[]) section.value;
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                    break;
+            }
+        }
+        out.flush();
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(body.size() + dictionary.size() * 16);
+        DataOutputStream dictionaryOut = new DataOutputStream(payload);
+        dictionaryOut.writeInt(dictionary.size());
+        for (String string : dictionary.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            dictionaryOut.writeInt(bytes.length);
+            dictionaryOut.write(bytes);
+        }
+        dictionaryOut.flush();
+        body.writeTo(payload);
+
+        byte[] bytes = payload.toByteArray();
+        ByteBuffer segment = ByteBuffer.allocate(SEGMENT_HEADER_LENGTH + bytes.length);
+        segment.putInt(bytes.length).putInt(checksum(ByteBuffer.wrap(bytes))).put(bytes);
+        segment.flip();
+        return segment;
+    }
+
+    private static int index(Map<String, Integer> dictionary, String value) {
+        if (value == null) {
+            return NULL;
+        }
+        return dictionary.computeIfAbsent(value, v -> dictionary.size());
+    }
+
+    private static void writeEnvelope(DataOutputStream out, ReferencedEnvelope envelope) throws IOException {
+        if (envelope == null) {
+            out.writeByte(NO_ENVELOPE);
+        } else if (envelope.getEnvelope() == null || envelope.getEnvelope().isNull()) {
+            out.writeByte(EMPTY_ENVELOPE);
+            out.writeInt(envelope.getSrid());
+        } else {
+            Envelope e = envelope.getEnvelope();
+            out.writeByte(ENVELOPE);
+            out.writeInt(envelope.getSrid());
+            out.writeDouble(e.getMinX());
+            out.writeDouble(e.getMaxX());
+            out.writeDouble(e.getMinY());
+            out.writeDouble(e.getMaxY());
+        }
+    }
+
+    private static List<Section> decode(ByteBuffer buffer) throws IOException {
+        String[] dictionary = new String[buffer.getInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        int count = buffer.getInt();
+        List<Section> sections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = lookup(dictionary, buffer.getInt());
+            byte kind = buffer.get();
+            sections.add(new Section(name, kind, decode(buffer, kind, dictionary)));
+        }
+        return sections;
+    }
+
+    private static Object decode(ByteBuffer buffer, byte kind, String[] dictionary) throws IOException {
+        int size;
+        switch (kind) {
+            case STRING_SET:
+                size = buffer.getInt();
+                Set<String> set = new HashSet<>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    set.add(lookup(dictionary, buffer.getInt()));
+                }
+                return set;
+            case STRING_MAP:
+                size = buffer.getInt();
+                Map<String, String> strings = new HashMap<>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    strings.put(lookup(dictionary, buffer.getInt()), lookup(dictionary, buffer.getInt()));
+                }
+                return strings;
+            case RELATION:
+                size = buffer.getInt();
+                Map<String, Set<String>> relation = new HashMap<>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    String key = lookup(dictionary, buffer.getInt());
+                    int valueCount = buffer.getInt();
+                    Set<String> values = new HashSet<>(capacity(valueCount));
+                    for (int j = 0; j < valueCount; j++) {
+                        values.add(lookup(dictionary, buffer.getInt()));
+                    }
+                    relation.put(key, Collections.synchronizedSet(values));
+                }
+                return relation;
+            case TIME_MAP:
+                size = buffer.getInt();
+                String[] timeKeys = new String[size];
+                for (int i = 0; i < size; i++) {
+                    timeKeys[i] = lookup(dictionary, buffer.getInt());
+                }
+                Map<String, DateTime> times = new HashMap<>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    long millis = buffer.getLong();
+                    times.put(timeKeys[i], millis == NO_TIME ? null : new DateTime(millis, DateTimeZone.UTC));
+                }
+                return times;
+            case ENVELOPE_MAP:
+                size = buffer.getInt();
+                String[] envelopeKeys = new String[size];
+                for (int i = 0; i < size; i++) {
+                    envelopeKeys[i] = lookup(dictionary, buffer.getInt());
+                }
+                Map<String, ReferencedEnvelope> envelopes = new HashMap<>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    envelopes.put(envelopeKeys[i], readEnvelope(buffer));
+                }
+                return envelopes;
+            case SERIALIZED:
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                return deserialize(bytes);
+            default:
+                throw new IOException(String.format("Unknown cache snapshot section kind %d", kind));
+        }
+    }
+
+    private static ReferencedEnvelope readEnvelope(ByteBuffer buffer) {
+        byte type = buffer.get();
+        if (type == NO_ENVELOPE) {
+            return null;
+        }
+        int srid = buffer.getInt();
+        if (type == EMPTY_ENVELOPE) {
+            return new ReferencedEnvelope(null, srid);
+        }
+        double minX = buffer.getDouble();
+        double maxX = buffer.getDouble();
+        double minY = buffer.getDouble();
+        double maxY = buffer.getDouble();
+        return new ReferencedEnvelope(new Envelope(minX, maxX, minY, maxY), srid);
+    }
+
+    private static String lookup(String[] dictionary, int index) {
+        return index == NULL ? null : dictionary[index];
+    }
+
+    private static int capacity(int size) {
+        return Math.max(16, (int) (size / 0.75f) + 1);
+    }
+
+    private static int checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        if (buffer.hasArray()) {
+            crc.update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            byte[] chunk = new byte[CHECKSUM_CHUNK_SIZE];
+            while (buffer.hasRemaining()) {
+                int length = Math.min(chunk.length, buffer.remaining());
+                buffer.get(chunk, 0, length);
+                crc.update(chunk, 0, length);
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    private static ByteBuffer readFully(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Cache snapshot of %d bytes is too large", size));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static Object get(Field field, InMemoryCacheImpl cache) {
+        try {
+            return field.get(cache);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static void restore(Field field, InMemoryCacheImpl cache, Object value) {
+        Object current = get(field, cache);
+        if (current instanceof Map && value instanceof Map) {
+            ((Map) current).clear();
+            ((Map) current).putAll((Map) value);
+        } else if (current instanceof Collection && value instanceof Collection) {
+            ((Collection) current).clear();
+            ((Collection) current).addAll((Collection) value);
+        } else {
+            try {
+                field.set(cache, value);
+            } catch (IllegalAccessException | IllegalArgumentException e) {
+                LOGGER.warn("Could not restore cache field {}", field.getName(), e);
+            }
+        }
+    }
+
+    private static Map<Field, Byte> getPersistentFields() {
+        Map<Field, Byte> fields = new LinkedHashMap<>();
+        for (Class<?> c = InMemoryCacheImpl.class; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                    field.setAccessible(true);
+                    fields.put(field, getKind(field));
+                }
+            }
+        }
+        return Collections.unmodifiableMap(fields);
+    }
+
+    private static byte getKind(Field field) {
+        Type type = field.getGenericType();
+        if (type instanceof ParameterizedType) {
+            Type raw = ((ParameterizedType) type).getRawType();
+            Type[] args = ((ParameterizedType) type).getActualTypeArguments();
+            if (raw == Set.class && args[0] == String.class) {
+                return STRING_SET;
+            }
+            if (raw instanceof Class && Map.class.isAssignableFrom((Class<?>) raw) && args[0] == String.class) {
+                if (args[1] == String.class) {
+                    return STRING_MAP;
+                } else if (args[1] == DateTime.class) {
+                    return TIME_MAP;
+                } else if (args[1] == ReferencedEnvelope.class) {
+                    return ENVELOPE_MAP;
+                } else if (args[1] instanceof ParameterizedType
+                        && ((ParameterizedType) args[1]).getRawType() == Set.class
+                        && ((ParameterizedType) args[1]).getActualTypeArguments()[0] == String.class) {
+                    return RELATION;
+                }
+            }
+        }
+        return SERIALIZED;
+    }
+
+    private static final class Section {
+        private final String name;
+        private final byte kind;
+        private final Object value;
+
+        Section(String name, byte kind, Object value) {
+            this.name = name;
+            this.kind = kind;
+            this.value = value;
+        }
+    }
+}
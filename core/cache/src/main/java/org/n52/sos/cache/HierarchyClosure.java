@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Transitive closure of a parent/child hierarchy. For every identifier the
+ * sets of all ancestors and all descendants are kept, so that lookups of the
+ * full hierarchy do not have to walk the adjacency maps. The closure sets are
+ * immutable and replaced on modification, which makes lookups cheap and safe
+ * for concurrent readers.
+ *
+ * @since 5.3.2
+ */
+final class HierarchyClosure {
+
+    private final Map<String, Set<String>> ancestors = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<String>> descendants = new ConcurrentHashMap<>();
+
+    /**
+     * Get all direct and indirect parents of the identifier.
+     *
+     * @param key
+     *            the identifier
+     * @return unmodifiable set of the ancestors
+     */
+    Set<String> getAncestors(String key) {
+        return ancestors.getOrDefault(key, Collections.emptySet());
+    }
+
+    /**
+     * Get all direct and indirect children of the identifier.
+     *
+     * @param key
+     *            the identifier
+     * @return unmodifiable set of the descendants
+     */
+    Set<String> getDescendants(String key) {
+        return descendants.getOrDefault(key, Collections.emptySet());
+    }
+
+    /**
+     * Add parent relations of the child and propagate them to all
+     * descendants of the child and all ancestors of the parents.
+     *
+     * @param child
+     *            the child identifier
+     * @param parents
+     *            the parent identifiers
+     */
+    synchronized void add(String child, Collection<String> parents) {
+        if (parents.isEmpty()) {
+            return;
+        }
+        Set<String> newAncestors = new HashSet<>(parents);
+        parents.forEach(parent -> newAncestors.addAll(getAncestors(parent)));
+        Set<String> newDescendants = new HashSet<>(getDescendants(child));
+        newDescendants.add(child);
+        newDescendants.forEach(descendant -> union(ancestors, descendant, newAncestors));
+        newAncestors.forEach(ancestor -> union(descendants, ancestor, newDescendants));
+    }
+
+    /**
+     * Remove the identifier from the closure. Only the ancestor sets of its
+     * former descendants and the descendant sets of its former ancestors can
+     * change, so only these are recomputed from the remaining relations.
+     *
+     * @param key
+     *            the removed identifier
+     * @param parentsForChildren
+     *            the remaining parents for each child
+     * @param childrenForParents
+     *            the remaining children for each parent
+     */
+    synchronized void remove(String key, Map<String, Set<String>> parentsForChildren,
+            Map<String, Set<String>> childrenForParents) {
+        Set<String> formerAncestors = getAncestors(key);
+        Set<String> formerDescendants = getDescendants(key);
+        ancestors.remove(key);
+        descendants.remove(key);
+        formerDescendants.forEach(descendant -> replace(ancestors, descendant, walk(descendant, parentsForChildren)));
+        formerAncestors.forEach(ancestor -> replace(descendants, ancestor, walk(ancestor, childrenForParents)));
+    }
+
+    /**
+     * Recreate the closure from the parent relations.
+     *
+     * @param parentsForChildren
+     *            the parents for each child
+     */
+    synchronized void rebuild(Map<String, Set<String>> parentsForChildren) {
+        ancestors.clear();
+        descendants.clear();
+        synchronized (parentsForChildren) {
+            parentsForChildren.forEach((child, parents) -> add(child, parents));
+        }
+    }
+
+    private static Set<String> walk(String start, Map<String, Set<String>> relations) {
+        Set<String> reachable = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            Set<String> related = relations.get(queue.poll());
+            if (related != null) {
+                synchronized (related) {
+                    related.stream().filter(reachable::add).forEach(queue::add);
+                }
+            }
+        }
+        return reachable;
+    }
+
+    private static void replace(Map<String, Set<String>> closure, String key, Set<String> values) {
+        if (values.isEmpty()) {
+            closure.remove(key);
+        } else {
+            closure.put(key, ImmutableSet.copyOf(values));
+        }
+    }
+
+    private static void union(Map<String, Set<String>> closure, String key, Set<String> values) {
+        Set<String> current = closure.get(key);
+        if (current == null) {
+            closure.put(key, ImmutableSet.copyOf(values));
+        } else if (!current.containsAll(values)) {
+            closure.put(key, ImmutableSet.<String> builder().addAll(current).addAll(values).build());
+        }
+    }
+}
@@ -28,6 +28,8 @@
  */
 package org.n52.sos.cache;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -38,6 +40,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import org.joda.time.DateTime;
@@ -129,6 +132,16 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     private final Map<String, Set<String>> hiddenChildProceduresForOfferings = newSynchronizedMap();
 
+    private transient HierarchyClosure procedureHierarchy = new HierarchyClosure();
+
+    private transient HierarchyClosure offeringHierarchy = new HierarchyClosure();
+
+    /**
+     * Names of the persistent fields that changed since they were last
+     * drained by the {@link CacheSnapshotCodec}.
+     */
+    private transient Set<String> dirtyFields = ConcurrentHashMap.newKeySet();
+
     private final Map<String, Set<String>> relatedFeaturesForOfferings = newSynchronizedMap();
 
     private final Map<String, Set<String>> resultTemplatesForOfferings = newSynchronizedMap();
@@ -203,6 +216,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
     @Override
     public void setLastUpdateTime(DateTime time) {
         this.updateTime = time;
+        markDirty("updateTime");
     }
 
     @Override
@@ -214,6 +228,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
     public void setMaxPhenomenonTime(DateTime maxEventTime) {
         LOG.trace("Setting Maximal EventTime to {}", maxEventTime);
         this.globalPhenomenonTimeEnvelope.setEnd(DateTimeHelper.toUTC(maxEventTime));
+        markDirty("globalPhenomenonTimeEnvelope");
     }
 
     @Override
@@ -225,6 +240,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
     public void setMinPhenomenonTime(DateTime minEventTime) {
         LOG.trace("Setting Minimal EventTime to {}", minEventTime);
         this.globalPhenomenonTimeEnvelope.setStart(DateTimeHelper.toUTC(minEventTime));
+        markDirty("globalPhenomenonTimeEnvelope");
     }
 
     /**
@@ -254,6 +270,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
      */
     protected void setGlobalSpatialEnvelope(ReferencedEnvelope envelope) {
         this.globalEnvelope = Objects.requireNonNull(envelope, "envelope");
+        markDirty("globalEnvelope");
     }
 
     /**
@@ -269,6 +286,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
      */
     public void setUpdateTime(DateTime updateTime) {
         this.updateTime = updateTime;
+        markDirty("updateTime");
     }
 
     /**
@@ -277,6 +295,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
      */
     public void setDefaultEPSGCode(int defaultEpsgCode) {
         this.defaultEpsgCode = defaultEpsgCode;
+        markDirty("defaultEpsgCode");
     }
 
     @Override
@@ -294,6 +313,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Setting FeaturesOfInterest");
         this.featuresOfInterest.clear();
         addFeaturesOfInterest(featuresOfInterest);
+        markDirty("featuresOfInterest");
     }
 
     @Override
@@ -306,6 +326,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Setting Procedures");
         this.procedures.clear();
         addProcedures(procedures);
+        markDirty("procedures");
     }
 
     @Override
@@ -327,6 +348,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
             setGlobalSpatialEnvelope(globalEnvelope);
         }
         LOG.trace("Global envelope updated to '{}' with '{}'", this.globalEnvelope, globalEnvelope);
+        markDirty("globalEnvelope");
     }
 
     @Override
@@ -499,15 +521,15 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
 
     @Override
     public Set<String> getParentProcedures(String procedureIdentifier, boolean fullHierarchy, boolean includeSelf) {
-        return SosHelper.getHierarchy(this.parentProceduresForProcedures, procedureIdentifier, fullHierarchy,
-                includeSelf);
+        return getHierarchy(this.parentProceduresForProcedures,
+                procedureHierarchy::getAncestors, procedureIdentifier, fullHierarchy, includeSelf);
     }
 
     @Override
     public Set<String> getParentProcedures(final Set<String> procedureIdentifiers, final boolean fullHierarchy,
             final boolean includeSelves) {
-        return SosHelper.getHierarchy(this.parentProceduresForProcedures, procedureIdentifiers, fullHierarchy,
-                includeSelves);
+        return getHierarchy(this.parentProceduresForProcedures,
+                procedureHierarchy::getAncestors, procedureIdentifiers, fullHierarchy, includeSelves);
     }
 
     @Override
@@ -527,42 +549,43 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
     @Override
     public Set<String> getChildProcedures(final String procedureIdentifier, final boolean fullHierarchy,
             final boolean includeSelf) {
-        return SosHelper.getHierarchy(this.childProceduresForProcedures, procedureIdentifier, fullHierarchy,
-                includeSelf);
+        return getHierarchy(this.childProceduresForProcedures,
+                procedureHierarchy::getDescendants, procedureIdentifier, fullHierarchy, includeSelf);
     }
 
     @Override
     public Set<String> getChildProcedures(Set<String> procedureIdentifiers, boolean fullHierarchy,
             boolean includeSelves) {
-        return SosHelper.getHierarchy(this.childProceduresForProcedures, procedureIdentifiers, fullHierarchy,
-                includeSelves);
+        return getHierarchy(this.childProceduresForProcedures,
+                procedureHierarchy::getDescendants, procedureIdentifiers, fullHierarchy, includeSelves);
     }
 
     @Override
     public Set<String> getParentOfferings(final String offeringIdentifier, final boolean fullHierarchy,
             final boolean includeSelf) {
-        return SosHelper.getHierarchy(this.parentOfferingsForOfferings, offeringIdentifier, fullHierarchy,
-                includeSelf);
+        return getHierarchy(this.parentOfferingsForOfferings,
+                offeringHierarchy::getAncestors, offeringIdentifier, fullHierarchy, includeSelf);
     }
 
     @Override
     public Set<String> getParentOfferings(final Set<String> offeringIdentifiers, final boolean fullHierarchy,
             final boolean includeSelves) {
-        return SosHelper.getHierarchy(this.parentOfferingsForOfferings, offeringIdentifiers, fullHierarchy,
-                includeSelves);
+        return getHierarchy(this.parentOfferingsForOfferings,
+                offeringHierarchy::getAncestors, offeringIdentifiers, fullHierarchy, includeSelves);
     }
 
     @Override
     public Set<String> getChildOfferings(final String offeringIdentifier, final boolean fullHierarchy,
             final boolean includeSelf) {
-        return SosHelper.getHierarchy(this.childOfferingsForOfferings, offeringIdentifier, fullHierarchy, includeSelf);
+        return getHierarchy(this.childOfferingsForOfferings,
+                offeringHierarchy::getDescendants, offeringIdentifier, fullHierarchy, includeSelf);
     }
 
     @Override
     public Set<String> getChildOfferings(final Set<String> offeringIdentifiers, final boolean fullHierarchy,
             final boolean includeSelves) {
-        return SosHelper.getHierarchy(this.childOfferingsForOfferings, offeringIdentifiers, fullHierarchy,
-                includeSelves);
+        return getHierarchy(this.childOfferingsForOfferings,
+                offeringHierarchy::getDescendants, offeringIdentifiers, fullHierarchy, includeSelves);
     }
 
     @Override
@@ -570,6 +593,47 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         return this.parentOfferingsForOfferings.containsKey(offering);
     }
 
+    @Override
+    public Set<String> getAncestorProcedures(String procedure) {
+        return this.procedureHierarchy.getAncestors(procedure);
+    }
+
+    @Override
+    public Set<String> getDescendantProcedures(String procedure) {
+        return this.procedureHierarchy.getDescendants(procedure);
+    }
+
+    @Override
+    public Set<String> getAncestorOfferings(String offering) {
+        return this.offeringHierarchy.getAncestors(offering);
+    }
+
+    @Override
+    public Set<String> getDescendantOfferings(String offering) {
+        return this.offeringHierarchy.getDescendants(offering);
+    }
+
+    private static Set<String> getHierarchy(Map<String, Set<String>> hierarchy,
+            Function<String, Set<String>> closure, String key, boolean fullHierarchy, boolean includeSelf) {
+        if (!fullHierarchy) {
+            return SosHelper.getHierarchy(hierarchy, key, false, includeSelf);
+        }
+        Set<String> values = new HashSet<>(closure.apply(key));
+        if (includeSelf) {
+            values.add(key);
+        }
+        return values;
+    }
+
+    private static Set<String> getHierarchy(Map<String, Set<String>> hierarchy,
+            Function<String, Set<String>> closure, Set<String> keys, boolean fullHierarchy, boolean includeSelves) {
+        Set<String> values = new HashSet<>();
+        for (String key : keys) {
+            values.addAll(getHierarchy(hierarchy, closure, key, fullHierarchy, includeSelves));
+        }
+        return values;
+    }
+
     @Override
     public Set<String> getChildFeatures(final String featureIdentifier, final boolean fullHierarchy,
             final boolean includeSelf) {
@@ -643,6 +707,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
     public void setMaxResultTime(DateTime maxResultTime) {
         LOG.trace("Setting Maximal ResultTime to {}", maxResultTime);
         this.globalResultTimeEnvelope.setEnd(DateTimeHelper.toUTC(maxResultTime));
+        markDirty("globalResultTimeEnvelope");
     }
 
     @Override
@@ -659,6 +724,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
     public void setMinResultTime(DateTime minResultTime) {
         LOG.trace("Setting Minimal ResultTime to {}", minResultTime);
         this.globalResultTimeEnvelope.setStart(DateTimeHelper.toUTC(minResultTime));
+        markDirty("globalResultTimeEnvelope");
     }
 
     @Override
@@ -743,6 +809,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
         LOG.trace("Adding FeatureOfInterest {}", featureOfInterest);
         this.featuresOfInterest.add(featureOfInterest);
+        markDirty("featuresOfInterest");
     }
 
     @Override
@@ -750,6 +817,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         LOG.trace("Adding procedure {}", procedure);
         this.procedures.add(procedure);
+        markDirty("procedures");
     }
 
     @Override
@@ -757,12 +825,14 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
         LOG.trace("Adding SosResultTemplate {}", resultTemplate);
         this.resultTemplates.add(resultTemplate);
+        markDirty("resultTemplates");
     }
 
     @Override
     public void addResultTemplates(Collection<String> resultTemplates) {
         CacheValidation.noNullValues(RESULT_TEMPLATES, resultTemplates);
         resultTemplates.forEach(this::addResultTemplate);
+        markDirty("resultTemplates");
     }
 
     @Override
@@ -770,12 +840,14 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
         LOG.trace("Removing FeatureOfInterest {}", featureOfInterest);
         this.featuresOfInterest.remove(featureOfInterest);
+        markDirty("featuresOfInterest");
     }
 
     @Override
     public void removeFeaturesOfInterest(Collection<String> featuresOfInterest) {
         CacheValidation.noNullValues(FEATURES_OF_INTEREST, featuresOfInterest);
         featuresOfInterest.forEach(this::removeFeatureOfInterest);
+        markDirty("featuresOfInterest");
     }
 
     @Override
@@ -783,6 +855,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         LOG.trace("Removing Procedure {}", procedure);
         this.procedures.remove(procedure);
+        markDirty("procedures");
     }
 
     @Override
@@ -790,6 +863,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
         LOG.trace("Removing SosResultTemplate {}", resultTemplate);
         this.resultTemplates.remove(resultTemplate);
+        markDirty("resultTemplates");
     }
 
     @Override
@@ -797,6 +871,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(observableProperties);
         LOG.trace("Setting ObservableProperties for Offering {} to {}", offering, observableProperties);
         this.observablePropertiesForOfferings.put(offering, newValue);
+        markDirty("observablePropertiesForOfferings");
     }
 
     @Override
@@ -804,6 +879,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(observableProperties);
         LOG.trace("Setting ObservableProperties for Procedure {} to {}", procedure, newValue);
         this.observablePropertiesForProcedures.put(procedure, newValue);
+        markDirty("observablePropertiesForProcedures");
     }
 
     @Override
@@ -811,6 +887,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(observationTypes);
         LOG.trace("Setting ObservationTypes for Offering {} to {}", offering, newValue);
         this.observationTypesForOfferings.put(offering, newValue);
+        markDirty("observationTypesForOfferings");
     }
 
     @Override
@@ -818,6 +895,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(offerings);
         LOG.trace("Setting Offerings for ObservableProperty {} to {}", observableProperty, newValue);
         this.offeringsForObservableProperties.put(observableProperty, newValue);
+        markDirty("offeringsForObservableProperties", "offerings");
     }
 
     @Override
@@ -825,6 +903,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(offerings);
         LOG.trace("Setting Offerings for Procedure {} to {}", procedure, newValue);
         this.offeringsForProcedures.put(procedure, newValue);
+        markDirty("offeringsForProcedures", "offerings");
     }
 
     @Override
@@ -832,6 +911,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(procedures);
         LOG.trace("Setting Procedures for FeatureOfInterest {} to {}", featureOfInterest, newValue);
         this.proceduresForFeaturesOfInterest.put(featureOfInterest, newValue);
+        markDirty("proceduresForFeaturesOfInterest", "procedures");
     }
 
     @Override
@@ -839,6 +919,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(procedures);
         LOG.trace("Setting Procedures for ObservableProperty {} to {}", observableProperty, procedures);
         this.proceduresForObservableProperties.put(observableProperty, newValue);
+        markDirty("proceduresForObservableProperties", "procedures");
     }
 
     @Override
@@ -846,6 +927,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(procedures);
         LOG.trace("Setting Procedures for Offering {} to {}", offering, newValue);
         this.proceduresForOfferings.put(offering, newValue);
+        markDirty("proceduresForOfferings", "procedures");
     }
 
     @Override
@@ -853,6 +935,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(relatedFeatures);
         LOG.trace("Setting Related Features for Offering {} to {}", offering, newValue);
         this.relatedFeaturesForOfferings.put(offering, newValue);
+        markDirty("relatedFeaturesForOfferings");
     }
 
     @Override
@@ -860,6 +943,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(resultTemplates);
         LOG.trace("Setting ResultTemplates for Offering {} to {}", offering, newValue);
         this.resultTemplatesForOfferings.put(offering, newValue);
+        markDirty("resultTemplatesForOfferings", "resultTemplates");
     }
 
     @Override
@@ -867,6 +951,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(roles);
         LOG.trace("Setting Roles for RelatedFeature {} to {}", relatedFeature, newValue);
         this.rolesForRelatedFeatures.put(relatedFeature, newValue);
+        markDirty("rolesForRelatedFeatures");
     }
 
     @Override
@@ -878,6 +963,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         } else {
             this.maxPhenomenonTimeForOfferings.put(offering, DateTimeHelper.toUTC(maxTime));
         }
+        markDirty("maxPhenomenonTimeForOfferings");
     }
 
     @Override
@@ -889,6 +975,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         } else {
             this.minPhenomenonTimeForOfferings.put(offering, DateTimeHelper.toUTC(minTime));
         }
+        markDirty("minPhenomenonTimeForOfferings");
     }
 
     @Override
@@ -900,6 +987,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         } else {
             this.maxPhenomenonTimeForProcedures.put(procedure, DateTimeHelper.toUTC(maxTime));
         }
+        markDirty("maxPhenomenonTimeForProcedures");
     }
 
     @Override
@@ -911,6 +999,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         } else {
             this.minPhenomenonTimeForProcedures.put(procedure, DateTimeHelper.toUTC(minTime));
         }
+        markDirty("minPhenomenonTimeForProcedures");
     }
 
     @Override
@@ -919,7 +1008,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(NAME, name);
         LOG.trace("Setting Name of Offering {} to {}", offering, name);
         this.nameForOfferings.put(offering, name);
-
+        markDirty("nameForOfferings");
     }
 
     @Override
@@ -928,6 +1017,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         Objects.requireNonNull(name, NAME);
         LOG.trace("Setting I18N Name of Offering {} to {}", offering, name);
         this.i18nNameForOfferings.put(offering, name);
+        markDirty("i18nNameForOfferings");
     }
 
     @Override
@@ -936,12 +1026,14 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         Objects.requireNonNull(description, DESCRIPTION);
         LOG.trace("Setting I18N Description of Offering {} to {}", offering, description);
         this.i18nDescriptionForOfferings.put(offering, description);
+        markDirty("i18nDescriptionForOfferings");
     }
 
     @Override
     public void setEnvelopeForOffering(String offering, ReferencedEnvelope envelope) {
         LOG.trace("Setting Envelope for Offering {} to {}", offering, envelope);
         this.envelopeForOfferings.put(offering, copyOf(envelope));
+        markDirty("envelopeForOfferings");
     }
 
     @Override
@@ -961,6 +1053,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding AllowedObservationType {} to Offering {}", allowedObservationType, offering);
         this.allowedObservationTypeForOfferings.computeIfAbsent(offering, createSynchronizedSet())
                 .add(allowedObservationType);
+        markDirty("allowedObservationTypeForOfferings");
     }
 
     @Override
@@ -970,6 +1063,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding AllowedObservationTypes {} to Offering {}", allowedObservationTypes, offering);
         this.allowedObservationTypeForOfferings.computeIfAbsent(offering, createSynchronizedSet())
                 .addAll(allowedObservationTypes);
+        markDirty("allowedObservationTypeForOfferings");
     }
 
     @Override
@@ -979,6 +1073,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding featureOfInterest {} to Offering {}", featureOfInterest, offering);
         this.featuresOfInterestForOfferings.computeIfAbsent(offering, createSynchronizedSet()).add(featureOfInterest);
         this.offeringsForFeaturesOfInterest.computeIfAbsent(featureOfInterest, createSynchronizedSet()).add(offering);
+        markDirty("featuresOfInterestForOfferings", "offeringsForFeaturesOfInterest");
     }
 
     @Override
@@ -988,6 +1083,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding FeatureOfInterest {} to SosResultTemplate {}", featureOfInterest, resultTemplate);
         this.featuresOfInterestForResultTemplates.computeIfAbsent(resultTemplate, createSynchronizedSet())
                 .add(featureOfInterest);
+        markDirty("featuresOfInterestForResultTemplates");
     }
 
     @Override
@@ -997,6 +1093,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding FeatureOfInterests {} to SosResultTemplate {}", featuresOfInterest, resultTemplate);
         this.featuresOfInterestForResultTemplates.computeIfAbsent(resultTemplate, createSynchronizedSet())
                 .addAll(featuresOfInterest);
+        markDirty("featuresOfInterestForResultTemplates", "featuresOfInterest");
     }
 
     @Override
@@ -1006,6 +1103,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding observableProperty {} to offering {}", observableProperty, offering);
         this.observablePropertiesForOfferings.computeIfAbsent(offering, createSynchronizedSet())
                 .add(observableProperty);
+        markDirty("observablePropertiesForOfferings");
     }
 
     @Override
@@ -1015,6 +1113,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding observableProperty {} to procedure {}", observableProperty, procedure);
         this.observablePropertiesForProcedures.computeIfAbsent(procedure, createSynchronizedSet())
                 .add(observableProperty);
+        markDirty("observablePropertiesForProcedures");
     }
 
     @Override
@@ -1024,6 +1123,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding observableProperty {} to resultTemplate {}", observableProperty, resultTemplate);
         this.observedPropertiesForResultTemplates.computeIfAbsent(resultTemplate, createSynchronizedSet())
                 .add(observableProperty);
+        markDirty("observedPropertiesForResultTemplates");
     }
 
     @Override
@@ -1032,6 +1132,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OBSERVATION_TYPE, observationType);
         LOG.trace("Adding observationType {} to offering {}", observationType, offering);
         this.observationTypesForOfferings.computeIfAbsent(offering, createSynchronizedSet()).add(observationType);
+        markDirty("observationTypesForOfferings");
     }
 
     @Override
@@ -1041,6 +1142,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding offering {} to observableProperty {}", offering, observableProperty);
         this.offeringsForObservableProperties.computeIfAbsent(observableProperty, createSynchronizedSet())
                 .add(offering);
+        markDirty("offeringsForObservableProperties");
     }
 
     @Override
@@ -1049,6 +1151,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Adding offering {} to procedure {}", offering, procedure);
         this.offeringsForProcedures.computeIfAbsent(procedure, createSynchronizedSet()).add(offering);
+        markDirty("offeringsForProcedures");
     }
 
     @Override
@@ -1058,6 +1161,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding procedure {} to featureOfInterest {}", procedure, featureOfInterest);
         this.proceduresForFeaturesOfInterest.computeIfAbsent(featureOfInterest, createSynchronizedSet())
                 .add(procedure);
+        markDirty("proceduresForFeaturesOfInterest");
     }
 
     @Override
@@ -1067,6 +1171,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding procedure {} to observableProperty {}", procedure, observableProperty);
         this.proceduresForObservableProperties.computeIfAbsent(observableProperty, createSynchronizedSet())
                 .add(procedure);
+        markDirty("proceduresForObservableProperties");
     }
 
     @Override
@@ -1075,6 +1180,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         LOG.trace("Adding procedure {} to offering {}", procedure, offering);
         this.proceduresForOfferings.computeIfAbsent(offering, createSynchronizedSet()).add(procedure);
+        markDirty("proceduresForOfferings");
     }
 
     @Override
@@ -1083,6 +1189,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(RELATED_FEATURE, relatedFeature);
         LOG.trace("Adding relatedFeature {} to offering {}", relatedFeature, offering);
         this.relatedFeaturesForOfferings.computeIfAbsent(offering, createSynchronizedSet()).add(relatedFeature);
+        markDirty("relatedFeaturesForOfferings");
     }
 
     @Override
@@ -1091,6 +1198,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.noNullValues(RELATED_FEATURE, relatedFeature);
         LOG.trace("Adding relatedFeatures {} to offering {}", relatedFeature, offering);
         this.relatedFeaturesForOfferings.computeIfAbsent(offering, createSynchronizedSet()).addAll(relatedFeature);
+        markDirty("relatedFeaturesForOfferings");
     }
 
     @Override
@@ -1099,6 +1207,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
         LOG.trace("Adding resultTemplate {} to offering {}", resultTemplate, offering);
         this.resultTemplatesForOfferings.computeIfAbsent(offering, createSynchronizedSet()).add(resultTemplate);
+        markDirty("resultTemplatesForOfferings");
     }
 
     @Override
@@ -1107,6 +1216,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty("role", role);
         LOG.trace("Adding role {} to relatedFeature {}", role, relatedFeature);
         this.rolesForRelatedFeatures.computeIfAbsent(relatedFeature, createSynchronizedSet()).add(role);
+        markDirty("rolesForRelatedFeatures");
     }
 
     @Override
@@ -1116,6 +1226,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Removing allowedObservationType {} from offering {}", allowedObservationType, offering);
         this.allowedObservationTypeForOfferings.getOrDefault(offering, Collections.emptySet())
                 .remove(allowedObservationType);
+        markDirty("allowedObservationTypeForOfferings");
     }
 
     @Override
@@ -1123,6 +1234,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing allowedObservationTypes for offering {}", offering);
         this.allowedObservationTypeForOfferings.remove(offering);
+        markDirty("allowedObservationTypeForOfferings");
     }
 
     @Override
@@ -1130,6 +1242,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing envelope for offering {}", offering);
         this.envelopeForOfferings.remove(offering);
+        markDirty("envelopeForOfferings");
     }
 
     @Override
@@ -1139,6 +1252,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Removing featureOfInterest {} from offering {}", featureOfInterest, offering);
         this.featuresOfInterestForOfferings.getOrDefault(offering, Collections.emptySet()).remove(featureOfInterest);
         this.offeringsForFeaturesOfInterest.getOrDefault(featureOfInterest, Collections.emptySet()).remove(offering);
+        markDirty("featuresOfInterestForOfferings", "offeringsForFeaturesOfInterest");
     }
 
     @Override
@@ -1148,6 +1262,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Removing featureOfInterest {} from resultTemplate {}", featureOfInterest, resultTemplate);
         this.featuresOfInterestForResultTemplates.getOrDefault(resultTemplate, Collections.emptySet())
                 .remove(featureOfInterest);
+        markDirty("featuresOfInterestForResultTemplates");
     }
 
     @Override
@@ -1160,6 +1275,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
             }
         }
         this.featuresOfInterestForOfferings.remove(offering);
+        markDirty("featuresOfInterestForOfferings", "offeringsForFeaturesOfInterest", "featuresOfInterest");
     }
 
     @Override
@@ -1167,6 +1283,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
         LOG.trace("Removing featuresOfInterest for resultTemplate {}", resultTemplate);
         this.featuresOfInterestForResultTemplates.remove(resultTemplate);
+        markDirty("featuresOfInterestForResultTemplates", "featuresOfInterest");
     }
 
     @Override
@@ -1174,6 +1291,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing maxEventTime for offering {}", offering);
         this.maxPhenomenonTimeForOfferings.remove(offering);
+        markDirty("maxPhenomenonTimeForOfferings");
     }
 
     @Override
@@ -1181,6 +1299,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing minEventTime for offering {}", offering);
         this.minPhenomenonTimeForOfferings.remove(offering);
+        markDirty("minPhenomenonTimeForOfferings");
     }
 
     @Override
@@ -1188,6 +1307,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         LOG.trace("Removing maxEventTime for procedure {}", procedure);
         this.maxPhenomenonTimeForProcedures.remove(procedure);
+        markDirty("maxPhenomenonTimeForProcedures");
     }
 
     @Override
@@ -1195,6 +1315,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         LOG.trace("Removing minEventTime for procedure {}", procedure);
         this.minPhenomenonTimeForProcedures.remove(procedure);
+        markDirty("minPhenomenonTimeForProcedures");
     }
 
     @Override
@@ -1202,6 +1323,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing name for offering {}", offering);
         this.nameForOfferings.remove(offering);
+        markDirty("nameForOfferings");
     }
 
     @Override
@@ -1209,6 +1331,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing observableProperties for offering {}", offering);
         this.observablePropertiesForOfferings.remove(offering);
+        markDirty("observablePropertiesForOfferings");
     }
 
     @Override
@@ -1216,6 +1339,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         LOG.trace("Removing observableProperties for procedure {}", procedure);
         this.observablePropertiesForProcedures.remove(procedure);
+        markDirty("observablePropertiesForProcedures");
     }
 
     @Override
@@ -1223,6 +1347,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
         LOG.trace("Removing observableProperties for resultTemplate {}", resultTemplate);
         this.observedPropertiesForResultTemplates.remove(resultTemplate);
+        markDirty("observedPropertiesForResultTemplates");
     }
 
     @Override
@@ -1232,6 +1357,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Removing observableProperty {} from offering {}", observableProperty, offering);
         this.observablePropertiesForOfferings.getOrDefault(offering, Collections.emptySet())
                 .remove(observableProperty);
+        markDirty("observablePropertiesForOfferings");
     }
 
     @Override
@@ -1241,6 +1367,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Removing observableProperty {} from procedure {}", observableProperty, procedure);
         this.observablePropertiesForProcedures.getOrDefault(procedure, Collections.emptySet())
                 .remove(observableProperty);
+        markDirty("observablePropertiesForProcedures");
     }
 
     @Override
@@ -1250,6 +1377,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Removing observableProperty {} from resultTemplate {}", observableProperty, resultTemplate);
         this.observedPropertiesForResultTemplates.getOrDefault(resultTemplate, Collections.emptySet())
                 .remove(observableProperty);
+        markDirty("observedPropertiesForResultTemplates");
     }
 
     @Override
@@ -1258,6 +1386,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OBSERVATION_TYPE, observationType);
         LOG.trace("Removing observationType {} from offering {}", observationType, offering);
         this.observationTypesForOfferings.getOrDefault(offering, Collections.emptySet()).remove(observationType);
+        markDirty("observationTypesForOfferings");
     }
 
     @Override
@@ -1265,6 +1394,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing observationTypes for offering {}", offering);
         this.observationTypesForOfferings.remove(offering);
+        markDirty("observationTypesForOfferings");
     }
 
     @Override
@@ -1274,6 +1404,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Removing offering {} from observableProperty {}", offering, observableProperty);
         this.offeringsForObservableProperties.getOrDefault(observableProperty, Collections.emptySet())
                 .remove(offering);
+        markDirty("offeringsForObservableProperties");
     }
 
     @Override
@@ -1282,6 +1413,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing offering {} from procedure {}", offering, procedure);
         this.offeringsForProcedures.getOrDefault(procedure, Collections.emptySet()).remove(offering);
+        markDirty("offeringsForProcedures");
     }
 
     @Override
@@ -1289,6 +1421,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
         LOG.trace("Removing offerings for observableProperty {}", observableProperty);
         this.offeringsForObservableProperties.remove(observableProperty);
+        markDirty("offeringsForObservableProperties", "offerings");
     }
 
     @Override
@@ -1296,6 +1429,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         LOG.trace("Removing offering for procedure {}", procedure);
         this.offeringsForProcedures.remove(procedure);
+        markDirty("offeringsForProcedures");
     }
 
     @Override
@@ -1304,6 +1438,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         LOG.trace("Removing procedure {} from featureOfInterest {}", procedure, featureOfInterest);
         this.proceduresForFeaturesOfInterest.getOrDefault(featureOfInterest, Collections.emptySet()).remove(procedure);
+        markDirty("proceduresForFeaturesOfInterest");
     }
 
     @Override
@@ -1313,6 +1448,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Removing procedure {} from observableProperty {}", procedure, observableProperty);
         this.proceduresForObservableProperties.getOrDefault(observableProperty, Collections.emptySet())
                 .remove(procedure);
+        markDirty("proceduresForObservableProperties");
     }
 
     @Override
@@ -1321,6 +1457,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         LOG.trace("Removing procedure {} from offering {}", procedure, offering);
         this.proceduresForOfferings.getOrDefault(offering, Collections.emptySet()).remove(procedure);
+        markDirty("proceduresForOfferings");
     }
 
     @Override
@@ -1328,6 +1465,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(FEATURE_OF_INTEREST, featureOfInterest);
         LOG.trace("Removing procedures for featureOfInterest {}", featureOfInterest);
         this.proceduresForFeaturesOfInterest.remove(featureOfInterest);
+        markDirty("proceduresForFeaturesOfInterest", "procedures");
     }
 
     @Override
@@ -1335,6 +1473,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OBSERVABLE_PROPERTY, observableProperty);
         LOG.trace("Removing procedures for observableProperty {}", observableProperty);
         this.proceduresForObservableProperties.remove(observableProperty);
+        markDirty("proceduresForObservableProperties", "procedures");
     }
 
     @Override
@@ -1342,6 +1481,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing procedures for offering {}", offering);
         this.proceduresForOfferings.remove(offering);
+        markDirty("proceduresForOfferings", "procedures");
     }
 
     @Override
@@ -1350,6 +1490,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(RELATED_FEATURE, relatedFeature);
         LOG.trace("Removing relatedFeature {} from offering {}", relatedFeature, offering);
         this.relatedFeaturesForOfferings.getOrDefault(offering, Collections.emptySet()).remove(relatedFeature);
+        markDirty("relatedFeaturesForOfferings");
     }
 
     @Override
@@ -1357,6 +1498,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing RelatedFeatures for offering {}", offering);
         this.relatedFeaturesForOfferings.remove(offering);
+        markDirty("relatedFeaturesForOfferings");
     }
 
     @Override
@@ -1365,6 +1507,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(RESULT_TEMPLATE, resultTemplate);
         LOG.trace("Removing resultTemplate {} from offering {}", resultTemplate, offering);
         this.resultTemplatesForOfferings.getOrDefault(offering, Collections.emptySet()).remove(resultTemplate);
+        markDirty("resultTemplatesForOfferings");
     }
 
     @Override
@@ -1372,6 +1515,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing ResultTemplates for offering {}", offering);
         this.resultTemplatesForOfferings.remove(offering);
+        markDirty("resultTemplatesForOfferings");
     }
 
     @Override
@@ -1380,6 +1524,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(ROLE, role);
         LOG.trace("Removing role {} from relatedFeature {}", role, relatedFeature);
         this.rolesForRelatedFeatures.getOrDefault(relatedFeature, Collections.emptySet()).remove(role);
+        markDirty("rolesForRelatedFeatures");
     }
 
     @Override
@@ -1387,6 +1532,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(RELATED_FEATURE, relatedFeature);
         LOG.trace("Removing roles for relatedFeature {}", relatedFeature);
         this.rolesForRelatedFeatures.remove(relatedFeature);
+        markDirty("rolesForRelatedFeatures");
     }
 
     @Override
@@ -1398,6 +1544,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
                 iter.remove();
             }
         }
+        markDirty("rolesForRelatedFeatures");
     }
 
     @Override
@@ -1406,6 +1553,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(observationTypes);
         LOG.trace("Setting allowedObservationTypes for offering {} to {}", offering, newValue);
         this.allowedObservationTypeForOfferings.put(offering, newValue);
+        markDirty("allowedObservationTypeForOfferings");
     }
 
     @Override
@@ -1414,6 +1562,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(featureTypes);
         LOG.trace("Setting allowedFeatureOfInterestTypes for offering {} to {}", offering, newValue);
         this.allowedFeatureOfInterestTypeForOfferings.put(offering, newValue);
+        markDirty("allowedFeatureOfInterestTypeForOfferings");
     }
 
     @Override
@@ -1422,6 +1571,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(featureOfInterest);
         LOG.trace("Setting featureOfInterest for offering {} to {}", offering, newValue);
         this.featuresOfInterestForOfferings.put(offering, newValue);
+        markDirty("featuresOfInterestForOfferings");
     }
 
     @Override
@@ -1433,6 +1583,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
             this.offeringsForFeaturesOfInterest.computeIfAbsent(featureOfInterest, createSynchronizedSet())
                     .add(offering);
         }
+        markDirty("offeringsForFeaturesOfInterest", "featuresOfInterest");
     }
 
     @Override
@@ -1442,6 +1593,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(observableProperties);
         LOG.trace("Setting observableProperties for resultTemplate {} to {}", resultTemplate, newValue);
         this.observedPropertiesForResultTemplates.put(resultTemplate, newValue);
+        markDirty("observedPropertiesForResultTemplates");
     }
 
     @Override
@@ -1453,6 +1605,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
                 .add(parentFeature);
         this.childFeaturesForFeatureOfInterest.computeIfAbsent(parentFeature, createSynchronizedSet())
                 .add(featureOfInterest);
+        markDirty("childFeaturesForFeatureOfInterest", "parentFeaturesForFeaturesOfInterest");
     }
 
     @Override
@@ -1464,6 +1617,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
                 .addAll(parentFeatures);
         parentFeatures.forEach(parentFeature -> this.childFeaturesForFeatureOfInterest
                 .computeIfAbsent(parentFeature, createSynchronizedSet()).add(featureOfInterest));
+        markDirty("childFeaturesForFeatureOfInterest", "parentFeaturesForFeaturesOfInterest");
     }
 
     @Override
@@ -1473,6 +1627,8 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding parentProcedure {} to procedure {}", parentProcedure, procedure);
         this.parentProceduresForProcedures.computeIfAbsent(procedure, createSynchronizedSet()).add(parentProcedure);
         this.childProceduresForProcedures.computeIfAbsent(parentProcedure, createSynchronizedSet()).add(procedure);
+        this.procedureHierarchy.add(procedure, Collections.singleton(parentProcedure));
+        markDirty("childProceduresForProcedures", "parentProceduresForProcedures");
     }
 
     @Override
@@ -1484,6 +1640,8 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
                 .addAll(parentProcedures);
         parentProcedures.forEach(parentProcedure -> this.childProceduresForProcedures
                 .computeIfAbsent(parentProcedure, createSynchronizedSet()).add(procedure));
+        this.procedureHierarchy.add(procedure, parentProcedures);
+        markDirty("childProceduresForProcedures", "parentProceduresForProcedures");
     }
 
     @Override
@@ -1493,6 +1651,8 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding parentOffering {} to offering {}", parentOffering, offering);
         this.parentOfferingsForOfferings.computeIfAbsent(offering, createSynchronizedSet()).add(parentOffering);
         this.childOfferingsForOfferings.computeIfAbsent(parentOffering, createSynchronizedSet()).add(offering);
+        this.offeringHierarchy.add(offering, Collections.singleton(parentOffering));
+        markDirty("childOfferingsForOfferings", "parentOfferingsForOfferings");
     }
 
     @Override
@@ -1503,6 +1663,47 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         this.parentOfferingsForOfferings.computeIfAbsent(offering, createSynchronizedSet()).addAll(parentOfferings);
         parentOfferings.forEach(parentOffering -> this.childOfferingsForOfferings
                 .computeIfAbsent(parentOffering, createSynchronizedSet()).add(offering));
+        this.offeringHierarchy.add(offering, parentOfferings);
+        markDirty("childOfferingsForOfferings", "parentOfferingsForOfferings");
+    }
+
+    @Override
+    public void removeProcedureHierarchy(String procedure) {
+        CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
+        LOG.trace("Removing procedure {} from procedure hierarchy", procedure);
+        removeFromHierarchy(procedure, this.parentProceduresForProcedures, this.childProceduresForProcedures);
+        this.procedureHierarchy.remove(procedure, this.parentProceduresForProcedures,
+                this.childProceduresForProcedures);
+        markDirty("childProceduresForProcedures", "parentProceduresForProcedures");
+    }
+
+    @Override
+    public void removeOfferingHierarchy(String offering) {
+        CacheValidation.notNullOrEmpty(OFFERING, offering);
+        LOG.trace("Removing offering {} from offering hierarchy", offering);
+        removeFromHierarchy(offering, this.parentOfferingsForOfferings, this.childOfferingsForOfferings);
+        this.offeringHierarchy.remove(offering, this.parentOfferingsForOfferings, this.childOfferingsForOfferings);
+        markDirty("childOfferingsForOfferings", "parentOfferingsForOfferings");
+    }
+
+    private static void removeFromHierarchy(String key, Map<String, Set<String>> parentsForChildren,
+            Map<String, Set<String>> childrenForParents) {
+        removeFromRelated(key, parentsForChildren.remove(key), childrenForParents);
+        removeFromRelated(key, childrenForParents.remove(key), parentsForChildren);
+    }
+
+    private static void removeFromRelated(String key, Set<String> related, Map<String, Set<String>> map) {
+        if (related != null) {
+            for (String value : related) {
+                Set<String> values = map.get(value);
+                if (values != null) {
+                    values.remove(key);
+                    if (values.isEmpty()) {
+                        map.remove(value);
+                    }
+                }
+            }
+        }
     }
 
     @Override
@@ -1516,6 +1717,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         } else {
             setEnvelopeForOffering(offering, new ReferencedEnvelope(envelope, getDefaultEPSGCode()));
         }
+        markDirty("envelopeForOfferings");
     }
 
     @Override
@@ -1527,6 +1729,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         } else {
             setGlobalEnvelope(new ReferencedEnvelope(new Envelope(envelope), getDefaultEPSGCode()));
         }
+        markDirty("globalEnvelope");
     }
 
     @Override
@@ -1540,6 +1743,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
                 });
         setGlobalEnvelope(envelope);
         LOG.trace("Spatial envelope finally set to '{}'", getGlobalEnvelope());
+        markDirty("offerings", "defaultEpsgCode");
     }
 
     @Override
@@ -1556,6 +1760,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         setPhenomenonTime(minMax.getMinimum(), minMax.getMaximum());
         LOG.trace("Global temporal bounding box reset done. Min: '{}'; Max: '{}'", getMinPhenomenonTime(),
                 getMaxPhenomenonTime());
+        markDirty("offerings");
     }
 
     @Override
@@ -1563,6 +1768,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing maxResultTime for offering {}", offering);
         this.maxResultTimeForOfferings.remove(offering);
+        markDirty("maxResultTimeForOfferings");
     }
 
     @Override
@@ -1570,6 +1776,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing minResultTime for offering {}", offering);
         this.minResultTimeForOfferings.remove(offering);
+        markDirty("minResultTimeForOfferings");
     }
 
     @Override
@@ -1596,6 +1803,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         setResultTime(globalMin, globalMax);
         LOG.trace("Global result time bounding box reset done. Min: '{}'); Max: '{}'", getMinResultTime(),
                 getMaxResultTime());
+        markDirty("offerings");
     }
 
     @Override
@@ -1607,6 +1815,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         } else {
             this.maxResultTimeForOfferings.put(offering, DateTimeHelper.toUTC(maxTime));
         }
+        markDirty("maxResultTimeForOfferings");
     }
 
     @Override
@@ -1618,18 +1827,21 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         } else {
             this.minResultTimeForOfferings.put(offering, DateTimeHelper.toUTC(minTime));
         }
+        markDirty("minResultTimeForOfferings");
     }
 
     @Override
     public void clearFeaturesOfInterest() {
         LOG.trace("Clearing features of interest");
         this.featuresOfInterest.clear();
+        markDirty("featuresOfInterest");
     }
 
     @Override
     public void clearProceduresForFeatureOfInterest() {
         LOG.trace("Clearing procedures for feature of interest");
         this.proceduresForFeaturesOfInterest.clear();
+        markDirty("proceduresForFeaturesOfInterest", "procedures");
     }
 
     @Override
@@ -1637,114 +1849,133 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Clearing feature hierarchy");
         this.childFeaturesForFeatureOfInterest.clear();
         this.parentFeaturesForFeaturesOfInterest.clear();
+        markDirty("childFeaturesForFeatureOfInterest", "parentFeaturesForFeaturesOfInterest");
     }
 
     @Override
     public void clearProceduresForOfferings() {
         LOG.trace("Clearing procedures for offerings");
         this.proceduresForOfferings.clear();
+        markDirty("proceduresForOfferings", "procedures", "offerings");
     }
 
     @Override
     public void clearNameForOfferings() {
         LOG.trace("Clearing names for offerings");
         this.nameForOfferings.clear();
+        markDirty("nameForOfferings", "offerings");
     }
 
     @Override
     public void clearI18nNamesForOfferings() {
         LOG.trace("Clearing i18n names for offerings");
         this.i18nNameForOfferings.clear();
+        markDirty("i18nNameForOfferings", "offerings");
     }
 
     @Override
     public void clearI18nDescriptionsNameForOfferings() {
         LOG.trace("Clearing i18n descriptions for offerings");
         this.i18nDescriptionForOfferings.clear();
+        markDirty("i18nDescriptionForOfferings", "offerings");
     }
 
     @Override
     public void clearObservablePropertiesForOfferings() {
         LOG.trace("Clearing observable properties for offerings");
         this.observablePropertiesForOfferings.clear();
+        markDirty("observablePropertiesForOfferings", "offerings");
     }
 
     @Override
     public void clearRelatedFeaturesForOfferings() {
         LOG.trace("Clearing related features for offerings");
         this.relatedFeaturesForOfferings.clear();
+        markDirty("relatedFeaturesForOfferings", "offerings");
     }
 
     @Override
     public void clearObservationTypesForOfferings() {
         LOG.trace("Clearing observation types for offerings");
         this.observationTypesForOfferings.clear();
+        markDirty("observationTypesForOfferings", "offerings");
     }
 
     @Override
     public void clearAllowedObservationTypeForOfferings() {
         LOG.trace("Clearing allowed observation types for offerings");
         this.allowedObservationTypeForOfferings.clear();
+        markDirty("allowedObservationTypeForOfferings", "offerings");
     }
 
     @Override
     public void clearEnvelopeForOfferings() {
         LOG.trace("Clearing envelope for offerings");
         this.envelopeForOfferings.clear();
+        markDirty("envelopeForOfferings", "offerings");
     }
 
     @Override
     public void clearFeaturesOfInterestForOfferings() {
         LOG.trace("Clearing features of interest for offerings");
         this.featuresOfInterestForOfferings.clear();
+        markDirty("featuresOfInterestForOfferings", "offerings");
     }
 
     @Override
     public void clearOfferingsForFeaturesOfInterest() {
         LOG.trace("Clearing offerings for features of interest");
         this.offeringsForFeaturesOfInterest.clear();
+        markDirty("offeringsForFeaturesOfInterest", "offerings");
     }
 
     @Override
     public void clearMinPhenomenonTimeForOfferings() {
         LOG.trace("Clearing min phenomenon time for offerings");
         this.minPhenomenonTimeForOfferings.clear();
+        markDirty("minPhenomenonTimeForOfferings", "offerings");
     }
 
     @Override
     public void clearMaxPhenomenonTimeForOfferings() {
         LOG.trace("Clearing max phenomenon time for offerings");
         this.maxPhenomenonTimeForOfferings.clear();
+        markDirty("maxPhenomenonTimeForOfferings", "offerings");
     }
 
     @Override
     public void clearMinPhenomenonTimeForProcedures() {
         LOG.trace("Clearing min phenomenon time for procedures");
         this.minPhenomenonTimeForProcedures.clear();
+        markDirty("minPhenomenonTimeForProcedures", "procedures");
     }
 
     @Override
     public void clearMaxPhenomenonTimeForProcedures() {
         LOG.trace("Clearing max phenomenon time for procedures");
         this.maxPhenomenonTimeForProcedures.clear();
+        markDirty("maxPhenomenonTimeForProcedures", "procedures");
     }
 
     @Override
     public void clearMinResultTimeForOfferings() {
         LOG.trace("Clearing min result time for offerings");
         this.minResultTimeForOfferings.clear();
+        markDirty("minResultTimeForOfferings", "offerings");
     }
 
     @Override
     public void clearMaxResultTimeForOfferings() {
         LOG.trace("Clearing max result time for offerings");
         this.maxResultTimeForOfferings.clear();
+        markDirty("maxResultTimeForOfferings", "offerings");
     }
 
     @Override
     public void clearOfferings() {
         LOG.trace("Clearing offerings");
         this.offerings.clear();
+        markDirty("offerings");
     }
 
     @Override
@@ -1752,6 +1983,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Adding offering {}", offering);
         this.offerings.add(offering);
+        markDirty("offerings");
     }
 
     @Override
@@ -1759,6 +1991,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing Offering {}", offering);
         this.offerings.remove(offering);
+        markDirty("offerings");
     }
 
     @Override
@@ -1767,6 +2000,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         LOG.trace("Adding hidden child procedure {} to offering {}", procedure, offering);
         this.hiddenChildProceduresForOfferings.computeIfAbsent(offering, createSynchronizedSet()).add(procedure);
+        markDirty("hiddenChildProceduresForOfferings");
     }
 
     @Override
@@ -1775,6 +2009,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, procedure);
         LOG.trace("Removing hidden chil procedure {} from offering {}", procedure, offering);
         this.hiddenChildProceduresForOfferings.getOrDefault(offering, Collections.emptySet()).remove(procedure);
+        markDirty("hiddenChildProceduresForOfferings");
     }
 
     @Override
@@ -1782,12 +2017,14 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(procedures);
         LOG.trace("Setting hidden child Procedures for Offering {} to {}", offering, newValue);
         this.hiddenChildProceduresForOfferings.put(offering, newValue);
+        markDirty("hiddenChildProceduresForOfferings", "procedures");
     }
 
     @Override
     public void clearHiddenChildProceduresForOfferings() {
         LOG.trace("Clearing hidden child procedures for offerings");
         this.hiddenChildProceduresForOfferings.clear();
+        markDirty("hiddenChildProceduresForOfferings", "procedures", "offerings");
     }
 
     @Override
@@ -1795,12 +2032,14 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing Spatial Filtering Profile envelope for offering {}", offering);
         this.spatialFilteringProfileEnvelopeForOfferings.remove(offering);
+        markDirty("spatialFilteringProfileEnvelopeForOfferings");
     }
 
     @Override
     public void setSpatialFilteringProfileEnvelopeForOffering(String offering, ReferencedEnvelope envelope) {
         LOG.trace("Setting Spatial Filtering Profile Envelope for Offering {} to {}", offering, envelope);
         this.spatialFilteringProfileEnvelopeForOfferings.put(offering, copyOf(envelope));
+        markDirty("spatialFilteringProfileEnvelopeForOfferings");
     }
 
     @Override
@@ -1816,12 +2055,14 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
             setSpatialFilteringProfileEnvelopeForOffering(offering,
                     new ReferencedEnvelope(envelope, getDefaultEPSGCode()));
         }
+        markDirty("spatialFilteringProfileEnvelopeForOfferings");
     }
 
     @Override
     public void clearSpatialFilteringProfileEnvelopeForOfferings() {
         LOG.trace("Clearing Spatial Filtering Profile envelope for offerings");
         this.spatialFilteringProfileEnvelopeForOfferings.clear();
+        markDirty("offerings", "spatialFilteringProfileEnvelopeForOfferings");
     }
 
     @Override
@@ -1831,6 +2072,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding featureOfInterestType {} to offering {}", featureOfInterestType, offering);
         this.featureOfInterestTypesForOfferings.computeIfAbsent(offering, createSynchronizedSet())
                 .add(featureOfInterestType);
+        markDirty("featureOfInterestTypesForOfferings");
     }
 
     @Override
@@ -1840,6 +2082,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Removing featureOfInterestType {} from offering {}", featureOfInterestType, offering);
         this.featureOfInterestTypesForOfferings.getOrDefault(offering, Collections.emptySet())
                 .remove(featureOfInterestType);
+        markDirty("featureOfInterestTypesForOfferings");
     }
 
     @Override
@@ -1847,6 +2090,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, offering);
         LOG.trace("Removing featureOfInterestTypes for offering {}", offering);
         this.featureOfInterestTypesForOfferings.remove(offering);
+        markDirty("featureOfInterestTypesForOfferings");
     }
 
     @Override
@@ -1854,6 +2098,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         final Set<String> newValue = newSynchronizedSet(featureOfInterestTypes);
         LOG.trace("Setting FeatureOfInterestTypes for Offering {} to {}", offering, newValue);
         this.featureOfInterestTypesForOfferings.put(offering, newValue);
+        markDirty("featureOfInterestTypesForOfferings");
     }
 
     @Override
@@ -1863,6 +2108,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding AllowedFeatureOfInterestType {} to Offering {}", allowedFeatureOfInterestType, offering);
         this.allowedFeatureOfInterestTypeForOfferings.computeIfAbsent(offering, createSynchronizedSet())
                 .add(allowedFeatureOfInterestType);
+        markDirty("allowedFeatureOfInterestTypeForOfferings");
     }
 
     @Override
@@ -1873,6 +2119,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         LOG.trace("Adding AllowedFeatureOfInterestTypes {} to Offering {}", allowedFeatureOfInterestTypes, offering);
         this.allowedFeatureOfInterestTypeForOfferings.computeIfAbsent(offering, createSynchronizedSet())
                 .addAll(allowedFeatureOfInterestTypes);
+        markDirty("allowedFeatureOfInterestTypeForOfferings");
     }
 
     @Override
@@ -1880,18 +2127,21 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         Objects.requireNonNull(language, SUPPORTED_LANGUAGE);
         LOG.trace("Adding Language {}", language);
         this.supportedLanguages.add(language);
+        markDirty("supportedLanguages");
     }
 
     @Override
     public void clearSupportedLanguage() {
         LOG.trace("Clearing supported languages");
         this.supportedLanguages.clear();
+        markDirty("supportedLanguages");
     }
 
     @Override
     public void removeSupportedLanguage(Locale language) {
         LOG.trace("Removing Language {}", language);
         this.supportedLanguages.remove(language);
+        markDirty("supportedLanguages");
     }
 
     @Override
@@ -1904,6 +2154,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
                         humanReadableName);
             }
         }
+        markDirty("featureOfInterestIdentifierHumanReadableName");
     }
 
     @Override
@@ -1916,6 +2167,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
                         identifier, humanReadableName);
             }
         }
+        markDirty("observablePropertyIdentifierHumanReadableName");
     }
 
     @Override
@@ -1928,6 +2180,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
                         humanReadableName);
             }
         }
+        markDirty("procedureIdentifierHumanReadableName");
     }
 
     @Override
@@ -1940,6 +2193,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
                         humanReadableName);
             }
         }
+        markDirty("offeringIdentifierHumanReadableName");
     }
 
     @Override
@@ -1947,6 +2201,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(FEATURE_OF_INTEREST_NAME, humanReadableName);
         LOG.trace("Removing featuresOfInterest identifier for humanReadableName {}", humanReadableName);
         featureOfInterestIdentifierHumanReadableName.inverse().remove(humanReadableName);
+        markDirty("featuresOfInterest", "featureOfInterestIdentifierHumanReadableName");
     }
 
     @Override
@@ -1954,6 +2209,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(FEATURE_OF_INTEREST, identifier);
         LOG.trace("Removing featuresOfInterest human readable name for identifier {}", identifier);
         featureOfInterestIdentifierHumanReadableName.remove(identifier);
+        markDirty("featuresOfInterest", "featureOfInterestIdentifierHumanReadableName");
     }
 
     @Override
@@ -1961,6 +2217,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OBSERVABLE_PROPERTY_NAME, humanReadableName);
         LOG.trace("Removing observableProperty identifier for humanReadableName {}", humanReadableName);
         observablePropertyIdentifierHumanReadableName.inverse().remove(humanReadableName);
+        markDirty("observablePropertyIdentifierHumanReadableName");
     }
 
     @Override
@@ -1968,6 +2225,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OBSERVABLE_PROPERTY, identifier);
         LOG.trace("Removing observableProperty human readable name for identifier {}", identifier);
         observablePropertyIdentifierHumanReadableName.remove(identifier);
+        markDirty("observablePropertyIdentifierHumanReadableName");
     }
 
     @Override
@@ -1975,6 +2233,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE_NAME, humanReadableName);
         LOG.trace("Removing procedure identifier for humanReadableName {}", humanReadableName);
         procedureIdentifierHumanReadableName.inverse().remove(humanReadableName);
+        markDirty("procedureIdentifierHumanReadableName");
     }
 
     @Override
@@ -1982,6 +2241,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PROCEDURE, identifier);
         LOG.trace("Removing procedure human readable name for identifier {}", identifier);
         procedureIdentifierHumanReadableName.remove(identifier);
+        markDirty("procedureIdentifierHumanReadableName");
     }
 
     @Override
@@ -1989,6 +2249,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING_NAME, humanReadableName);
         LOG.trace("Removing offering identifier for humanReadableName {}", humanReadableName);
         offeringIdentifierHumanReadableName.inverse().remove(humanReadableName);
+        markDirty("offeringIdentifierHumanReadableName");
     }
 
     @Override
@@ -1996,26 +2257,31 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(OFFERING, identifier);
         LOG.trace("Removing offering human readable name for identifier {}", identifier);
         offeringIdentifierHumanReadableName.remove(identifier);
+        markDirty("offeringIdentifierHumanReadableName");
     }
 
     @Override
     public void clearFeatureOfInterestIdentifierHumanReadableNameMaps() {
         featureOfInterestIdentifierHumanReadableName.clear();
+        markDirty("featureOfInterestIdentifierHumanReadableName");
     }
 
     @Override
     public void clearObservablePropertyIdentifierHumanReadableNameMaps() {
         observablePropertyIdentifierHumanReadableName.clear();
+        markDirty("observablePropertyIdentifierHumanReadableName");
     }
 
     @Override
     public void clearProcedureIdentifierHumanReadableNameMaps() {
         procedureIdentifierHumanReadableName.clear();
+        markDirty("procedureIdentifierHumanReadableName");
     }
 
     @Override
     public void clearOfferingIdentifierHumanReadableNameMaps() {
         offeringIdentifierHumanReadableName.clear();
+        markDirty("offeringIdentifierHumanReadableName");
     }
 
     @Override
@@ -2078,6 +2344,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(COMPOSITE_PHENOMENON, compositePhenomenon);
         LOG.trace("Adding composite phenomenon {}", compositePhenomenon);
         this.compositePhenomenons.add(compositePhenomenon);
+        markDirty("compositePhenomenons");
     }
 
     @Override
@@ -2085,12 +2352,14 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.noNullOrEmptyValues(COMPOSITE_PHENOMENON, compositePhenomenon);
         LOG.trace("Adding composite phenomenons {}", compositePhenomenon);
         this.compositePhenomenons.addAll(compositePhenomenon);
+        markDirty("compositePhenomenons");
     }
 
     @Override
     public void clearCompositePhenomenon() {
         LOG.trace("Clearing composite phenomenon");
         this.compositePhenomenons.clear();
+        markDirty("compositePhenomenons");
     }
 
     @Override
@@ -2101,6 +2370,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         this.compositePhenomenonsForProcedure.computeIfAbsent(procedure, createSynchronizedSet())
                 .add(compositePhenomenon);
         addCompositePhenomenon(compositePhenomenon);
+        markDirty("compositePhenomenonsForProcedure");
     }
 
     @Override
@@ -2111,18 +2381,21 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         this.compositePhenomenonsForProcedure.computeIfAbsent(procedure, createSynchronizedSet())
                 .addAll(compositePhenomenon);
         addCompositePhenomenon(compositePhenomenon);
+        markDirty("compositePhenomenonsForProcedure");
     }
 
     @Override
     public void clearCompositePhenomenonForProcedure(String procedure) {
         LOG.trace("Clearing composite phenomenons for procedure {}", procedure);
         this.compositePhenomenonsForProcedure.remove(procedure);
+        markDirty("compositePhenomenonsForProcedure");
     }
 
     @Override
     public void clearCompositePhenomenonForProcedures() {
         LOG.trace("Clearing composite phenomenons for procedures");
         this.compositePhenomenonsForProcedure.clear();
+        markDirty("compositePhenomenonsForProcedure", "procedures");
     }
 
     @Override
@@ -2133,6 +2406,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         this.compositePhenomenonsForOffering.computeIfAbsent(offering, createSynchronizedSet())
                 .add(compositePhenomenon);
         addCompositePhenomenon(compositePhenomenon);
+        markDirty("compositePhenomenonsForOffering");
     }
 
     @Override
@@ -2143,18 +2417,21 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         this.compositePhenomenonsForOffering.computeIfAbsent(offering, createSynchronizedSet())
                 .addAll(compositePhenomenon);
         addCompositePhenomenon(compositePhenomenon);
+        markDirty("compositePhenomenonsForOffering");
     }
 
     @Override
     public void clearCompositePhenomenonForOffering(String offering) {
         LOG.trace("Clearing composite phenomenons for offering {}", offering);
         this.compositePhenomenonsForOffering.remove(offering);
+        markDirty("compositePhenomenonsForOffering");
     }
 
     @Override
     public void clearCompositePhenomenonForOfferings() {
         LOG.trace("Clearing composite phenomenons for offerings");
         this.compositePhenomenonsForOffering.clear();
+        markDirty("compositePhenomenonsForOffering", "offerings");
     }
 
     @Override
@@ -2166,6 +2443,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         this.compositePhenomenonsForObservableProperty.computeIfAbsent(observableProperty, createSynchronizedSet())
                 .add(compositePhenomenon);
         addCompositePhenomenon(compositePhenomenon);
+        markDirty("compositePhenomenonsForObservableProperty");
     }
 
     @Override
@@ -2176,6 +2454,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         this.observablePropertiesForCompositePhenomenons.computeIfAbsent(compositePhenomenon, createSynchronizedSet())
                 .add(observableProperty);
         addCompositePhenomenon(compositePhenomenon);
+        markDirty("observablePropertiesForCompositePhenomenons");
     }
 
     @Override
@@ -2188,30 +2467,35 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         this.observablePropertiesForCompositePhenomenons.computeIfAbsent(compositePhenomenon, createSynchronizedSet())
                 .addAll(observableProperty);
         addCompositePhenomenon(compositePhenomenon);
+        markDirty("observablePropertiesForCompositePhenomenons");
     }
 
     @Override
     public void clearObservablePropertiesForCompositePhenomenon(String compositePhenomenon) {
         LOG.trace("Clearing observable properties for composite phenomenon {}", compositePhenomenon);
         this.observablePropertiesForCompositePhenomenons.remove(compositePhenomenon);
+        markDirty("observablePropertiesForCompositePhenomenons");
     }
 
     @Override
     public void clearObservablePropertiesForCompositePhenomenon() {
         LOG.trace("Clearing observable properties for composite phenomenon");
         this.observablePropertiesForCompositePhenomenons.clear();
+        markDirty("observablePropertiesForCompositePhenomenons");
     }
 
     @Override
     public void clearCompositePhenomenonsForObservableProperty() {
         LOG.trace("Clearing composite phenomenon for observable properties");
         this.compositePhenomenonsForObservableProperty.clear();
+        markDirty("compositePhenomenonsForObservableProperty");
     }
 
     @Override
     public void clearCompositePhenomenonsForObservableProperty(String observableProperty) {
         LOG.trace("Clearing composite phenomenon for observable property {}", observableProperty);
         this.compositePhenomenonsForObservableProperty.remove(observableProperty);
+        markDirty("compositePhenomenonsForObservableProperty");
     }
 
     @Override
@@ -2223,6 +2507,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
     public void setRequestableProcedureDescriptionFormat(Collection<String> formats) {
         LOG.trace("Adding requestable procedureDescriptionFormat");
         this.requestableProcedureDescriptionFormats.addAll(formats);
+        markDirty("requestableProcedureDescriptionFormats");
     }
 
     @Override
@@ -2277,6 +2562,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         } else {
             typeInstanceProcedures.put(typeInstance, Sets.newHashSet(identifier));
         }
+        markDirty("typeInstanceProcedures");
     }
 
     @Override
@@ -2284,12 +2570,14 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(TYPE_PROCEDURE, identifier);
         logRemoving(TYPE_PROCEDURE, identifier);
         removeValue(typeInstanceProcedures, identifier);
+        markDirty("typeInstanceProcedures");
     }
 
     @Override
     public void clearTypeInstanceProcedure() {
         logClearing(TYPE_PROCEDURE);
         typeInstanceProcedures.clear();
+        markDirty("typeInstanceProcedures");
     }
 
     @Override
@@ -2301,6 +2589,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         } else {
             componentAggregationProcedures.put(componentAggregation, Sets.newHashSet(identifier));
         }
+        markDirty("componentAggregationProcedures");
     }
 
     @Override
@@ -2308,12 +2597,14 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(AGGREGATED_PROCEDURE, identifier);
         logRemoving(AGGREGATED_PROCEDURE, identifier);
         removeValue(componentAggregationProcedures, identifier);
+        markDirty("componentAggregationProcedures");
     }
 
     @Override
     public void clearComponentAggregationProcedure() {
         logClearing(AGGREGATED_PROCEDURE);
         componentAggregationProcedures.clear();
+        markDirty("componentAggregationProcedures");
     }
 
     @Override
@@ -2326,6 +2617,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         } else {
             typeOfProceduresMap.put(type, Sets.newHashSet(instance));
         }
+        markDirty("typeOfProceduresMap");
     }
 
     @Override
@@ -2338,6 +2630,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         } else {
             typeOfProceduresMap.put(type, instances);
         }
+        markDirty("typeOfProceduresMap");
     }
 
     @Override
@@ -2349,6 +2642,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         }
         // check for values
         removeValue(typeOfProceduresMap, type);
+        markDirty("typeOfProceduresMap");
     }
 
     @Override
@@ -2359,12 +2653,14 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         if (hasInstancesForProcedure(type)) {
             typeOfProceduresMap.get(type).remove(instance);
         }
+        markDirty("typeOfProceduresMap");
     }
 
     @Override
     public void clearTypeOfProcedure() {
         logClearing("Clearing type instance procedure map");
         typeOfProceduresMap.clear();
+        markDirty("typeOfProceduresMap");
     }
 
     /**
@@ -2404,11 +2700,13 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
     @Override
     public void addProcedureDescriptionFormatsForProcedure(String procedure, Set<String> formats) {
         this.procedureProcedureDescriptionFormats.computeIfAbsent(procedure, createSynchronizedSet()).addAll(formats);
+        markDirty("procedureProcedureDescriptionFormats");
     }
 
     @Override
     public void removeProcedureDescriptionFormatsForProcedure(String procedure) {
         procedureProcedureDescriptionFormats.remove(procedure);
+        markDirty("procedureProcedureDescriptionFormats");
     }
 
     @Override
@@ -2441,12 +2739,14 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PUBLISHED_FEATURE_OF_INTEREST, featureOfInterest);
         LOG.trace("Adding published FeatureOfInterest {}", featureOfInterest);
         publishedFeatureOfInterest.add(featureOfInterest);
+        markDirty("publishedFeatureOfInterest");
     }
 
     @Override
     public void clearPublishedFeaturesOfInterest() {
         LOG.trace("Clearing published features of interest");
         publishedFeatureOfInterest.clear();
+        markDirty("publishedFeatureOfInterest");
     }
 
     @Override
@@ -2454,6 +2754,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PUBLISHED_FEATURE_OF_INTEREST, featureOfInterest);
         LOG.trace("Removing published FeatureOfInterest {}", featureOfInterest);
         publishedFeatureOfInterest.remove(featureOfInterest);
+        markDirty("publishedFeatureOfInterest");
     }
 
     @Override
@@ -2461,12 +2762,14 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PUBLISHED_PROCEDURE, procedure);
         LOG.trace("Adding published procedure {}", procedure);
         publishedProcedure.add(procedure);
+        markDirty("publishedProcedure");
     }
 
     @Override
     public void clearPublishedProcedure() {
         LOG.trace("Clearing published procedure");
         publishedProcedure.clear();
+        markDirty("publishedProcedure");
     }
 
     @Override
@@ -2474,6 +2777,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PUBLISHED_PROCEDURE, procedure);
         LOG.trace("Removing published procedure {}", procedure);
         publishedProcedure.remove(procedure);
+        markDirty("publishedProcedure");
     }
 
     @Override
@@ -2481,12 +2785,14 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PUBLISHED_OFFERING, offering);
         LOG.trace("Adding published offering {}", offering);
         publishedOffering.add(offering);
+        markDirty("publishedOffering");
     }
 
     @Override
     public void clearPublishedOffering() {
         LOG.trace("Clearing published offering");
         publishedOffering.clear();
+        markDirty("publishedOffering");
     }
 
     @Override
@@ -2494,6 +2800,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PUBLISHED_OFFERING, offering);
         LOG.trace("Removing published offering {}", offering);
         publishedOffering.remove(offering);
+        markDirty("publishedOffering");
     }
 
     @Override
@@ -2501,12 +2808,14 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PUBLISHED_OBSERVABLE_PROPERTY, observableProperty);
         LOG.trace("Adding published observableProperty {}", observableProperty);
         publishedObservableProperty.add(observableProperty);
+        markDirty("publishedObservableProperty");
     }
 
     @Override
     public void clearPublishedObservableProperty() {
         LOG.trace("Clearing published observableProperties");
         publishedObservableProperty.clear();
+        markDirty("publishedObservableProperty");
     }
 
     @Override
@@ -2514,6 +2823,7 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         CacheValidation.notNullOrEmpty(PUBLISHED_OBSERVABLE_PROPERTY, observableProperty);
         LOG.trace("Removing published observableProperty {}", observableProperty);
         publishedObservableProperty.remove(observableProperty);
+        markDirty("publishedObservableProperty");
     }
 
     @Override
@@ -2776,4 +3086,49 @@ public class InMemoryCacheImpl extends AbstractStaticSosContentCache
         return Suppliers.<X, Set<T>> asFunction(HashSet<T>::new).andThen(Collections::synchronizedSet);
     }
 
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.dirtyFields = ConcurrentHashMap.newKeySet();
+        rebuildHierarchies();
+    }
+
+    /**
+     * Mark persistent fields as changed. The mutators call this after the
+     * change, so a snapshot taken concurrently either contains the change or
+     * the field is still marked afterwards.
+     *
+     * @param fields
+     *            the names of the changed fields
+     */
+    void markDirty(String... fields) {
+        Collections.addAll(this.dirtyFields, fields);
+    }
+
+    /**
+     * Get and unmark the persistent fields that changed since the last call.
+     *
+     * @return the names of the changed fields
+     */
+    Set<String> drainDirtyFields() {
+        Set<String> drained = new HashSet<>();
+        Iterator<String> iterator = this.dirtyFields.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+
+    /**
+     * Rebuild the transient hierarchy closures after the persistent fields
+     * were restored.
+     */
+    void rebuildHierarchies() {
+        // the hierarchy closures are derived from the parent relations
+        this.procedureHierarchy = new HierarchyClosure();
+        this.procedureHierarchy.rebuild(this.parentProceduresForProcedures);
+        this.offeringHierarchy = new HierarchyClosure();
+        this.offeringHierarchy.rebuild(this.parentOfferingsForOfferings);
+    }
+
 }
@@ -75,6 +75,7 @@ public class SensorDeletionUpdate extends CacheFeederDAOCacheUpdate {
 
         cache.removeProcedure(procedure);
         cache.removePublishedProcedure(procedure);
+        cache.removeProcedureHierarchy(procedure);
 
         cache.removeMinPhenomenonTimeForProcedure(procedure);
         cache.removeMaxPhenomenonTimeForProcedure(procedure);
@@ -119,6 +120,7 @@ public class SensorDeletionUpdate extends CacheFeederDAOCacheUpdate {
                 }
                 cache.removeOffering(offering);
                 cache.removePublishedOffering(offering);
+                cache.removeOfferingHierarchy(offering);
             }
         }
 
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache.ctrl.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+import javax.servlet.ServletContext;
+
+import org.n52.faroe.annotation.Configurable;
+import org.n52.faroe.annotation.Setting;
+import org.n52.iceland.cache.ContentCache;
+import org.n52.iceland.cache.ContentCachePersistenceStrategy;
+import org.n52.iceland.cache.WritableContentCache;
+import org.n52.janmayen.GroupedAndNamedThreadFactory;
+import org.n52.sos.cache.CacheSnapshotCodec;
+import org.n52.sos.cache.InMemoryCacheImpl;
+import org.n52.sos.service.SosSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists the {@link InMemoryCacheImpl} as a binary snapshot using the
+ * {@link CacheSnapshotCodec}.
+ * <p/>
+ * Partial updates only append the changed sections of the cache to the
+ * snapshot file. The file is compacted, i.e. rewritten completely, after a
+ * complete update, on shutdown and when the appended segments grow larger
+ * than the last compacted snapshot. Snapshots are written asynchronously by a
+ * single thread; partial updates arriving while a snapshot is written are
+ * coalesced.
+ *
+ * @since 5.3.2
+ */
+@Configurable
+public class SnapshotCachePersistenceStrategy implements ContentCachePersistenceStrategy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotCachePersistenceStrategy.class);
+
+    private static final String SNAPSHOT_FILE = "cache.snapshot";
+
+    private static final long SHUTDOWN_TIMEOUT = 30;
+
+    private final CacheSnapshotCodec codec = new CacheSnapshotCodec();
+
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(new GroupedAndNamedThreadFactory("cache-snapshot"));
+
+    private final AtomicReference<ContentCache> pending = new AtomicReference<>();
+
+    private final AtomicBoolean compactionRequested = new AtomicBoolean();
+
+    private Path folder;
+
+    private Path defaultFolder = Paths.get(System.getProperty("java.io.tmpdir"));
+
+    private long compactedSize;
+
+    private long appendedSize;
+
+    @Setting(SosSettings.CACHE_FILE_FOLDER)
+    public void setCacheFileFolder(File folder) {
+        this.folder = folder == null ? null : folder.toPath();
+    }
+
+    /**
+     * Use the webapp folder, or if the webapp is not unpacked, its temporary
+     * folder if no cache file folder is configured.
+     *
+     * @param servletContext
+     *            the servlet context, if running in a servlet container
+     */
+    @Inject
+    public void setServletContext(Optional<ServletContext> servletContext) {
+        servletContext.ifPresent(sc -> {
+            String path = sc.getRealPath("/");
+            Object tempDir = sc.getAttribute(ServletContext.TEMPDIR);
+            if (path != null) {
+                this.defaultFolder = Paths.get(path);
+            } else if (tempDir instanceof File) {
+                this.defaultFolder = ((File) tempDir).toPath();
+            }
+        });
+    }
+
+    public Path getSnapshotFile() {
+        return (folder != null ? folder : defaultFolder).resolve(SNAPSHOT_FILE);
+    }
+
+    @Override
+    public Optional<WritableContentCache> load() {
+        Path file = getSnapshotFile();
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        long start = System.currentTimeMillis();
+        try {
+            Optional<InMemoryCacheImpl> cache = codec.read(file);
+            if (cache.isPresent()) {
+                LOGGER.info("Loaded cache snapshot {} in {} ms", file, System.currentTimeMillis() - start);
+            }
+            return cache.map(c -> (WritableContentCache) c);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Could not load cache snapshot {}, the cache will be rebuilt", file, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void persistOnPartialUpdate(ContentCache cache) {
+        schedule(cache, false);
+    }
+
+    @Override
+    public void persistOnCompleteUpdate(ContentCache cache) {
+        schedule(cache, true);
+    }
+
+    @Override
+    public void persistOnShutdown(ContentCache cache) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                LOGGER.warn("Cache snapshot writer did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        persist(cache, true);
+    }
+
+    @Override
+    public synchronized void remove() {
+        try {
+            Files.deleteIfExists(getSnapshotFile());
+            compactionRequested.set(true);
+        } catch (IOException e) {
+            LOGGER.error("Error while deleting cache snapshot {}", getSnapshotFile(), e);
+        }
+    }
+
+    private void schedule(ContentCache cache, boolean compact) {
+        if (compact) {
+            compactionRequested.set(true);
+        }
+        if (pending.getAndSet(cache) == null) {
+            try {
+                executor.execute(this::persistPending);
+            } catch (RejectedExecutionException e) {
+                LOGGER.debug("Cache snapshot writer already stopped", e);
+            }
+        }
+    }
+
+    private void persistPending() {
+        ContentCache cache = pending.getAndSet(null);
+        if (cache != null) {
+            persist(cache, compactionRequested.getAndSet(false));
+        }
+    }
+
+    private synchronized void persist(ContentCache cache, boolean compact) {
+        if (!(cache instanceof InMemoryCacheImpl)) {
+            LOGGER.warn("Can not persist cache of type {} as snapshot", cache == null ? null : cache.getClass());
+            return;
+        }
+        Path file = getSnapshotFile();
+        long start = System.currentTimeMillis();
+        try {
+            if (compact || appendedSize > compactedSize) {
+                compactedSize = codec.write((InMemoryCacheImpl) cache, file);
+                appendedSize = 0;
+                LOGGER.debug("Wrote cache snapshot {} ({} bytes) in {} ms", file, compactedSize,
+                        System.currentTimeMillis() - start);
+            } else {
+                appendedSize += codec.append((InMemoryCacheImpl) cache, file);
+                LOGGER.trace("Updated cache snapshot {} in {} ms", file, System.currentTimeMillis() - start);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Error while persisting cache snapshot {}", file, e);
+        }
+    }
+}
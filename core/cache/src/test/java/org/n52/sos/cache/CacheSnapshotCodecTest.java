@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.cache;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.jts.geom.Envelope;
+import org.n52.shetland.util.ReferencedEnvelope;
+
+public class CacheSnapshotCodecTest {
+
+    private static final String OFFERING = "offering";
+
+    private static final String PROCEDURE = "procedure";
+
+    private static final String PARENT_PROCEDURE = "parentProcedure";
+
+    private static final DateTime TIME = new DateTime(2020, 1, 1, 0, 0, DateTimeZone.UTC);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldRestoreWrittenCache() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("cache.snapshot");
+        new CacheSnapshotCodec().write(createCache(), file);
+
+        InMemoryCacheImpl cache = new CacheSnapshotCodec().read(file).get();
+        MatcherAssert.assertThat(cache.getOfferings(), Matchers.contains(OFFERING));
+        MatcherAssert.assertThat(cache.getProceduresForOffering(OFFERING),
+                Matchers.containsInAnyOrder(PROCEDURE, PARENT_PROCEDURE));
+        MatcherAssert.assertThat(cache.getNameForOffering(OFFERING), Matchers.is("name"));
+        MatcherAssert.assertThat(cache.getMaxPhenomenonTimeForOffering(OFFERING), Matchers.is(TIME));
+        MatcherAssert.assertThat(cache.getEnvelopeForOffering(OFFERING).getEnvelope(),
+                Matchers.is(new Envelope(1, 2, 3, 4)));
+        MatcherAssert.assertThat(cache.getEnvelopeForOffering(OFFERING).getSrid(), Matchers.is(4326));
+        MatcherAssert.assertThat(cache.getChildProcedures(PARENT_PROCEDURE, true, false),
+                Matchers.contains(PROCEDURE));
+    }
+
+    @Test
+    public void shouldRestoreAppendedSectionsAndIgnoreTruncatedTail() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("cache.snapshot");
+        CacheSnapshotCodec codec = new CacheSnapshotCodec();
+        InMemoryCacheImpl cache = createCache();
+        long size = codec.write(cache, file);
+        MatcherAssert.assertThat(codec.append(cache, file), Matchers.is(0L));
+
+        cache.addOffering("other");
+        long appended = codec.append(cache, file);
+        MatcherAssert.assertThat(appended, Matchers.greaterThan(0L));
+        MatcherAssert.assertThat(Files.size(file), Matchers.is(size + appended));
+        MatcherAssert.assertThat(new CacheSnapshotCodec().read(file).get().getOfferings(),
+                Matchers.containsInAnyOrder(OFFERING, "other"));
+
+        cache.addOffering("truncated");
+        codec.append(cache, file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 1);
+        }
+        MatcherAssert.assertThat(new CacheSnapshotCodec().read(file).get().getOfferings(),
+                Matchers.containsInAnyOrder(OFFERING, "other"));
+    }
+
+    @Test
+    public void shouldTrackChangedFields() {
+        InMemoryCacheImpl cache = createCache();
+        cache.drainDirtyFields();
+        cache.addOffering("other");
+        cache.setNameForOffering("other", "other name");
+        MatcherAssert.assertThat(cache.drainDirtyFields(),
+                Matchers.containsInAnyOrder("offerings", "nameForOfferings"));
+        MatcherAssert.assertThat(cache.drainDirtyFields(), Matchers.empty());
+    }
+
+    @Test
+    public void shouldAppendChangesOfReadCache() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("cache.snapshot");
+        long size = new CacheSnapshotCodec().write(createCache(), file);
+
+        CacheSnapshotCodec codec = new CacheSnapshotCodec();
+        InMemoryCacheImpl cache = codec.read(file).get();
+        MatcherAssert.assertThat(codec.append(cache, file), Matchers.is(0L));
+        cache.addOffering("other");
+        long appended = codec.append(cache, file);
+        MatcherAssert.assertThat(Files.size(file), Matchers.is(size + appended));
+        MatcherAssert.assertThat(new CacheSnapshotCodec().read(file).get().getOfferings(),
+                Matchers.containsInAnyOrder(OFFERING, "other"));
+    }
+
+    private InMemoryCacheImpl createCache() {
+        InMemoryCacheImpl cache = new InMemoryCacheImpl();
+        cache.addOffering(OFFERING);
+        cache.setNameForOffering(OFFERING, "name");
+        cache.setProceduresForOffering(OFFERING, Arrays.asList(PROCEDURE, PARENT_PROCEDURE));
+        cache.setMaxPhenomenonTimeForOffering(OFFERING, TIME);
+        cache.setEnvelopeForOffering(OFFERING, new ReferencedEnvelope(new Envelope(1, 2, 3, 4), 4326));
+        cache.addProcedure(PROCEDURE);
+        cache.addProcedure(PARENT_PROCEDURE);
+        cache.addParentProcedure(PROCEDURE, PARENT_PROCEDURE);
+        return cache;
+    }
+}
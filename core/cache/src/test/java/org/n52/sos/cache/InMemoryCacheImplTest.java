@@ -47,6 +47,7 @@ import org.n52.svalbard.encode.EncoderRepository;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Sets;
 
 
 /**
@@ -181,4 +182,75 @@ public class InMemoryCacheImplTest {
        MatcherAssert.assertThat(readCache.isRelatedFeatureSampled(relatedFeature), Is.is(Boolean.TRUE));
     }
 
+
+    @Test
+    public void should_return_transitive_procedure_hierarchy() {
+        final InMemoryCacheImpl cache = new InMemoryCacheImpl();
+        cache.addParentProcedure("p_2", "p_1");
+        cache.addParentProcedure("p_4", "p_3");
+        cache.addParentProcedure("p_3", "p_2");
+
+        MatcherAssert.assertThat(cache.getAncestorProcedures("p_4"), Is.is(Sets.newHashSet("p_1", "p_2", "p_3")));
+        MatcherAssert.assertThat(cache.getDescendantProcedures("p_1"), Is.is(Sets.newHashSet("p_2", "p_3", "p_4")));
+        MatcherAssert.assertThat(cache.getChildProcedures("p_2", true, true),
+                Is.is(Sets.newHashSet("p_2", "p_3", "p_4")));
+        MatcherAssert.assertThat(cache.getChildProcedures("p_2", false, false), Is.is(Sets.newHashSet("p_3")));
+
+        cache.removeProcedureHierarchy("p_3");
+
+        MatcherAssert.assertThat(cache.getAncestorProcedures("p_4").isEmpty(), Is.is(Boolean.TRUE));
+        MatcherAssert.assertThat(cache.getDescendantProcedures("p_1"), Is.is(Sets.newHashSet("p_2")));
+    }
+
+    @Test
+    public void should_update_transitive_procedure_hierarchy_on_removal() {
+        final InMemoryCacheImpl cache = new InMemoryCacheImpl();
+        cache.addParentProcedure("p_2", "p_1");
+        cache.addParentProcedure("p_3", "p_1");
+        cache.addParentProcedures("p_4", Sets.newHashSet("p_2", "p_3"));
+        cache.addParentProcedure("p_5", "p_4");
+        cache.addParentProcedure("p_7", "p_6");
+
+        cache.removeProcedureHierarchy("p_2");
+
+        // p_4 is still reachable through p_3
+        MatcherAssert.assertThat(cache.getAncestorProcedures("p_5"), Is.is(Sets.newHashSet("p_1", "p_3", "p_4")));
+        MatcherAssert.assertThat(cache.getDescendantProcedures("p_1"), Is.is(Sets.newHashSet("p_3", "p_4", "p_5")));
+        MatcherAssert.assertThat(cache.getAncestorProcedures("p_2").isEmpty(), Is.is(Boolean.TRUE));
+        MatcherAssert.assertThat(cache.getDescendantProcedures("p_2").isEmpty(), Is.is(Boolean.TRUE));
+
+        cache.removeProcedureHierarchy("p_3");
+
+        MatcherAssert.assertThat(cache.getAncestorProcedures("p_5"), Is.is(Sets.newHashSet("p_4")));
+        MatcherAssert.assertThat(cache.getAncestorProcedures("p_4").isEmpty(), Is.is(Boolean.TRUE));
+        MatcherAssert.assertThat(cache.getDescendantProcedures("p_1").isEmpty(), Is.is(Boolean.TRUE));
+        MatcherAssert.assertThat(cache.getDescendantProcedures("p_4"), Is.is(Sets.newHashSet("p_5")));
+        MatcherAssert.assertThat(cache.getDescendantProcedures("p_6"), Is.is(Sets.newHashSet("p_7")));
+    }
+
+    @Test
+    public void should_update_transitive_offering_hierarchy_on_removal() {
+        final InMemoryCacheImpl cache = new InMemoryCacheImpl();
+        cache.addParentOfferings("o_2", Sets.newHashSet("o_1"));
+        cache.addParentOfferings("o_3", Sets.newHashSet("o_2"));
+        cache.addParentOfferings("o_4", Sets.newHashSet("o_3"));
+
+        cache.removeOfferingHierarchy("o_3");
+
+        MatcherAssert.assertThat(cache.getDescendantOfferings("o_1"), Is.is(Sets.newHashSet("o_2")));
+        MatcherAssert.assertThat(cache.getAncestorOfferings("o_4").isEmpty(), Is.is(Boolean.TRUE));
+        MatcherAssert.assertThat(cache.getParentOfferings("o_2", true, false), Is.is(Sets.newHashSet("o_1")));
+    }
+
+    @Test
+    public void should_return_transitive_offering_hierarchy() {
+        final InMemoryCacheImpl cache = new InMemoryCacheImpl();
+        cache.addParentOfferings("o_3", Sets.newHashSet("o_2"));
+        cache.addParentOfferings("o_2", Sets.newHashSet("o_1"));
+
+        MatcherAssert.assertThat(cache.getParentOfferings("o_3", true, false), Is.is(Sets.newHashSet("o_1", "o_2")));
+        MatcherAssert.assertThat(cache.getDescendantOfferings("o_1"), Is.is(Sets.newHashSet("o_2", "o_3")));
+        MatcherAssert.assertThat(cache.hasParentOfferings("o_2"), Is.is(Boolean.TRUE));
+    }
+
 }
@@ -46,6 +46,8 @@ import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.n52.faroe.annotation.Configurable;
+import org.n52.faroe.annotation.Setting;
 import org.n52.io.request.IoParameters;
 import org.n52.series.db.HibernateSessionStore;
 import org.n52.series.db.beans.AbstractFeatureEntity;
@@ -70,6 +72,8 @@ import org.n52.shetland.ogc.sos.Sos1Constants;
 import org.n52.shetland.ogc.sos.SosConstants;
 import org.n52.shetland.ogc.sos.request.GetFeatureOfInterestRequest;
 import org.n52.shetland.ogc.sos.response.GetFeatureOfInterestResponse;
+import org.n52.shetland.ogc.swe.simpleType.SweText;
+import org.n52.shetland.ogc.swes.SwesExtension;
 import org.n52.shetland.util.EnvelopeOrGeometry;
 import org.n52.sos.ds.dao.GetFeatureOfInterestDao;
 import org.n52.sos.util.GeometryHandler;
@@ -79,6 +83,7 @@ import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
+@Configurable
 public class GetFeatureOfInterestHandler extends AbstractGetFeatureOfInterestHandler implements ApiQueryHelper {
 
     private HibernateSessionStore sessionStore;
@@ -87,6 +92,8 @@ public class GetFeatureOfInterestHandler extends AbstractGetFeatureOfInterestHan
 
     private GeometryHandler geometryHandler;
 
+    private boolean streaming;
+
     public GetFeatureOfInterestHandler() {
         super(SosConstants.SOS);
     }
@@ -101,6 +108,11 @@ public class GetFeatureOfInterestHandler extends AbstractGetFeatureOfInterestHan
         this.sessionStore = sessionStore;
     }
 
+    @Setting(GetFeatureOfInterestSettings.GFOI_STREAMING)
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
     @Inject
     public void setGetFeatureOfInterestDao(Optional<GetFeatureOfInterestDao> getFeatureOfInterestDao) {
         if (getFeatureOfInterestDao.isPresent()) {
@@ -123,7 +135,7 @@ public class GetFeatureOfInterestHandler extends AbstractGetFeatureOfInterestHan
                     throw new NoApplicableCodeException()
                             .withMessage("Only one out of featureofinterestid or location possible.");
                 } else if (isFeatureIdentifierRequest(request) || isSpatialFilterRequest(request)) {
-                    response.setAbstractFeature(getFeatures(request, session));
+                    addFeatures(request, response, session);
                 } else {
                     throw new CompositeOwsException(
                             new MissingParameterValueException(
@@ -131,7 +143,7 @@ public class GetFeatureOfInterestHandler extends AbstractGetFeatureOfInterestHan
                             new MissingParameterValueException(Sos1Constants.GetFeatureOfInterestParams.location));
                 }
             } else {
-                response.setAbstractFeature(getFeatures(request, session));
+                addFeatures(request, response, session);
             }
             return response;
         } catch (HibernateException he) {
@@ -147,6 +159,37 @@ public class GetFeatureOfInterestHandler extends AbstractGetFeatureOfInterestHan
         return true;
     }
 
+    private void addFeatures(GetFeatureOfInterestRequest request, GetFeatureOfInterestResponse response,
+            Session session) throws OwsExceptionReport {
+        if (isPagedRequest(request)) {
+            FeaturePage page = dao.getFeatureOfInterestPage(request, session);
+            page.getContinuationToken().ifPresent(token -> response.addExtension(createContinuationToken(token)));
+            response.setAbstractFeature(new FeatureCollection(page.getFeatures()));
+        } else {
+            response.setAbstractFeature(getFeatures(request, session));
+        }
+    }
+
+    /**
+     * Check if the features could be iterated by the DAO without resolving
+     * the datasets for procedure or observedProperty filters first
+     *
+     * @param request
+     *            GetFeatureOfInterest request to check
+     * @return <code>true</code>, if the request could be paged
+     */
+    private boolean isPagedRequest(GetFeatureOfInterestRequest request) {
+        return streaming && dao != null && !request.isSetProcedures() && !request.isSetObservableProperties();
+    }
+
+    private SwesExtension<SweText> createContinuationToken(String token) {
+        SweText value = new SweText();
+        value.setValue(token);
+        value.setIdentifier(GetFeatureOfInterestSettings.EXTENSION_CONTINUATION_TOKEN);
+        return new SwesExtension<SweText>().setValue(value)
+                .setIdentifier(GetFeatureOfInterestSettings.EXTENSION_CONTINUATION_TOKEN);
+    }
+
     /**
      * Get featureOfInterest as a feature collection
      *
@@ -33,7 +33,9 @@ import java.net.URISyntaxException;
 import java.util.Locale;
 import java.util.Optional;
 
+import org.n52.iceland.i18n.metadata.AbstractI18NMetadata;
 import org.n52.janmayen.i18n.LocaleHelper;
+import org.n52.janmayen.i18n.LocalizedString;
 import org.n52.series.db.beans.Describable;
 import org.n52.series.db.beans.DescribableEntity;
 import org.n52.series.db.beans.i18n.I18nEntity;
@@ -41,6 +43,7 @@ import org.n52.shetland.ogc.gml.AbstractFeature;
 import org.n52.shetland.ogc.gml.CodeType;
 import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.sos.i18n.I18NMetadataStore;
 
 public interface I18nNameDescriptionAdder {
 
@@ -103,6 +106,62 @@ public interface I18nNameDescriptionAdder {
         }
     }
 
+    /**
+     * Add name and description to the feature and take the translations from
+     * the {@link I18NMetadataStore} instead of loading them per entity. Falls
+     * back to the translations of the entity if the store is not available.
+     *
+     * @param store
+     *            the I18N metadata store, may be <code>null</code>
+     * @param type
+     *            the metadata type of the entity
+     * @param entity
+     *            the entity
+     * @param feature
+     *            the feature to add name and description to
+     * @param requestedLocale
+     *            the requested locale
+     * @param defaultLocale
+     *            the default locale
+     * @param showAllLanguageValues
+     *            indicator whether to add the names in all languages
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    default void addNameAndDescription(I18NMetadataStore store, Class<? extends AbstractI18NMetadata> type,
+            DescribableEntity entity, AbstractFeature feature, Locale requestedLocale, Locale defaultLocale,
+            boolean showAllLanguageValues) throws OwsExceptionReport {
+        if (store == null || !store.isAvailable(type)) {
+            addNameAndDescription(entity, feature, requestedLocale, defaultLocale, showAllLanguageValues);
+            return;
+        }
+        Optional<? extends AbstractI18NMetadata> i18n = store.get(type, entity.getIdentifier());
+        if (!i18n.isPresent()) {
+            feature.addName(entity.getName());
+            feature.setDescription(entity.getDescription());
+            return;
+        }
+        Locale locale = requestedLocale != null ? requestedLocale : defaultLocale;
+        Optional<LocalizedString> name = I18NMetadataStore.getLocalization(i18n.get().getName(), locale);
+        Optional<LocalizedString> description =
+                I18NMetadataStore.getLocalization(i18n.get().getDescription(), locale);
+        if (requestedLocale == null && showAllLanguageValues) {
+            // load all names
+            i18n.get().getName().stream().forEach(
+                    n -> feature.addName(new CodeType(n.getText(), URI.create(LocaleHelper.encode(n.getLang())))));
+        } else if (name.isPresent()) {
+            feature.addName(new CodeType(name.get().getText(), URI.create(LocaleHelper.encode(locale))));
+        } else {
+            feature.addName(entity.getName());
+        }
+        // choose always the description in the requested or default locale
+        if (description.isPresent()) {
+            feature.setDescription(description.get().getText());
+        } else {
+            feature.setDescription(entity.getDescription());
+        }
+    }
+
     default Optional<I18nEntity<? extends Describable>> getTranslation(DescribableEntity entity,
             Locale requestedLocale) {
         I18nEntity<? extends Describable> translation = entity.getTranslation(LocaleHelper.encode(requestedLocale));
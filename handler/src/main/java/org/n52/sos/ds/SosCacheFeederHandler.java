@@ -42,6 +42,7 @@ import org.n52.faroe.Validation;
 import org.n52.faroe.annotation.Configurable;
 import org.n52.faroe.annotation.Setting;
 import org.n52.iceland.cache.WritableContentCache;
+import org.n52.iceland.ds.ConnectionProvider;
 import org.n52.iceland.i18n.I18NDAORepository;
 import org.n52.iceland.i18n.I18NSettings;
 import org.n52.iceland.ogc.ows.OwsServiceMetadataRepository;
@@ -51,10 +52,12 @@ import org.n52.shetland.ogc.ows.exception.CompositeOwsException;
 import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.util.CollectionHelper;
+import org.n52.sos.cache.CacheUpdateProgress;
 import org.n52.sos.cache.SosWritableContentCache;
 import org.n52.sos.ds.cache.CacheFeederSettingDefinitionProvider;
 import org.n52.sos.ds.cache.InitialCacheUpdate;
 import org.n52.sos.ds.cache.base.OfferingCacheUpdate;
+import org.n52.sos.i18n.I18NMetadataStore;
 import org.n52.sos.util.GeometryHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -79,17 +82,29 @@ public class SosCacheFeederHandler implements CacheFeederHandler {
      * update executor service.
      */
     private int cacheThreadCount = 5;
+    /**
+     * Defines the number of cache update phases executed concurrently.
+     */
+    private int cachePhaseThreadCount = 3;
     private Locale defaultLocale;
     private I18NDAORepository i18NDAORepository;
+    private I18NMetadataStore i18NMetadataStore;
     private OwsServiceMetadataRepository serviceMetadataRepository;
     private HibernateSessionStore sessionStore;
+    private ConnectionProvider connectionProvider;
     private GeometryHandler geometryHandler;
+    private CacheUpdateProgress cacheUpdateProgress;
 
     @Inject
     public void setConnectionProvider(HibernateSessionStore sessionStore) {
         this.sessionStore = sessionStore;
     }
 
+    @Inject
+    public void setDatasourceConnectionProvider(ConnectionProvider connectionProvider) {
+        this.connectionProvider = connectionProvider;
+    }
+
     @Setting(I18NSettings.I18N_DEFAULT_LANGUAGE)
     public void setDefaultLocale(String defaultLocale) {
         this.defaultLocale = LocaleHelper.decode(defaultLocale);
@@ -105,34 +120,51 @@ public class SosCacheFeederHandler implements CacheFeederHandler {
         this.i18NDAORepository = i18NDAORepository;
     }
 
+    @Inject
+    public void setI18NMetadataStore(I18NMetadataStore i18NMetadataStore) {
+        this.i18NMetadataStore = i18NMetadataStore;
+    }
+
     @Inject
     public void setGeometryHandler(GeometryHandler geometryHandler) {
         this.geometryHandler = geometryHandler;
     }
 
+    @Inject
+    public void setCacheUpdateProgress(CacheUpdateProgress cacheUpdateProgress) {
+        this.cacheUpdateProgress = cacheUpdateProgress;
+    }
+
     @Setting(CacheFeederSettingDefinitionProvider.CACHE_THREAD_COUNT)
     public void setCacheThreadCount(int threads) throws ConfigurationError {
         Validation.greaterZero("Cache Thread Count", threads);
         this.cacheThreadCount = threads;
     }
 
+    @Setting(CacheFeederSettingDefinitionProvider.CACHE_PHASE_THREAD_COUNT)
+    public void setCachePhaseThreadCount(int threads) throws ConfigurationError {
+        Validation.greaterZero("Cache Phase Thread Count", threads);
+        this.cachePhaseThreadCount = threads;
+    }
+
     @Override
     public void updateCache(SosWritableContentCache cache) throws OwsExceptionReport {
         checkCacheNotNull(cache);
         List<OwsExceptionReport> errors = CollectionHelper.synchronizedList();
-        Session session = null;
         try {
             InitialCacheUpdate update = new InitialCacheUpdate(
+                    this.cachePhaseThreadCount,
                     this.cacheThreadCount,
                     this.defaultLocale,
                     this.i18NDAORepository,
+                    this.i18NMetadataStore,
                     this.sessionStore,
                     this.serviceMetadataRepository,
                     geometryHandler);
-            session = this.sessionStore.getSession();
+            update.setCacheUpdateProgress(this.cacheUpdateProgress);
+            update.setMaxSessions(this.connectionProvider.getMaxConnections());
             update.setCache(cache);
             update.setErrors(errors);
-            update.setSession(session);
 
             LOGGER.info("Starting cache update");
             long cacheUpdateStartTime = System.currentTimeMillis();
@@ -143,13 +175,6 @@ public class SosCacheFeederHandler implements CacheFeederHandler {
         } catch (Exception e) {
             LOGGER.error(ERROR_UPDATE_CACHE, e);
             errors.add(new NoApplicableCodeException().causedBy(e).withMessage(ERROR_UPDATE_CACHE));
-        } finally {
-            try {
-                this.sessionStore.returnSession(session);
-            } catch (Exception e2) {
-                // TODO check why this is necessary
-                LOGGER.error(ERROR_RETURNING_CONNECTION, e2);
-            }
         }
         if (!errors.isEmpty()) {
             throw new CompositeOwsException(errors);
@@ -170,7 +195,7 @@ public class SosCacheFeederHandler implements CacheFeederHandler {
                 this.cacheThreadCount,
                 this.defaultLocale,
                 this.geometryHandler,
-                this.sessionStore);
+                this.sessionStore).setI18NMetadataStore(this.i18NMetadataStore);
         update.setCache(cache);
         update.setErrors(errors);
         update.setSession(session);
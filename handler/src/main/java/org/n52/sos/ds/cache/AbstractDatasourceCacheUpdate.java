@@ -29,6 +29,7 @@
 package org.n52.sos.ds.cache;
 
 import org.hibernate.Session;
+import org.n52.sos.cache.CacheUpdateProgress;
 import org.n52.sos.ds.DatasourceCacheUpdate;
 
 /**
@@ -39,6 +40,8 @@ import org.n52.sos.ds.DatasourceCacheUpdate;
 public abstract class AbstractDatasourceCacheUpdate extends DatasourceCacheUpdate {
     private Session session;
 
+    private CacheUpdateProgress.Phase progress;
+
     public Session getSession() {
         return session;
     }
@@ -47,4 +50,17 @@ public abstract class AbstractDatasourceCacheUpdate extends DatasourceCacheUpdat
         this.session = session;
     }
 
+    public CacheUpdateProgress.Phase getProgress() {
+        return progress;
+    }
+
+    /**
+     * @param progress
+     *            the phase to report the processed units of this update to, may
+     *            be <code>null</code>
+     */
+    public void setProgress(CacheUpdateProgress.Phase progress) {
+        this.progress = progress;
+    }
+
 }
@@ -69,6 +69,9 @@ public abstract class AbstractQueueingDatasourceCacheUpdate<T extends AbstractTh
             getErrors().add(ex);
             return;
         }
+        if (getProgress() != null) {
+            getProgress().setTotal(updatesToExecute.length);
+        }
         CompositeParallelAction<AbstractThreadableDatasourceCacheUpdate> compositeParallelAction =
                 new CompositeParallelAction<AbstractThreadableDatasourceCacheUpdate>(threads, threadGroupName,
                         updatesToExecute) {
@@ -89,6 +92,9 @@ public abstract class AbstractQueueingDatasourceCacheUpdate<T extends AbstractTh
                             LOGGER.error("Error while returning connection after cache update!", e);
                         }
                     }
+                    if (getProgress() != null) {
+                        getProgress().increment();
+                    }
                 }
             };
         // execute multiple threads
@@ -36,4 +36,6 @@ package org.n52.sos.ds.cache;
 public interface CacheFeederSettingDefinitionProvider {
 
     String CACHE_THREAD_COUNT = "service.cacheThreadCount";
+
+    String CACHE_PHASE_THREAD_COUNT = "service.cachePhaseThreadCount";
 }
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.cache;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import org.hibernate.Session;
+import org.n52.janmayen.GroupedAndNamedThreadFactory;
+import org.n52.series.db.HibernateSessionStore;
+import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
+import org.n52.sos.cache.CacheUpdateProgress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the phases of a cache update as a dependency graph. A phase is
+ * started as soon as all phases it depends on are finished, so independent
+ * phases run concurrently on a fixed size executor. Each phase gets its own
+ * session and reports its duration and processed units to an optional
+ * {@link CacheUpdateProgress}.
+ * <p/>
+ * If the maximum number of sessions is set, a phase is only started if the
+ * sessions it uses are available, so the concurrently running phases never
+ * use more sessions than the connection pool provides.
+ *
+ * @since 5.3.2
+ */
+public class CacheUpdateScheduler extends AbstractDatasourceCacheUpdate {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheUpdateScheduler.class);
+
+    private static final String THREAD_GROUP_NAME = "cache-update-scheduler";
+
+    private final int threads;
+
+    private final HibernateSessionStore sessionStore;
+
+    private final Map<String, Node> phases = new LinkedHashMap<>();
+
+    private CacheUpdateProgress progress;
+
+    private int maxSessions = -1;
+
+    public CacheUpdateScheduler(int threads, HibernateSessionStore sessionStore) {
+        this.threads = threads;
+        this.sessionStore = sessionStore;
+    }
+
+    /**
+     * Add a phase to this scheduler. As dependencies have to be added before
+     * the phases depending on them, the phases always form an acyclic graph.
+     *
+     * @param name
+     *            the unique name of the phase
+     * @param update
+     *            the update to execute
+     * @param dependencies
+     *            the names of the phases that have to be finished before this
+     *            phase is started
+     * @return this
+     */
+    public CacheUpdateScheduler addPhase(String name, AbstractDatasourceCacheUpdate update, String... dependencies) {
+        return addPhase(name, 1, update, dependencies);
+    }
+
+    /**
+     * Add a phase to this scheduler that uses more than one session
+     * concurrently.
+     *
+     * @param name
+     *            the unique name of the phase
+     * @param sessions
+     *            the maximum number of sessions the phase uses concurrently
+     * @param update
+     *            the update to execute
+     * @param dependencies
+     *            the names of the phases that have to be finished before this
+     *            phase is started
+     * @return this
+     */
+    public CacheUpdateScheduler addPhase(String name, int sessions, AbstractDatasourceCacheUpdate update,
+            String... dependencies) {
+        if (sessions < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Cache update phase %s has to use at least one session", name));
+        }
+        if (phases.containsKey(name)) {
+            throw new IllegalArgumentException(String.format("Duplicate cache update phase %s", name));
+        }
+        for (String dependency : dependencies) {
+            if (!phases.containsKey(dependency)) {
+                throw new IllegalArgumentException(
+                        String.format("Cache update phase %s depends on unknown phase %s", name, dependency));
+            }
+        }
+        phases.put(name, new Node(name, update, sessions, Arrays.asList(dependencies)));
+        return this;
+    }
+
+    /**
+     * @param progress
+     *            the progress to report to, may be <code>null</code>
+     * @return this
+     */
+    public CacheUpdateScheduler setCacheUpdateProgress(CacheUpdateProgress progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * @param maxSessions
+     *            the number of sessions the connection pool provides,
+     *            <code>0</code> or less if unknown
+     * @return this
+     */
+    public CacheUpdateScheduler setMaxSessions(int maxSessions) {
+        this.maxSessions = maxSessions;
+        return this;
+    }
+
+    @Override
+    public void execute() {
+        if (progress != null) {
+            progress.start(phases.keySet());
+        }
+        int poolSize = maxSessions;
+        Semaphore sessions = poolSize > 0 ? new Semaphore(poolSize) : null;
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize > 0 ? Math.min(threads, poolSize) : threads,
+                new GroupedAndNamedThreadFactory(THREAD_GROUP_NAME));
+        try {
+            Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+            for (Node node : phases.values()) {
+                CompletableFuture<?>[] dependencies = node.dependencies.stream()
+                        .map(futures::get)
+                        .toArray(CompletableFuture<?>[]::new);
+                futures.put(node.name,
+                        CompletableFuture.allOf(dependencies).thenRunAsync(() -> execute(node, sessions), executor));
+            }
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[futures.size()])).join();
+        } finally {
+            executor.shutdown();
+            if (progress != null) {
+                progress.finish();
+            }
+        }
+    }
+
+    private void execute(Node node, Semaphore sessions) {
+        // a phase that needs more sessions than the pool provides gets all of them
+        int permits = sessions != null ? Math.min(node.sessions, maxSessions) : 0;
+        if (sessions != null) {
+            sessions.acquireUninterruptibly(permits);
+        }
+        try {
+            execute(node);
+        } finally {
+            if (sessions != null) {
+                sessions.release(permits);
+            }
+        }
+    }
+
+    private void execute(Node node) {
+        CacheUpdateProgress.Phase phase =
+                progress != null ? progress.getPhase(node.name) : null;
+        if (phase != null) {
+            phase.start();
+        }
+        LOGGER.debug("Starting cache update phase {}", node.name);
+        long start = System.currentTimeMillis();
+        boolean failed = false;
+        Session session = null;
+        try {
+            session = sessionStore.getSession();
+            node.update.setCache(getCache());
+            node.update.setErrors(getErrors());
+            node.update.setSession(session);
+            node.update.setProgress(phase);
+            node.update.execute();
+        } catch (Exception e) {
+            failed = true;
+            LOGGER.error("Error while executing cache update phase {}", node.name, e);
+            getErrors().add(new NoApplicableCodeException().causedBy(e)
+                    .withMessage("Error while executing cache update phase %s", node.name));
+        } finally {
+            try {
+                sessionStore.returnSession(session);
+            } catch (Exception e) {
+                LOGGER.error("Error while returning connection after cache update!", e);
+            }
+            if (phase != null) {
+                phase.finish(failed);
+            }
+        }
+        LOGGER.info("Finished cache update phase {} in {} ms", node.name, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [phases=%s]", getClass().getSimpleName(), phases.keySet());
+    }
+
+    private static final class Node {
+        private final String name;
+        private final AbstractDatasourceCacheUpdate update;
+        private final int sessions;
+        private final List<String> dependencies;
+
+        Node(String name, AbstractDatasourceCacheUpdate update, int sessions, List<String> dependencies) {
+            this.name = name;
+            this.update = update;
+            this.sessions = sessions;
+            this.dependencies = dependencies;
+        }
+    }
+}
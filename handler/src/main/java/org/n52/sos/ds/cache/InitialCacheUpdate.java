@@ -41,12 +41,18 @@ import org.n52.sos.ds.cache.base.OfferingCacheUpdate;
 import org.n52.sos.ds.cache.base.ProcedureCacheUpdate;
 import org.n52.sos.ds.cache.base.RelatedFeaturesCacheUpdate;
 import org.n52.sos.ds.cache.base.ResultTemplateCacheUpdate;
+import org.n52.sos.i18n.I18NMetadataStore;
 import org.n52.sos.util.GeometryHandler;
 
 /**
  *
  * Fills the initial cache.
  * <p/>
+ * The updates are executed as phases of a {@link CacheUpdateScheduler}. The
+ * offering update depends on the I18N update, as it takes the offering
+ * translations from the {@link I18NMetadataStore} loaded there. All other
+ * phases are independent and run concurrently, as far as the connection pool
+ * provides the sessions they use.
  *
  * @see ObservationTimeCacheUpdate
  * @see FeatureOfInterestCacheUpdate
@@ -60,7 +66,23 @@ import org.n52.sos.util.GeometryHandler;
  *
  * @since 4.0.0
  */
-public class InitialCacheUpdate extends CompositeCacheUpdate {
+public class InitialCacheUpdate extends CacheUpdateScheduler {
+
+    public static final String OBSERVABLE_PROPERTIES = "observableProperties";
+
+    public static final String FEATURES_OF_INTEREST = "featuresOfInterest";
+
+    public static final String RELATED_FEATURES = "relatedFeatures";
+
+    public static final String OBSERVATION_TIME = "observationTime";
+
+    public static final String RESULT_TEMPLATES = "resultTemplates";
+
+    public static final String I18N = "i18n";
+
+    public static final String OFFERINGS = "offerings";
+
+    public static final String PROCEDURES = "procedures";
 
     public InitialCacheUpdate(int threadCount,
                               Locale defaultLocale,
@@ -68,22 +90,48 @@ public class InitialCacheUpdate extends CompositeCacheUpdate {
                               HibernateSessionStore sessionStore,
                               OwsServiceMetadataRepository serviceMetadataRepository,
                               GeometryHandler geometryHandler) {
-        //execute all updates except offerings and procedures in parallel, then execute offering and procedure updates
-        //(which spawn their own threads)
-        super(new ParallelCacheUpdate(threadCount,
-                                      sessionStore,
-                                      new ObservablePropertiesCacheUpdate(),
-                                      new FeatureOfInterestCacheUpdate(),
-                                      new RelatedFeaturesCacheUpdate(),
-                                      new ObservationTimeCacheUpdate(),
-                                      new ResultTemplateCacheUpdate()),
-              new I18NCacheUpdate(serviceMetadataRepository,
-                                  i18NDAORepository),
-              new OfferingCacheUpdate(threadCount,
-                                      defaultLocale,
-                                      geometryHandler,
-                                      sessionStore),
-              new ProcedureCacheUpdate(threadCount, sessionStore));
+        this(threadCount, threadCount, defaultLocale, i18NDAORepository, null, sessionStore,
+                serviceMetadataRepository, geometryHandler);
+    }
+
+    /**
+     * @param phaseThreadCount
+     *            the number of phases to execute concurrently
+     * @param threadCount
+     *            the number of threads of the offering and procedure updates
+     * @param defaultLocale
+     *            the default locale
+     * @param i18NDAORepository
+     *            the I18N DAO repository
+     * @param i18NMetadataStore
+     *            the I18N metadata store, may be <code>null</code>
+     * @param sessionStore
+     *            the session store
+     * @param serviceMetadataRepository
+     *            the service metadata repository
+     * @param geometryHandler
+     *            the geometry handler
+     */
+    public InitialCacheUpdate(int phaseThreadCount,
+                              int threadCount,
+                              Locale defaultLocale,
+                              I18NDAORepository i18NDAORepository,
+                              I18NMetadataStore i18NMetadataStore,
+                              HibernateSessionStore sessionStore,
+                              OwsServiceMetadataRepository serviceMetadataRepository,
+                              GeometryHandler geometryHandler) {
+        super(phaseThreadCount, sessionStore);
+        addPhase(OBSERVABLE_PROPERTIES, new ObservablePropertiesCacheUpdate());
+        addPhase(FEATURES_OF_INTEREST, new FeatureOfInterestCacheUpdate());
+        addPhase(RELATED_FEATURES, new RelatedFeaturesCacheUpdate());
+        addPhase(OBSERVATION_TIME, new ObservationTimeCacheUpdate());
+        addPhase(RESULT_TEMPLATES, new ResultTemplateCacheUpdate());
+        addPhase(I18N, new I18NCacheUpdate(serviceMetadataRepository, i18NDAORepository, i18NMetadataStore));
+        // the offering and procedure updates use a session per thread besides the session of the phase
+        addPhase(OFFERINGS, threadCount + 1,
+                new OfferingCacheUpdate(threadCount, defaultLocale, geometryHandler, sessionStore)
+                        .setI18NMetadataStore(i18NMetadataStore), I18N);
+        addPhase(PROCEDURES, threadCount + 1, new ProcedureCacheUpdate(threadCount, sessionStore));
     }
 
 }
@@ -42,6 +42,7 @@ import org.n52.iceland.i18n.metadata.I18NProcedureMetadata;
 import org.n52.iceland.ogc.ows.OwsServiceMetadataRepository;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.sos.ds.cache.AbstractThreadableDatasourceCacheUpdate;
+import org.n52.sos.i18n.I18NMetadataStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,10 +61,30 @@ public class I18NCacheUpdate extends AbstractThreadableDatasourceCacheUpdate {
 
     private final I18NDAORepository i18NDAORepository;
 
+    private final I18NMetadataStore i18NMetadataStore;
+
     public I18NCacheUpdate(OwsServiceMetadataRepository serviceMetadataRepository,
             I18NDAORepository i18NDAORepository) {
+        this(serviceMetadataRepository, i18NDAORepository, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param serviceMetadataRepository
+     *            the service metadata repository
+     * @param i18NDAORepository
+     *            the I18N DAO repository
+     * @param i18NMetadataStore
+     *            the store that is (re-)filled with the translations of all
+     *            entities, one query per type. If <code>null</code> only the
+     *            available locales are queried.
+     */
+    public I18NCacheUpdate(OwsServiceMetadataRepository serviceMetadataRepository,
+            I18NDAORepository i18NDAORepository, I18NMetadataStore i18NMetadataStore) {
         this.serviceMetadataRepository = serviceMetadataRepository;
         this.i18NDAORepository = i18NDAORepository;
+        this.i18NMetadataStore = i18NMetadataStore;
     }
 
     @Override
@@ -85,6 +106,9 @@ public class I18NCacheUpdate extends AbstractThreadableDatasourceCacheUpdate {
     }
 
     private Collection<Locale> getEntityLocales(Class<? extends AbstractI18NMetadata> type) throws OwsExceptionReport {
+        if (this.i18NMetadataStore != null && this.i18NMetadataStore.load(type)) {
+            return this.i18NMetadataStore.getLocales(type);
+        }
         I18NDAO<? extends AbstractI18NMetadata> dao = this.i18NDAORepository.getDAO(type);
         if (dao != null) {
             return dao.getAvailableLocales();
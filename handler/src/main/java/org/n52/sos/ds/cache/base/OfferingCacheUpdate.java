@@ -41,6 +41,7 @@ import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.sos.ds.ApiQueryHelper;
 import org.n52.sos.ds.cache.AbstractQueueingDatasourceCacheUpdate;
 import org.n52.sos.ds.cache.DatasourceCacheUpdateHelper;
+import org.n52.sos.i18n.I18NMetadataStore;
 import org.n52.sos.util.GeometryHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,6 +70,8 @@ public class OfferingCacheUpdate extends AbstractQueueingDatasourceCacheUpdate<O
 
     private GeometryHandler geometryHandler;
 
+    private I18NMetadataStore i18NMetadataStore;
+
     public OfferingCacheUpdate(int threads, Locale defaultLanguage, GeometryHandler geometryHandler,
             HibernateSessionStore sessionStore) {
         this(threads, defaultLanguage, geometryHandler, sessionStore, null);
@@ -84,6 +87,19 @@ public class OfferingCacheUpdate extends AbstractQueueingDatasourceCacheUpdate<O
         this.geometryHandler = geometryHandler;
     }
 
+    /**
+     * Set the store to take the offering translations from instead of loading
+     * them per offering.
+     *
+     * @param i18NMetadataStore
+     *            the I18N metadata store, may be <code>null</code>
+     * @return this
+     */
+    public OfferingCacheUpdate setI18NMetadataStore(I18NMetadataStore i18NMetadataStore) {
+        this.i18NMetadataStore = i18NMetadataStore;
+        return this;
+    }
+
     private Collection<OfferingEntity> getOfferingsToUpdate() {
         try {
             if (offeringDAO == null) {
@@ -119,8 +135,8 @@ public class OfferingCacheUpdate extends AbstractQueueingDatasourceCacheUpdate<O
     protected OfferingCacheUpdateTask[] getUpdatesToExecute() throws OwsExceptionReport {
         Collection<OfferingCacheUpdateTask> offeringUpdateTasks = Lists.newArrayList();
         for (OfferingEntity offering : getOfferingsToUpdate()) {
-            offeringUpdateTasks
-                    .add(new OfferingCacheUpdateTask(offering.getId(), this.defaultLanguage, geometryHandler));
+            offeringUpdateTasks.add(new OfferingCacheUpdateTask(offering.getId(), this.defaultLanguage,
+                    geometryHandler, i18NMetadataStore));
         }
         return offeringUpdateTasks.toArray(new OfferingCacheUpdateTask[offeringUpdateTasks.size()]);
     }
@@ -39,6 +39,7 @@ import java.util.stream.Collectors;
 import org.hibernate.Session;
 import org.locationtech.jts.geom.Envelope;
 import org.n52.iceland.exception.ows.concrete.GenericThrowableWrapperException;
+import org.n52.iceland.i18n.metadata.I18NOfferingMetadata;
 import org.n52.io.request.IoParameters;
 import org.n52.janmayen.i18n.LocalizedString;
 import org.n52.janmayen.i18n.MultilingualString;
@@ -59,6 +60,7 @@ import org.n52.sos.ds.DatabaseQueryHelper;
 import org.n52.sos.ds.cache.AbstractThreadableDatasourceCacheUpdate;
 import org.n52.sos.ds.cache.DatasourceCacheUpdateHelper;
 import org.n52.sos.ds.cache.ProcedureFlag;
+import org.n52.sos.i18n.I18NMetadataStore;
 import org.n52.sos.util.GeometryHandler;
 
 import com.google.common.collect.Maps;
@@ -85,6 +87,8 @@ public class OfferingCacheUpdateTask extends AbstractThreadableDatasourceCacheUp
 
     private GeometryHandler geometryHandler;
 
+    private I18NMetadataStore i18NMetadataStore;
+
     /**
      * Constructor. Note: never pass in Hibernate objects that have been loaded
      * by a session in a different thread
@@ -95,9 +99,29 @@ public class OfferingCacheUpdateTask extends AbstractThreadableDatasourceCacheUp
      *            the default language
      */
     public OfferingCacheUpdateTask(Long offeringId, Locale defaultLanguage, GeometryHandler geometryHandler) {
+        this(offeringId, defaultLanguage, geometryHandler, null);
+    }
+
+    /**
+     * Constructor. Note: never pass in Hibernate objects that have been loaded
+     * by a session in a different thread
+     *
+     * @param offeringId
+     *            Offering entity
+     * @param defaultLanguage
+     *            the default language
+     * @param geometryHandler
+     *            the geometry handler
+     * @param i18NMetadataStore
+     *            the store to take the translations from, may be
+     *            <code>null</code>
+     */
+    public OfferingCacheUpdateTask(Long offeringId, Locale defaultLanguage, GeometryHandler geometryHandler,
+            I18NMetadataStore i18NMetadataStore) {
         this.offeringId = offeringId;
         this.defaultLanguage = defaultLanguage;
         this.geometryHandler = geometryHandler;
+        this.i18NMetadataStore = i18NMetadataStore;
         this.datasets.clear();
     }
 
@@ -206,7 +230,16 @@ public class OfferingCacheUpdateTask extends AbstractThreadableDatasourceCacheUp
             description.addLocalization(locale, offering.getDescription());
         }
 
-        if (offering.hasTranslations()) {
+        if (i18NMetadataStore != null && i18NMetadataStore.isAvailable(I18NOfferingMetadata.class)) {
+            // avoid loading the translations per offering
+            Optional<I18NOfferingMetadata> i18n =
+                    i18NMetadataStore.get(I18NOfferingMetadata.class, offering.getIdentifier());
+            if (i18n.isPresent()) {
+                i18n.get().getName().stream().forEach(n -> name.addLocalization(n.getLang(), n.getText()));
+                i18n.get().getDescription().stream()
+                        .forEach(d -> description.addLocalization(d.getLang(), d.getText()));
+            }
+        } else if (offering.hasTranslations()) {
             for (I18nEntity<? extends Describable> t : offering.getTranslations()) {
                 if (t.hasName()) {
                     name.addLocalization(t.getLocale(), t.getName());
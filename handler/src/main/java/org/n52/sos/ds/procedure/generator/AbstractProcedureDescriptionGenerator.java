@@ -41,6 +41,7 @@ import org.n52.faroe.annotation.Setting;
 import org.n52.iceland.cache.ContentCacheController;
 import org.n52.iceland.i18n.I18NDAORepository;
 import org.n52.iceland.i18n.I18NSettings;
+import org.n52.iceland.i18n.metadata.I18NProcedureMetadata;
 import org.n52.io.request.IoParameters;
 import org.n52.janmayen.i18n.LocaleHelper;
 import org.n52.series.db.DataAccessException;
@@ -56,6 +57,7 @@ import org.n52.shetland.ogc.sos.SosProcedureDescription;
 import org.n52.shetland.util.CollectionHelper;
 import org.n52.sos.cache.SosContentCache;
 import org.n52.sos.ds.I18nNameDescriptionAdder;
+import org.n52.sos.i18n.I18NMetadataStore;
 import org.n52.sos.service.ProcedureDescriptionSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -85,6 +87,8 @@ public abstract class AbstractProcedureDescriptionGenerator
 
     private I18NDAORepository i18NDAORepository;
 
+    private I18NMetadataStore i18NMetadataStore;
+
     private ContentCacheController cacheController;
 
     private Locale defaultLanguage;
@@ -138,6 +142,14 @@ public abstract class AbstractProcedureDescriptionGenerator
         return i18NDAORepository != null;
     }
 
+    public void setI18NMetadataStore(I18NMetadataStore i18NMetadataStore) {
+        this.i18NMetadataStore = i18NMetadataStore;
+    }
+
+    protected I18NMetadataStore getI18NMetadataStore() {
+        return i18NMetadataStore;
+    }
+
     protected boolean hasChildProcedure(String procedure) {
         return CollectionHelper.isNotEmpty(getCache().getChildProcedures(procedure, false, false));
     }
@@ -158,7 +170,8 @@ public abstract class AbstractProcedureDescriptionGenerator
     protected void setCommonData(ProcedureEntity procedure, AbstractFeature feature, Session session)
             throws OwsExceptionReport {
         String identifier = procedure.getIdentifier();
-        addNameAndDescription(procedure, feature, getLocale(), defaultLanguage, showAllLanguageValues);
+        addNameAndDescription(i18NMetadataStore, I18NProcedureMetadata.class, procedure, feature, getLocale(),
+                defaultLanguage, showAllLanguageValues);
         feature.setIdentifier(identifier);
     }
 
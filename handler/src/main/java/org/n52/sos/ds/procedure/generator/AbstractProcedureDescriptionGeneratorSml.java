@@ -30,7 +30,8 @@ package org.n52.sos.ds.procedure.generator;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.Set;
 
 import org.hibernate.HibernateException;
@@ -40,17 +41,12 @@ import org.locationtech.jts.geom.Geometry;
 import org.n52.faroe.annotation.Configurable;
 import org.n52.iceland.cache.ContentCacheController;
 import org.n52.iceland.i18n.I18NDAORepository;
-import org.n52.io.request.IoParameters;
 import org.n52.janmayen.http.HTTPStatus;
-import org.n52.series.db.DataAccessException;
+import org.n52.series.db.beans.AbstractFeatureEntity;
 import org.n52.series.db.beans.DatasetEntity;
-import org.n52.series.db.beans.FeatureEntity;
 import org.n52.series.db.beans.PhenomenonEntity;
 import org.n52.series.db.beans.ProcedureEntity;
 import org.n52.series.db.beans.dataset.ValueType;
-import org.n52.series.db.dao.DatasetDao;
-import org.n52.series.db.dao.DbQuery;
-import org.n52.series.db.dao.FeatureDao;
 import org.n52.shetland.ogc.OGCConstants;
 import org.n52.shetland.ogc.ows.exception.CodedException;
 import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
@@ -59,6 +55,7 @@ import org.n52.shetland.ogc.sensorML.AbstractProcess;
 import org.n52.shetland.ogc.sensorML.elements.SmlIdentifier;
 import org.n52.shetland.ogc.sensorML.elements.SmlIo;
 import org.n52.shetland.ogc.sensorML.elements.SmlPosition;
+import org.n52.shetland.ogc.sos.SosProcedureDescription;
 import org.n52.shetland.ogc.swe.SweAbstractDataComponent;
 import org.n52.shetland.ogc.swe.SweConstants;
 import org.n52.shetland.ogc.swe.SweConstants.SweCoordinateNames;
@@ -76,7 +73,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 
 /**
  * Abstract generator class for SensorML procedure descriptions
@@ -111,6 +107,61 @@ public abstract class AbstractProcedureDescriptionGeneratorSml extends AbstractP
         this.isAddOutputsToSensorML = isAddOutputsToSensorML;
     }
 
+    @Override
+    public SosProcedureDescription<?> generateProcedureDescription(ProcedureEntity procedure, Locale i18n,
+            Session session) throws OwsExceptionReport {
+        return generateProcedureDescription(procedure, i18n, loadDatasets(procedure, session), session);
+    }
+
+    /**
+     * Generate procedure description from Hibernate procedure entity and its
+     * datasets
+     *
+     * @param procedure
+     *            Hibernate procedure entity
+     * @param i18n
+     *            the locale
+     * @param datasets
+     *            the datasets of the procedure
+     * @param session
+     *            the session
+     *
+     * @return Generated procedure description
+     *
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    protected abstract SosProcedureDescription<?> generateProcedureDescription(ProcedureEntity procedure,
+            Locale i18n, ProcedureDatasetProjection datasets, Session session) throws OwsExceptionReport;
+
+    /**
+     * Load the datasets of the procedure
+     *
+     * @param procedure
+     *            Hibernate procedure entity
+     * @param session
+     *            the session
+     *
+     * @return the datasets of the procedure
+     *
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    protected ProcedureDatasetProjection loadDatasets(ProcedureEntity procedure, Session session)
+            throws OwsExceptionReport {
+        try {
+            return ProcedureDatasetProjection.load(procedure, session);
+        } catch (HibernateException he) {
+            throw createDatasetQueryException(he);
+        }
+    }
+
+    private OwsExceptionReport createDatasetQueryException(HibernateException he) {
+        return new NoApplicableCodeException().causedBy(he)
+                .withMessage("Error while querying data for DescribeSensor document!")
+                .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR);
+    }
+
     /**
      * Set common values to procedure description
      *
@@ -118,18 +169,20 @@ public abstract class AbstractProcedureDescriptionGeneratorSml extends AbstractP
      *            Hibernate procedure entity
      * @param abstractProcess
      *            SensorML process
+     * @param datasets
+     *            the datasets of the procedure
      * @param session
      *            the session
      *
      * @throws OwsExceptionReport
      *             If an error occurs
      */
-    protected void setCommonValues(ProcedureEntity procedure, AbstractProcess abstractProcess, Session session)
-            throws OwsExceptionReport {
+    protected void setCommonValues(ProcedureEntity procedure, AbstractProcess abstractProcess,
+            ProcedureDatasetProjection datasets, Session session) throws OwsExceptionReport {
         setCommonData(procedure, abstractProcess, session);
 
         String identifier = procedure.getIdentifier();
-        List<PhenomenonEntity> observableProperties = getObservablePropertiesForProcedure(procedure, session);
+        List<PhenomenonEntity> observableProperties = datasets.getObservableProperties();
         // 3 set identification
         abstractProcess.setIdentifications(createIdentifications(identifier));
 
@@ -137,7 +190,7 @@ public abstract class AbstractProcedureDescriptionGeneratorSml extends AbstractP
         if (isAddOutputsToSensorML
                 && !"hydrology".equalsIgnoreCase(profileHandler.getActiveProfile().getIdentifier())) {
             abstractProcess.setInputs(createInputs(getIdentifierList(observableProperties)));
-            abstractProcess.setOutputs(createOutputs(procedure, observableProperties, session));
+            abstractProcess.setOutputs(createOutputs(observableProperties, datasets));
         }
     }
 
@@ -155,33 +208,26 @@ public abstract class AbstractProcedureDescriptionGeneratorSml extends AbstractP
     /**
      * Create SensorML output list from observableProperties
      *
-     * @param procedure
-     *            Hibernate procedure entity
      * @param observableProperties
      *            Properties observed by the procedure
+     * @param datasets
+     *            the datasets of the procedure
      *
      * @return Output list
-     *
-     * @throws OwsExceptionReport
-     *             If an error occurs
      */
-    private List<SmlIo> createOutputs(ProcedureEntity procedure, List<PhenomenonEntity> observableProperties,
-            Session session) throws OwsExceptionReport {
-        try {
-            final List<SmlIo> outputs = Lists.newArrayListWithExpectedSize(observableProperties.size());
-            int i = 1;
-            for (PhenomenonEntity observableProperty : observableProperties) {
-                final SmlIo output = createOutputFromDatasets(procedure, observableProperty, session);
-                if (output != null) {
-                    output.setIoName("output#" + i++);
-                    outputs.add(output);
-                }
+    private List<SmlIo> createOutputs(List<PhenomenonEntity> observableProperties,
+            ProcedureDatasetProjection datasets) {
+        final List<SmlIo> outputs = Lists.newArrayListWithExpectedSize(observableProperties.size());
+        int i = 1;
+        for (PhenomenonEntity observableProperty : observableProperties) {
+            final SmlIo output = datasets.getDataset(observableProperty)
+                    .map(dataset -> createOutputFromDataset(dataset, observableProperty)).orElse(null);
+            if (output != null) {
+                output.setIoName("output#" + i++);
+                outputs.add(output);
             }
-            return outputs;
-        } catch (final HibernateException | DataAccessException he) {
-            throw new NoApplicableCodeException().causedBy(he).withMessage("Error while querying observation data!")
-                    .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR);
         }
+        return outputs;
     }
 
     /**
@@ -195,14 +241,7 @@ public abstract class AbstractProcedureDescriptionGeneratorSml extends AbstractP
     }
 
     @SuppressWarnings("rawtypes")
-    private SmlIo createOutputFromDatasets(ProcedureEntity procedure, PhenomenonEntity observableProperty,
-            Session session) throws DataAccessException {
-        DatasetDao<DatasetEntity> datasetDao = new DatasetDao<>(session);
-        List<DatasetEntity> allInstances = datasetDao.getAllInstances(createDbQuery(procedure, observableProperty));
-        if (allInstances == null) {
-            return null;
-        }
-        DatasetEntity dataset = allInstances.iterator().next();
+    private SmlIo createOutputFromDataset(DatasetEntity dataset, PhenomenonEntity observableProperty) {
         SweAbstractSimpleType simpleType = null;
         switch (dataset.getValueType()) {
             case quantity:
@@ -245,38 +284,8 @@ public abstract class AbstractProcedureDescriptionGeneratorSml extends AbstractP
         return null;
     }
 
-    private DbQuery createDbQuery(ProcedureEntity procedure, PhenomenonEntity observableProperty) {
-        Map<String, String> map = Maps.newHashMap();
-        map.put(IoParameters.PROCEDURES, Long.toString(procedure.getId()));
-        map.put(IoParameters.PHENOMENA, Long.toString(observableProperty.getId()));
-        return new DbQuery(IoParameters.createFromSingleValueMap(map));
-    }
-
-    private DbQuery createDbQuery(ProcedureEntity procedure) {
-        Map<String, String> map = Maps.newHashMap();
-        map.put(IoParameters.PROCEDURES, Long.toString(procedure.getId()));
-        return new DbQuery(IoParameters.createFromSingleValueMap(map));
-    }
-
-    private DbQuery createDbQueryWithLimit(ProcedureEntity procedure) {
-        Map<String, String> map = Maps.newHashMap();
-        map.put(IoParameters.PROCEDURES, Long.toString(procedure.getId()));
-        map.put(IoParameters.LIMIT, Long.toString(1));
-        return new DbQuery(IoParameters.createFromSingleValueMap(map));
-    }
-
-    protected boolean isStation(ProcedureEntity procedure, Session session) throws DataAccessException {
-        List<DatasetEntity> datasets = new DatasetDao<>(session).getAllInstances(createDbQueryWithLimit(procedure));
-        if (datasets != null && !datasets.isEmpty()) {
-            DatasetEntity dataset = datasets.iterator().next();
-            if (dataset.isInsitu() && !dataset.isMobile()) {
-                List<FeatureEntity> features = new FeatureDao(session).getAllInstances(createDbQuery(procedure));
-                if (features != null && features.size() == 1) {
-                    return features.iterator().next().isSetGeometry();
-                }
-            }
-        }
-        return false;
+    protected boolean isStation(ProcedureDatasetProjection datasets) {
+        return datasets.isStation();
     }
 
     /**
@@ -284,19 +293,23 @@ public abstract class AbstractProcedureDescriptionGeneratorSml extends AbstractP
      *
      * @param procedure
      *            Hibernate procedure entity
+     * @param datasets
+     *            the datasets of the procedure
      *
      * @return SensorML Position
      * @throws CodedException If an error occurs
      */
-    protected SmlPosition createPosition(ProcedureEntity procedure, Session session) throws CodedException {
+    @SuppressWarnings("rawtypes")
+    protected SmlPosition createPosition(ProcedureEntity procedure, ProcedureDatasetProjection datasets)
+            throws CodedException {
         try {
-            List<FeatureEntity> features = new FeatureDao(session).getAllInstances(createDbQuery(procedure));
             SmlPosition position = new SmlPosition();
             position.setName(POSITION_NAME);
             position.setFixed(true);
             int srid = geometryHandler.getDefaultResponseEPSG();
-            if (features != null && features.size() == 1) {
-                FeatureEntity feature = features.iterator().next();
+            Optional<AbstractFeatureEntity> single = datasets.getSingleFeature();
+            if (single.isPresent()) {
+                AbstractFeatureEntity feature = single.get();
                 if (feature.isSetGeometry() && !feature.getGeometryEntity().isEmpty()) {
                     Geometry geometry = feature.getGeometryEntity().getGeometry();
                     // 8.2 set position from geometry
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.procedure.generator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.hibernate.Criteria;
+import org.hibernate.FetchMode;
+import org.hibernate.Session;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+import org.n52.series.db.beans.AbstractFeatureEntity;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.series.db.beans.PhenomenonEntity;
+import org.n52.series.db.beans.ProcedureEntity;
+
+/**
+ * The datasets of a procedure with their phenomenon, unit, value type and
+ * feature (incl. geometry), loaded with a single query. The procedure
+ * description generators derive the outputs, the position and the station
+ * classification from it instead of querying each of them separately.
+ *
+ * @since 5.3.2
+ */
+public class ProcedureDatasetProjection {
+
+    private static final String PROPERTY_UNIT = "unit";
+
+    private final List<DatasetEntity> datasets;
+
+    private final Map<Long, DatasetEntity> datasetsByPhenomenon = new LinkedHashMap<>();
+
+    @SuppressWarnings("rawtypes")
+    private final Map<Long, AbstractFeatureEntity> features = new LinkedHashMap<>();
+
+    public ProcedureDatasetProjection(List<DatasetEntity> datasets) {
+        this.datasets = datasets == null ? Collections.emptyList() : Collections.unmodifiableList(datasets);
+        for (DatasetEntity dataset : this.datasets) {
+            if (dataset.getPhenomenon() != null) {
+                datasetsByPhenomenon.putIfAbsent(dataset.getPhenomenon().getId(), dataset);
+            }
+            if (dataset.isSetFeature()) {
+                features.putIfAbsent(dataset.getFeature().getId(), dataset.getFeature());
+            }
+        }
+    }
+
+    /**
+     * Load the datasets of the procedure.
+     *
+     * @param procedure
+     *            the procedure
+     * @param session
+     *            the session
+     * @return the datasets of the procedure
+     */
+    @SuppressWarnings("unchecked")
+    public static ProcedureDatasetProjection load(ProcedureEntity procedure, Session session) {
+        Criteria c = session.createCriteria(DatasetEntity.class)
+                .add(Restrictions.eq(DatasetEntity.PROPERTY_DELETED, false))
+                .add(Restrictions.eq(DatasetEntity.PROPERTY_PUBLISHED, true))
+                .add(Restrictions.eq(DatasetEntity.PROPERTY_PROCEDURE + "." + ProcedureEntity.PROPERTY_ID,
+                        procedure.getId()))
+                .setFetchMode(DatasetEntity.PROPERTY_PHENOMENON, FetchMode.JOIN)
+                .setFetchMode(DatasetEntity.PROPERTY_FEATURE, FetchMode.JOIN)
+                .setFetchMode(PROPERTY_UNIT, FetchMode.JOIN)
+                .addOrder(Order.asc(DatasetEntity.PROPERTY_ID));
+        return new ProcedureDatasetProjection(c.list());
+    }
+
+    public List<DatasetEntity> getDatasets() {
+        return datasets;
+    }
+
+    /**
+     * @return the distinct observable properties in dataset order
+     */
+    public List<PhenomenonEntity> getObservableProperties() {
+        return datasetsByPhenomenon.values().stream().map(DatasetEntity::getPhenomenon)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the first dataset of the observable property.
+     *
+     * @param observableProperty
+     *            the observable property
+     * @return the dataset
+     */
+    public Optional<DatasetEntity> getDataset(PhenomenonEntity observableProperty) {
+        return Optional.ofNullable(datasetsByPhenomenon.get(observableProperty.getId()));
+    }
+
+    /**
+     * @return the distinct features in dataset order
+     */
+    @SuppressWarnings("rawtypes")
+    public List<AbstractFeatureEntity> getFeatures() {
+        return new ArrayList<>(features.values());
+    }
+
+    /**
+     * @return the only feature of the procedure, if there is exactly one
+     */
+    @SuppressWarnings("rawtypes")
+    public Optional<AbstractFeatureEntity> getSingleFeature() {
+        return features.size() == 1 ? Optional.of(features.values().iterator().next()) : Optional.empty();
+    }
+
+    /**
+     * A procedure is a station, if its first dataset is insitu and not
+     * mobile and it has a single feature with geometry.
+     *
+     * @return <code>true</code>, if the procedure is a station
+     */
+    public boolean isStation() {
+        if (!datasets.isEmpty()) {
+            DatasetEntity dataset = datasets.get(0);
+            if (dataset.isInsitu() && !dataset.isMobile()) {
+                return getSingleFeature().map(feature -> feature.isSetGeometry()).orElse(false);
+            }
+        }
+        return false;
+    }
+
+}
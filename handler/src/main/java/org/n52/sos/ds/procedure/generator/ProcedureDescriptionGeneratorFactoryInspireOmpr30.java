@@ -36,6 +36,7 @@ import javax.inject.Inject;
 import org.n52.faroe.SettingsService;
 import org.n52.iceland.cache.ContentCacheController;
 import org.n52.iceland.i18n.I18NDAORepository;
+import org.n52.sos.i18n.I18NMetadataStore;
 import org.n52.sos.service.profile.ProfileHandler;
 import org.n52.sos.util.GeometryHandler;
 
@@ -46,6 +47,7 @@ public class ProcedureDescriptionGeneratorFactoryInspireOmpr30 implements Proced
     private final I18NDAORepository i18NDAORepository;
     private final ContentCacheController cacheController;
     private final ProfileHandler profileHandler;
+    private I18NMetadataStore i18NMetadataStore;
 
     @Inject
     public ProcedureDescriptionGeneratorFactoryInspireOmpr30(SettingsService settingsService,
@@ -60,6 +62,11 @@ public class ProcedureDescriptionGeneratorFactoryInspireOmpr30 implements Proced
         this.profileHandler = profileHandler;
     }
 
+    @Inject
+    public void setI18NMetadataStore(I18NMetadataStore i18NMetadataStore) {
+        this.i18NMetadataStore = i18NMetadataStore;
+    }
+
     @Override
     public Set<ProcedureDescriptionGeneratorKey> getKeys() {
         return Collections.unmodifiableSet(ProcedureDescriptionGeneratorInspireOmpr30.GENERATOR_KEY_TYPES);
@@ -67,11 +74,12 @@ public class ProcedureDescriptionGeneratorFactoryInspireOmpr30 implements Proced
 
     @Override
     public ProcedureDescriptionGenerator create(ProcedureDescriptionGeneratorKey key) {
-        ProcedureDescriptionGenerator generator
+        AbstractProcedureDescriptionGenerator generator
                 = new ProcedureDescriptionGeneratorInspireOmpr30(getProfileHandler(),
                                                                    getGeometryHandler(),
                                                                    getI18NDAORepository(),
                                                                    getCacheController());
+        generator.setI18NMetadataStore(i18NMetadataStore);
         getSettingsService().configureOnce(key);
         return generator;
     }
@@ -39,6 +39,7 @@ import org.n52.iceland.binding.BindingRepository;
 import org.n52.iceland.cache.ContentCacheController;
 import org.n52.iceland.i18n.I18NDAORepository;
 import org.n52.janmayen.http.MediaTypes;
+import org.n52.sos.i18n.I18NMetadataStore;
 import org.n52.sos.service.profile.ProfileHandler;
 import org.n52.sos.util.GeometryHandler;
 import org.n52.svalbard.CodingSettings;
@@ -60,6 +61,7 @@ public class ProcedureDescriptionGeneratorFactorySml101 implements ProcedureDesc
     private final I18NDAORepository i18NDAORepository;
     private final ContentCacheController cacheController;
     private final ProfileHandler profileHandler;
+    private I18NMetadataStore i18NMetadataStore;
     private String srsNamePrefixUrn = "";
     private BindingRepository bindingRepository;
 
@@ -85,6 +87,11 @@ public class ProcedureDescriptionGeneratorFactorySml101 implements ProcedureDesc
         }
     }
 
+    @Inject
+    public void setI18NMetadataStore(I18NMetadataStore i18NMetadataStore) {
+        this.i18NMetadataStore = i18NMetadataStore;
+    }
+
     @Override
     public Set<ProcedureDescriptionGeneratorKey> getKeys() {
         return Collections.unmodifiableSet(ProcedureDescriptionGeneratorSml101.GENERATOR_KEY_TYPES);
@@ -92,13 +99,14 @@ public class ProcedureDescriptionGeneratorFactorySml101 implements ProcedureDesc
 
     @Override
     public ProcedureDescriptionGenerator create(ProcedureDescriptionGeneratorKey key) {
-        ProcedureDescriptionGenerator generator
+        AbstractProcedureDescriptionGenerator generator
                 = new ProcedureDescriptionGeneratorSml101(getProfileHandler(),
                                                            getGeometryHandler(),
                                                            getI18NDAORepository(),
                                                            getCacheController(),
                                                            getSrsNamePrefixUrn(),
                                                            bindingRepository.isActive(MediaTypes.APPLICATION_KVP));
+        generator.setI18NMetadataStore(i18NMetadataStore);
         getSettingsService().configureOnce(key);
         return generator;
     }
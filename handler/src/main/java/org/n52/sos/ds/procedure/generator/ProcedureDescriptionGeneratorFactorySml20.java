@@ -39,6 +39,7 @@ import org.n52.iceland.binding.BindingRepository;
 import org.n52.iceland.cache.ContentCacheController;
 import org.n52.iceland.i18n.I18NDAORepository;
 import org.n52.janmayen.http.MediaTypes;
+import org.n52.sos.i18n.I18NMetadataStore;
 import org.n52.sos.service.profile.ProfileHandler;
 import org.n52.sos.util.GeometryHandler;
 import org.n52.svalbard.CodingSettings;
@@ -61,6 +62,7 @@ public class ProcedureDescriptionGeneratorFactorySml20 implements ProcedureDescr
     private final I18NDAORepository i18NDAORepository;
     private final ContentCacheController cacheController;
     private final ProfileHandler profileHandler;
+    private I18NMetadataStore i18NMetadataStore;
     private String srsNamePrefixUrl = "";
     private BindingRepository bindingRepository;
 
@@ -86,6 +88,11 @@ public class ProcedureDescriptionGeneratorFactorySml20 implements ProcedureDescr
         }
     }
 
+    @Inject
+    public void setI18NMetadataStore(I18NMetadataStore i18NMetadataStore) {
+        this.i18NMetadataStore = i18NMetadataStore;
+    }
+
     @Override
     public Set<ProcedureDescriptionGeneratorKey> getKeys() {
         return Collections.unmodifiableSet(ProcedureDescriptionGeneratorSml20.GENERATOR_KEY_TYPES);
@@ -93,13 +100,14 @@ public class ProcedureDescriptionGeneratorFactorySml20 implements ProcedureDescr
 
     @Override
     public ProcedureDescriptionGenerator create(ProcedureDescriptionGeneratorKey key) {
-        ProcedureDescriptionGenerator generator
+        AbstractProcedureDescriptionGenerator generator
                 = new ProcedureDescriptionGeneratorSml20(getProfileHandler(),
                                                            getGeometryHandler(),
                                                            getI18NDAORepository(),
                                                            getCacheController(),
                                                            getSrsNamePrefixUrl(),
                                                            bindingRepository.isActive(MediaTypes.APPLICATION_KVP));
+        generator.setI18NMetadataStore(i18NMetadataStore);
         getSettingsService().configureOnce(key);
         return generator;
     }
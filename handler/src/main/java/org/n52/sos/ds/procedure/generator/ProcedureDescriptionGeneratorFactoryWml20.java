@@ -36,6 +36,7 @@ import javax.inject.Inject;
 import org.n52.faroe.SettingsService;
 import org.n52.iceland.cache.ContentCacheController;
 import org.n52.iceland.i18n.I18NDAORepository;
+import org.n52.sos.i18n.I18NMetadataStore;
 import org.n52.sos.service.profile.ProfileHandler;
 import org.n52.sos.util.GeometryHandler;
 
@@ -53,6 +54,7 @@ public class ProcedureDescriptionGeneratorFactoryWml20 implements ProcedureDescr
     private final I18NDAORepository i18NDAORepository;
     private final ContentCacheController cacheController;
     private final ProfileHandler profileHandler;
+    private I18NMetadataStore i18NMetadataStore;
 
     @Inject
     public ProcedureDescriptionGeneratorFactoryWml20(SettingsService settingsService,
@@ -67,6 +69,11 @@ public class ProcedureDescriptionGeneratorFactoryWml20 implements ProcedureDescr
         this.profileHandler = profileHandler;
     }
 
+    @Inject
+    public void setI18NMetadataStore(I18NMetadataStore i18NMetadataStore) {
+        this.i18NMetadataStore = i18NMetadataStore;
+    }
+
     @Override
     public Set<ProcedureDescriptionGeneratorKey> getKeys() {
         return Collections.unmodifiableSet(ProcedureDescriptionGeneratorWml20.GENERATOR_KEY_TYPES);
@@ -74,11 +81,12 @@ public class ProcedureDescriptionGeneratorFactoryWml20 implements ProcedureDescr
 
     @Override
     public ProcedureDescriptionGenerator create(ProcedureDescriptionGeneratorKey key) {
-        ProcedureDescriptionGenerator generator
+        AbstractProcedureDescriptionGenerator generator
                 = new ProcedureDescriptionGeneratorWml20(getProfileHandler(),
                                                                    getGeometryHandler(),
                                                                    getI18NDAORepository(),
                                                                    getCacheController());
+        generator.setI18NMetadataStore(i18NMetadataStore);
         getSettingsService().configureOnce(key);
         return generator;
     }
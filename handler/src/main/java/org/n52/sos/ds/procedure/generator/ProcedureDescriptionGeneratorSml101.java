@@ -36,10 +36,8 @@ import java.util.Set;
 import org.hibernate.Session;
 import org.n52.iceland.cache.ContentCacheController;
 import org.n52.iceland.i18n.I18NDAORepository;
-import org.n52.series.db.DataAccessException;
 import org.n52.series.db.beans.PhenomenonEntity;
 import org.n52.series.db.beans.ProcedureEntity;
-import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.sensorML.ProcessMethod;
 import org.n52.shetland.ogc.sensorML.ProcessModel;
@@ -77,6 +75,8 @@ class ProcedureDescriptionGeneratorSml101 extends AbstractProcedureDescriptionGe
      *
      * @param procedure
      *            Hibernate procedure entity
+     * @param datasets
+     *            the datasets of the procedure
      * @param session
      *            the session
      *
@@ -86,22 +86,17 @@ class ProcedureDescriptionGeneratorSml101 extends AbstractProcedureDescriptionGe
      *             If an error occurs
      */
     @Override
-    public SosProcedureDescription<?> generateProcedureDescription(ProcedureEntity procedure, Locale i18n,
-            Session session) throws OwsExceptionReport {
+    protected SosProcedureDescription<?> generateProcedureDescription(ProcedureEntity procedure, Locale i18n,
+            ProcedureDatasetProjection datasets, Session session) throws OwsExceptionReport {
         setLocale(i18n);
-        try {
-            // 2 try to get position from entity
-            if (isStation(procedure, session)) {
-                // 2.1 if position is available -> system -> own class <- should
-                // be compliant with SWE lightweight profile
-                return new SosProcedureDescription<>(createSmlSystem(procedure, session));
-            } else {
-                // 2.2 if no position is available -> processModel -> own class
-                return new SosProcedureDescription<>(createSmlProcessModel(procedure, session));
-            }
-        } catch (DataAccessException e) {
-            throw new NoApplicableCodeException().causedBy(e)
-                    .withMessage("Error while querying data for DescribeSensor document!");
+        // 2 try to get position from entity
+        if (isStation(datasets)) {
+            // 2.1 if position is available -> system -> own class <- should
+            // be compliant with SWE lightweight profile
+            return new SosProcedureDescription<>(createSmlSystem(procedure, datasets, session));
+        } else {
+            // 2.2 if no position is available -> processModel -> own class
+            return new SosProcedureDescription<>(createSmlProcessModel(procedure, datasets, session));
         }
     }
 
@@ -110,16 +105,19 @@ class ProcedureDescriptionGeneratorSml101 extends AbstractProcedureDescriptionGe
      *
      * @param procedure
      *            Hibernate procedure entity
+     * @param datasets
+     *            the datasets of the procedure
      *
      * @return SensorML ProcessModel
      *
      * @throws OwsExceptionReport
      *             If an error occurs
      */
-    private ProcessModel createSmlProcessModel(ProcedureEntity procedure, Session session) throws OwsExceptionReport {
+    private ProcessModel createSmlProcessModel(ProcedureEntity procedure, ProcedureDatasetProjection datasets,
+            Session session) throws OwsExceptionReport {
         final ProcessModel processModel = new ProcessModel();
-        setCommonValues(procedure, processModel, session);
-        processModel.setMethod(createMethod(procedure, getObservablePropertiesForProcedure(procedure, session)));
+        setCommonValues(procedure, processModel, datasets, session);
+        processModel.setMethod(createMethod(procedure, datasets.getObservableProperties()));
         // processModel.setNames(createNames(procedure));
         return processModel;
     }
@@ -129,16 +127,19 @@ class ProcedureDescriptionGeneratorSml101 extends AbstractProcedureDescriptionGe
      *
      * @param procedure
      *            Hibernate procedure entity
+     * @param datasets
+     *            the datasets of the procedure
      *
      * @return SensorML System
      *
      * @throws OwsExceptionReport
      *             If an error occurs
      */
-    private System createSmlSystem(ProcedureEntity procedure, Session session) throws OwsExceptionReport {
+    private System createSmlSystem(ProcedureEntity procedure, ProcedureDatasetProjection datasets, Session session)
+            throws OwsExceptionReport {
         System smlSystem = new System();
-        setCommonValues(procedure, smlSystem, session);
-        smlSystem.setPosition(createPosition(procedure, session));
+        setCommonValues(procedure, smlSystem, datasets, session);
+        smlSystem.setPosition(createPosition(procedure, datasets));
         return smlSystem;
     }
 
@@ -35,11 +35,9 @@ import java.util.Set;
 import org.hibernate.Session;
 import org.n52.iceland.cache.ContentCacheController;
 import org.n52.iceland.i18n.I18NDAORepository;
-import org.n52.series.db.DataAccessException;
 import org.n52.series.db.beans.ProcedureEntity;
 import org.n52.shetland.ogc.OGCConstants;
 import org.n52.shetland.ogc.gml.CodeWithAuthority;
-import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.sensorML.SensorML20Constants;
 import org.n52.shetland.ogc.sensorML.v20.AggregateProcess;
@@ -73,61 +71,58 @@ class ProcedureDescriptionGeneratorSml20 extends AbstractProcedureDescriptionGen
     }
 
     @Override
-    public SosProcedureDescription<?> generateProcedureDescription(ProcedureEntity procedure, Locale i18n,
-            Session session) throws OwsExceptionReport {
+    protected SosProcedureDescription<?> generateProcedureDescription(ProcedureEntity procedure, Locale i18n,
+            ProcedureDatasetProjection datasets, Session session) throws OwsExceptionReport {
         setLocale(i18n);
-        try {
-            // 2 try to get position from entity
-            if (isStation(procedure, session)) {
-                // 2.1 if position is available -> system -> own class <- should
-                // be compliant with SWE lightweight profile
-                if (procedure.hasChildren()) {
-                    return new SosProcedureDescription<>(createPhysicalSystem(procedure, session));
-                } else {
-                    return new SosProcedureDescription<>(createPhysicalComponent(procedure, session));
-                }
+        // 2 try to get position from entity
+        if (isStation(datasets)) {
+            // 2.1 if position is available -> system -> own class <- should
+            // be compliant with SWE lightweight profile
+            if (procedure.hasChildren()) {
+                return new SosProcedureDescription<>(createPhysicalSystem(procedure, datasets, session));
+            } else {
+                return new SosProcedureDescription<>(createPhysicalComponent(procedure, datasets, session));
+            }
+        } else {
+            // 2.2 if no position is available -> SimpleProcess -> own class
+            if (procedure.hasChildren()) {
+                return new SosProcedureDescription<>(createAggregateProcess(procedure, datasets, session));
             } else {
-                // 2.2 if no position is available -> SimpleProcess -> own class
-                if (procedure.hasChildren()) {
-                    return new SosProcedureDescription<>(createAggregateProcess(procedure, session));
-                } else {
-                    return new SosProcedureDescription<>(createSimpleProcess(procedure, session));
-                }
+                return new SosProcedureDescription<>(createSimpleProcess(procedure, datasets, session));
             }
-        } catch (DataAccessException e) {
-            throw new NoApplicableCodeException().causedBy(e)
-                    .withMessage("Error while querying data for DescribeSensor document!");
         }
     }
 
-    private PhysicalComponent createPhysicalComponent(ProcedureEntity procedure, Session session)
-            throws OwsExceptionReport {
+    private PhysicalComponent createPhysicalComponent(ProcedureEntity procedure, ProcedureDatasetProjection datasets,
+            Session session) throws OwsExceptionReport {
         PhysicalComponent physicalComponent = new PhysicalComponent();
         setIdentifier(physicalComponent, procedure);
-        setCommonValues(procedure, physicalComponent, session);
+        setCommonValues(procedure, physicalComponent, datasets, session);
         return physicalComponent;
     }
 
-    private PhysicalSystem createPhysicalSystem(ProcedureEntity procedure, Session session) throws OwsExceptionReport {
+    private PhysicalSystem createPhysicalSystem(ProcedureEntity procedure,
+            ProcedureDatasetProjection datasets, Session session) throws OwsExceptionReport {
         PhysicalSystem physicalSystem = new PhysicalSystem();
         setIdentifier(physicalSystem, procedure);
-        setCommonValues(procedure, physicalSystem, session);
-        physicalSystem.setPosition(createPosition(procedure, session));
+        setCommonValues(procedure, physicalSystem, datasets, session);
+        physicalSystem.setPosition(createPosition(procedure, datasets));
         return physicalSystem;
     }
 
-    private SimpleProcess createSimpleProcess(ProcedureEntity procedure, Session session) throws OwsExceptionReport {
+    private SimpleProcess createSimpleProcess(ProcedureEntity procedure,
+            ProcedureDatasetProjection datasets, Session session) throws OwsExceptionReport {
         SimpleProcess simpleProcess = new SimpleProcess();
         setIdentifier(simpleProcess, procedure);
-        setCommonValues(procedure, simpleProcess, session);
+        setCommonValues(procedure, simpleProcess, datasets, session);
         return simpleProcess;
     }
 
-    private AggregateProcess createAggregateProcess(ProcedureEntity procedure, Session session)
-            throws OwsExceptionReport {
+    private AggregateProcess createAggregateProcess(ProcedureEntity procedure, ProcedureDatasetProjection datasets,
+            Session session) throws OwsExceptionReport {
         AggregateProcess aggregateProcess = new AggregateProcess();
         setIdentifier(aggregateProcess, procedure);
-        setCommonValues(procedure, aggregateProcess, session);
+        setCommonValues(procedure, aggregateProcess, datasets, session);
         return aggregateProcess;
     }
 
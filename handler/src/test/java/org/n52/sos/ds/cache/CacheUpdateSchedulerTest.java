@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.series.db.HibernateSessionStore;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+
+public class CacheUpdateSchedulerTest {
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<OwsExceptionReport> errors = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    private HibernateSessionStore sessionStore;
+
+    @Before
+    public void setUp() {
+        sessionStore = mock(HibernateSessionStore.class);
+        when(sessionStore.getSession()).thenAnswer(invocation -> mock(Session.class));
+    }
+
+    @Test
+    public void shouldExecuteDependentPhasesInOrder() {
+        CacheUpdateScheduler scheduler = new CacheUpdateScheduler(3, sessionStore)
+                .addPhase("a", new RecordingUpdate("a"))
+                .addPhase("b", new RecordingUpdate("b"), "a")
+                .addPhase("c", new RecordingUpdate("c"), "b");
+        scheduler.setErrors(errors);
+        scheduler.execute();
+
+        assertThat(events, contains("start a", "end a", "start b", "end b", "start c", "end c"));
+        assertThat(errors, is(empty()));
+        verify(sessionStore, times(3)).returnSession(any(Session.class));
+    }
+
+    @Test
+    public void shouldNotUseMoreSessionsThanThePoolProvides() {
+        CacheUpdateScheduler scheduler = new CacheUpdateScheduler(4, sessionStore).setMaxSessions(2);
+        for (int i = 0; i < 6; i++) {
+            scheduler.addPhase("phase" + i, new RecordingUpdate("phase" + i));
+        }
+        scheduler.setErrors(errors);
+        scheduler.execute();
+
+        assertThat(maxRunning.get(), is(lessThanOrEqualTo(2)));
+        assertThat(events.size(), is(12));
+    }
+
+    @Test
+    public void shouldExecutePhaseUsingMoreSessionsThanThePoolProvidesAlone() {
+        CacheUpdateScheduler scheduler = new CacheUpdateScheduler(4, sessionStore).setMaxSessions(2)
+                .addPhase("single", new RecordingUpdate("single"))
+                .addPhase("multi", 5, new RecordingUpdate("multi"));
+        scheduler.setErrors(errors);
+        scheduler.execute();
+
+        assertThat(maxRunning.get(), is(1));
+        assertThat(events.size(), is(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownDependency() {
+        new CacheUpdateScheduler(1, sessionStore).addPhase("a", new RecordingUpdate("a"), "b");
+    }
+
+    private final class RecordingUpdate extends AbstractDatasourceCacheUpdate {
+
+        private final String name;
+
+        RecordingUpdate(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void execute() {
+            int current = running.incrementAndGet();
+            maxRunning.accumulateAndGet(current, Math::max);
+            events.add("start " + name);
+            try {
+                TimeUnit.MILLISECONDS.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add("end " + name);
+            running.decrementAndGet();
+        }
+    }
+
+}
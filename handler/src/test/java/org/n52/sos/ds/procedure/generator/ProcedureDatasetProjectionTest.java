@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.procedure.generator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.hibernate.Criteria;
+import org.hibernate.Session;
+import org.hibernate.criterion.Criterion;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.n52.series.db.beans.AbstractFeatureEntity;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.series.db.beans.PhenomenonEntity;
+import org.n52.series.db.beans.ProcedureEntity;
+
+@SuppressWarnings("rawtypes")
+public class ProcedureDatasetProjectionTest {
+
+    @Test
+    public void shouldLoadOnlyPublishedAndNotDeletedDatasets() {
+        Criteria criteria = mock(Criteria.class, RETURNS_SELF);
+        Session session = mock(Session.class);
+        when(session.createCriteria(DatasetEntity.class)).thenReturn(criteria);
+
+        ProcedureDatasetProjection.load(createProcedure(1L), session);
+
+        ArgumentCaptor<Criterion> restrictions = ArgumentCaptor.forClass(Criterion.class);
+        verify(criteria, atLeastOnce()).add(restrictions.capture());
+        assertThat(restrictions.getAllValues().stream().map(Object::toString).collect(Collectors.toList()),
+                hasItems(DatasetEntity.PROPERTY_DELETED + "=false", DatasetEntity.PROPERTY_PUBLISHED + "=true"));
+    }
+
+    @Test
+    public void shouldLoadDatasetsOfProcedure() {
+        ProcedureEntity procedure = createProcedure(1L);
+        DatasetEntity dataset1 = createDataset(procedure, createPhenomenon(10L), createFeature(100L, true));
+        DatasetEntity dataset2 = createDataset(procedure, createPhenomenon(11L), createFeature(100L, true));
+        Criteria criteria = mock(Criteria.class, RETURNS_SELF);
+        when(criteria.list()).thenReturn(Arrays.asList(dataset1, dataset2));
+        Session session = mock(Session.class);
+        when(session.createCriteria(DatasetEntity.class)).thenReturn(criteria);
+
+        ProcedureDatasetProjection projection = ProcedureDatasetProjection.load(procedure, session);
+
+        assertThat(projection.getDatasets(), contains(dataset1, dataset2));
+        assertThat(projection.getFeatures(), hasSize(1));
+    }
+
+    @Test
+    public void shouldReturnDistinctObservablePropertiesAndFeatures() {
+        ProcedureEntity procedure = createProcedure(1L);
+        PhenomenonEntity phenomenon1 = createPhenomenon(10L);
+        PhenomenonEntity phenomenon2 = createPhenomenon(11L);
+        AbstractFeatureEntity feature1 = createFeature(100L, true);
+        AbstractFeatureEntity feature2 = createFeature(101L, true);
+        DatasetEntity first = createDataset(procedure, phenomenon1, feature1);
+        ProcedureDatasetProjection projection = new ProcedureDatasetProjection(
+                Arrays.asList(first, createDataset(procedure, phenomenon2, feature2),
+                        createDataset(procedure, phenomenon1, feature2)));
+
+        assertThat(projection.getObservableProperties(), contains(phenomenon1, phenomenon2));
+        assertThat(projection.getDataset(phenomenon1).get(), is(first));
+        assertThat(projection.getFeatures(), contains(feature1, feature2));
+        assertThat(projection.getSingleFeature().isPresent(), is(false));
+        assertThat(projection.isStation(), is(false));
+    }
+
+    @Test
+    public void shouldDetectStation() {
+        ProcedureEntity procedure = createProcedure(1L);
+        DatasetEntity dataset = createDataset(procedure, createPhenomenon(10L), createFeature(100L, true));
+        when(dataset.isInsitu()).thenReturn(true);
+        assertThat(new ProcedureDatasetProjection(Arrays.asList(dataset)).isStation(), is(true));
+
+        when(dataset.isMobile()).thenReturn(true);
+        assertThat(new ProcedureDatasetProjection(Arrays.asList(dataset)).isStation(), is(false));
+
+        DatasetEntity withoutGeometry = createDataset(procedure, createPhenomenon(10L), createFeature(100L, false));
+        when(withoutGeometry.isInsitu()).thenReturn(true);
+        assertThat(new ProcedureDatasetProjection(Arrays.asList(withoutGeometry)).isStation(), is(false));
+    }
+
+    private ProcedureEntity createProcedure(long id) {
+        ProcedureEntity procedure = mock(ProcedureEntity.class);
+        when(procedure.getId()).thenReturn(id);
+        return procedure;
+    }
+
+    private PhenomenonEntity createPhenomenon(long id) {
+        PhenomenonEntity phenomenon = mock(PhenomenonEntity.class);
+        when(phenomenon.getId()).thenReturn(id);
+        return phenomenon;
+    }
+
+    private AbstractFeatureEntity createFeature(long id, boolean geometry) {
+        AbstractFeatureEntity feature = mock(AbstractFeatureEntity.class);
+        when(feature.getId()).thenReturn(id);
+        when(feature.isSetGeometry()).thenReturn(geometry);
+        return feature;
+    }
+
+    private DatasetEntity createDataset(ProcedureEntity procedure, PhenomenonEntity phenomenon,
+            AbstractFeatureEntity feature) {
+        DatasetEntity dataset = mock(DatasetEntity.class);
+        when(dataset.getProcedure()).thenReturn(procedure);
+        when(dataset.getPhenomenon()).thenReturn(phenomenon);
+        when(dataset.isSetFeature()).thenReturn(true);
+        when(dataset.getFeature()).thenReturn(feature);
+        return dataset;
+    }
+
+}
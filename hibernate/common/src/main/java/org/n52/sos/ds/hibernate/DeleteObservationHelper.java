@@ -29,7 +29,9 @@
 package org.n52.sos.ds.hibernate;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -410,19 +412,39 @@ public interface DeleteObservationHelper extends HibernateUnproxy {
             AbstractSeriesObservationDAO observationDAO = getDaoFactory().getObservationDAO();
             Map<Long, SeriesTimeExtrema> minMaxTimes = observationDAO.getMinMaxSeriesTimesById(
                     serieses instanceof Set ? (Set<Long>) serieses : new LinkedHashSet<>(serieses), session);
+            Map<Long, DatasetEntity> datasets = new LinkedHashMap<>();
+            Set<Long> firstChanged = new HashSet<>();
+            Set<Long> lastChanged = new HashSet<>();
             for (Long id : serieses) {
                 DatasetEntity series = session.get(DatasetEntity.class, id);
-                boolean update = false;
+                datasets.put(id, series);
                 if (minMaxTimes.containsKey(series.getId())) {
                     SeriesTimeExtrema extrema = minMaxTimes.get(series.getId());
                     if (!series.isSetFirstValueAt()
                             || (series.isSetFirstValueAt() && !DateTimeHelper.makeDateTime(series.getFirstValueAt())
                                     .equals(extrema.getMinPhenomenonTime()))) {
+                        firstChanged.add(id);
+                    }
+                    if (!series.isSetLastValueAt()
+                            || (series.isSetLastValueAt() && !DateTimeHelper.makeDateTime(series.getLastValueAt())
+                                    .equals(extrema.getMaxPhenomenonTime()))) {
+                        lastChanged.add(id);
+                    }
+                }
+            }
+            // query the new first/latest observations of all changed datasets at once
+            Map<Long, DataEntity<?>> firstObservations = firstChanged.isEmpty() ? Collections.emptyMap()
+                    : observationDAO.getMinObservations(firstChanged, session);
+            Map<Long, DataEntity<?>> lastObservations = lastChanged.isEmpty() ? Collections.emptyMap()
+                    : observationDAO.getMaxObservations(lastChanged, session);
+            for (DatasetEntity series : datasets.values()) {
+                boolean update = false;
+                if (minMaxTimes.containsKey(series.getId())) {
+                    SeriesTimeExtrema extrema = minMaxTimes.get(series.getId());
+                    if (firstChanged.contains(series.getId())) {
                         series.setFirstValueAt(extrema.getMinPhenomenonTime()
                                 .toDate());
-                        DataEntity<?> o = unproxy(
-                                observationDAO.getMinObservation(series, extrema.getMinPhenomenonTime(), session),
-                                session);
+                        DataEntity<?> o = unproxy(firstObservations.get(series.getId()), session);
                         series.setFirstObservation(o);
                         if (series.getValueType()
                                 .equals(ValueType.quantity)) {
@@ -430,14 +452,10 @@ public interface DeleteObservationHelper extends HibernateUnproxy {
                         }
                         update = true;
                     }
-                    if (!series.isSetLastValueAt()
-                            || (series.isSetLastValueAt() && !DateTimeHelper.makeDateTime(series.getLastValueAt())
-                                    .equals(extrema.getMaxPhenomenonTime()))) {
+                    if (lastChanged.contains(series.getId())) {
                         series.setLastValueAt(extrema.getMaxPhenomenonTime()
                                 .toDate());
-                        DataEntity<?> o = unproxy(
-                                observationDAO.getMaxObservation(series, extrema.getMaxPhenomenonTime(), session),
-                                session);
+                        DataEntity<?> o = unproxy(lastObservations.get(series.getId()), session);
                         series.setLastObservation(o);
                         if (series.getValueType()
                                 .equals(ValueType.quantity)) {
@@ -456,11 +474,11 @@ public interface DeleteObservationHelper extends HibernateUnproxy {
                     update = true;
                 }
                 if (update) {
+                    getDaoFactory().getLatestValueStore().remove(series.getId());
                     session.saveOrUpdate(series);
                     session.flush();
                 }
             }
         }
     }
-
 }
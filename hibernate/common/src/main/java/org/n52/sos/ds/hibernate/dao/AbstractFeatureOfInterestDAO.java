@@ -32,14 +32,20 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import org.hibernate.CacheMode;
 import org.hibernate.Criteria;
+import org.hibernate.ScrollMode;
 import org.hibernate.Session;
+import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Disjunction;
+import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.criterion.Subqueries;
 import org.hibernate.spatial.criterion.SpatialProjections;
 import org.locationtech.jts.geom.Geometry;
 import org.n52.series.db.beans.AbstractFeatureEntity;
+import org.n52.series.db.beans.DatasetEntity;
 import org.n52.shetland.ogc.filter.SpatialFilter;
 import org.n52.shetland.ogc.gml.AbstractFeature;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
@@ -47,6 +53,7 @@ import org.n52.shetland.ogc.sos.SosConstants;
 import org.n52.shetland.util.CollectionHelper;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
 import org.n52.sos.ds.hibernate.util.QueryHelper;
+import org.n52.sos.ds.hibernate.util.ScrollableIterable;
 import org.n52.sos.ds.hibernate.util.SpatialRestrictions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -168,6 +175,63 @@ public abstract class AbstractFeatureOfInterestDAO extends AbstractIdentifierNam
         }
     }
 
+    /**
+     * Iterate featureOfInterest objects ordered by their id with a forward only
+     * cursor. Features that are only referenced by deleted or unpublished
+     * datasets are skipped. The caller has to close the returned iterable.
+     *
+     * @param identifiers
+     *            FeatureOfInterest identifiers, may be empty
+     * @param filters
+     *            Spatial filters, may be empty
+     * @param afterId
+     *            Only return features with a greater id, may be
+     *            <code>null</code>
+     * @param fetchSize
+     *            JDBC fetch size hint, ignored if not positive
+     * @param session
+     *            Hibernate session
+     * @return Scrollable featureOfInterest objects
+     * @throws OwsExceptionReport
+     *             If the spatial filter is invalid
+     */
+    public ScrollableIterable<AbstractFeatureEntity> scrollFeatures(Collection<String> identifiers,
+            Collection<SpatialFilter> filters, Long afterId, int fetchSize, Session session)
+            throws OwsExceptionReport {
+        Criteria c = session.createCriteria(AbstractFeatureEntity.class);
+        if (CollectionHelper.isNotEmpty(identifiers)) {
+            c.add(QueryHelper.getCriterionForObjects(AbstractFeatureEntity.IDENTIFIER, identifiers));
+        }
+        addSpatialFilters(c, filters);
+        c.add(Restrictions.or(Subqueries.propertyIn(AbstractFeatureEntity.PROPERTY_ID, getVisibleFeatures()),
+                Subqueries.propertyNotIn(AbstractFeatureEntity.PROPERTY_ID, getHiddenFeatures())));
+        if (afterId != null) {
+            c.add(Restrictions.gt(AbstractFeatureEntity.PROPERTY_ID, afterId));
+        }
+        c.addOrder(Order.asc(AbstractFeatureEntity.PROPERTY_ID));
+        if (fetchSize > 0) {
+            c.setFetchSize(fetchSize);
+        }
+        c.setReadOnly(true);
+        c.setCacheMode(CacheMode.IGNORE);
+        LOGGER.debug("QUERY scrollFeatures(identifiers, filters, afterId): {}", HibernateHelper.getSqlString(c));
+        return ScrollableIterable.fromResults(c.scroll(ScrollMode.FORWARD_ONLY));
+    }
+
+    private DetachedCriteria getVisibleFeatures() {
+        return DetachedCriteria.forClass(DatasetEntity.class)
+                .add(Restrictions.eq(DatasetEntity.PROPERTY_PUBLISHED, true))
+                .setProjection(Projections.property(DatasetEntity.PROPERTY_FEATURE));
+    }
+
+    private DetachedCriteria getHiddenFeatures() {
+        return DetachedCriteria.forClass(DatasetEntity.class)
+                .add(Restrictions.isNotNull(DatasetEntity.PROPERTY_FEATURE))
+                .add(Restrictions.or(Restrictions.eq(DatasetEntity.PROPERTY_DELETED, true),
+                        Restrictions.eq(DatasetEntity.PROPERTY_PUBLISHED, false)))
+                .setProjection(Projections.property(DatasetEntity.PROPERTY_FEATURE));
+    }
+
     @SuppressWarnings("unchecked")
     private List<AbstractFeatureEntity> getFeaturesChunks(Collection<String> identifiers,
             Collection<SpatialFilter> filters, Session session) throws OwsExceptionReport {
@@ -47,6 +47,7 @@ import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.util.EReportingSetting;
 import org.n52.sos.ds.FeatureQueryHandler;
 import org.n52.sos.ds.hibernate.dao.observation.AbstractObservationTimeDAO;
+import org.n52.sos.ds.hibernate.dao.observation.bulk.BulkObservationInserter;
 import org.n52.sos.ds.hibernate.dao.observation.ereporting.EReportingObservationDAO;
 import org.n52.sos.ds.hibernate.dao.observation.ereporting.EReportingObservationTimeDAO;
 import org.n52.sos.ds.hibernate.dao.observation.ereporting.EReportingSeriesDAO;
@@ -56,11 +57,14 @@ import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesDAO;
 import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesObservationDAO;
 import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesValueDAO;
 import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesValueTimeDAO;
+import org.n52.sos.ds.hibernate.dao.observation.series.DatasetLatestValueStore;
 import org.n52.sos.ds.hibernate.dao.observation.series.SeriesDAO;
 import org.n52.sos.ds.hibernate.dao.observation.series.SeriesObservationDAO;
 import org.n52.sos.ds.hibernate.dao.observation.series.SeriesObservationTimeDAO;
 import org.n52.sos.ds.hibernate.dao.observation.series.SeriesValueDAO;
+import org.n52.sos.ds.hibernate.dao.observation.series.SeriesValueQueryPlanCache;
 import org.n52.sos.ds.hibernate.dao.observation.series.SeriesValueTimeDAO;
+import org.n52.sos.ds.hibernate.monitor.SessionMonitor;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
 import org.n52.sos.request.operator.AbstractRequestOperator;
 import org.n52.sos.service.SosSettings;
@@ -92,7 +96,12 @@ public class DaoFactory {
     private FeatureQueryHandler featureQueryHandler;
     private boolean includeChildObservableProperties;
     private boolean staSupportsUrls;
+    private boolean trajectoryMode;
+    private boolean bulkIngest;
     private SosHelper sosHelper;
+    private final DatasetLatestValueStore latestValueStore = new DatasetLatestValueStore();
+    private final ReferenceEntityResolver referenceEntityResolver = new ReferenceEntityResolver();
+    private final SeriesValueQueryPlanCache seriesValueQueryPlanCache = new SeriesValueQueryPlanCache();
 
     @Inject
     public void setI18NDAORepository(I18NDAORepository i18NDAORepository) {
@@ -160,11 +169,55 @@ public class DaoFactory {
         this.staSupportsUrls = staSupportsUrls;
     }
 
+    public boolean isTrajectoryMode() {
+        return trajectoryMode;
+    }
+
+    @Setting(SosSettings.TRAJECTORY_MODE)
+    public void setTrajectoryMode(boolean trajectoryMode) {
+        this.trajectoryMode = trajectoryMode;
+    }
+
+    /**
+     * @return if simple observations should be inserted by the
+     *         {@link BulkObservationInserter}, which is not supported for
+     *         eReporting
+     */
+    public boolean isBulkIngest() {
+        return bulkIngest && !HibernateHelper.isEntitySupported(EReportingSamplingPointEntity.class);
+    }
+
+    @Setting(SosSettings.BULK_INGEST)
+    public void setBulkIngest(boolean bulkIngest) {
+        this.bulkIngest = bulkIngest;
+    }
+
     @Inject
     public void setFeatureQueryHandler(FeatureQueryHandler featureQueryHandler) {
         this.featureQueryHandler = featureQueryHandler;
     }
 
+    @Inject
+    public void setSessionMonitor(SessionMonitor sessionMonitor) {
+        sessionMonitor.registerCache("seriesValueQueryPlans", seriesValueQueryPlanCache);
+    }
+
+    public DatasetLatestValueStore getLatestValueStore() {
+        return latestValueStore;
+    }
+
+    public ReferenceEntityResolver getReferenceEntityResolver() {
+        return referenceEntityResolver;
+    }
+
+    public SeriesValueQueryPlanCache getSeriesValueQueryPlanCache() {
+        return seriesValueQueryPlanCache;
+    }
+
+    public BulkObservationInserter getBulkObservationInserter() {
+        return new BulkObservationInserter(this);
+    }
+
     public AbstractSeriesDAO getSeriesDAO() {
         if (HibernateHelper.isEntitySupported(EReportingSamplingPointEntity.class)) {
             return new EReportingSeriesDAO(this);
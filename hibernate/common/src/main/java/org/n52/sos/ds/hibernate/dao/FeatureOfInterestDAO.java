@@ -99,6 +99,8 @@ public class FeatureOfInterestDAO extends AbstractFeatureOfInterestDAO {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FeatureOfInterestDAO.class);
 
+    private static final String DATASET_MOBILE = "mobile";
+
     private static final String SQL_QUERY_GET_FEATURE_OF_INTEREST_IDENTIFIER_FOR_OFFERING =
             "getFeatureOfInterestIdentifiersForOffering";
 
@@ -398,6 +400,50 @@ public class FeatureOfInterestDAO extends AbstractFeatureOfInterestDAO {
         }
     }
 
+    /**
+     * Set the geometry of the featureOfInterest only if it has none. Used for
+     * mobile features whose track is kept in the sampling geometries of the
+     * observations, so the stored geometry is neither rewritten nor replaced
+     * on each insertion.
+     *
+     * @param featureOfInterest
+     *            The featureOfInterest to update
+     * @param geom
+     *            The geometry to set if the featureOfInterest has none
+     * @param session
+     *            Hibernate session
+     */
+    public void initFeatureOfInterestGeometry(AbstractFeatureEntity featureOfInterest, Geometry geom,
+            Session session) {
+        if (featureOfInterest != null && geom != null && !featureOfInterest.isSetGeometry()) {
+            featureOfInterest.setGeometry(geom);
+            session.merge(featureOfInterest);
+        }
+    }
+
+    /**
+     * Get the identifiers of the features observed by a mobile sensor, i.e.
+     * whose geometry is a track and not a fixed location, with one query.
+     *
+     * @param features
+     *            The featureOfInterest identifiers to check, all if empty
+     * @param session
+     *            Hibernate session
+     * @return the identifiers of the mobile features
+     */
+    @SuppressWarnings("unchecked")
+    public Set<String> getMobileFeatureIdentifiers(Collection<String> features, Session session) {
+        Criteria c = session.createCriteria(DatasetEntity.class)
+                .add(Restrictions.eq(DATASET_MOBILE, true))
+                .createAlias(DatasetEntity.PROPERTY_FEATURE, "mf")
+                .setProjection(Projections.distinct(Projections.property("mf." + AbstractFeatureEntity.IDENTIFIER)));
+        if (features != null && !features.isEmpty()) {
+            c.add(QueryHelper.getCriterionForObjects("mf." + AbstractFeatureEntity.IDENTIFIER, features));
+        }
+        LOGGER.trace("QUERY getMobileFeatureIdentifiers(features): {}", HibernateHelper.getSqlString(c));
+        return Sets.newHashSet(c.list());
+    }
+
     @SuppressWarnings("unchecked")
     public List<FeatureEntity> getPublishedFeatureOfInterest(Session session) throws OwsExceptionReport {
         Criteria c = getPublishedFeatureOfInterestCriteria(session);
@@ -40,6 +40,7 @@ import org.hibernate.criterion.Restrictions;
 import org.n52.series.db.beans.AbstractFeatureEntity;
 import org.n52.series.db.beans.FormatEntity;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
+import org.n52.sos.ds.hibernate.util.ReferenceEntityCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -72,10 +73,10 @@ public class FormatDAO {
      */
     public FormatEntity getFormatEntityObject(String format,
             Session session) {
-        Criteria criteria =
+        Criteria criteria = ReferenceEntityCache.cacheable(
                 session.createCriteria(FormatEntity.class).add(
                         Restrictions.eq(FormatEntity.FORMAT,
-                                format));
+                                format)));
         LOGGER.trace("QUERY getFormatEntityObject(format): {}",
                 HibernateHelper.getSqlString(criteria));
         return (FormatEntity) criteria.uniqueResult();
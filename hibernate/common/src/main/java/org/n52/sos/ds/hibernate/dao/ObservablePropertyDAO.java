@@ -55,6 +55,7 @@ import org.n52.shetland.ogc.om.OmObservableProperty;
 import org.n52.shetland.ogc.ows.exception.CodedException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
+import org.n52.sos.ds.hibernate.util.ReferenceEntityCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -171,8 +172,8 @@ public class ObservablePropertyDAO extends AbstractIdentifierNameDescriptionDAO
      * @return Observable property object
      */
     public PhenomenonEntity getObservablePropertyForIdentifier(final String identifier, final Session session) {
-        Criteria criteria = session.createCriteria(PhenomenonEntity.class)
-                .add(Restrictions.eq(PhenomenonEntity.IDENTIFIER, identifier));
+        Criteria criteria = ReferenceEntityCache.cacheable(session.createCriteria(PhenomenonEntity.class)
+                .add(Restrictions.eq(PhenomenonEntity.IDENTIFIER, identifier)));
         LOGGER.trace("QUERY getObservablePropertyForIdentifier(identifier): {}",
                 HibernateHelper.getSqlString(criteria));
         return (PhenomenonEntity) criteria.uniqueResult();
@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.hibernate.Criteria;
+import org.hibernate.Session;
+import org.n52.series.db.beans.AbstractFeatureEntity;
+import org.n52.series.db.beans.CodespaceEntity;
+import org.n52.series.db.beans.FormatEntity;
+import org.n52.series.db.beans.UnitEntity;
+import org.n52.shetland.ogc.UoM;
+import org.n52.sos.ds.hibernate.util.HibernateHelper;
+import org.n52.sos.ds.hibernate.util.QueryHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Resolves the reference entities of an insertion request (units, codespaces,
+ * formats and features) in bulk instead of one select per object. All
+ * distinct values of a type are resolved with a single query, missing units,
+ * codespaces and formats are saved together and written with a single flush.
+ *
+ * The database ids of resolved entities are kept in a process wide, size
+ * bounded cache. Cached entities are loaded by id, which is served by the
+ * session or second level cache if possible. Ids of entities that were
+ * deleted, e.g. by clearing the datasource, are dropped from the cache and
+ * the entities are resolved again.
+ *
+ * @since 5.3.2
+ */
+public class ReferenceEntityResolver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceEntityResolver.class);
+
+    private static final int MAXIMUM_SIZE = 10000;
+
+    private final Cache<String, Long> units = newCache();
+
+    private final Cache<String, Long> codespaces = newCache();
+
+    private final Cache<String, Long> formats = newCache();
+
+    private final Cache<String, Long> features = newCache();
+
+    private static Cache<String, Long> newCache() {
+        return CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE).build();
+    }
+
+    /**
+     * Get or insert the units.
+     *
+     * @param uoms
+     *            the units to resolve
+     * @param session
+     *            Hibernate session
+     * @return the unit entities
+     */
+    public Map<UoM, UnitEntity> resolveUnits(Collection<UoM> uoms, Session session) {
+        Map<String, UoM> byUom = new HashMap<>();
+        for (UoM uom : uoms) {
+            if (uom != null && uom.getUom() != null && !uom.getUom().isEmpty()) {
+                byUom.putIfAbsent(uom.getUom(), uom);
+            }
+        }
+        Map<String, UnitEntity> resolved =
+                resolve(UnitEntity.class, UnitEntity.PROPERTY_UNIT, byUom.keySet(), units, UnitEntity::getUnit,
+                        unit -> createUnit(byUom.get(unit)), session);
+        Map<UoM, UnitEntity> result = new HashMap<>();
+        for (UoM uom : uoms) {
+            if (uom != null && resolved.containsKey(uom.getUom())) {
+                result.put(uom, resolved.get(uom.getUom()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get or insert the codespaces.
+     *
+     * @param names
+     *            the codespace names to resolve
+     * @param session
+     *            Hibernate session
+     * @return the codespace entities by name
+     */
+    public Map<String, CodespaceEntity> resolveCodespaces(Collection<String> names, Session session) {
+        return resolve(CodespaceEntity.class, CodespaceEntity.PROPERTY_NAME, names, codespaces,
+                CodespaceEntity::getName, name -> {
+                    CodespaceEntity codespace = new CodespaceEntity();
+                    codespace.setName(name);
+                    return codespace;
+                }, session);
+    }
+
+    /**
+     * Get or insert the formats, e.g. observation types.
+     *
+     * @param names
+     *            the formats to resolve
+     * @param session
+     *            Hibernate session
+     * @return the format entities by format
+     */
+    public Map<String, FormatEntity> resolveFormats(Collection<String> names, Session session) {
+        return resolve(FormatEntity.class, FormatEntity.FORMAT, names, formats, FormatEntity::getFormat, name -> {
+            FormatEntity format = new FormatEntity();
+            format.setFormat(name);
+            return format;
+        }, session);
+    }
+
+    /**
+     * Get the existing features. Missing features are not inserted as they
+     * need the full feature description.
+     *
+     * @param identifiers
+     *            the feature identifiers to resolve
+     * @param session
+     *            Hibernate session
+     * @return the existing feature entities by identifier
+     */
+    public Map<String, AbstractFeatureEntity> getFeatures(Collection<String> identifiers, Session session) {
+        return resolve(AbstractFeatureEntity.class, AbstractFeatureEntity.IDENTIFIER, identifiers, features,
+                AbstractFeatureEntity::getIdentifier, null, session);
+    }
+
+    /**
+     * Drop all cached ids, e.g. after entities were deleted or the
+     * transaction that inserted them was rolled back.
+     */
+    public void clear() {
+        units.invalidateAll();
+        codespaces.invalidateAll();
+        formats.invalidateAll();
+        features.invalidateAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E> Map<String, E> resolve(Class<E> type, String property, Collection<String> values,
+            Cache<String, Long> ids, Function<E, String> keyOf, Function<String, E> factory, Session session) {
+        Set<String> missing = values.stream().filter(Objects::nonNull).filter(v -> !v.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<String, E> result = new HashMap<>();
+        if (missing.isEmpty()) {
+            return result;
+        }
+        loadCached(type, missing, ids, keyOf, result, session);
+        if (!missing.isEmpty()) {
+            Criteria criteria =
+                    session.createCriteria(type).add(QueryHelper.getCriterionForObjects(property, missing));
+            LOGGER.trace("QUERY resolve({}): {}", type.getSimpleName(), HibernateHelper.getSqlString(criteria));
+            for (E entity : (List<E>) criteria.list()) {
+                String key = keyOf.apply(entity);
+                if (missing.remove(key)) {
+                    result.put(key, entity);
+                    ids.put(key, (Long) session.getIdentifier(entity));
+                }
+            }
+        }
+        if (!missing.isEmpty() && factory != null) {
+            List<E> created = new ArrayList<>(missing.size());
+            for (String key : missing) {
+                E entity = factory.apply(key);
+                session.save(entity);
+                created.add(entity);
+                result.put(key, entity);
+            }
+            session.flush();
+            for (E entity : created) {
+                ids.put(keyOf.apply(entity), (Long) session.getIdentifier(entity));
+            }
+        }
+        return result;
+    }
+
+    private <E> void loadCached(Class<E> type, Set<String> missing, Cache<String, Long> ids,
+            Function<E, String> keyOf, Map<String, E> result, Session session) {
+        List<String> cachedKeys = new ArrayList<>();
+        List<Long> cachedIds = new ArrayList<>();
+        for (String key : missing) {
+            Long id = ids.getIfPresent(key);
+            if (id != null) {
+                cachedKeys.add(key);
+                cachedIds.add(id);
+            }
+        }
+        if (cachedIds.isEmpty()) {
+            return;
+        }
+        Iterator<String> keys = cachedKeys.iterator();
+        for (E entity : session.byMultipleIds(type).multiLoad(cachedIds)) {
+            String key = keys.next();
+            if (entity != null && key.equals(keyOf.apply(entity))) {
+                missing.remove(key);
+                result.put(key, entity);
+            } else {
+                // deleted or the id was reused after the datasource was cleared
+                ids.invalidate(key);
+            }
+        }
+    }
+
+    private UnitEntity createUnit(UoM uom) {
+        UnitEntity unit = new UnitEntity();
+        unit.setUnit(uom.getUom());
+        if (uom.isSetName()) {
+            unit.setName(uom.getName());
+        }
+        if (uom.isSetLink()) {
+            unit.setLink(uom.getLink());
+        }
+        return unit;
+    }
+
+}
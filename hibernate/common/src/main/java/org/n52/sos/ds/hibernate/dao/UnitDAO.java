@@ -40,6 +40,7 @@ import org.n52.series.db.beans.i18n.I18nEntity;
 import org.n52.series.db.beans.i18n.I18nUnitEntity;
 import org.n52.shetland.ogc.UoM;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
+import org.n52.sos.ds.hibernate.util.ReferenceEntityCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -71,8 +72,8 @@ public class UnitDAO {
      * @return Unit object
      */
     public UnitEntity getUnit(String unit, Session session) {
-        Criteria criteria =
-                session.createCriteria(UnitEntity.class).add(Restrictions.eq(UnitEntity.PROPERTY_UNIT, unit));
+        Criteria criteria = ReferenceEntityCache.cacheable(
+                session.createCriteria(UnitEntity.class).add(Restrictions.eq(UnitEntity.PROPERTY_UNIT, unit)));
         LOGGER.trace(QUERY_UNIT_TEMPLATE, HibernateHelper.getSqlString(criteria));
         return (UnitEntity) criteria.uniqueResult();
     }
@@ -87,10 +88,7 @@ public class UnitDAO {
      * @return Unit object
      */
     public UnitEntity getUnit(UoM unit, Session session) {
-        Criteria criteria =
-                session.createCriteria(UnitEntity.class).add(Restrictions.eq(UnitEntity.PROPERTY_UNIT, unit.getUom()));
-        LOGGER.trace(QUERY_UNIT_TEMPLATE, HibernateHelper.getSqlString(criteria));
-        return (UnitEntity) criteria.uniqueResult();
+        return getUnit(unit.getUom(), session);
     }
 
     /**
@@ -39,6 +39,7 @@ import java.util.stream.Collectors;
 import javax.inject.Inject;
 
 import org.hibernate.Criteria;
+import org.hibernate.FetchMode;
 import org.hibernate.HibernateException;
 import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
@@ -53,16 +54,22 @@ import org.n52.janmayen.i18n.LocalizedString;
 import org.n52.series.db.beans.DescribableEntity;
 import org.n52.series.db.beans.i18n.I18nEntity;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.util.CollectionHelper;
 import org.n52.sos.ds.hibernate.HibernateSessionHolder;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 public abstract class AbstractHibernateI18NDAO<T extends DescribableEntity,
                                                S extends AbstractI18NMetadata,
                                                H extends I18nEntity>
         implements I18NDAO<S>, HibernateI18NDAO<S> {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractHibernateI18NDAO.class);
+
     private HibernateSessionHolder sessionHolder;
 
     @Inject
@@ -153,6 +160,18 @@ public abstract class AbstractHibernateI18NDAO<T extends DescribableEntity,
         }
     }
 
+    @Override
+    public Collection<S> getMetadataForLocales(Collection<Locale> locales)
+            throws OwsExceptionReport {
+        Session session = null;
+        try {
+            session = sessionHolder.getSession();
+            return getMetadataForLocales(locales, session);
+        } finally {
+            sessionHolder.returnSession(session);
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public S getMetadata(String id, Session session)
@@ -237,7 +256,24 @@ public abstract class AbstractHibernateI18NDAO<T extends DescribableEntity,
     @SuppressWarnings("unchecked")
     public Collection<S> getMetadata(Session session)
             throws OwsExceptionReport {
-        Criteria criteria = session.createCriteria(getHibernateEntityClass());
+        Criteria criteria = session.createCriteria(getHibernateEntityClass())
+                .setFetchMode(I18nEntity.PROPERTY_ENTITY, FetchMode.JOIN);
+        List<H> list = criteria.list();
+        return createSosObject(list);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<S> getMetadataForLocales(Collection<Locale> locales, Session session)
+            throws OwsExceptionReport {
+        // fetch the described entity with the translations to avoid a query
+        // per translation when the identifier is resolved
+        Criteria criteria = session.createCriteria(getHibernateEntityClass())
+                .setFetchMode(I18nEntity.PROPERTY_ENTITY, FetchMode.JOIN);
+        if (CollectionHelper.isNotEmpty(locales)) {
+            criteria.add(Restrictions.in(I18nEntity.PROPERTY_LOCALE, getLocaleValues(locales)));
+        }
+        LOGGER.debug("QUERY getMetadataForLocales({}): {}", locales, HibernateHelper.getSqlString(criteria));
         List<H> list = criteria.list();
         return createSosObject(list);
     }
@@ -307,6 +343,19 @@ public abstract class AbstractHibernateI18NDAO<T extends DescribableEntity,
 
     protected abstract S createSosObject(String id);
 
+    private Set<String> getLocaleValues(Collection<Locale> locales) {
+        Set<String> values = Sets.newHashSet();
+        for (Locale locale : locales) {
+            values.add(locale.toString());
+            values.add(LocaleHelper.encode(locale));
+            for (Locale equivalent : LocaleHelper.getEquivalents(locale)) {
+                values.add(equivalent.toString());
+                values.add(LocaleHelper.encode(equivalent));
+            }
+        }
+        return values;
+    }
+
     protected Collection<S> createSosObject(List<H> hi18ns) {
         Map<String, S> map = Maps.newHashMap();
         for (H h18n : hi18ns) {
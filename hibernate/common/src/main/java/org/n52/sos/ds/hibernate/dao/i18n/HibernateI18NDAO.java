@@ -35,13 +35,14 @@ import org.hibernate.Session;
 import org.n52.iceland.i18n.I18NDAO;
 import org.n52.iceland.i18n.metadata.AbstractI18NMetadata;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.sos.i18n.BulkI18NDAO;
 
 /**
  * TODO JavaDoc
  *
  * @author Christian Autermann
  */
-public interface HibernateI18NDAO<T extends AbstractI18NMetadata> extends I18NDAO<T> {
+public interface HibernateI18NDAO<T extends AbstractI18NMetadata> extends I18NDAO<T>, BulkI18NDAO<T> {
     T getMetadata(String id, Session session) throws OwsExceptionReport;
 
     T getMetadata(String id, Locale locale, Session session) throws OwsExceptionReport;
@@ -56,6 +57,8 @@ public interface HibernateI18NDAO<T extends AbstractI18NMetadata> extends I18NDA
 
     Collection<T> getMetadata(Collection<String> id, String locale) throws OwsExceptionReport;
 
+    Collection<T> getMetadataForLocales(Collection<Locale> locales, Session session) throws OwsExceptionReport;
+
     void saveMetadata(T i18n, Session session) throws OwsExceptionReport;
 
     Collection<String> getAvailableLocales(Session session) throws OwsExceptionReport;
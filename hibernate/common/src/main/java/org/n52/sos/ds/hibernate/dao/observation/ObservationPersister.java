@@ -806,7 +806,11 @@ public class ObservationPersister
         // check if flag is set and if this observation is not a child
         // observation
         if (samplingGeometry != null && isUpdateFeatureGeometry() && parent != null) {
-            daos.feature().updateFeatureOfInterestGeometry(featureOfInterest, samplingGeometry, session);
+            if (daoFactory.isTrajectoryMode()) {
+                daos.feature().initFeatureOfInterestGeometry(featureOfInterest, samplingGeometry, session);
+            } else {
+                daos.feature().updateFeatureOfInterestGeometry(featureOfInterest, samplingGeometry, session);
+            }
         }
     }
 
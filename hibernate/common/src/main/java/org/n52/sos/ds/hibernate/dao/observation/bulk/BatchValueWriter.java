@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.bulk;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * {@link ValueWriter} using JDBC batches of single row inserts. It is used for
+ * all databases without a COPY protocol.
+ *
+ * @since 5.3.2
+ */
+final class BatchValueWriter implements ValueWriter {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final SharedSessionContractImplementor session;
+
+    BatchValueWriter(SharedSessionContractImplementor session) {
+        this.session = session;
+    }
+
+    @Override
+    public long write(Connection connection, ValueTableMapping mapping, List<BulkValue> values) throws SQLException {
+        long count = 0;
+        try (PreparedStatement statement = connection.prepareStatement(mapping.getInsertSql())) {
+            int batched = 0;
+            for (BulkValue value : values) {
+                mapping.bind(statement, value, session);
+                statement.addBatch();
+                if (++batched == BATCH_SIZE) {
+                    count += sum(statement.executeBatch());
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                count += sum(statement.executeBatch());
+            }
+        }
+        return count;
+    }
+
+    private static long sum(int[] counts) {
+        long sum = 0;
+        for (int count : counts) {
+            // drivers may only report the success of a batched statement
+            sum += count == PreparedStatement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        return sum;
+    }
+}
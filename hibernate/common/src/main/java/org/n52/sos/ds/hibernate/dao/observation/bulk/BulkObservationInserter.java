@@ -0,0 +1,334 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.bulk;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TimeZone;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.n52.series.db.beans.AbstractFeatureEntity;
+import org.n52.series.db.beans.DataEntity;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.series.db.beans.dataset.ValueType;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.SingleObservationValue;
+import org.n52.shetland.ogc.om.values.BooleanValue;
+import org.n52.shetland.ogc.om.values.CategoryValue;
+import org.n52.shetland.ogc.om.values.CountValue;
+import org.n52.shetland.ogc.om.values.QuantityValue;
+import org.n52.shetland.ogc.om.values.TextValue;
+import org.n52.shetland.ogc.om.values.Value;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.util.OMHelper;
+import org.n52.sos.ds.hibernate.dao.DaoFactory;
+import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesObservationDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * High-volume insertion of simple observation values into existing datasets.
+ *
+ * The values are collected by {@link #add(DatasetEntity, AbstractFeatureEntity, OmObservation, Session)} and
+ * written by {@link #flush(Session)} with set-based SQL on the connection of
+ * the current transaction, bypassing the Hibernate entity lifecycle. On
+ * PostgreSQL the values are streamed with the COPY protocol, on all other
+ * databases JDBC batches are used. Afterwards the first/last values of the
+ * datasets and the time extents of the offerings are updated in the same
+ * transaction.
+ *
+ * Only observations that the normal insertion would store as a single row are
+ * accepted: a quantity, count, text, category or boolean value without
+ * identifier, name, description, parameters or valid time for a dataset that
+ * already contains values of the same type and feature. All other
+ * observations have to be inserted by the
+ * {@link org.n52.sos.ds.hibernate.dao.observation.AbstractObservationDAO}.
+ *
+ * Instances are not thread safe and should be used for a single request.
+ *
+ * @since 5.3.2
+ */
+public class BulkObservationInserter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkObservationInserter.class);
+
+    private static final boolean COPY_AVAILABLE = isCopyAvailable();
+
+    private final DaoFactory daoFactory;
+
+    private final AbstractSeriesObservationDAO observationDAO;
+
+    private final Map<Class<?>, Optional<ValueTableMapping>> mappings = new HashMap<>();
+
+    private final Map<ValueTableMapping, List<BulkValue>> values = new LinkedHashMap<>();
+
+    private final Map<Long, DatasetExtent> extents = new LinkedHashMap<>();
+
+    public BulkObservationInserter(DaoFactory daoFactory) {
+        this.daoFactory = daoFactory;
+        this.observationDAO = daoFactory.getObservationDAO();
+    }
+
+    /**
+     * Add the observation to the bulk insertion, if it is supported.
+     *
+     * @param dataset
+     *            the dataset of the observation
+     * @param feature
+     *            the feature of interest of the observation
+     * @param observation
+     *            the observation
+     * @param session
+     *            Hibernate session
+     * @return {@code true} if the observation will be inserted by
+     *         {@link #flush(Session)}, {@code false} if it has to be inserted
+     *         the normal way
+     * @throws OwsExceptionReport
+     *             if the times of the observation are invalid
+     */
+    public boolean add(DatasetEntity dataset, AbstractFeatureEntity<?> feature, OmObservation observation,
+            Session session) throws OwsExceptionReport {
+        if (dataset == null || dataset.getId() == null || feature == null || feature.getId() == null
+                || !isSupported(observation)) {
+            return false;
+        }
+        // the dataset may be detached after the session was cleared
+        DatasetEntity current = session.get(DatasetEntity.class, dataset.getId());
+        Value<?> value = observation.getValue().getValue();
+        if (current == null || !isSupported(current, feature, value)) {
+            return false;
+        }
+        DataEntity<?> entity =
+                observationDAO.getObservationFactory().forObservationType(current.getOmObservationType().getFormat());
+        Optional<ValueTableMapping> mapping = getMapping(entity.getClass(), session);
+        if (!mapping.isPresent()) {
+            return false;
+        }
+        observationDAO.addPhenomenonTimeToObservation(entity, observation.getPhenomenonTime());
+        observationDAO.addResultTimeToObservation(entity, observation.getResultTime(),
+                observation.getPhenomenonTime());
+        BulkValue bulkValue = new BulkValue(current.getId(), entity.getSamplingTimeStart(),
+                entity.getSamplingTimeEnd(), entity.getResultTime(), value.getValue(), entity.generateUUID());
+        values.computeIfAbsent(mapping.get(), m -> new ArrayList<>()).add(bulkValue);
+        extents.computeIfAbsent(current.getId(), DatasetExtent::new).add(bulkValue);
+        return true;
+    }
+
+    /**
+     * @return if there are values to insert
+     */
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * Insert the collected values and update the affected datasets and
+     * offerings.
+     *
+     * @param session
+     *            Hibernate session
+     * @return the number of inserted values
+     * @throws OwsExceptionReport
+     *             if the datasets could not be updated
+     */
+    public long flush(Session session) throws OwsExceptionReport {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        // the values may reference entities inserted by this transaction
+        session.flush();
+        long count = 0;
+        for (Map.Entry<ValueTableMapping, List<BulkValue>> entry : values.entrySet()) {
+            count += session.doReturningWork(
+                    connection -> getWriter(connection, session).write(connection, entry.getKey(), entry.getValue()));
+        }
+        values.clear();
+        for (DatasetExtent extent : extents.values()) {
+            updateDataset(extent, session);
+        }
+        extents.clear();
+        session.flush();
+        LOGGER.debug("Inserted {} values by bulk ingest", count);
+        return count;
+    }
+
+    private void updateDataset(DatasetExtent extent, Session session) throws OwsExceptionReport {
+        DatasetEntity dataset = session.get(DatasetEntity.class, extent.getDataset());
+        if (!dataset.isSetFirstValueAt() || dataset.getFirstValueAt().after(extent.getSamplingTimeStart())) {
+            DataEntity<?> first = observationDAO.getFirstObservationFor(dataset, session);
+            if (first != null) {
+                daoFactory.getSeriesDAO().updateSeriesWithFirstLatestValues(dataset, first, session);
+            }
+        }
+        if (!dataset.isSetLastValueAt() || dataset.getLastValueAt().before(extent.getSamplingTimeEnd())) {
+            DataEntity<?> last = observationDAO.getLastObservationFor(dataset, session);
+            if (last != null) {
+                daoFactory.getSeriesDAO().updateSeriesWithFirstLatestValues(dataset, last, session);
+            }
+        }
+        String observationType = dataset.getOmObservationType().getFormat();
+        daoFactory.getOfferingDAO().updateOfferingMetadata(dataset.getOffering(),
+                extent.toObservation(observationDAO.getObservationFactory().forObservationType(observationType),
+                        dataset, extent.getResultTimeStart()),
+                session);
+        daoFactory.getOfferingDAO().updateOfferingMetadata(dataset.getOffering(),
+                extent.toObservation(observationDAO.getObservationFactory().forObservationType(observationType),
+                        dataset, extent.getResultTimeEnd()),
+                session);
+    }
+
+    private boolean isSupported(OmObservation observation) {
+        return observation.getValue() instanceof SingleObservationValue && observation.getValue().getValue() != null
+                && observation.getValue().getValue().isSetValue() && !observation.isSetIdentifier()
+                && !observation.isSetName() && !observation.isSetDescription() && !observation.isSetParameter()
+                && !observation.isSetValidTime();
+    }
+
+    private boolean isSupported(DatasetEntity dataset, AbstractFeatureEntity<?> feature, Value<?> value) {
+        return !dataset.isDeleted() && dataset.isSetFirstValueAt() && dataset.isSetOmObservationType()
+                && dataset.isSetFeature() && feature.getId().equals(dataset.getFeature().getId())
+                && (!value.isSetUnit() || dataset.hasUnit()) && getValueType(value) != null
+                && getValueType(value).equals(dataset.getValueType())
+                && OMHelper.getObservationTypeFor(value).equals(dataset.getOmObservationType().getFormat());
+    }
+
+    private ValueType getValueType(Value<?> value) {
+        if (value instanceof QuantityValue) {
+            return ValueType.quantity;
+        } else if (value instanceof CountValue) {
+            return ValueType.count;
+        } else if (value instanceof TextValue) {
+            return ValueType.text;
+        } else if (value instanceof CategoryValue) {
+            return ValueType.category;
+        } else if (value instanceof BooleanValue) {
+            return ValueType.bool;
+        }
+        return null;
+    }
+
+    private Optional<ValueTableMapping> getMapping(Class<?> entityClass, Session session) {
+        return mappings.computeIfAbsent(entityClass, c -> Optional
+                .ofNullable(ValueTableMapping.of(c, (SessionFactoryImplementor) session.getSessionFactory())));
+    }
+
+    private ValueWriter getWriter(Connection connection, Session session) throws SQLException {
+        SessionFactoryImplementor factory = (SessionFactoryImplementor) session.getSessionFactory();
+        if (COPY_AVAILABLE && CopyValueWriter.supports(connection)) {
+            TimeZone timeZone = factory.getSessionFactoryOptions().getJdbcTimeZone();
+            return new CopyValueWriter(timeZone);
+        }
+        return new BatchValueWriter((SharedSessionContractImplementor) session);
+    }
+
+    private static boolean isCopyAvailable() {
+        try {
+            Class.forName("org.postgresql.PGConnection", false, BulkObservationInserter.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * The time extent of the values inserted into a dataset.
+     */
+    private static final class DatasetExtent {
+
+        private final Long dataset;
+
+        private Date samplingTimeStart;
+
+        private Date samplingTimeEnd;
+
+        private Date resultTimeStart;
+
+        private Date resultTimeEnd;
+
+        DatasetExtent(Long dataset) {
+            this.dataset = dataset;
+        }
+
+        void add(BulkValue value) {
+            samplingTimeStart = min(samplingTimeStart, value.getSamplingTimeStart());
+            samplingTimeEnd = max(samplingTimeEnd, value.getSamplingTimeEnd());
+            resultTimeStart = min(resultTimeStart, value.getResultTime());
+            resultTimeEnd = max(resultTimeEnd, value.getResultTime());
+        }
+
+        Long getDataset() {
+            return dataset;
+        }
+
+        Date getSamplingTimeStart() {
+            return samplingTimeStart;
+        }
+
+        Date getSamplingTimeEnd() {
+            return samplingTimeEnd;
+        }
+
+        Date getResultTimeStart() {
+            return resultTimeStart;
+        }
+
+        Date getResultTimeEnd() {
+            return resultTimeEnd;
+        }
+
+        /**
+         * Create a transient observation spanning this extent to update the
+         * offering metadata.
+         */
+        DataEntity<?> toObservation(DataEntity<?> observation, DatasetEntity datasetEntity, Date resultTime) {
+            observation.setDataset(datasetEntity);
+            observation.setSamplingTimeStart(samplingTimeStart);
+            observation.setSamplingTimeEnd(samplingTimeEnd);
+            observation.setResultTime(resultTime);
+            return observation;
+        }
+
+        private static Date min(Date current, Date date) {
+            return current == null || (date != null && date.before(current)) ? date : current;
+        }
+
+        private static Date max(Date current, Date date) {
+            return current == null || (date != null && date.after(current)) ? date : current;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.bulk;
+
+import java.util.Date;
+
+/**
+ * A single value row of the bulk ingest, i.e. the columns of a value table
+ * that differ from observation to observation.
+ *
+ * @since 5.3.2
+ */
+final class BulkValue {
+
+    private final Long dataset;
+
+    private final Date samplingTimeStart;
+
+    private final Date samplingTimeEnd;
+
+    private final Date resultTime;
+
+    private final Object value;
+
+    private final String staIdentifier;
+
+    BulkValue(Long dataset, Date samplingTimeStart, Date samplingTimeEnd, Date resultTime, Object value,
+            String staIdentifier) {
+        this.dataset = dataset;
+        this.samplingTimeStart = samplingTimeStart;
+        this.samplingTimeEnd = samplingTimeEnd;
+        this.resultTime = resultTime;
+        this.value = value;
+        this.staIdentifier = staIdentifier;
+    }
+
+    Long getDataset() {
+        return dataset;
+    }
+
+    Date getSamplingTimeStart() {
+        return samplingTimeStart;
+    }
+
+    Date getSamplingTimeEnd() {
+        return samplingTimeEnd;
+    }
+
+    Date getResultTime() {
+        return resultTime;
+    }
+
+    Object getValue() {
+        return value;
+    }
+
+    String getStaIdentifier() {
+        return staIdentifier;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.bulk;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.n52.sos.ds.hibernate.dao.observation.bulk.ValueTableMapping.ValueColumn;
+
+/**
+ * Encodes {@link BulkValue}s as rows of the CSV format of the PostgreSQL COPY
+ * command.
+ *
+ * Timestamps are written with the offset of the JDBC time zone (or the
+ * default time zone of the JVM), which is what the JDBC driver sends for
+ * timestamps bound by Hibernate. Strings are always quoted, so that empty
+ * strings are not read as {@code NULL}.
+ *
+ * @since 5.3.2
+ */
+final class CopyRowEncoder {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSxxx");
+
+    private static final char DELIMITER = ',';
+
+    private static final char QUOTE = '"';
+
+    private static final char NEWLINE = '\n';
+
+    private final ZoneId zone;
+
+    CopyRowEncoder(TimeZone timeZone) {
+        this.zone = timeZone != null ? timeZone.toZoneId() : ZoneId.systemDefault();
+    }
+
+    void encode(StringBuilder builder, List<ValueColumn> columns, BulkValue value) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                builder.append(DELIMITER);
+            }
+            append(builder, columns.get(i).get(value));
+        }
+        builder.append(NEWLINE);
+    }
+
+    private void append(StringBuilder builder, Object value) {
+        if (value == null) {
+            return;
+        } else if (value instanceof Date) {
+            builder.append(TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(((Date) value).getTime()).atZone(zone)));
+        } else if (value instanceof Boolean) {
+            builder.append((Boolean) value ? 't' : 'f');
+        } else if (value instanceof BigDecimal) {
+            builder.append(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Number) {
+            builder.append(value);
+        } else {
+            builder.append(QUOTE);
+            String string = value.toString();
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                if (c == QUOTE) {
+                    builder.append(QUOTE);
+                }
+                builder.append(c);
+            }
+            builder.append(QUOTE);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.bulk;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ValueWriter} using the COPY protocol of PostgreSQL. The values are
+ * streamed into a temporary staging table and inserted into the value table
+ * with a single {@code INSERT ... SELECT}, which assigns the identifiers and
+ * fixed columns.
+ *
+ * This class must only be loaded if the PostgreSQL driver is available.
+ *
+ * @since 5.3.2
+ */
+final class CopyValueWriter implements ValueWriter {
+
+    static final String STAGING_TABLE = "sos_bulk_values";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CopyValueWriter.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CopyRowEncoder encoder;
+
+    CopyValueWriter(TimeZone timeZone) {
+        this.encoder = new CopyRowEncoder(timeZone);
+    }
+
+    static boolean supports(Connection connection) throws SQLException {
+        return connection.isWrapperFor(PGConnection.class);
+    }
+
+    @Override
+    public long write(Connection connection, ValueTableMapping mapping, List<BulkValue> values) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(mapping.getStagingTableSql(STAGING_TABLE));
+            long copied = copy(connection.unwrap(PGConnection.class).getCopyAPI(), mapping, values);
+            long inserted = statement.executeUpdate(mapping.getMergeSql(STAGING_TABLE));
+            statement.execute("drop table " + STAGING_TABLE);
+            LOGGER.debug("Copied {} and inserted {} values into {}", copied, inserted, mapping.getTable());
+            return inserted;
+        }
+    }
+
+    long copy(CopyManager copyManager, ValueTableMapping mapping, List<BulkValue> values) throws SQLException {
+        CopyIn copyIn = copyManager.copyIn(mapping.getCopySql(STAGING_TABLE));
+        try {
+            StringBuilder builder = new StringBuilder(BUFFER_SIZE);
+            for (BulkValue value : values) {
+                encoder.encode(builder, mapping.getValueColumns(), value);
+                if (builder.length() >= BUFFER_SIZE) {
+                    writeToCopy(copyIn, builder);
+                }
+            }
+            writeToCopy(copyIn, builder);
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private void writeToCopy(CopyIn copyIn, StringBuilder builder) throws SQLException {
+        if (builder.length() > 0) {
+            byte[] bytes = builder.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            builder.setLength(0);
+        }
+    }
+}
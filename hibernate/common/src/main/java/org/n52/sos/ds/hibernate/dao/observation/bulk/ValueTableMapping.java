@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.bulk;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.IdentityGenerator;
+import org.hibernate.id.enhanced.SequenceStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.persister.entity.SingleTableEntityPersister;
+import org.hibernate.type.LiteralType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.Type;
+import org.n52.series.db.beans.DataEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Physical mapping of a value entity used by the bulk ingest. It is resolved
+ * from the Hibernate metadata, so the mapping files stay the only place that
+ * knows about table and column names.
+ *
+ * The columns of an insert are split into the fixed columns, whose values are
+ * the same for all rows (identifier, discriminator and the non-nullable
+ * defaults of the entity), and the {@link ValueColumn value columns}, whose
+ * values are taken from the {@link BulkValue}.
+ *
+ * @since 5.3.2
+ */
+final class ValueTableMapping {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ValueTableMapping.class);
+
+    private static final String STA_IDENTIFIER = "staIdentifier";
+
+    private static final String SEPARATOR = ", ";
+
+    private final String table;
+
+    private final List<String> fixedColumns;
+
+    private final List<String> fixedExpressions;
+
+    private final List<String> valueColumnNames;
+
+    private final List<ValueColumn> valueColumns;
+
+    private final List<Type> valueTypes;
+
+    ValueTableMapping(String table, List<String> fixedColumns, List<String> fixedExpressions,
+            List<String> valueColumnNames, List<ValueColumn> valueColumns, List<Type> valueTypes) {
+        this.table = table;
+        this.fixedColumns = Collections.unmodifiableList(fixedColumns);
+        this.fixedExpressions = Collections.unmodifiableList(fixedExpressions);
+        this.valueColumnNames = Collections.unmodifiableList(valueColumnNames);
+        this.valueColumns = Collections.unmodifiableList(valueColumns);
+        this.valueTypes = Collections.unmodifiableList(valueTypes);
+    }
+
+    String getTable() {
+        return table;
+    }
+
+    List<ValueColumn> getValueColumns() {
+        return valueColumns;
+    }
+
+    /**
+     * @return the statement to insert a single row, the values of the
+     *         {@link #getValueColumns() value columns} are bound as parameters
+     */
+    String getInsertSql() {
+        return new StringBuilder().append("insert into ").append(table).append(" (").append(getColumnList())
+                .append(") values (").append(getFixedExpressionList())
+                .append(valueColumns.stream().map(c -> "?").collect(Collectors.joining(SEPARATOR))).append(")")
+                .toString();
+    }
+
+    /**
+     * @param source
+     *            the table containing the value columns
+     * @return the statement to insert all rows of the source table
+     */
+    String getMergeSql(String source) {
+        return new StringBuilder().append("insert into ").append(table).append(" (").append(getColumnList())
+                .append(") select ").append(getFixedExpressionList()).append(String.join(SEPARATOR, valueColumnNames))
+                .append(" from ").append(source).toString();
+    }
+
+    /**
+     * @param staging
+     *            the name of the staging table
+     * @return the statement to create a temporary table with the value
+     *         columns of this table
+     */
+    String getStagingTableSql(String staging) {
+        return new StringBuilder().append("create temporary table ").append(staging)
+                .append(" on commit drop as select ").append(String.join(SEPARATOR, valueColumnNames))
+                .append(" from ").append(table).append(" with no data").toString();
+    }
+
+    /**
+     * @param staging
+     *            the name of the staging table
+     * @return the statement to copy CSV rows of the value columns into the
+     *         staging table
+     */
+    String getCopySql(String staging) {
+        return new StringBuilder().append("copy ").append(staging).append(" (")
+                .append(String.join(SEPARATOR, valueColumnNames)).append(") from stdin with (format csv)")
+                .toString();
+    }
+
+    void bind(PreparedStatement statement, BulkValue value, SharedSessionContractImplementor session)
+            throws SQLException {
+        for (int i = 0; i < valueColumns.size(); i++) {
+            valueTypes.get(i).nullSafeSet(statement, valueColumns.get(i).get(value), i + 1, session);
+        }
+    }
+
+    private String getColumnList() {
+        List<String> columns = new ArrayList<>(fixedColumns);
+        columns.addAll(valueColumnNames);
+        return String.join(SEPARATOR, columns);
+    }
+
+    private String getFixedExpressionList() {
+        return fixedExpressions.isEmpty() ? "" : String.join(SEPARATOR, fixedExpressions) + SEPARATOR;
+    }
+
+    /**
+     * Resolve the mapping of the value entity.
+     *
+     * @param entityClass
+     *            the value entity
+     * @param factory
+     *            the session factory
+     * @return the mapping or {@code null} if the entity can not be inserted by
+     *         the bulk ingest
+     */
+    static ValueTableMapping of(Class<?> entityClass, SessionFactoryImplementor factory) {
+        EntityPersister entityPersister = factory.getMetamodel().entityPersister(entityClass);
+        if (!(entityPersister instanceof SingleTableEntityPersister)) {
+            return unsupported(entityClass, "no single table mapping");
+        }
+        SingleTableEntityPersister persister = (SingleTableEntityPersister) entityPersister;
+        Dialect dialect = factory.getJdbcServices().getDialect();
+        List<String> fixedColumns = new ArrayList<>();
+        List<String> fixedExpressions = new ArrayList<>();
+        List<String> valueColumnNames = new ArrayList<>();
+        List<ValueColumn> valueColumns = new ArrayList<>();
+        List<Type> valueTypes = new ArrayList<>();
+
+        IdentifierGenerator generator = persister.getIdentifierGenerator();
+        if (generator instanceof SequenceStyleGenerator
+                && ((SequenceStyleGenerator) generator).getDatabaseStructure() instanceof SequenceStructure) {
+            fixedColumns.add(persister.getIdentifierColumnNames()[0]);
+            fixedExpressions.add(dialect.getSelectSequenceNextValString(
+                    ((SequenceStyleGenerator) generator).getDatabaseStructure().getName()));
+        } else if (!(generator instanceof IdentityGenerator)) {
+            return unsupported(entityClass, "unsupported identifier generator");
+        }
+        if (persister.getDiscriminatorColumnName() != null && persister.getDiscriminatorFormulaTemplate() == null) {
+            fixedColumns.add(persister.getDiscriminatorColumnName());
+            fixedExpressions.add(persister.getDiscriminatorSQLValue());
+        }
+
+        Object template;
+        try {
+            template = persister.getMappedClass().newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            return unsupported(entityClass, e.getMessage());
+        }
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        boolean[] nullability = persister.getPropertyNullability();
+        boolean[] insertability = persister.getPropertyInsertability();
+        for (int i = 0; i < names.length; i++) {
+            String[] columns = persister.getPropertyColumnNames(i);
+            if (!insertability[i] || columns.length == 0) {
+                continue;
+            }
+            ValueColumn valueColumn = ValueColumn.forProperty(names[i]);
+            if (valueColumn != null) {
+                if (columns.length != 1) {
+                    return unsupported(entityClass, "multiple columns for " + names[i]);
+                }
+                valueColumnNames.add(columns[0]);
+                valueColumns.add(valueColumn);
+                valueTypes.add(valueColumn == ValueColumn.DATASET ? LongType.INSTANCE : types[i]);
+            } else if (!nullability[i]) {
+                Object value = DataEntity.PROPERTY_DELETED.equals(names[i]) ? Boolean.FALSE
+                        : persister.getPropertyValue(template, i);
+                String literal = toLiteral(value, types[i], dialect);
+                if (literal == null || columns.length != 1) {
+                    return unsupported(entityClass, "no default value for " + names[i]);
+                }
+                fixedColumns.add(columns[0]);
+                fixedExpressions.add(literal);
+            }
+        }
+        Set<ValueColumn> missing = EnumSet.complementOf(EnumSet.of(ValueColumn.STA_IDENTIFIER));
+        missing.removeAll(valueColumns);
+        if (!missing.isEmpty()) {
+            return unsupported(entityClass, "missing properties " + missing);
+        }
+        return new ValueTableMapping(persister.getTableName(), fixedColumns, fixedExpressions, valueColumnNames,
+                valueColumns, valueTypes);
+    }
+
+    private static String toLiteral(Object value, Type type, Dialect dialect) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        } else if (value instanceof Number) {
+            return value.toString();
+        } else if (value != null && type instanceof LiteralType) {
+            try {
+                @SuppressWarnings("unchecked")
+                LiteralType<Object> literalType = (LiteralType<Object>) type;
+                return literalType.objectToSQLString(value, dialect);
+            } catch (Exception e) {
+                LOGGER.debug("Error while creating literal for {}", value, e);
+            }
+        }
+        return null;
+    }
+
+    private static ValueTableMapping unsupported(Class<?> entityClass, String reason) {
+        LOGGER.debug("Bulk ingest is not supported for {}: {}", entityClass.getName(), reason);
+        return null;
+    }
+
+    /**
+     * The columns of a value table that are taken from the {@link BulkValue}.
+     */
+    enum ValueColumn {
+        DATASET(DataEntity.PROPERTY_DATASET, BulkValue::getDataset),
+        SAMPLING_TIME_START(DataEntity.PROPERTY_SAMPLING_TIME_START, BulkValue::getSamplingTimeStart),
+        SAMPLING_TIME_END(DataEntity.PROPERTY_SAMPLING_TIME_END, BulkValue::getSamplingTimeEnd),
+        RESULT_TIME(DataEntity.PROPERTY_RESULT_TIME, BulkValue::getResultTime),
+        VALUE(DataEntity.PROPERTY_VALUE, BulkValue::getValue),
+        STA_IDENTIFIER(ValueTableMapping.STA_IDENTIFIER, BulkValue::getStaIdentifier);
+
+        private final String property;
+
+        private final Function<BulkValue, Object> getter;
+
+        ValueColumn(String property, Function<BulkValue, Object> getter) {
+            this.property = property;
+            this.getter = getter;
+        }
+
+        Object get(BulkValue value) {
+            return getter.apply(value);
+        }
+
+        static ValueColumn forProperty(String property) {
+            for (ValueColumn column : values()) {
+                if (column.property.equals(property)) {
+                    return column;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -902,6 +902,7 @@ public abstract class AbstractSeriesDAO extends AbstractIdentifierNameDescriptio
                 series.setLastQuantityValue(null);
             }
             session.saveOrUpdate(series);
+            getDaoFactory().getLatestValueStore().remove(series.getId());
         }
         session.flush();
         return hSeries;
@@ -944,6 +945,9 @@ public abstract class AbstractSeriesDAO extends AbstractIdentifierNameDescriptio
         session.saveOrUpdate(dataset);
         session.flush();
         session.refresh(dataset);
+        if (maxChanged) {
+            getDaoFactory().getLatestValueStore().putAfterCommit(dataset, hObservation, session);
+        }
         updateSta(dataset, hObservation, session);
     }
 
@@ -996,6 +1000,7 @@ public abstract class AbstractSeriesDAO extends AbstractIdentifierNameDescriptio
         if (!series.isSetFirstValueAt() && !series.isSetLastValueAt()) {
             series.setUnit(null);
         }
+        getDaoFactory().getLatestValueStore().remove(series.getId());
         session.saveOrUpdate(series);
     }
 
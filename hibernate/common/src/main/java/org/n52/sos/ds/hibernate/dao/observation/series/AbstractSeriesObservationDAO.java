@@ -49,6 +49,7 @@ import org.hibernate.criterion.Restrictions;
 import org.hibernate.dialect.Dialect;
 import org.hibernate.engine.jdbc.spi.JdbcServices;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.Query;
 import org.hibernate.spatial.criterion.SpatialProjections;
 import org.hibernate.transform.ResultTransformer;
 import org.joda.time.DateTime;
@@ -75,6 +76,7 @@ import org.n52.sos.ds.hibernate.dao.observation.AbstractObservationDAO;
 import org.n52.sos.ds.hibernate.dao.observation.ObservationContext;
 import org.n52.sos.ds.hibernate.util.HibernateConstants;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
+import org.n52.sos.ds.hibernate.util.QueryHelper;
 import org.n52.sos.ds.hibernate.util.ResultFilterRestrictions;
 import org.n52.sos.ds.hibernate.util.ResultFilterRestrictions.SubQueryIdentifier;
 import org.n52.sos.ds.hibernate.util.ScrollableIterable;
@@ -957,7 +959,7 @@ public abstract class AbstractSeriesObservationDAO extends AbstractObservationDA
 
     public Map<Long, SeriesTimeExtrema> getMinMaxSeriesTimesById(Set<Long> serieses, Session session) {
         Criteria c = getDefaultObservationTimeCriteria(session);
-        c.add(Restrictions.in(DataEntity.PROPERTY_DATASET_ID, serieses));
+        c.add(QueryHelper.getCriterionForObjects(DataEntity.PROPERTY_DATASET_ID, serieses));
         c.setProjection(Projections.projectionList().add(Projections.groupProperty(DataEntity.PROPERTY_DATASET_ID))
                 .add(Projections.min(DataEntity.PROPERTY_SAMPLING_TIME_START))
                 .add(Projections.max(DataEntity.PROPERTY_SAMPLING_TIME_END)));
@@ -986,6 +988,65 @@ public abstract class AbstractSeriesObservationDAO extends AbstractObservationDA
         return (DataEntity<?>) c.uniqueResult();
     }
 
+    /**
+     * Get the observations with the minimum phenomenon start time of each of
+     * the datasets in one query per chunk of dataset ids.
+     *
+     * @param serieses
+     *            the dataset ids
+     * @param session
+     *            Hibernate session
+     * @return the first observation by dataset id
+     */
+    public Map<Long, DataEntity<?>> getMinObservations(Collection<Long> serieses, Session session) {
+        return getExtremeObservations(serieses, DataEntity.PROPERTY_SAMPLING_TIME_START, "min", session);
+    }
+
+    /**
+     * Get the observations with the maximum phenomenon end time of each of
+     * the datasets in one query per chunk of dataset ids.
+     *
+     * @param serieses
+     *            the dataset ids
+     * @param session
+     *            Hibernate session
+     * @return the latest observation by dataset id
+     */
+    public Map<Long, DataEntity<?>> getMaxObservations(Collection<Long> serieses, Session session) {
+        return getExtremeObservations(serieses, DataEntity.PROPERTY_SAMPLING_TIME_END, "max", session);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, DataEntity<?>> getExtremeObservations(Collection<Long> serieses, String timeProperty,
+            String function, Session session) {
+        String entity = getObservationFactory().observationClass().getSimpleName();
+        StringBuilder builder = new StringBuilder();
+        builder.append("select o from ").append(entity).append(" o where o.").append(DataEntity.PROPERTY_DELETED)
+                .append(" = false and o.").append(DataEntity.PROPERTY_DATASET_ID).append(" in :")
+                .append(DataEntity.PROPERTY_DATASET);
+        if (!getDaoFactory().isIncludeChildObservableProperties()) {
+            builder.append(" and o.").append(DataEntity.PROPERTY_PARENT).append(" is null");
+        }
+        builder.append(" and o.").append(timeProperty).append(" = (select ").append(function).append("(o2.")
+                .append(timeProperty).append(") from ").append(entity).append(" o2 where o2.")
+                .append(DataEntity.PROPERTY_DATASET_ID).append(" = o.").append(DataEntity.PROPERTY_DATASET_ID)
+                .append(" and o2.").append(DataEntity.PROPERTY_DELETED).append(" = false");
+        if (!getDaoFactory().isIncludeChildObservableProperties()) {
+            builder.append(" and o2.").append(DataEntity.PROPERTY_PARENT).append(" is null");
+        }
+        builder.append(")");
+        Map<Long, DataEntity<?>> observations = Maps.newHashMap();
+        for (List<Long> ids : HibernateHelper.getValidSizedLists(serieses)) {
+            Query<DataEntity<?>> q = session.createQuery(builder.toString());
+            q.setParameterList(DataEntity.PROPERTY_DATASET, ids);
+            LOGGER.trace("QUERY getExtremeObservations({}): {}", function, builder);
+            for (DataEntity<?> observation : q.list()) {
+                observations.putIfAbsent(observation.getDataset().getId(), observation);
+            }
+        }
+        return observations;
+    }
+
     private static class SeriesTimeTransformer implements ResultTransformer {
         private static final long serialVersionUID = -373512929481519459L;
 
@@ -28,27 +28,62 @@
  */
 package org.n52.sos.ds.hibernate.dao.observation.series;
 
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.TimeZone;
 
+import org.hibernate.CacheMode;
 import org.hibernate.Criteria;
+import org.hibernate.ScrollMode;
 import org.hibernate.Session;
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projection;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.Query;
+import org.hibernate.type.StandardBasicTypes;
+import org.hibernate.type.Type;
 import org.n52.series.db.beans.DataEntity;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.shetland.ogc.filter.TemporalFilter;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.sos.request.AbstractObservationRequest;
 import org.n52.shetland.ogc.sos.request.GetObservationRequest;
 import org.n52.sos.ds.hibernate.dao.DaoFactory;
 import org.n52.sos.ds.hibernate.dao.observation.AbstractValueDAO;
+import org.n52.sos.ds.hibernate.dao.observation.series.SeriesValueQueryPlanCache.Plan;
+import org.n52.sos.ds.hibernate.util.HibernateConstants;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
 import org.n52.sos.ds.hibernate.util.ResultFilterRestrictions;
 import org.n52.sos.ds.hibernate.util.ResultFilterRestrictions.SubQueryIdentifier;
+import org.n52.sos.ds.hibernate.util.ScrollableIterable;
+import org.n52.sos.ds.hibernate.util.aggregation.Aggregation;
+import org.n52.sos.ds.hibernate.util.aggregation.AggregationFunction;
+import org.n52.sos.ds.hibernate.util.aggregation.ValueAggregator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Lists;
+
 /**
  * Abstract value data access object class for {@link DataEntity}
  *
@@ -62,6 +97,10 @@ public abstract class AbstractSeriesValueDAO extends AbstractValueDAO {
 
     private static final String QUERY_STREAMING_SERIES_VALUE = "QUERY getStreamingSeriesValuesFor({}): {}";
 
+    private static final String BUCKET = "bucket";
+
+    private static final String BUCKET_EXPRESSION = "cast(floor(extract(epoch from %s) * 1000 / %d) as bigint)";
+
     public AbstractSeriesValueDAO(DaoFactory daoFactory) {
         super(daoFactory);
     }
@@ -93,6 +132,11 @@ public abstract class AbstractSeriesValueDAO extends AbstractValueDAO {
     public List<DataEntity<?>> getStreamingSeriesValuesFor(AbstractObservationRequest request, long series,
             Criterion temporalFilterCriterion, int chunkSize, int currentRow, Session session)
             throws OwsExceptionReport {
+        List<DataEntity<?>> planned = getStreamingSeriesValuesFromPlan(request, series,
+                temporalFilterCriterion != null, chunkSize, currentRow, session);
+        if (planned != null) {
+            return planned;
+        }
         StringBuilder logArgs = new StringBuilder();
         Criteria c = getSeriesValueCriteriaFor(request, series, temporalFilterCriterion, session, logArgs);
         addChunkValuesToCriteria(c, chunkSize, currentRow, request, logArgs);
@@ -123,6 +167,11 @@ public abstract class AbstractSeriesValueDAO extends AbstractValueDAO {
     public List<DataEntity<?>> getStreamingSeriesValuesFor(AbstractObservationRequest request, Set<Long> series,
             Criterion temporalFilterCriterion, int chunkSize, int currentRow, Session session)
             throws OwsExceptionReport {
+        List<DataEntity<?>> planned = getStreamingSeriesValuesFromPlan(request, series,
+                temporalFilterCriterion != null, chunkSize, currentRow, session);
+        if (planned != null) {
+            return planned;
+        }
         if (request instanceof GetObservationRequest && ((GetObservationRequest) request).hasResultFilter()) {
             StringBuilder logArgs = new StringBuilder();
             List<DataEntity<?>> list = new LinkedList<>();
@@ -166,6 +215,11 @@ public abstract class AbstractSeriesValueDAO extends AbstractValueDAO {
     @SuppressWarnings("unchecked")
     public List<DataEntity<?>> getStreamingSeriesValuesFor(AbstractObservationRequest request, Set<Long> series,
             int chunkSize, int currentRow, Session session) throws OwsExceptionReport {
+        List<DataEntity<?>> planned =
+                getStreamingSeriesValuesFromPlan(request, series, false, chunkSize, currentRow, session);
+        if (planned != null) {
+            return planned;
+        }
         if (request instanceof GetObservationRequest && ((GetObservationRequest) request).hasResultFilter()) {
             List<DataEntity<?>> list = new LinkedList<>();
             for (SubQueryIdentifier identifier : ResultFilterRestrictions
@@ -209,6 +263,11 @@ public abstract class AbstractSeriesValueDAO extends AbstractValueDAO {
     @SuppressWarnings("unchecked")
     public List<DataEntity<?>> getStreamingSeriesValuesFor(AbstractObservationRequest request, long series,
             int chunkSize, int currentRow, Session session) throws OwsExceptionReport {
+        List<DataEntity<?>> planned =
+                getStreamingSeriesValuesFromPlan(request, series, false, chunkSize, currentRow, session);
+        if (planned != null) {
+            return planned;
+        }
         if (request instanceof GetObservationRequest && ((GetObservationRequest) request).hasResultFilter()) {
             StringBuilder logArgs = new StringBuilder();
             List<DataEntity<?>> list = new LinkedList<>();
@@ -232,6 +291,190 @@ public abstract class AbstractSeriesValueDAO extends AbstractValueDAO {
         }
     }
 
+    /**
+     * Scroll forward only through the values of the series, e.g. to aggregate
+     * them without paging by offset and limit. The caller has to close the
+     * result.
+     *
+     * @param request
+     *            {@link AbstractObservationRequest}
+     * @param series
+     *            Datasource series id
+     * @param temporalFilterCriterion
+     *            Temporal filter {@link Criterion}, may be {@code null}
+     * @param fetchSize
+     *            JDBC fetch size hint, ignored if not positive
+     * @param session
+     *            Hibernate Session
+     * @return the scrollable values
+     * @throws OwsExceptionReport
+     *             If an error occurs when querying
+     */
+    public ScrollableIterable<DataEntity<?>> scrollSeriesValuesFor(AbstractObservationRequest request, long series,
+            Criterion temporalFilterCriterion, int fetchSize, Session session) throws OwsExceptionReport {
+        StringBuilder logArgs = new StringBuilder();
+        Criteria c = getSeriesValueCriteriaFor(request, series, temporalFilterCriterion, session, logArgs);
+        if (request instanceof GetObservationRequest && ((GetObservationRequest) request).hasResultFilter()) {
+            // one query for all sub queries, so the values stay ordered
+            List<Criterion> resultFilters = new LinkedList<>();
+            for (SubQueryIdentifier identifier : ResultFilterRestrictions
+                    .getSubQueryIdentifier(getResultFilterClasses())) {
+                Criterion expression = ResultFilterRestrictions.getResultFilterExpression(
+                        ((GetObservationRequest) request).getResultFilter(), getResultFilterClasses(),
+                        DataEntity.PROPERTY_ID, identifier);
+                if (expression != null) {
+                    resultFilters.add(expression);
+                }
+            }
+            if (!resultFilters.isEmpty()) {
+                c.add(Restrictions.or(resultFilters.toArray(new Criterion[resultFilters.size()])));
+                logArgs.append(", resultFilter");
+            }
+        }
+        if (fetchSize > 0) {
+            c.setFetchSize(fetchSize);
+        }
+        c.setCacheMode(CacheMode.IGNORE);
+        LOGGER.trace("QUERY scrollSeriesValuesFor({}): {}", logArgs, HibernateHelper.getSqlString(c));
+        return ScrollableIterable.fromResults(c.scroll(ScrollMode.FORWARD_ONLY));
+    }
+
+    /**
+     * Query the quantity values of the series aggregated per interval with a
+     * grouped query. The aggregation is only computed in the database for
+     * the functions min, max, avg and count on PostgreSQL and if no filters
+     * are requested that need further restrictions.
+     *
+     * @param request
+     *            {@link AbstractObservationRequest}, may be {@code null}
+     * @param series
+     *            Datasource series id
+     * @param temporalFilterCriterion
+     *            Temporal filter {@link Criterion}, may be {@code null}
+     * @param aggregation
+     *            the aggregation
+     * @param session
+     *            Hibernate Session
+     * @return the aggregated values ordered by phenomenon time or {@code null}
+     *         if the aggregation can not be computed in the database
+     */
+    public List<DataEntity<?>> getAggregatedSeriesValuesFor(AbstractObservationRequest request, long series,
+            Criterion temporalFilterCriterion, Aggregation aggregation, Session session) {
+        String column = getAggregationTimeColumn(request, aggregation, session);
+        if (column == null) {
+            return null;
+        }
+        SessionFactoryImplementor factory = (SessionFactoryImplementor) session.getSessionFactory();
+        TimeZone timeZone = factory.getSessionFactoryOptions().getJdbcTimeZone();
+        Criteria c = session.createCriteria(getValuedObservationFactory().numericClass())
+                .add(Restrictions.eq(DataEntity.PROPERTY_DELETED, false))
+                .add(Restrictions.isNull(DataEntity.PROPERTY_PARENT))
+                .add(Restrictions.eq(DataEntity.PROPERTY_DATASET_ID, series))
+                .add(Restrictions.isNotNull(DataEntity.PROPERTY_VALUE));
+        if (temporalFilterCriterion != null) {
+            c.add(temporalFilterCriterion);
+        }
+        String bucket = getBucketExpression(column, isTimestampWithTimeZone(factory.getJdbcServices().getDialect()),
+                timeZone != null ? timeZone : TimeZone.getDefault(), aggregation.getInterval());
+        c.setProjection(Projections.projectionList()
+                .add(Projections.sqlGroupProjection(bucket + " as " + BUCKET, bucket, new String[] { BUCKET },
+                        new Type[] { StandardBasicTypes.LONG }))
+                .add(getAggregationProjection(aggregation))
+                .add(Projections.min(DataEntity.PROPERTY_SAMPLING_TIME_START))
+                .add(Projections.max(DataEntity.PROPERTY_SAMPLING_TIME_END))
+                .add(Projections.max(DataEntity.PROPERTY_RESULT_TIME))
+                .add(Projections.min(DataEntity.PROPERTY_ID)));
+        c.setReadOnly(true);
+        LOGGER.trace("QUERY getAggregatedSeriesValuesFor({}, {}): {}", series, aggregation,
+                HibernateHelper.getSqlString(c));
+        DatasetEntity dataset = session.load(DatasetEntity.class, series);
+        List<DataEntity<?>> values = new ArrayList<>();
+        for (Object row : c.list()) {
+            Object[] columns = (Object[]) row;
+            if (columns[1] == null) {
+                continue;
+            }
+            if (aggregation.getFunction() == AggregationFunction.COUNT) {
+                values.add(ValueAggregator.createAggregatedCount((Long) columns[5], dataset, (Date) columns[2],
+                        (Date) columns[3], (Date) columns[4], ((Number) columns[1]).longValue()));
+            } else {
+                values.add(ValueAggregator.createAggregatedValue((Long) columns[5], dataset, (Date) columns[2],
+                        (Date) columns[3], (Date) columns[4], new BigDecimal(columns[1].toString())));
+            }
+        }
+        values.sort(Comparator.comparing(DataEntity::getSamplingTimeStart));
+        return values;
+    }
+
+    /**
+     * Get the SQL expression of the interval bucket of a time column. Like the
+     * {@link ValueAggregator} it divides the epoch milliseconds by the
+     * interval. A timestamp without time zone is interpreted in the time zone
+     * Hibernate writes the timestamps with, so both compute the same buckets.
+     *
+     * @param column
+     *            the time column
+     * @param withTimeZone
+     *            if the column is a timestamp with time zone
+     * @param timeZone
+     *            the JDBC time zone of the session factory
+     * @param interval
+     *            the interval in milliseconds
+     * @return the bucket expression
+     */
+    static String getBucketExpression(String column, boolean withTimeZone, TimeZone timeZone, long interval) {
+        String time = "{alias}." + column;
+        if (!withTimeZone) {
+            time += " at time zone '" + timeZone.getID().replace("'", "''") + "'";
+        }
+        return String.format(BUCKET_EXPRESSION, time, interval);
+    }
+
+    private static boolean isTimestampWithTimeZone(Dialect dialect) {
+        String type = dialect.getTypeName(Types.TIMESTAMP).toLowerCase(Locale.ROOT);
+        return type.contains("with time zone") || type.startsWith("timestamptz");
+    }
+
+    private Projection getAggregationProjection(Aggregation aggregation) {
+        switch (aggregation.getFunction()) {
+            case MIN:
+                return Projections.min(DataEntity.PROPERTY_VALUE);
+            case MAX:
+                return Projections.max(DataEntity.PROPERTY_VALUE);
+            case AVG:
+                return Projections.avg(DataEntity.PROPERTY_VALUE);
+            default:
+                return Projections.count(DataEntity.PROPERTY_VALUE);
+        }
+    }
+
+    /**
+     * Get the phenomenon time column to group the values by if the
+     * aggregation can be computed in the database.
+     *
+     * @return the column or {@code null} if not supported
+     */
+    private String getAggregationTimeColumn(AbstractObservationRequest request, Aggregation aggregation,
+            Session session) {
+        if (!aggregation.getFunction().isDatabaseSupported() || !isQueryPlanSupported()
+                || getDaoFactory().isIncludeChildObservableProperties()) {
+            return null;
+        }
+        if (request instanceof GetObservationRequest
+                && (((GetObservationRequest) request).hasSpatialFilteringProfileSpatialFilter()
+                        || ((GetObservationRequest) request).hasResultFilter())) {
+            return null;
+        }
+        SessionFactoryImplementor factory = (SessionFactoryImplementor) session.getSessionFactory();
+        EntityPersister persister =
+                factory.getMetamodel().entityPersister(getValuedObservationFactory().numericClass());
+        if (!(factory.getJdbcServices().getDialect() instanceof PostgreSQL81Dialect)
+                || !(persister instanceof AbstractEntityPersister)) {
+            return null;
+        }
+        return ((AbstractEntityPersister) persister).getPropertyColumnNames(DataEntity.PROPERTY_SAMPLING_TIME_START)[0];
+    }
+
     /**
      * Get {@link Criteria} for parameter
      *
@@ -298,6 +541,105 @@ public abstract class AbstractSeriesValueDAO extends AbstractValueDAO {
         return c.setReadOnly(true);
     }
 
+    /**
+     * Query streaming value with the cached query plan for the shape of the
+     * request.
+     *
+     * @param request
+     *            {@link AbstractObservationRequest}
+     * @param series
+     *            Datasource series id or ids
+     * @param temporalFiltered
+     *            if the caller restricts the values by the temporal filters of
+     *            the request
+     * @param chunkSize
+     *            Chunk size
+     * @param currentRow
+     *            Start row
+     * @param session
+     *            Hibernate Session
+     * @return Resulting chunk {@link List} or {@code null} if the request is
+     *         not supported by a query plan
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private List<DataEntity<?>> getStreamingSeriesValuesFromPlan(AbstractObservationRequest request, Object series,
+            boolean temporalFiltered, int chunkSize, int currentRow, Session session) {
+        if (!isQueryPlanSupported() || !(request instanceof GetObservationRequest)
+                || getDaoFactory().isIncludeChildObservableProperties()) {
+            return null;
+        }
+        GetObservationRequest getObsReq = (GetObservationRequest) request;
+        if (getObsReq.hasSpatialFilteringProfileSpatialFilter() || getObsReq.hasResultFilter()) {
+            return null;
+        }
+        List<TemporalFilter> filters = getObsReq.hasTemporalFilters() ? getObsReq.getNotFirstLatestTemporalFilter()
+                : null;
+        if (filters == null) {
+            filters = Collections.emptyList();
+        }
+        if (temporalFiltered == filters.isEmpty()) {
+            return null;
+        }
+        Plan plan = getDaoFactory().getSeriesValueQueryPlanCache().getPlan(getSeriesValueClass().getName(),
+                getOrderColumn(request), series instanceof Collection, filters);
+        if (plan == null) {
+            return null;
+        }
+        if (chunkSize <= 0) {
+            Query<DataEntity> query = plan.bind(session.createQuery(plan.getValueQuery(), DataEntity.class), series,
+                    filters);
+            LOGGER.trace(QUERY_STREAMING_SERIES_VALUE, "request, series, plan", plan.getValueQuery());
+            return distinct((List) query.setReadOnly(true).list());
+        }
+        Query<Long> idQuery = plan.bind(session.createQuery(plan.getIdQuery(), Long.class), series, filters);
+        idQuery.setFirstResult(currentRow).setMaxResults(chunkSize).setReadOnly(true);
+        LOGGER.trace(QUERY_STREAMING_SERIES_VALUE, "request, series, plan, chunk(" + currentRow + "," + chunkSize
+                + ")", plan.getIdQuery());
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(idQuery.list()));
+        Map<Long, DataEntity<?>> values = new HashMap<>(ids.size());
+        for (List<Long> partition : Lists.partition(ids, HibernateConstants.LIMIT_EXPRESSION_DEPTH - 1)) {
+            Query<DataEntity> query = session.createQuery(plan.getValueByIdQuery(), DataEntity.class)
+                    .setParameterList(SeriesValueQueryPlanCache.PARAMETER_IDS, partition);
+            for (DataEntity<?> value : (List<DataEntity<?>>) (List) query.setReadOnly(true).list()) {
+                values.put(value.getId(), value);
+            }
+        }
+        List<DataEntity<?>> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (values.containsKey(id)) {
+                result.add(values.get(id));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Remove duplicate root entities of a fetch join like
+     * {@link Criteria#DISTINCT_ROOT_ENTITY}.
+     */
+    private static List<DataEntity<?>> distinct(List<DataEntity<?>> values) {
+        Set<DataEntity<?>> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<DataEntity<?>> result = new ArrayList<>(values.size());
+        for (DataEntity<?> value : values) {
+            if (seen.add(value)) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Indicates if the values can be queried with a cached query plan. Must
+     * only return {@code true} if
+     * {@link #addSpecificRestrictions(Criteria, GetObservationRequest, StringBuilder)}
+     * does not add restrictions.
+     *
+     * @return {@code true}, if query plans are supported
+     */
+    protected boolean isQueryPlanSupported() {
+        return false;
+    }
+
     /**
      * Get default {@link Criteria} for {@link Class}
      *
@@ -28,13 +28,20 @@
  */
 package org.n52.sos.ds.hibernate.dao.observation.series;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.hibernate.Criteria;
 import org.hibernate.Session;
 import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Disjunction;
 import org.hibernate.criterion.ProjectionList;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
@@ -163,6 +170,50 @@ public abstract class AbstractSeriesValueTimeDAO extends AbstractValueTimeDAO {
         }
     }
 
+    /**
+     * Get {@link ObservationTimeExtrema} for each of the dataset ids with a
+     * single grouped query per chunk of ids instead of one query per dataset.
+     *
+     * @param request
+     *            {@link AbstractObservationRequest} request
+     * @param series
+     *            Dataset ids to get time extrema for
+     * @param temporalFilterCriterion
+     *            Temporal filter
+     * @param session
+     *            Hibernate session
+     * @return Time extrema by dataset id, datasets without matching values are
+     *         missing
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Long, ObservationTimeExtrema> getTimeExtremaPerSeries(AbstractObservationRequest request,
+            Collection<Long> series, Criterion temporalFilterCriterion, Session session) throws OwsExceptionReport {
+        Map<Long, ObservationTimeExtrema> extrema = new HashMap<>(series.size());
+        if (request instanceof GetObservationRequest && ((GetObservationRequest) request).hasResultFilter()) {
+            // result filter sub queries can not be grouped
+            for (Long s : series) {
+                extrema.put(s, getTimeExtremaForSeries(request, s, temporalFilterCriterion, session));
+            }
+            return extrema;
+        }
+        for (List<Long> ids : HibernateHelper.getValidSizedLists(series)) {
+            Criteria c = getSeriesValueCriteriaFor(request, new HashSet<>(ids), temporalFilterCriterion, null,
+                    session);
+            ProjectionList projectionList = Projections.projectionList();
+            projectionList.add(Projections.groupProperty(DataEntity.PROPERTY_DATASET_ID));
+            addMinMaxTimeProjection(projectionList);
+            c.setProjection(projectionList);
+            LOGGER.trace("QUERY getTimeExtremaPerSeries(request, series, temporalFilter): {}",
+                    HibernateHelper.getSqlString(c));
+            for (Object[] result : (List<Object[]>) c.list()) {
+                extrema.put((Long) result[0], parseMinMaxTime(Arrays.copyOfRange(result, 1, result.length)));
+            }
+        }
+        return extrema;
+    }
+
     /**
      * Get {@link ObservationTimeExtrema} for a dataset.
      *
@@ -207,8 +258,8 @@ public abstract class AbstractSeriesValueTimeDAO extends AbstractValueTimeDAO {
      */
     public DataEntity getMinSeriesValueFor(AbstractObservationRequest request, long series,
             Criterion temporalFilterCriterion, Session session) throws OwsExceptionReport {
-        return (DataEntity) getSeriesValueCriteriaFor(request, series, temporalFilterCriterion,
-                ExtendedIndeterminateTime.FIRST, session).uniqueResult();
+        return getMinSeriesValuesFor(request, Collections.singleton(series), temporalFilterCriterion, session)
+                .get(series);
     }
 
     /**
@@ -226,8 +277,29 @@ public abstract class AbstractSeriesValueTimeDAO extends AbstractValueTimeDAO {
      */
     public DataEntity getMinSeriesValueFor(AbstractObservationRequest request, long series, Session session)
             throws OwsExceptionReport {
-        return (DataEntity) getSeriesValueCriteriaFor(request, series, null, ExtendedIndeterminateTime.FIRST, session)
-                .uniqueResult();
+        return getMinSeriesValueFor(request, series, null, session);
+    }
+
+    /**
+     * Query the minimum {@link DataEntity} of each of the datasets.
+     *
+     * @param request
+     *            {@link AbstractObservationRequest}
+     * @param series
+     *            Datasource series ids
+     * @param temporalFilterCriterion
+     *            Temporal filter {@link Criterion}
+     * @param session
+     *            Hibernate Session
+     * @return Resulting minimum {@link DataEntity} by dataset id, datasets
+     *         without matching values are missing
+     * @throws OwsExceptionReport
+     *             If an error occurs when executing the query
+     */
+    public Map<Long, DataEntity<?>> getMinSeriesValuesFor(AbstractObservationRequest request,
+            Collection<Long> series, Criterion temporalFilterCriterion, Session session) throws OwsExceptionReport {
+        return getExtremeSeriesValuesFor(request, series, temporalFilterCriterion, ExtendedIndeterminateTime.FIRST,
+                session);
     }
 
     /**
@@ -247,8 +319,8 @@ public abstract class AbstractSeriesValueTimeDAO extends AbstractValueTimeDAO {
      */
     public DataEntity getMaxSeriesValueFor(AbstractObservationRequest request, long series,
             Criterion temporalFilterCriterion, Session session) throws OwsExceptionReport {
-        return (DataEntity) getSeriesValueCriteriaFor(request, series, temporalFilterCriterion,
-                ExtendedIndeterminateTime.LATEST, session).uniqueResult();
+        return getMaxSeriesValuesFor(request, Collections.singleton(series), temporalFilterCriterion, session)
+                .get(series);
     }
 
     /**
@@ -266,8 +338,75 @@ public abstract class AbstractSeriesValueTimeDAO extends AbstractValueTimeDAO {
      */
     public DataEntity getMaxSeriesValueFor(AbstractObservationRequest request, long series, Session session)
             throws OwsExceptionReport {
-        return (DataEntity) getSeriesValueCriteriaFor(request, series, null, ExtendedIndeterminateTime.LATEST, session)
-                .uniqueResult();
+        return getMaxSeriesValueFor(request, series, null, session);
+    }
+
+    /**
+     * Query the maximum {@link DataEntity} of each of the datasets.
+     *
+     * @param request
+     *            {@link AbstractObservationRequest}
+     * @param series
+     *            Datasource series ids
+     * @param temporalFilterCriterion
+     *            Temporal filter {@link Criterion}
+     * @param session
+     *            Hibernate Session
+     * @return Resulting maximum {@link DataEntity} by dataset id, datasets
+     *         without matching values are missing
+     * @throws OwsExceptionReport
+     *             If an error occurs when executing the query
+     */
+    public Map<Long, DataEntity<?>> getMaxSeriesValuesFor(AbstractObservationRequest request,
+            Collection<Long> series, Criterion temporalFilterCriterion, Session session) throws OwsExceptionReport {
+        return getExtremeSeriesValuesFor(request, series, temporalFilterCriterion, ExtendedIndeterminateTime.LATEST,
+                session);
+    }
+
+    /**
+     * Query the first or latest values of the datasets with one grouped query
+     * for the extrema times and one query for the values per chunk of ids.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Long, DataEntity<?>> getExtremeSeriesValuesFor(AbstractObservationRequest request,
+            Collection<Long> series, Criterion temporalFilterCriterion, IndeterminateValue sosIndeterminateTime,
+            Session session) throws OwsExceptionReport {
+        Map<Long, DataEntity<?>> values = new HashMap<>(series.size());
+        if (request instanceof GetObservationRequest && ((GetObservationRequest) request).hasResultFilter()) {
+            // result filter sub queries can not be grouped
+            for (Long s : series) {
+                DataEntity<?> value = (DataEntity<?>) getSeriesValueCriteriaFor(request, s, temporalFilterCriterion,
+                        sosIndeterminateTime, session).uniqueResult();
+                if (value != null) {
+                    values.put(s, value);
+                }
+            }
+            return values;
+        }
+        boolean first = ExtendedIndeterminateTime.FIRST.equals(sosIndeterminateTime);
+        String timeProperty = first ? DataEntity.PROPERTY_SAMPLING_TIME_START : DataEntity.PROPERTY_SAMPLING_TIME_END;
+        for (List<Long> ids : HibernateHelper.getValidSizedLists(series)) {
+            Criteria times = getSeriesValueCriteriaFor(request, new HashSet<>(ids), temporalFilterCriterion, null,
+                    session);
+            times.setProjection(Projections.projectionList()
+                    .add(Projections.groupProperty(DataEntity.PROPERTY_DATASET_ID))
+                    .add(first ? Projections.min(timeProperty) : Projections.max(timeProperty)));
+            LOGGER.trace("QUERY getExtremeSeriesValuesFor({}): {}", sosIndeterminateTime,
+                    HibernateHelper.getSqlString(times));
+            Disjunction extrema = Restrictions.disjunction();
+            for (Object[] result : (List<Object[]>) times.list()) {
+                extrema.add(Restrictions.and(Restrictions.eq(DataEntity.PROPERTY_DATASET_ID, result[0]),
+                        Restrictions.eq(timeProperty, result[1])));
+            }
+            if (extrema.conditions().iterator().hasNext()) {
+                Criteria c = getSeriesValueCriteriaFor(request, new HashSet<>(ids), temporalFilterCriterion, null,
+                        session).add(extrema);
+                for (DataEntity<?> value : (List<DataEntity<?>>) c.list()) {
+                    values.putIfAbsent(value.getDataset().getId(), value);
+                }
+            }
+        }
+        return values;
     }
 
     @Override
@@ -312,6 +451,11 @@ public abstract class AbstractSeriesValueTimeDAO extends AbstractValueTimeDAO {
 
     private void addMinMaxTimeProjection(Criteria c) {
         ProjectionList projectionList = Projections.projectionList();
+        addMinMaxTimeProjection(projectionList);
+        c.setProjection(projectionList);
+    }
+
+    private void addMinMaxTimeProjection(ProjectionList projectionList) {
         projectionList.add(Projections.min(DataEntity.PROPERTY_SAMPLING_TIME_START));
         projectionList.add(Projections.max(DataEntity.PROPERTY_SAMPLING_TIME_END));
         projectionList.add(Projections.max(DataEntity.PROPERTY_RESULT_TIME));
@@ -320,7 +464,6 @@ public abstract class AbstractSeriesValueTimeDAO extends AbstractValueTimeDAO {
             projectionList.add(Projections.min(DataEntity.PROPERTY_VALID_TIME_START));
             projectionList.add(Projections.max(DataEntity.PROPERTY_VALID_TIME_END));
         }
-        c.setProjection(projectionList);
     }
 
     private ObservationTimeExtrema parseMinMaxTime(Object[] result) {
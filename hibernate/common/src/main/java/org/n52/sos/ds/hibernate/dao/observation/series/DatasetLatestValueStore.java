@@ -0,0 +1,323 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.series;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import org.hibernate.Criteria;
+import org.hibernate.FetchMode;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.criterion.Restrictions;
+import org.n52.series.db.beans.BooleanDataEntity;
+import org.n52.series.db.beans.CategoryDataEntity;
+import org.n52.series.db.beans.CountDataEntity;
+import org.n52.series.db.beans.DataEntity;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.series.db.beans.QuantityDataEntity;
+import org.n52.series.db.beans.TextDataEntity;
+import org.n52.series.db.beans.dataset.ValueType;
+import org.n52.shetland.ogc.om.values.BooleanValue;
+import org.n52.shetland.ogc.om.values.CategoryValue;
+import org.n52.shetland.ogc.om.values.CountValue;
+import org.n52.shetland.ogc.om.values.QuantityValue;
+import org.n52.shetland.ogc.om.values.TextValue;
+import org.n52.shetland.ogc.om.values.Value;
+import org.n52.sos.ds.hibernate.util.HibernateHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory index of the latest value of each dataset, keyed by dataset id.
+ * Lets GetObservation answer <code>latest</code> requests without loading
+ * the last observation entity. Entries are only served while their time
+ * matches the <code>lastValueAt</code> column of the dataset, so a stale
+ * entry falls back to the database instead of returning an outdated value.
+ *
+ * @since 5.3.2
+ */
+public class DatasetLatestValueStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatasetLatestValueStore.class);
+
+    private static final String PROPERTY_LAST_OBSERVATION = "lastObservation";
+
+    private static final String PROPERTY_UNIT = "unit";
+
+    private final Map<Long, LatestValue> values = new ConcurrentHashMap<>();
+
+    private volatile boolean initialized;
+
+    /**
+     * Rebuild the store from the last observations of the datasets in a
+     * single query, unless this was already done.
+     *
+     * @param session
+     *            Hibernate session
+     */
+    public void initialize(Session session) {
+        if (!initialized) {
+            synchronized (this) {
+                if (!initialized) {
+                    rebuild(session);
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     * The entries are created from the same last observation entities and
+     * with the same exclusions as {@link #put(DatasetEntity, DataEntity)}
+     * does for the entities loaded by GetObservation.
+     */
+    @SuppressWarnings("unchecked")
+    private void rebuild(Session session) {
+        long start = System.currentTimeMillis();
+        Criteria c = session.createCriteria(DatasetEntity.class)
+                .add(Restrictions.eq(DatasetEntity.PROPERTY_DELETED, false))
+                .add(Restrictions.isNotNull(PROPERTY_LAST_OBSERVATION))
+                .setFetchMode(PROPERTY_UNIT, FetchMode.JOIN)
+                .setFetchMode(PROPERTY_LAST_OBSERVATION, FetchMode.JOIN)
+                .setFetchMode(PROPERTY_LAST_OBSERVATION + "." + DataEntity.PROPERTY_PARAMETERS, FetchMode.JOIN)
+                .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
+        LOGGER.trace("QUERY rebuild(): {}", HibernateHelper.getSqlString(c));
+        values.clear();
+        for (DatasetEntity dataset : (List<DatasetEntity>) c.list()) {
+            put(dataset, dataset.getLastObservation());
+        }
+        LOGGER.debug("Rebuilding the latest value store with {} datasets took {} ms", values.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Get the latest value of the dataset if it is known and still matches
+     * the <code>lastValueAt</code> of the dataset.
+     *
+     * @param dataset
+     *            the dataset
+     * @return the latest value or empty
+     */
+    public Optional<LatestValue> get(DatasetEntity dataset) {
+        LatestValue value = values.get(dataset.getId());
+        if (value == null || !dataset.isSetLastValueAt()
+                || value.getPhenomenonTime().getTime() != dataset.getLastValueAt().getTime()) {
+            return Optional.empty();
+        }
+        return Optional.of(value);
+    }
+
+    /**
+     * Store the observation as the latest value of its dataset if it is a
+     * plain scalar observation, otherwise drop the entry of the dataset.
+     *
+     * @param dataset
+     *            the dataset
+     * @param observation
+     *            the latest observation of the dataset
+     */
+    public void put(DatasetEntity dataset, DataEntity<?> observation) {
+        if (dataset == null || dataset.getId() == null) {
+            return;
+        }
+        LatestValue value = LatestValue.of(dataset, observation);
+        if (value != null) {
+            values.merge(dataset.getId(), value, (o, n) -> n.getPhenomenonTime().before(o.getPhenomenonTime()) ? o : n);
+        } else {
+            values.remove(dataset.getId());
+        }
+    }
+
+    /**
+     * Like {@link #put(DatasetEntity, DataEntity)} but only after the current
+     * transaction of the session committed.
+     *
+     * @param dataset
+     *            the dataset
+     * @param observation
+     *            the new latest observation of the dataset
+     * @param session
+     *            Hibernate session
+     */
+    public void putAfterCommit(DatasetEntity dataset, DataEntity<?> observation, Session session) {
+        Transaction transaction = session.getTransaction();
+        if (transaction == null || !transaction.isActive()) {
+            put(dataset, observation);
+            return;
+        }
+        transaction.registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+                // nothing to do
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    put(dataset, observation);
+                }
+            }
+        });
+    }
+
+    public void remove(Long dataset) {
+        if (dataset != null) {
+            values.remove(dataset);
+        }
+    }
+
+    public void remove(Collection<Long> datasets) {
+        datasets.forEach(this::remove);
+    }
+
+    public void clear() {
+        values.clear();
+        initialized = false;
+    }
+
+    /**
+     * Immutable latest value of a dataset.
+     */
+    public static final class LatestValue {
+
+        private final ValueType valueType;
+
+        private final Object value;
+
+        private final String unit;
+
+        private final Date phenomenonTimeStart;
+
+        private final Date phenomenonTime;
+
+        private final Date resultTime;
+
+        LatestValue(ValueType valueType, Object value, String unit, Date phenomenonTimeStart, Date phenomenonTime,
+                Date resultTime) {
+            this.valueType = valueType;
+            this.value = value;
+            this.unit = unit;
+            this.phenomenonTimeStart =
+                    new Date(phenomenonTimeStart != null ? phenomenonTimeStart.getTime() : phenomenonTime.getTime());
+            this.phenomenonTime = new Date(phenomenonTime.getTime());
+            this.resultTime = new Date(resultTime != null ? resultTime.getTime() : phenomenonTime.getTime());
+        }
+
+        static LatestValue of(DatasetEntity dataset, DataEntity<?> observation) {
+            if (observation == null || observation.getSamplingTimeEnd() == null || observation.hasParameters()
+                    || observation.isSetGeometryEntity()) {
+                return null;
+            }
+            String unit = dataset.getUnit() != null ? dataset.getUnit().getIdentifier() : null;
+            ValueType valueType;
+            if (observation instanceof QuantityDataEntity) {
+                valueType = ValueType.quantity;
+            } else if (observation instanceof CountDataEntity) {
+                valueType = ValueType.count;
+            } else if (observation instanceof TextDataEntity) {
+                valueType = ValueType.text;
+            } else if (observation instanceof CategoryDataEntity) {
+                valueType = ValueType.category;
+            } else if (observation instanceof BooleanDataEntity) {
+                valueType = ValueType.bool;
+            } else {
+                return null;
+            }
+            return new LatestValue(valueType, observation.getValue(), unit, observation.getSamplingTimeStart(),
+                    observation.getSamplingTimeEnd(), observation.getResultTime());
+        }
+
+        /**
+         * @return the end of the phenomenon time, which is compared with the
+         *         <code>lastValueAt</code> of the dataset
+         */
+        public Date getPhenomenonTime() {
+            return new Date(phenomenonTime.getTime());
+        }
+
+        public Date getPhenomenonTimeStart() {
+            return new Date(phenomenonTimeStart.getTime());
+        }
+
+        public boolean isPhenomenonTimePeriod() {
+            return phenomenonTimeStart.getTime() != phenomenonTime.getTime();
+        }
+
+        public Date getResultTime() {
+            return new Date(resultTime.getTime());
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+
+        public boolean isSetUnit() {
+            return unit != null && !unit.isEmpty();
+        }
+
+        /**
+         * @return a new {@link Value} instance, as values are mutable and
+         *         must not be shared between responses
+         */
+        public Value<?> createValue() {
+            switch (valueType) {
+                case quantity:
+                    QuantityValue quantity =
+                            new QuantityValue(value != null ? ((BigDecimal) value).doubleValue() : null);
+                    if (isSetUnit()) {
+                        quantity.setUnit(unit);
+                    }
+                    return quantity;
+                case count:
+                    return new CountValue((Integer) value);
+                case text:
+                    return new TextValue((String) value);
+                case category:
+                    return new CategoryValue((String) value);
+                case bool:
+                    return new BooleanValue((Boolean) value);
+                default:
+                    throw new IllegalStateException("Unsupported value type " + valueType);
+            }
+        }
+    }
+}
@@ -58,6 +58,11 @@ public class SeriesValueDAO extends AbstractSeriesValueDAO {
         // nothing to add
     }
 
+    @Override
+    protected boolean isQueryPlanSupported() {
+        return true;
+    }
+
     @Override
     protected ValuedObservationFactory getValuedObservationFactory() {
         return SeriesValuedObervationFactory.getInstance();
@@ -0,0 +1,334 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.series;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.query.Query;
+import org.n52.series.db.beans.DataEntity;
+import org.n52.shetland.ogc.filter.FilterConstants.TimeOperator;
+import org.n52.shetland.ogc.filter.TemporalFilter;
+import org.n52.shetland.ogc.gml.time.TimePeriod;
+import org.n52.sos.ds.DatasourceMonitor;
+import org.n52.sos.ds.hibernate.util.TemporalRestrictions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of the HQL query plans used to stream the values of series.
+ *
+ * The plans are keyed by the shape of a request: the queried entity, the
+ * order column, whether one or more series are queried and the operators of
+ * the temporal filters grouped by value reference. The values of a request
+ * are bound as named parameters, so all requests of a shape share the same
+ * HQL string and thus the translated SQL of Hibernate's query plan cache.
+ *
+ * Only phenomenon time filters with a period value are supported. They are
+ * translated exactly like the period-with-period restrictions of
+ * {@link TemporalRestrictions}. For all other shapes no plan is returned and
+ * the criteria path has to be used.
+ *
+ * The hit and miss counts are reported as {@link DatasourceMonitor}
+ * statistics.
+ *
+ * @since 5.3.2
+ */
+public class SeriesValueQueryPlanCache implements DatasourceMonitor {
+
+    static final String ALIAS = "o";
+
+    static final String PARAMETER_SERIES = "series";
+
+    static final String PARAMETER_IDS = "ids";
+
+    static final String PARAMETER_DELETED = "deleted";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SeriesValueQueryPlanCache.class);
+
+    private static final String BEGIN_PARAMETER = "b";
+
+    private static final String END_PARAMETER = "e";
+
+    /**
+     * Period-with-period restrictions of the {@link TemporalRestrictions}.
+     * The arguments are the begin and end property and the begin and end
+     * parameter of the filter.
+     */
+    private static final Map<TimeOperator, String> PERIOD_RESTRICTIONS = new EnumMap<>(TimeOperator.class);
+
+    private final ConcurrentMap<String, Plan> plans = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    static {
+        PERIOD_RESTRICTIONS.put(TimeOperator.TM_Before, "%2$s < %3$s");
+        PERIOD_RESTRICTIONS.put(TimeOperator.TM_After, "%1$s > %4$s");
+        PERIOD_RESTRICTIONS.put(TimeOperator.TM_Begins, "(%1$s = %3$s and %2$s < %4$s)");
+        PERIOD_RESTRICTIONS.put(TimeOperator.TM_BegunBy, "(%1$s = %3$s and %2$s > %4$s)");
+        PERIOD_RESTRICTIONS.put(TimeOperator.TM_Contains, "(%1$s < %3$s and %2$s > %4$s)");
+        PERIOD_RESTRICTIONS.put(TimeOperator.TM_During, "(%1$s > %3$s and %2$s < %4$s)");
+        PERIOD_RESTRICTIONS.put(TimeOperator.TM_EndedBy, "(%1$s < %3$s and %2$s = %4$s)");
+        PERIOD_RESTRICTIONS.put(TimeOperator.TM_Ends, "(%1$s > %3$s and %2$s = %4$s)");
+        PERIOD_RESTRICTIONS.put(TimeOperator.TM_Equals, "(%1$s = %3$s and %2$s = %4$s)");
+        PERIOD_RESTRICTIONS.put(TimeOperator.TM_Meets, "%2$s = %3$s");
+        PERIOD_RESTRICTIONS.put(TimeOperator.TM_MetBy, "%1$s = %4$s");
+        PERIOD_RESTRICTIONS.put(TimeOperator.TM_OverlappedBy, "(%1$s > %3$s and %1$s < %4$s and %2$s > %4$s)");
+        PERIOD_RESTRICTIONS.put(TimeOperator.TM_Overlaps, "(%1$s < %3$s and %2$s > %3$s and %2$s < %4$s)");
+    }
+
+    /**
+     * Get the plan for the shape of the request.
+     *
+     * @param entityName
+     *            the name of the queried entity
+     * @param orderColumn
+     *            the property to order the values by
+     * @param multipleSeries
+     *            if more than one series is queried
+     * @param temporalFilters
+     *            the temporal filters of the request, may be empty
+     * @return the plan or {@code null} if the shape is not supported
+     */
+    public Plan getPlan(String entityName, String orderColumn, boolean multipleSeries,
+            Collection<TemporalFilter> temporalFilters) {
+        if (!isSupported(temporalFilters)) {
+            return null;
+        }
+        String key = getKey(entityName, orderColumn, multipleSeries, temporalFilters);
+        Plan plan = plans.get(key);
+        if (plan != null) {
+            hits.incrementAndGet();
+            return plan;
+        }
+        misses.incrementAndGet();
+        plan = plans.computeIfAbsent(key,
+                k -> new Plan(entityName, orderColumn, multipleSeries, temporalFilters));
+        LOGGER.debug("Created series value query plan for shape '{}', {} plans, hit rate {}%", key, plans.size(),
+                Math.round(getHitRate() * 100));
+        return plan;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getSize() {
+        return plans.size();
+    }
+
+    /**
+     * @return the ratio of requests served by an existing plan, {@code 0} if
+     *         no plan was requested yet
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("plans", getSize());
+        statistics.put("hits", getHits());
+        statistics.put("misses", getMisses());
+        statistics.put("hitRatio", getHitRate());
+        return statistics;
+    }
+
+    @Override
+    public void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    private static boolean isSupported(Collection<TemporalFilter> temporalFilters) {
+        for (TemporalFilter filter : temporalFilters) {
+            if (filter.getValueReference() == null
+                    || !filter.getValueReference().contains(TemporalRestrictions.PHENOMENON_TIME_VALUE_REFERENCE)
+                    || !PERIOD_RESTRICTIONS.containsKey(filter.getOperator())
+                    || !(filter.getTime() instanceof TimePeriod)) {
+                return false;
+            }
+            TimePeriod period = (TimePeriod) filter.getTime();
+            // periods with equal begin and end are restricted as instants
+            if (period.resolveStart().toDate().equals(period.resolveEnd().toDate())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getKey(String entityName, String orderColumn, boolean multipleSeries,
+            Collection<TemporalFilter> temporalFilters) {
+        StringBuilder key = new StringBuilder(entityName).append('|').append(orderColumn).append('|')
+                .append(multipleSeries ? "n" : "1");
+        for (Map.Entry<String, List<TimeOperator>> group : group(temporalFilters).entrySet()) {
+            key.append('|').append(group.getKey()).append(group.getValue());
+        }
+        return key.toString();
+    }
+
+    /**
+     * Group the operators by value reference in the order of the filters.
+     * Like in {@link org.n52.sos.ds.hibernate.util.SosTemporalRestrictions}
+     * the filters of a value reference are combined by {@code or}, the groups
+     * by {@code and}.
+     */
+    private static Map<String, List<TimeOperator>> group(Collection<TemporalFilter> temporalFilters) {
+        Map<String, List<TimeOperator>> groups = new LinkedHashMap<>();
+        for (TemporalFilter filter : temporalFilters) {
+            groups.computeIfAbsent(filter.getValueReference(), k -> new ArrayList<>()).add(filter.getOperator());
+        }
+        return groups;
+    }
+
+    /**
+     * The HQL queries of a request shape.
+     */
+    public static final class Plan {
+
+        private final String idQuery;
+
+        private final String valueQuery;
+
+        private final String valueByIdQuery;
+
+        private Plan(String entityName, String orderColumn, boolean multipleSeries,
+                Collection<TemporalFilter> temporalFilters) {
+            String restrictions = getRestrictions(multipleSeries, temporalFilters);
+            String order = " order by " + property(orderColumn) + " asc";
+            String fetch = " left join fetch " + property(DataEntity.PROPERTY_PARAMETERS);
+            this.idQuery = "select " + property(DataEntity.PROPERTY_ID) + " from " + entityName + " " + ALIAS
+                    + " left join " + property(DataEntity.PROPERTY_PARAMETERS) + restrictions + order;
+            this.valueQuery = "select " + ALIAS + " from " + entityName + " " + ALIAS + fetch + restrictions + order;
+            this.valueByIdQuery = "select " + ALIAS + " from " + entityName + " " + ALIAS + fetch + " where "
+                    + property(DataEntity.PROPERTY_ID) + " in (:" + PARAMETER_IDS + ")";
+        }
+
+        /**
+         * @return the query for the ids of the values, one row per value and
+         *         parameter like the criteria path, to be paged
+         */
+        public String getIdQuery() {
+            return idQuery;
+        }
+
+        /**
+         * @return the query for all values including their parameters
+         */
+        public String getValueQuery() {
+            return valueQuery;
+        }
+
+        /**
+         * @return the query for the values with the ids bound to
+         *         {@value SeriesValueQueryPlanCache#PARAMETER_IDS}
+         */
+        public String getValueByIdQuery() {
+            return valueByIdQuery;
+        }
+
+        /**
+         * Bind the values of the request to a query of this plan.
+         *
+         * @param query
+         *            the id or value query
+         * @param series
+         *            the series id or ids
+         * @param temporalFilters
+         *            the temporal filters this plan was created for
+         * @return the query
+         */
+        public <T> Query<T> bind(Query<T> query, Object series, Collection<TemporalFilter> temporalFilters) {
+            query.setParameter(PARAMETER_DELETED, false);
+            if (series instanceof Collection) {
+                query.setParameterList(PARAMETER_SERIES, (Collection<?>) series);
+            } else {
+                query.setParameter(PARAMETER_SERIES, series);
+            }
+            int i = 0;
+            for (TemporalFilter filter : temporalFilters) {
+                TimePeriod period = (TimePeriod) filter.getTime();
+                query.setParameter(BEGIN_PARAMETER + i, period.resolveStart().toDate());
+                query.setParameter(END_PARAMETER + i, period.resolveEnd().toDate());
+                i++;
+            }
+            return query;
+        }
+
+        private static String getRestrictions(boolean multipleSeries, Collection<TemporalFilter> temporalFilters) {
+            StringBuilder where = new StringBuilder(" where ").append(property(DataEntity.PROPERTY_DELETED))
+                    .append(" = :").append(PARAMETER_DELETED).append(" and ")
+                    .append(property(DataEntity.PROPERTY_PARENT)).append(" is null and ")
+                    .append(property(DataEntity.PROPERTY_DATASET_ID))
+                    .append(multipleSeries ? " in (:" + PARAMETER_SERIES + ")" : " = :" + PARAMETER_SERIES);
+            Map<String, List<String>> groups = new LinkedHashMap<>();
+            int i = 0;
+            for (TemporalFilter filter : temporalFilters) {
+                groups.computeIfAbsent(filter.getValueReference(), k -> new ArrayList<>())
+                        .add(getTemporalRestriction(filter.getOperator(), i++));
+            }
+            for (List<String> group : groups.values()) {
+                where.append(" and (").append(String.join(" or ", group)).append(')');
+            }
+            return where.toString();
+        }
+
+        static String getTemporalRestriction(TimeOperator operator, int index) {
+            String start = property(DataEntity.PROPERTY_SAMPLING_TIME_START);
+            String end = ":" + END_PARAMETER + index;
+            String restriction = String.format(PERIOD_RESTRICTIONS.get(operator), start,
+                    property(DataEntity.PROPERTY_SAMPLING_TIME_END), ":" + BEGIN_PARAMETER + index, end);
+            if (TimeOperator.TM_After.equals(operator)) {
+                return restriction;
+            }
+            // bound the partition key like SosTemporalRestrictions to allow partition pruning
+            return String.format("(%s and %s <= %s)", restriction, start, end);
+        }
+
+        private static String property(String property) {
+            return ALIAS + "." + property;
+        }
+    }
+}
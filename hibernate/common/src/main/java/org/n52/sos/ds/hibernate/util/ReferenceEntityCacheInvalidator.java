@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import java.util.Collections;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.n52.iceland.ds.ConnectionProvider;
+import org.n52.janmayen.event.Event;
+import org.n52.janmayen.event.EventListener;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.sos.ds.hibernate.HibernateSessionHolder;
+import org.n52.sos.event.events.SensorDeletion;
+import org.n52.sos.event.events.SensorInsertion;
+import org.n52.sos.event.events.SensorModification;
+import org.n52.sos.event.events.UpdateCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Clears the {@link ReferenceEntityCache} when a transactional operation or a complete cache update could have
+ * changed the reference entities outside of the cached session factory, e.g. by the deletion of a sensor. Changes
+ * made through the session factory itself are already kept consistent by the read-write regions.
+ *
+ * The hit, miss and put counts of each region are logged before the regions are cleared.
+ *
+ * @since 5.3.2
+ */
+public class ReferenceEntityCacheInvalidator implements EventListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceEntityCacheInvalidator.class);
+
+    private static final Set<Class<? extends Event>> TYPES = ImmutableSet.of(
+            SensorInsertion.class,
+            SensorModification.class,
+            SensorDeletion.class,
+            UpdateCache.class);
+
+    private HibernateSessionHolder sessionHolder;
+
+    @Inject
+    public void setConnectionProvider(ConnectionProvider connectionProvider) {
+        this.sessionHolder = new HibernateSessionHolder(connectionProvider);
+    }
+
+    @Override
+    public Set<Class<? extends Event>> getTypes() {
+        return Collections.unmodifiableSet(TYPES);
+    }
+
+    @Override
+    public void handle(Event event) {
+        Session session = null;
+        try {
+            session = sessionHolder.getSession();
+            SessionFactory sessionFactory = session.getSessionFactory();
+            if (sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled()) {
+                logStatistics(sessionFactory);
+                ReferenceEntityCache.evict(sessionFactory);
+                LOGGER.debug("Cleared reference entity cache after {}", event.getClass().getSimpleName());
+            }
+        } catch (OwsExceptionReport | HibernateException e) {
+            LOGGER.warn("Error while clearing the reference entity cache", e);
+        } finally {
+            sessionHolder.returnSession(session);
+        }
+    }
+
+    private void logStatistics(SessionFactory sessionFactory) {
+        if (LOGGER.isDebugEnabled()) {
+            ReferenceEntityCache.getStatistics(sessionFactory)
+                    .forEach((region, statistics) -> LOGGER.debug("Cache region {}: {} hits, {} misses, {} puts",
+                            region, statistics.getHitCount(), statistics.getMissCount(), statistics.getPutCount()));
+        }
+    }
+
+}
@@ -29,6 +29,7 @@
 package org.n52.sos.ds.hibernate.util;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.Map;
 
 import org.hibernate.criterion.Conjunction;
@@ -39,6 +40,9 @@ import org.n52.series.db.beans.DataEntity;
 import org.n52.series.db.beans.ProcedureHistoryEntity;
 import org.n52.shetland.ogc.filter.FilterConstants.TimeOperator;
 import org.n52.shetland.ogc.filter.TemporalFilter;
+import org.n52.shetland.ogc.gml.time.Time;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.gml.time.TimePeriod;
 import org.n52.sos.ds.hibernate.util.restriction.AfterRestriction;
 import org.n52.sos.ds.hibernate.util.restriction.BeforeRestriction;
 import org.n52.sos.ds.hibernate.util.restriction.BeginsRestriction;
@@ -126,6 +130,11 @@ public final class SosTemporalRestrictions {
     /**
      * Create a new {@code Criterion} using the specified filter.
      *
+     * Phenomenon time filters are additionally restricted by the latest
+     * possible phenomenon time start, so that partitions and indices of the
+     * partition column can be pruned, also if the operator only restricts the
+     * phenomenon time end.
+     *
      * @param filter
      *            the filter
      *
@@ -143,8 +152,37 @@ public final class SosTemporalRestrictions {
      */
     public static Criterion filter(TemporalFilter filter)
             throws UnsupportedTimeException, UnsupportedValueReferenceException, UnsupportedOperatorException {
-        return TemporalRestrictions.filter(filter.getOperator(), getFields(filter.getValueReference()),
-                filter.getTime());
+        AbstractTimePrimitiveFieldDescriptor fields = getFields(filter.getValueReference());
+        Criterion criterion = TemporalRestrictions.filter(filter.getOperator(), fields, filter.getTime());
+        if (criterion != null && PHENOMENON_TIME_FIELDS.equals(fields)
+                && !TimeOperator.TM_After.equals(filter.getOperator())) {
+            Date latestStart = getLatestStart(filter.getTime());
+            if (latestStart != null) {
+                return Restrictions.and(criterion,
+                        Restrictions.le(DataEntity.PROPERTY_SAMPLING_TIME_START, latestStart));
+            }
+        }
+        return criterion;
+    }
+
+    /**
+     * Get the latest phenomenon time start of an observation related to the
+     * time. All operators except {@link TimeOperator#TM_After} require the
+     * observation to start before or at the end of the time.
+     *
+     * @param time
+     *            the filter time
+     * @return the end of the time, considering instants with reduced
+     *         precision, or {@code null} if the time is not supported
+     */
+    private static Date getLatestStart(Time time) {
+        if (time instanceof TimePeriod) {
+            return ((TimePeriod) time).resolveEnd().toDate();
+        } else if (time instanceof TimeInstant) {
+            Date end = TemporalRestriction.checkInstantWithReducedPrecision((TimeInstant) time);
+            return end != null ? end : ((TimeInstant) time).resolveValue().toDate();
+        }
+        return null;
     }
 
     /**
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util.aggregation;
+
+import java.util.Locale;
+import java.util.Optional;
+
+import org.joda.time.Period;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.shetland.ogc.ows.exception.InvalidParameterValueException;
+import org.n52.shetland.ogc.ows.extension.Extension;
+import org.n52.shetland.ogc.ows.service.OwsServiceRequest;
+import org.n52.shetland.ogc.swe.simpleType.SweText;
+import org.n52.sos.ds.AggregationConstants;
+
+import com.google.common.base.Strings;
+
+/**
+ * Aggregation requested by the {@code aggregation} request extension. The
+ * value consists of the function and its argument separated by a comma:
+ * <ul>
+ * <li>{@code min}, {@code max}, {@code avg}, {@code count}, {@code first} and
+ * {@code last} take an ISO 8601 duration, e.g. {@code avg,PT1H}. The buckets
+ * are aligned to the epoch.</li>
+ * <li>{@code lttb} and {@code minmax} take the maximum number of returned
+ * values, e.g. {@code lttb,1000}.</li>
+ * </ul>
+ *
+ * @since 5.3.2
+ */
+public final class Aggregation {
+
+    private static final String SEPARATOR = ",";
+
+    private static final int MIN_LTTB_POINTS = 3;
+
+    private static final int MIN_MINMAX_POINTS = 2;
+
+    private final AggregationFunction function;
+
+    private final long interval;
+
+    private final int points;
+
+    private Aggregation(AggregationFunction function, long interval, int points) {
+        this.function = function;
+        this.interval = interval;
+        this.points = points;
+    }
+
+    /**
+     * @return the function
+     */
+    public AggregationFunction getFunction() {
+        return function;
+    }
+
+    /**
+     * @return the length of the buckets in milliseconds or {@code 0} for a
+     *         downsampling
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return the maximum number of returned values of a downsampling or
+     *         {@code 0} for an aggregation per interval
+     */
+    public int getPoints() {
+        return points;
+    }
+
+    /**
+     * Create the aggregator for the values of a dataset.
+     *
+     * @param dataset
+     *            the dataset of the aggregated values
+     * @param start
+     *            the start of the time range of the values in milliseconds
+     * @param end
+     *            the end of the time range of the values in milliseconds
+     * @return the aggregator
+     */
+    public ValueAggregator createAggregator(DatasetEntity dataset, long start, long end) {
+        switch (function) {
+            case LTTB:
+                return new LttbDownsampler(dataset, start, end, points);
+            case MINMAX:
+                return new MinMaxDownsampler(dataset, start, end, points);
+            default:
+                return new IntervalAggregator(dataset, function, interval);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return function.name().toLowerCase(Locale.ROOT) + SEPARATOR
+                + (function.isDownsampling() ? Integer.toString(points) : Long.toString(interval));
+    }
+
+    /**
+     * Get the aggregation requested by the extension of the request.
+     *
+     * @param request
+     *            the request
+     * @return the aggregation, empty if not requested
+     * @throws InvalidParameterValueException
+     *             if the value of the extension is invalid
+     */
+    public static Optional<Aggregation> fromRequest(OwsServiceRequest request) throws InvalidParameterValueException {
+        Optional<Extension<?>> extension = request.getExtension(AggregationConstants.EXTENSION_AGGREGATION);
+        if (extension.isPresent() && extension.get().getValue() instanceof SweText
+                && !Strings.isNullOrEmpty(((SweText) extension.get().getValue()).getValue())) {
+            return Optional.of(parse(((SweText) extension.get().getValue()).getValue()));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Parse the value of the {@code aggregation} extension.
+     *
+     * @param value
+     *            the value
+     * @return the aggregation
+     * @throws InvalidParameterValueException
+     *             if the value is invalid
+     */
+    public static Aggregation parse(String value) throws InvalidParameterValueException {
+        String[] split = value.split(SEPARATOR);
+        if (split.length != 2) {
+            throw invalid(value);
+        }
+        AggregationFunction function = AggregationFunction.fromName(split[0]);
+        if (function == null) {
+            throw invalid(value);
+        }
+        try {
+            if (function.isDownsampling()) {
+                int points = Integer.parseInt(split[1].trim());
+                if (points < (function == AggregationFunction.LTTB ? MIN_LTTB_POINTS : MIN_MINMAX_POINTS)) {
+                    throw invalid(value);
+                }
+                return new Aggregation(function, 0, points);
+            }
+            long interval = Period.parse(split[1].trim()).toStandardDuration().getMillis();
+            if (interval <= 0) {
+                throw invalid(value);
+            }
+            return new Aggregation(function, interval, 0);
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            // months and years have no standard duration
+            throw invalid(value);
+        }
+    }
+
+    private static InvalidParameterValueException invalid(String value) {
+        return new InvalidParameterValueException(AggregationConstants.EXTENSION_AGGREGATION, value);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util.aggregation;
+
+import java.util.Locale;
+
+/**
+ * Functions of the {@code aggregation} request extension.
+ *
+ * @since 5.3.2
+ */
+public enum AggregationFunction {
+    MIN,
+    MAX,
+    AVG,
+    COUNT,
+    FIRST,
+    LAST,
+    /**
+     * Largest-Triangle-Three-Buckets downsampling to a number of values
+     */
+    LTTB,
+    /**
+     * Downsampling to the minimum and maximum value per bucket
+     */
+    MINMAX;
+
+    /**
+     * @return {@code true} if the argument of the function is the number of
+     *         returned values instead of an interval
+     */
+    public boolean isDownsampling() {
+        return this == LTTB || this == MINMAX;
+    }
+
+    /**
+     * @return {@code true} if the function can be computed by a grouped
+     *         database query
+     */
+    public boolean isDatabaseSupported() {
+        return this == MIN || this == MAX || this == AVG || this == COUNT;
+    }
+
+    /**
+     * @param value
+     *            the name of the function
+     * @return the function or {@code null} if the name is unknown
+     */
+    public static AggregationFunction fromName(String value) {
+        for (AggregationFunction function : values()) {
+            if (function.name().equals(value.trim().toUpperCase(Locale.ROOT))) {
+                return function;
+            }
+        }
+        return null;
+    }
+}
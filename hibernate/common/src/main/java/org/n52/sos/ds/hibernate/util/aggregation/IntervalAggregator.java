@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util.aggregation;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.series.db.beans.QuantityDataEntity;
+
+/**
+ * Aggregator that computes one value per interval. The buckets are aligned to
+ * the epoch and the phenomenon time of an aggregated value covers the
+ * aggregated values of its bucket. Only the state per bucket is kept, so the
+ * values need not be ordered.
+ *
+ * @since 5.3.2
+ */
+class IntervalAggregator extends ValueAggregator {
+
+    private final AggregationFunction function;
+
+    private final long interval;
+
+    private final Map<Long, Bucket> buckets = new TreeMap<>();
+
+    IntervalAggregator(DatasetEntity dataset, AggregationFunction function, long interval) {
+        super(dataset);
+        this.function = function;
+        this.interval = interval;
+    }
+
+    @Override
+    protected void addValue(QuantityDataEntity value) {
+        buckets.computeIfAbsent(Math.floorDiv(value.getSamplingTimeStart().getTime(), interval), k -> new Bucket())
+                .add(value);
+    }
+
+    @Override
+    protected void flush() {
+        for (Bucket bucket : buckets.values()) {
+            QuantityDataEntity selected = bucket.getSelected();
+            if (function == AggregationFunction.COUNT) {
+                emit(createAggregatedCount(selected.getId(), getDataset(), bucket.start, bucket.end,
+                        bucket.resultTime, bucket.count));
+            } else {
+                emit(createAggregatedValue(selected.getId(), getDataset(), bucket.start, bucket.end,
+                        bucket.resultTime, bucket.getValue()));
+            }
+        }
+        buckets.clear();
+    }
+
+    private final class Bucket {
+        private QuantityDataEntity first;
+        private QuantityDataEntity last;
+        private QuantityDataEntity min;
+        private QuantityDataEntity max;
+        private BigDecimal sum = BigDecimal.ZERO;
+        private long count;
+        private Date start;
+        private Date end;
+        private Date resultTime;
+
+        void add(QuantityDataEntity value) {
+            Date valueEnd = value.getSamplingTimeEnd() != null ? value.getSamplingTimeEnd()
+                    : value.getSamplingTimeStart();
+            if (first == null || value.getSamplingTimeStart().before(first.getSamplingTimeStart())) {
+                first = value;
+                start = value.getSamplingTimeStart();
+            }
+            if (last == null || !value.getSamplingTimeStart().before(last.getSamplingTimeStart())) {
+                last = value;
+            }
+            if (end == null || valueEnd.after(end)) {
+                end = valueEnd;
+            }
+            if (resultTime == null || (value.getResultTime() != null && value.getResultTime().after(resultTime))) {
+                resultTime = value.getResultTime();
+            }
+            if (min == null || value.getValue().compareTo(min.getValue()) < 0) {
+                min = value;
+            }
+            if (max == null || value.getValue().compareTo(max.getValue()) > 0) {
+                max = value;
+            }
+            sum = sum.add(value.getValue());
+            count++;
+        }
+
+        QuantityDataEntity getSelected() {
+            switch (function) {
+                case MIN:
+                    return min;
+                case MAX:
+                    return max;
+                case LAST:
+                    return last;
+                default:
+                    return first;
+            }
+        }
+
+        BigDecimal getValue() {
+            switch (function) {
+                case AVG:
+                    return sum.divide(BigDecimal.valueOf(count), MathContext.DECIMAL64);
+                default:
+                    return getSelected().getValue();
+            }
+        }
+    }
+}
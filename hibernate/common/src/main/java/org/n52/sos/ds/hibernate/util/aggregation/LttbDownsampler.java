@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util.aggregation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.series.db.beans.QuantityDataEntity;
+
+/**
+ * Streaming Largest-Triangle-Three-Buckets downsampler. The first and the last
+ * value are kept and the time range in between is split into buckets of equal
+ * length. Of each bucket the value is kept that forms the largest triangle with
+ * the previously kept value and the average of the next bucket, so only the
+ * values of two buckets are held in memory. The kept values are returned
+ * unchanged. Values that are added after their bucket was closed are assigned
+ * to the open bucket.
+ *
+ * @since 5.3.2
+ */
+class LttbDownsampler extends ValueAggregator {
+
+    private final long start;
+
+    private final double width;
+
+    private final int bucketCount;
+
+    private QuantityDataEntity selected;
+
+    private QuantityDataEntity pending;
+
+    private List<QuantityDataEntity> current = new ArrayList<>();
+
+    private List<QuantityDataEntity> next = new ArrayList<>();
+
+    private int nextBucket = -1;
+
+    LttbDownsampler(DatasetEntity dataset, long start, long end, int points) {
+        super(dataset);
+        this.start = start;
+        this.bucketCount = points - 2;
+        this.width = (double) (end - start) / bucketCount;
+    }
+
+    @Override
+    protected void addValue(QuantityDataEntity value) {
+        if (selected == null) {
+            selected = value;
+            emit(copy(value));
+            return;
+        }
+        if (pending != null) {
+            assign(pending);
+        }
+        // the last value is kept in any case, so it is assigned to a bucket
+        // only if another value follows
+        pending = value;
+    }
+
+    @Override
+    protected void flush() {
+        if (pending == null) {
+            return;
+        }
+        if (!current.isEmpty()) {
+            select(current, average(next));
+        }
+        if (!next.isEmpty()) {
+            select(next, new double[] { x(pending), y(pending) });
+        }
+        emit(copy(pending));
+        current.clear();
+        next.clear();
+        pending = null;
+    }
+
+    private void assign(QuantityDataEntity value) {
+        int bucket = Math.max(getBucket(value), nextBucket);
+        if (!next.isEmpty() && bucket != nextBucket) {
+            if (!current.isEmpty()) {
+                select(current, average(next));
+            }
+            current = next;
+            next = new ArrayList<>();
+        }
+        nextBucket = bucket;
+        next.add(value);
+    }
+
+    private void select(List<QuantityDataEntity> bucket, double[] average) {
+        double ax = x(selected);
+        double ay = y(selected);
+        double maxArea = -1;
+        QuantityDataEntity largest = null;
+        for (QuantityDataEntity value : bucket) {
+            double area = Math.abs((ax - average[0]) * (y(value) - ay) - (ax - x(value)) * (average[1] - ay));
+            if (area > maxArea) {
+                maxArea = area;
+                largest = value;
+            }
+        }
+        selected = largest;
+        emit(copy(largest));
+        bucket.clear();
+    }
+
+    private double[] average(List<QuantityDataEntity> bucket) {
+        double x = 0;
+        double y = 0;
+        for (QuantityDataEntity value : bucket) {
+            x += x(value);
+            y += y(value);
+        }
+        return new double[] { x / bucket.size(), y / bucket.size() };
+    }
+
+    private int getBucket(QuantityDataEntity value) {
+        if (width <= 0) {
+            return 0;
+        }
+        double bucket = (value.getSamplingTimeStart().getTime() - start) / width;
+        return (int) Math.max(0, Math.min(bucketCount - 1, bucket));
+    }
+
+    private static double x(QuantityDataEntity value) {
+        return value.getSamplingTimeStart().getTime();
+    }
+
+    private static double y(QuantityDataEntity value) {
+        return value.getValue().doubleValue();
+    }
+}
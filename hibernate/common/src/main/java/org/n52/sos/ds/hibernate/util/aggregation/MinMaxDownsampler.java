@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util.aggregation;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.series.db.beans.QuantityDataEntity;
+
+/**
+ * Downsampler that splits the time range into half as many buckets as values
+ * are requested and keeps the minimum and the maximum value of each bucket, so
+ * the envelope of the values is preserved. The kept values are returned
+ * unchanged.
+ *
+ * @since 5.3.2
+ */
+class MinMaxDownsampler extends ValueAggregator {
+
+    private final long start;
+
+    private final double width;
+
+    private final int bucketCount;
+
+    private final Map<Integer, QuantityDataEntity[]> buckets = new TreeMap<>();
+
+    MinMaxDownsampler(DatasetEntity dataset, long start, long end, int points) {
+        super(dataset);
+        this.start = start;
+        this.bucketCount = points / 2;
+        this.width = (double) (end - start) / bucketCount;
+    }
+
+    @Override
+    protected void addValue(QuantityDataEntity value) {
+        QuantityDataEntity[] minMax = buckets.computeIfAbsent(getBucket(value), k -> new QuantityDataEntity[2]);
+        if (minMax[0] == null || value.getValue().compareTo(minMax[0].getValue()) < 0) {
+            minMax[0] = value;
+        }
+        if (minMax[1] == null || value.getValue().compareTo(minMax[1].getValue()) > 0) {
+            minMax[1] = value;
+        }
+    }
+
+    @Override
+    protected void flush() {
+        for (QuantityDataEntity[] minMax : buckets.values()) {
+            if (minMax[0] == minMax[1]) {
+                emit(copy(minMax[0]));
+            } else if (minMax[0].getSamplingTimeStart().after(minMax[1].getSamplingTimeStart())) {
+                emit(copy(minMax[1]));
+                emit(copy(minMax[0]));
+            } else {
+                emit(copy(minMax[0]));
+                emit(copy(minMax[1]));
+            }
+        }
+        buckets.clear();
+    }
+
+    private int getBucket(QuantityDataEntity value) {
+        if (width <= 0) {
+            return 0;
+        }
+        double bucket = (value.getSamplingTimeStart().getTime() - start) / width;
+        return (int) Math.max(0, Math.min(bucketCount - 1, bucket));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util.aggregation;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.n52.series.db.beans.CountDataEntity;
+import org.n52.series.db.beans.DataEntity;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.series.db.beans.QuantityDataEntity;
+
+/**
+ * Streaming aggregator for the quantity values of a dataset. The values are
+ * added one by one, so they can be evicted from the session after they were
+ * added, and the aggregated values are returned by {@link #finish()} as
+ * regular {@link QuantityDataEntity}s. Counts are returned as
+ * {@link CountDataEntity}s, so they don't get the unit of the dataset. Values
+ * that are not quantities or have no value are ignored.
+ *
+ * @since 5.3.2
+ */
+public abstract class ValueAggregator {
+
+    private final DatasetEntity dataset;
+
+    private final List<DataEntity<?>> values = new ArrayList<>();
+
+    private int count;
+
+    public ValueAggregator(DatasetEntity dataset) {
+        this.dataset = dataset;
+    }
+
+    /**
+     * Add the next value. The values are expected to be ordered by the
+     * phenomenon time.
+     *
+     * @param value
+     *            the value
+     */
+    public void add(DataEntity<?> value) {
+        if (value instanceof QuantityDataEntity && ((QuantityDataEntity) value).getValue() != null
+                && value.getSamplingTimeStart() != null) {
+            count++;
+            addValue((QuantityDataEntity) value);
+        }
+    }
+
+    /**
+     * @return the aggregated values ordered by phenomenon time
+     */
+    public List<DataEntity<?>> finish() {
+        flush();
+        return values;
+    }
+
+    /**
+     * @return the number of aggregated values
+     */
+    public int getCount() {
+        return count;
+    }
+
+    protected DatasetEntity getDataset() {
+        return dataset;
+    }
+
+    protected abstract void addValue(QuantityDataEntity value);
+
+    /**
+     * Emit the pending values after the last value was added.
+     */
+    protected abstract void flush();
+
+    protected void emit(DataEntity<?> value) {
+        values.add(value);
+    }
+
+    /**
+     * Copy an added value to be emitted.
+     *
+     * @param value
+     *            the value
+     * @return the copy
+     */
+    protected QuantityDataEntity copy(QuantityDataEntity value) {
+        QuantityDataEntity copy = createAggregatedValue(value.getId(), dataset, value.getSamplingTimeStart(),
+                value.getSamplingTimeEnd(), value.getResultTime(), value.getValue());
+        copy.setValidTimeStart(value.getValidTimeStart());
+        copy.setValidTimeEnd(value.getValidTimeEnd());
+        copy.setVerticalFrom(value.getVerticalFrom());
+        copy.setVerticalTo(value.getVerticalTo());
+        return copy;
+    }
+
+    /**
+     * Create an aggregated value. The entity is not attached to a session.
+     *
+     * @param id
+     *            the id of one of the aggregated values
+     * @param dataset
+     *            the dataset
+     * @param start
+     *            the start of the phenomenon time
+     * @param end
+     *            the end of the phenomenon time
+     * @param resultTime
+     *            the result time
+     * @param value
+     *            the aggregated value
+     * @return the aggregated value
+     */
+    public static QuantityDataEntity createAggregatedValue(Long id, DatasetEntity dataset, Date start, Date end,
+            Date resultTime, BigDecimal value) {
+        QuantityDataEntity aggregated = init(new QuantityDataEntity(), id, dataset, start, end, resultTime);
+        aggregated.setValue(value);
+        return aggregated;
+    }
+
+    /**
+     * Create an aggregated count. Unlike the other aggregated values the count
+     * is a {@link CountDataEntity} that has no unit. The entity is not
+     * attached to a session.
+     *
+     * @param id
+     *            the id of one of the counted values
+     * @param dataset
+     *            the dataset
+     * @param start
+     *            the start of the phenomenon time
+     * @param end
+     *            the end of the phenomenon time
+     * @param resultTime
+     *            the result time
+     * @param count
+     *            the number of counted values
+     * @return the aggregated count
+     */
+    public static CountDataEntity createAggregatedCount(Long id, DatasetEntity dataset, Date start, Date end,
+            Date resultTime, long count) {
+        CountDataEntity aggregated = init(new CountDataEntity(), id, dataset, start, end, resultTime);
+        aggregated.setValue(Math.toIntExact(count));
+        return aggregated;
+    }
+
+    private static <T extends DataEntity<?>> T init(T aggregated, Long id, DatasetEntity dataset, Date start,
+            Date end, Date resultTime) {
+        aggregated.setId(id);
+        aggregated.setDataset(dataset);
+        aggregated.setSamplingTimeStart(start);
+        aggregated.setSamplingTimeEnd(end != null ? end : start);
+        aggregated.setResultTime(resultTime != null ? resultTime : end);
+        return aggregated;
+    }
+}
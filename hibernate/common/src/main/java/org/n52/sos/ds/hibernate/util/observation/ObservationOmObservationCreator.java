@@ -34,6 +34,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 import org.hibernate.Session;
@@ -93,6 +94,8 @@ public class ObservationOmObservationCreator extends AbstractOmObservationCreato
 
     private final Map<Long, Set<ParameterEntity<?>>> seriesParameter = Maps.newHashMap();
 
+    private final Map<Long, Optional<String>> seriesUnits = Maps.newHashMap();
+
     private List<OmObservation> observationCollection;
 
     public ObservationOmObservationCreator(Collection<? extends DataEntity<?>> observations,
@@ -167,7 +170,7 @@ public class ObservationOmObservationCreator extends AbstractOmObservationCreato
                 .visit(unproxy(hObservation, getSession()));
         OmObservation sosObservation = null;
         if (value != null) {
-            value.setUnit(queryUnit(hObservation.getDataset()));
+            value.setUnit(getUnit(hObservation.getDataset()));
             checkOrSetObservablePropertyUnit(getObservedProperty(phenomenonId), value.getUnit());
             OmObservationConstellation obsConst =
                     createObservationConstellation(hObservation, procedureId, phenomenonId, featureId, offerings);
@@ -193,6 +196,15 @@ public class ObservationOmObservationCreator extends AbstractOmObservationCreato
         return sosObservation;
     }
 
+    private String getUnit(DatasetEntity series) {
+        Optional<String> unit = seriesUnits.get(series.getId());
+        if (unit == null) {
+            unit = Optional.ofNullable(queryUnit(series));
+            seriesUnits.put(series.getId(), unit);
+        }
+        return unit.orElse(null);
+    }
+
     private void addRelatedObservations(OmObservation sosObservation, DataEntity<?> hObservation)
             throws CodedException {
         new RelatedObservationAdder(sosObservation, hObservation, getCreatorContext().getServiceURL().toString(),
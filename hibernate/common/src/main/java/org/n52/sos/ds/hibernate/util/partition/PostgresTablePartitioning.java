@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util.partition;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.n52.sos.ds.HibernateDatasourceConstants.PartitionInterval;
+
+/**
+ * Declarative range partitioning for PostgreSQL 11 or later. Observations
+ * without a matching partition are stored in a default partition. When a
+ * partition is created later on, its rows are moved out of the default
+ * partition before it is attached, otherwise PostgreSQL rejects the new
+ * partition.
+ *
+ * Partitions are detached instead of dropped, so the data stays available as
+ * plain table for archiving.
+ *
+ * @since 5.3.2
+ */
+public class PostgresTablePartitioning extends TablePartitioning {
+
+    private static final int MIN_MAJOR_VERSION = 11;
+
+    public PostgresTablePartitioning(String table, String column, PartitionInterval interval) {
+        super(table, column, interval);
+    }
+
+    @Override
+    public boolean supportsDetach() {
+        return true;
+    }
+
+    @Override
+    public boolean supports(DatabaseMetaData metaData) throws SQLException {
+        return metaData.getDatabaseMajorVersion() >= MIN_MAJOR_VERSION;
+    }
+
+    @Override
+    public List<String> getCreatePartitionStatements(DateTime start) {
+        String partition = getPartitionName(start);
+        String from = getBound(start);
+        String to = getBound(getNext(start));
+        return Collections.singletonList(new StringBuilder("do $$ begin if to_regclass('").append(partition)
+                .append("') is null then create table ").append(partition).append(" (like ").append(getTable())
+                .append(" including defaults including constraints); with moved as (delete from ")
+                .append(getDefaultPartitionName()).append(" where ").append(getColumn()).append(" >= '").append(from)
+                .append("' and ").append(getColumn()).append(" < '").append(to)
+                .append("' returning *) insert into ").append(partition).append(" select * from moved; alter table ")
+                .append(getTable()).append(" attach partition ").append(partition).append(" for values from ('")
+                .append(from).append("') to ('").append(to).append("'); end if; end $$").toString());
+    }
+
+    @Override
+    public List<String> getDetachPartitionStatements(DateTime start) {
+        String partition = getPartitionName(start);
+        return Collections.singletonList(new StringBuilder("do $$ begin if exists (select 1 from pg_inherits")
+                .append(" where inhrelid = to_regclass('").append(partition)
+                .append("') and inhparent = to_regclass('").append(getTable())
+                .append("')) then alter table ").append(getTable()).append(" detach partition ").append(partition)
+                .append("; end if; end $$").toString());
+    }
+
+    @Override
+    protected String getPartitionedQuery() {
+        return "select 1 from pg_partitioned_table where partrelid = to_regclass(?)";
+    }
+
+    @Override
+    protected String getPartitionClause() {
+        return " partition by range (" + getColumn() + ")";
+    }
+
+    @Override
+    protected List<String> getPostCreateStatements(DateTime time) {
+        // the new table is empty, so the partitions can be created directly
+        List<String> statements = new LinkedList<>();
+        statements.add(new StringBuilder("create table ").append(getDefaultPartitionName()).append(" partition of ")
+                .append(getTable()).append(" default").toString());
+        DateTime start = getStart(time);
+        statements.add(getPartitionOfStatement(start));
+        statements.add(getPartitionOfStatement(getNext(start)));
+        return statements;
+    }
+
+    private String getPartitionOfStatement(DateTime start) {
+        return new StringBuilder("create table if not exists ").append(getPartitionName(start))
+                .append(" partition of ").append(getTable()).append(" for values from ('").append(getBound(start))
+                .append("') to ('").append(getBound(getNext(start))).append("')").toString();
+    }
+
+    private String getDefaultPartitionName() {
+        return getTable() + "_default";
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util.partition;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.n52.sos.ds.HibernateDatasourceConstants.PartitionInterval;
+
+/**
+ * Range partitioning for SQL Server using a partition function and scheme on
+ * the primary filegroup, both are kept when the table is dropped. New partitions are created by splitting the last
+ * range, old partitions can not be detached because switching them out
+ * requires an identical archive table.
+ *
+ * @since 5.3.2
+ */
+public class SqlServerTablePartitioning extends TablePartitioning {
+
+    private final String columnType;
+
+    public SqlServerTablePartitioning(String table, String column, String columnType, PartitionInterval interval) {
+        super(table, column, interval);
+        this.columnType = columnType;
+    }
+
+    @Override
+    public List<String> getCreatePartitionStatements(DateTime start) {
+        List<String> statements = new LinkedList<>();
+        statements.add(getSplitStatement(start));
+        statements.add(getSplitStatement(getNext(start)));
+        return statements;
+    }
+
+    @Override
+    protected String getPartitionedQuery() {
+        return "select 1 from sys.indexes i join sys.partition_schemes s on s.data_space_id = i.data_space_id"
+                + " where i.object_id = object_id(?) and i.index_id in (0, 1)";
+    }
+
+    @Override
+    protected String getPartitionClause() {
+        return " on " + getSchemeName() + " (" + getColumn() + ")";
+    }
+
+    @Override
+    protected List<String> getPreCreateStatements() {
+        List<String> statements = new LinkedList<>();
+        statements.add(new StringBuilder("if not exists (select 1 from sys.partition_functions where name = '")
+                .append(getFunctionName()).append("') create partition function ").append(getFunctionName())
+                .append(" (").append(columnType).append(") as range right for values ()").toString());
+        statements.add(new StringBuilder("if not exists (select 1 from sys.partition_schemes where name = '")
+                .append(getSchemeName()).append("') create partition scheme ").append(getSchemeName())
+                .append(" as partition ").append(getFunctionName()).append(" all to ([primary])").toString());
+        return statements;
+    }
+
+    private String getSplitStatement(DateTime boundary) {
+        String bound = getBound(boundary);
+        return new StringBuilder("if not exists (select 1 from sys.partition_range_values v")
+                .append(" join sys.partition_functions f on f.function_id = v.function_id where f.name = '")
+                .append(getFunctionName()).append("' and cast(v.value as datetimeoffset) = '").append(bound)
+                .append("') begin alter partition scheme ").append(getSchemeName())
+                .append(" next used [primary]; alter partition function ").append(getFunctionName())
+                .append("() split range ('").append(bound).append("'); end").toString();
+    }
+
+    private String getFunctionName() {
+        return "pf_" + unqualified(getTable());
+    }
+
+    private String getSchemeName() {
+        return "ps_" + unqualified(getTable());
+    }
+
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util.partition;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.dialect.SQLServerDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.n52.series.db.beans.DataEntity;
+import org.n52.sos.ds.HibernateDatasourceConstants;
+import org.n52.sos.ds.HibernateDatasourceConstants.PartitionInterval;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Strings;
+
+/**
+ * Range partitioning of the observation table on the start of the phenomenon
+ * time. Implementations rewrite the schema script generated by Hibernate and
+ * provide the statements to create and detach the partitions of an existing
+ * table.
+ *
+ * A partitioned table only supports unique constraints that contain the
+ * partition column. The column is therefore added to the primary key, other
+ * unique constraints without it are removed and so are the foreign keys
+ * referencing the observation table.
+ *
+ * @since 5.3.2
+ */
+public abstract class TablePartitioning {
+
+    protected static final String DELIMITER = ";";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TablePartitioning.class);
+
+    private static final DateTimeFormatter BOUND_FORMAT =
+            DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss").withZoneUTC();
+
+    private static final String UTC_OFFSET = "+00:00";
+
+    /**
+     * Number of intervals before the retention limit that are checked for
+     * partitions to detach, covers missed executions of the maintenance.
+     */
+    private static final int DETACH_LOOKBACK = 12;
+
+    private final String table;
+
+    private final String column;
+
+    private final PartitionInterval interval;
+
+    private final Pattern createTable;
+
+    private final Pattern uniqueConstraint;
+
+    private final Pattern foreignKey;
+
+    protected TablePartitioning(String table, String column, PartitionInterval interval) {
+        this.table = table;
+        this.column = column;
+        this.interval = interval;
+        String tableReference = "(?:\\S+\\.)?" + Pattern.quote(unqualified(table)) + "(?=[\\s;(]|$)";
+        this.createTable = Pattern.compile("^create table (" + tableReference + ") \\((.*)\\)\\s*;?$",
+                Pattern.CASE_INSENSITIVE);
+        this.uniqueConstraint = Pattern.compile("^(?:alter table (?:if exists )?" + tableReference
+                + " add constraint \\S+ unique|create unique index \\S+ on " + tableReference + ") \\(([^)]*)\\).*$",
+                Pattern.CASE_INSENSITIVE);
+        this.foreignKey = Pattern.compile("^alter table .* foreign key \\([^)]*\\) references " + tableReference
+                + ".*$", Pattern.CASE_INSENSITIVE);
+    }
+
+    /**
+     * Create the partitioning for the dialect.
+     *
+     * @param dialect
+     *            the dialect of the database
+     * @param table
+     *            the (qualified) name of the observation table
+     * @param column
+     *            the name of the partition column
+     * @param columnType
+     *            the SQL type of the partition column
+     * @param interval
+     *            the partition interval
+     * @return the partitioning or {@code null} if the interval is
+     *         {@link PartitionInterval#NONE} or the database does not support
+     *         partitioning
+     */
+    public static TablePartitioning of(Dialect dialect, String table, String column, String columnType,
+            PartitionInterval interval) {
+        if (interval == null || PartitionInterval.NONE.equals(interval)) {
+            return null;
+        } else if (dialect instanceof PostgreSQL81Dialect) {
+            return new PostgresTablePartitioning(table, column, interval);
+        } else if (dialect instanceof SQLServerDialect) {
+            return new SqlServerTablePartitioning(table, column, columnType, interval);
+        }
+        LOGGER.warn("Partitioning is not supported for dialect {}", dialect.getClass().getSimpleName());
+        return null;
+    }
+
+    /**
+     * Create the partitioning configured for the session factory.
+     *
+     * @param factory
+     *            the session factory
+     * @return the partitioning or {@code null} if the observation table is not
+     *         partitioned
+     */
+    public static TablePartitioning of(SessionFactoryImplementor factory) {
+        PartitionInterval interval = getPartitionInterval(
+                (String) factory.getProperties().get(HibernateDatasourceConstants.PARTITION_INTERVAL_KEY));
+        EntityPersister persister = factory.getMetamodel().entityPersister(DataEntity.class);
+        if (PartitionInterval.NONE.equals(interval) || !(persister instanceof AbstractEntityPersister)) {
+            return null;
+        }
+        AbstractEntityPersister entityPersister = (AbstractEntityPersister) persister;
+        return of(factory.getJdbcServices().getDialect(), entityPersister.getTableName(),
+                entityPersister.getPropertyColumnNames(DataEntity.PROPERTY_SAMPLING_TIME_START)[0], null, interval);
+    }
+
+    /**
+     * @param value
+     *            the name of the interval
+     * @return the interval, {@link PartitionInterval#NONE} if not set
+     */
+    public static PartitionInterval getPartitionInterval(String value) {
+        return Strings.isNullOrEmpty(value) ? PartitionInterval.NONE
+                : PartitionInterval.valueOf(value.toUpperCase(Locale.ROOT));
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public PartitionInterval getInterval() {
+        return interval;
+    }
+
+    /**
+     * Rewrite the create script to create the observation table partitioned.
+     *
+     * @param script
+     *            the create script generated by Hibernate
+     * @param time
+     *            the time of the first partition to create
+     * @return the script creating the partitioned table
+     */
+    public String[] partition(String[] script, DateTime time) {
+        List<String> checked = new LinkedList<>();
+        boolean partitioned = false;
+        for (String statement : script) {
+            Matcher matcher = createTable.matcher(statement.trim());
+            if (matcher.matches()) {
+                checked.addAll(delimit(getPreCreateStatements()));
+                checked.add(new StringBuilder("create table ").append(matcher.group(1)).append(" (")
+                        .append(addToPrimaryKey(matcher.group(2))).append(")").append(getPartitionClause())
+                        .append(DELIMITER).toString());
+                checked.addAll(delimit(getPostCreateStatements(time)));
+                partitioned = true;
+            } else if (isSupported(statement.trim())) {
+                checked.add(statement);
+            }
+        }
+        if (!partitioned) {
+            LOGGER.warn("Create statement of table {} not found, the table is not partitioned!", table);
+        }
+        return checked.toArray(new String[checked.size()]);
+    }
+
+    /**
+     * @param metaData
+     *            the metadata of the database
+     * @return if the database version supports the partitioning
+     * @throws SQLException
+     *             if the version can not be read
+     */
+    public boolean supports(DatabaseMetaData metaData) throws SQLException {
+        return true;
+    }
+
+    /**
+     * Check if the existing observation table is partitioned. A table created
+     * before the partitioning was configured is not.
+     *
+     * @param connection
+     *            the connection to the database
+     * @return if the observation table exists and is partitioned
+     * @throws SQLException
+     *             if the check fails
+     */
+    public boolean isPartitioned(Connection connection) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(getPartitionedQuery())) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Remove the constraints that a partitioned observation table does not
+     * support, e.g. from an update script. Only apply it if the table
+     * {@link #isPartitioned(Connection) is partitioned}.
+     *
+     * @param script
+     *            the script to check
+     * @return the script without unsupported constraints
+     */
+    public String[] filter(String[] script) {
+        List<String> checked = new LinkedList<>();
+        for (String statement : script) {
+            if (isSupported(statement.trim())) {
+                checked.add(statement);
+            }
+        }
+        return checked.toArray(new String[checked.size()]);
+    }
+
+    /**
+     * Get the statements to create the current and future partitions and to
+     * detach the partitions outside of the retention period.
+     *
+     * @param time
+     *            the current time
+     * @param premake
+     *            the number of future partitions to create
+     * @param retention
+     *            the number of past partitions to keep attached, {@code 0}
+     *            keeps all
+     * @return the maintenance statements
+     */
+    public List<String> getMaintenanceStatements(DateTime time, int premake, int retention) {
+        List<String> statements = new LinkedList<>();
+        DateTime start = getStart(time);
+        for (int i = 0; i <= premake; i++) {
+            statements.addAll(getCreatePartitionStatements(start));
+            start = getNext(start);
+        }
+        if (retention > 0 && supportsDetach()) {
+            DateTime limit = getStart(time);
+            for (int i = 0; i < retention; i++) {
+                limit = getPrevious(limit);
+            }
+            for (int i = 0; i < DETACH_LOOKBACK; i++) {
+                limit = getPrevious(limit);
+                statements.addAll(getDetachPartitionStatements(limit));
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * @return if old partitions can be detached from the table
+     */
+    public boolean supportsDetach() {
+        return false;
+    }
+
+    /**
+     * @param start
+     *            the start of the partition
+     * @return the statements to create the partition, if it does not exist
+     */
+    public abstract List<String> getCreatePartitionStatements(DateTime start);
+
+    /**
+     * @param start
+     *            the start of the partition
+     * @return the statements to detach the partition, if it is attached
+     */
+    public List<String> getDetachPartitionStatements(DateTime start) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @return the query returning a row if the table passed as parameter is
+     *         partitioned
+     */
+    protected abstract String getPartitionedQuery();
+
+    /**
+     * @return the clause appended to the create table statement
+     */
+    protected abstract String getPartitionClause();
+
+    /**
+     * @return the statements to run before the table is created
+     */
+    protected List<String> getPreCreateStatements() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @param time
+     *            the time of the first partition to create
+     * @return the statements to run after the table is created
+     */
+    protected List<String> getPostCreateStatements(DateTime time) {
+        DateTime start = getStart(time);
+        List<String> statements = new LinkedList<>(getCreatePartitionStatements(start));
+        statements.addAll(getCreatePartitionStatements(getNext(start)));
+        return statements;
+    }
+
+    /**
+     * @param time
+     *            the time
+     * @return the start of the partition containing the time
+     */
+    public DateTime getStart(DateTime time) {
+        DateTime utc = time.withZone(DateTimeZone.UTC);
+        if (PartitionInterval.YEAR.equals(interval)) {
+            return utc.withDayOfYear(1).withTimeAtStartOfDay();
+        }
+        return utc.withDayOfMonth(1).withTimeAtStartOfDay();
+    }
+
+    /**
+     * @param start
+     *            the start of a partition
+     * @return the start of the following partition
+     */
+    public DateTime getNext(DateTime start) {
+        return PartitionInterval.YEAR.equals(interval) ? start.plusYears(1) : start.plusMonths(1);
+    }
+
+    protected DateTime getPrevious(DateTime start) {
+        return PartitionInterval.YEAR.equals(interval) ? start.minusYears(1) : start.minusMonths(1);
+    }
+
+    protected String getPartitionName(DateTime start) {
+        return table + "_p" + start.toString(PartitionInterval.YEAR.equals(interval) ? "yyyy" : "yyyyMM");
+    }
+
+    protected String getBound(DateTime time) {
+        return BOUND_FORMAT.print(time) + UTC_OFFSET;
+    }
+
+    protected static String unqualified(String name) {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private boolean isSupported(String statement) {
+        if (foreignKey.matcher(statement).matches()) {
+            LOGGER.debug("Foreign key on partitioned table {} removed: {}", table, statement);
+            return false;
+        }
+        Matcher matcher = uniqueConstraint.matcher(statement);
+        if (matcher.matches() && !containsColumn(matcher.group(1))) {
+            LOGGER.debug("Unique constraint without partition column {} removed: {}", column, statement);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean containsColumn(String columns) {
+        for (String c : columns.split(",")) {
+            if (c.trim().equalsIgnoreCase(column)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String addToPrimaryKey(String definition) {
+        Matcher matcher = Pattern.compile("primary key \\(([^)]*)\\)", Pattern.CASE_INSENSITIVE).matcher(definition);
+        if (matcher.find() && !containsColumn(matcher.group(1))) {
+            return new StringBuilder(definition).insert(matcher.end(1), ", " + column).toString();
+        }
+        return definition;
+    }
+
+    private List<String> delimit(List<String> statements) {
+        List<String> delimited = new LinkedList<>();
+        for (String statement : statements) {
+            delimited.add(statement + DELIMITER);
+        }
+        return delimited;
+    }
+
+}
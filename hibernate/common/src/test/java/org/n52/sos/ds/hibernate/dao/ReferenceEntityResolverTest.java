@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.hamcrest.Matchers;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.junit.After;
+import org.junit.Test;
+import org.n52.series.db.beans.CodespaceEntity;
+import org.n52.series.db.beans.UnitEntity;
+import org.n52.shetland.ogc.UoM;
+import org.n52.sos.ds.hibernate.H2Configuration;
+import org.n52.sos.ds.hibernate.HibernateTestCase;
+
+public class ReferenceEntityResolverTest extends HibernateTestCase {
+
+    private static final String CODESPACE_A = "http://www.example.org/a";
+
+    private static final String CODESPACE_B = "http://www.example.org/b";
+
+    private final ReferenceEntityResolver resolver = new ReferenceEntityResolver();
+
+    @After
+    public void clean() {
+        H2Configuration.truncate();
+    }
+
+    @Test
+    public void shouldInsertMissingAndReuseExistingEntities() {
+        Session session = getSession();
+        Transaction transaction = session.beginTransaction();
+        try {
+            Map<String, CodespaceEntity> first =
+                    resolver.resolveCodespaces(Arrays.asList(CODESPACE_A, CODESPACE_B, CODESPACE_A), session);
+            assertThat(first.keySet(), Matchers.containsInAnyOrder(CODESPACE_A, CODESPACE_B));
+            assertThat(first.get(CODESPACE_A).getId(), Matchers.notNullValue());
+            session.clear();
+
+            Map<String, CodespaceEntity> second = resolver.resolveCodespaces(Arrays.asList(CODESPACE_A), session);
+            assertThat(second.get(CODESPACE_A).getId(), Matchers.is(first.get(CODESPACE_A).getId()));
+            assertThat(new CodespaceDAO().getCodespace(CODESPACE_A, session), Matchers.notNullValue());
+            transaction.commit();
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void shouldResolveAgainWhenCachedEntityWasDeleted() {
+        UoM uom = new UoM("m");
+        Session session = getSession();
+        try {
+            Transaction transaction = session.beginTransaction();
+            Long id = resolver.resolveUnits(Arrays.asList(uom), session).get(uom).getId();
+            transaction.commit();
+            session.clear();
+
+            transaction = session.beginTransaction();
+            session.delete(session.get(UnitEntity.class, id));
+            session.flush();
+            transaction.commit();
+            session.clear();
+
+            transaction = session.beginTransaction();
+            UnitEntity unit = resolver.resolveUnits(Arrays.asList(uom), session).get(uom);
+            assertThat(unit, Matchers.notNullValue());
+            assertThat(unit.getUnit(), Matchers.is("m"));
+            assertThat(unit.getId(), Matchers.not(id));
+            transaction.commit();
+        } finally {
+            returnSession(session);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.bulk;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.hibernate.type.BigDecimalType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
+import org.hibernate.type.TimestampType;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.n52.sos.ds.hibernate.dao.observation.bulk.ValueTableMapping.ValueColumn;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+public class CopyValueWriterTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private static final Date TIME = new DateTime(2013, 7, 18, 3, 0, DateTimeZone.UTC).toDate();
+
+    private static final String STAGING_SQL = "create temporary table sos_bulk_values on commit drop as select "
+            + "fk_dataset_id, sampling_time_start, sampling_time_end, result_time, value_quantity, sta_identifier "
+            + "from observation with no data";
+
+    private static final String COPY_SQL = "copy sos_bulk_values (fk_dataset_id, sampling_time_start, "
+            + "sampling_time_end, result_time, value_quantity, sta_identifier) from stdin with (format csv)";
+
+    private static final String MERGE_SQL = "insert into observation (observation_id, value_type, is_deleted, "
+            + "fk_dataset_id, sampling_time_start, sampling_time_end, result_time, value_quantity, sta_identifier) "
+            + "select nextval ('observation_seq'), 'quantity', false, fk_dataset_id, sampling_time_start, "
+            + "sampling_time_end, result_time, value_quantity, sta_identifier from sos_bulk_values";
+
+    private final ValueTableMapping mapping = new ValueTableMapping("observation",
+            Arrays.asList("observation_id", "value_type", "is_deleted"),
+            Arrays.asList("nextval ('observation_seq')", "'quantity'", "false"),
+            Arrays.asList("fk_dataset_id", "sampling_time_start", "sampling_time_end", "result_time",
+                    "value_quantity", "sta_identifier"),
+            Arrays.asList(ValueColumn.values()),
+            Arrays.asList(LongType.INSTANCE, TimestampType.INSTANCE, TimestampType.INSTANCE, TimestampType.INSTANCE,
+                    BigDecimalType.INSTANCE, StringType.INSTANCE));
+
+    private final List<BulkValue> values = Arrays.asList(
+            new BulkValue(1L, TIME, TIME, TIME, new BigDecimal("20.80"), "a"),
+            new BulkValue(2L, TIME, new Date(TIME.getTime() + 1500), TIME, new BigDecimal("1E+3"), null));
+
+    private Connection connection;
+
+    private Statement statement;
+
+    private CopyManager copyManager;
+
+    private CopyIn copyIn;
+
+    @Before
+    public void setUp() throws SQLException {
+        connection = mock(Connection.class);
+        statement = mock(Statement.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        copyManager = mock(CopyManager.class);
+        copyIn = mock(CopyIn.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString())).thenReturn(copyIn);
+        when(copyIn.endCopy()).thenReturn(2L);
+        when(statement.executeUpdate(anyString())).thenReturn(2);
+    }
+
+    @Test
+    public void shouldCreateStatementsFromMapping() {
+        assertThat(mapping.getStagingTableSql(CopyValueWriter.STAGING_TABLE), is(STAGING_SQL));
+        assertThat(mapping.getCopySql(CopyValueWriter.STAGING_TABLE), is(COPY_SQL));
+        assertThat(mapping.getMergeSql(CopyValueWriter.STAGING_TABLE), is(MERGE_SQL));
+        assertThat(mapping.getInsertSql(), is("insert into observation (observation_id, value_type, is_deleted, "
+                + "fk_dataset_id, sampling_time_start, sampling_time_end, result_time, value_quantity, "
+                + "sta_identifier) values (nextval ('observation_seq'), 'quantity', false, ?, ?, ?, ?, ?, ?)"));
+    }
+
+    @Test
+    public void shouldEncodeCsvRows() {
+        CopyRowEncoder encoder = new CopyRowEncoder(TimeZone.getTimeZone("Europe/Berlin"));
+        StringBuilder builder = new StringBuilder();
+        List<ValueColumn> columns = Arrays.asList(ValueColumn.DATASET, ValueColumn.RESULT_TIME, ValueColumn.VALUE);
+        encoder.encode(builder, columns, new BulkValue(1L, null, null, TIME, "say \"hi\", twice", null));
+        encoder.encode(builder, columns, new BulkValue(2L, null, null, null, "", null));
+        encoder.encode(builder, columns, new BulkValue(3L, null, null, null, Boolean.TRUE, null));
+        encoder.encode(builder, columns, new BulkValue(4L, null, null, null, 42, null));
+        assertThat(builder.toString(), is("1,2013-07-18 05:00:00.000+02:00,\"say \"\"hi\"\", twice\"\n"
+                + "2,,\"\"\n"
+                + "3,,t\n"
+                + "4,,42\n"));
+    }
+
+    @Test
+    public void shouldCopyValuesThroughStagingTable() throws SQLException {
+        long inserted = new CopyValueWriter(UTC).write(connection, mapping, values);
+
+        assertThat(inserted, is(2L));
+        InOrder inOrder = inOrder(statement, copyManager, copyIn);
+        inOrder.verify(statement).execute(STAGING_SQL);
+        inOrder.verify(copyManager).copyIn(COPY_SQL);
+        ArgumentCaptor<byte[]> data = ArgumentCaptor.forClass(byte[].class);
+        inOrder.verify(copyIn).writeToCopy(data.capture(), eq(0), anyInt());
+        inOrder.verify(copyIn).endCopy();
+        inOrder.verify(statement).executeUpdate(MERGE_SQL);
+        inOrder.verify(statement).execute("drop table sos_bulk_values");
+        assertThat(new String(data.getValue(), StandardCharsets.UTF_8),
+                is("1,2013-07-18 03:00:00.000+00:00,2013-07-18 03:00:00.000+00:00,2013-07-18 03:00:00.000+00:00,"
+                        + "20.80,\"a\"\n"
+                        + "2,2013-07-18 03:00:00.000+00:00,2013-07-18 03:00:01.500+00:00,2013-07-18 03:00:00.000+00:00,"
+                        + "1000,\n"));
+        verify(copyIn, never()).cancelCopy();
+    }
+
+    @Test
+    public void shouldCancelCopyOnError() throws SQLException {
+        doThrow(new SQLException("broken pipe")).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(copyIn.isActive()).thenReturn(true);
+        try {
+            new CopyValueWriter(UTC).write(connection, mapping, values);
+            fail("SQLException expected");
+        } catch (SQLException e) {
+            assertThat(e.getMessage(), is("broken pipe"));
+        }
+        verify(copyIn).cancelCopy();
+        verify(statement, never()).executeUpdate(anyString());
+    }
+}
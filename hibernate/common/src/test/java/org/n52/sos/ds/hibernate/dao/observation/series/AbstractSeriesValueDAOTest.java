@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.series;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class AbstractSeriesValueDAOTest {
+
+    private static final long HOUR = 3600000L;
+
+    @Test
+    public void shouldDivideEpochMillisOfTimestampWithTimeZone() {
+        assertThat(AbstractSeriesValueDAO.getBucketExpression("phenomenonTimeStart", true,
+                TimeZone.getTimeZone("Europe/Berlin"), HOUR),
+                is("cast(floor(extract(epoch from {alias}.phenomenonTimeStart) * 1000 / 3600000) as bigint)"));
+    }
+
+    @Test
+    public void shouldInterpretTimestampInJdbcTimeZone() {
+        assertThat(AbstractSeriesValueDAO.getBucketExpression("phenomenonTimeStart", false,
+                TimeZone.getTimeZone("Europe/Berlin"), HOUR),
+                is("cast(floor(extract(epoch from {alias}.phenomenonTimeStart at time zone 'Europe/Berlin') * 1000"
+                        + " / 3600000) as bigint)"));
+    }
+
+    @Test
+    public void shouldEscapeTimeZone() {
+        assertThat(AbstractSeriesValueDAO.getBucketExpression("phenomenonTimeStart", false,
+                new SimpleTimeZone(0, "O'Clock"), HOUR),
+                is("cast(floor(extract(epoch from {alias}.phenomenonTimeStart at time zone 'O''Clock') * 1000"
+                        + " / 3600000) as bigint)"));
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.series;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.series.db.beans.QuantityDataEntity;
+import org.n52.shetland.ogc.om.values.QuantityValue;
+
+public class DatasetLatestValueStoreTest {
+
+    @Test
+    public void shouldServeLatestValueMatchingDataset() {
+        DatasetLatestValueStore store = new DatasetLatestValueStore();
+        DatasetEntity dataset = dataset(new Date(2000L));
+        store.put(dataset, observation(new Date(2000L), 1.5));
+        Assert.assertTrue(store.get(dataset).isPresent());
+        Assert.assertEquals(1.5, ((QuantityValue) store.get(dataset).get().createValue()).getValue().doubleValue(),
+                0.0);
+    }
+
+    @Test
+    public void shouldNotServeStaleLatestValue() {
+        DatasetLatestValueStore store = new DatasetLatestValueStore();
+        DatasetEntity dataset = dataset(new Date(3000L));
+        store.put(dataset, observation(new Date(2000L), 1.5));
+        Assert.assertFalse(store.get(dataset).isPresent());
+    }
+
+    @Test
+    public void shouldKeepNewerLatestValue() {
+        DatasetLatestValueStore store = new DatasetLatestValueStore();
+        DatasetEntity dataset = dataset(new Date(3000L));
+        store.put(dataset, observation(new Date(3000L), 2.5));
+        store.put(dataset, observation(new Date(2000L), 1.5));
+        Assert.assertTrue(store.get(dataset).isPresent());
+        store.remove(dataset.getId());
+        Assert.assertFalse(store.get(dataset).isPresent());
+    }
+
+    @Test
+    public void shouldKeepPhenomenonPeriod() {
+        DatasetLatestValueStore store = new DatasetLatestValueStore();
+        DatasetEntity dataset = dataset(new Date(3000L));
+        QuantityDataEntity observation = observation(new Date(3000L), 2.5);
+        observation.setSamplingTimeStart(new Date(1000L));
+        observation.setResultTime(new Date(4000L));
+        store.put(dataset, observation);
+        Assert.assertTrue(store.get(dataset).get().isPhenomenonTimePeriod());
+        Assert.assertEquals(new Date(1000L), store.get(dataset).get().getPhenomenonTimeStart());
+        Assert.assertEquals(new Date(3000L), store.get(dataset).get().getPhenomenonTime());
+        Assert.assertEquals(new Date(4000L), store.get(dataset).get().getResultTime());
+    }
+
+    private DatasetEntity dataset(Date lastValueAt) {
+        DatasetEntity dataset = new DatasetEntity();
+        dataset.setId(1L);
+        dataset.setLastValueAt(lastValueAt);
+        return dataset;
+    }
+
+    private QuantityDataEntity observation(Date time, double value) {
+        QuantityDataEntity observation = new QuantityDataEntity();
+        observation.setSamplingTimeStart(time);
+        observation.setSamplingTimeEnd(time);
+        observation.setResultTime(time);
+        observation.setValue(BigDecimal.valueOf(value));
+        return observation;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.series;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+import org.n52.series.db.beans.DataEntity;
+import org.n52.shetland.ogc.filter.FilterConstants.TimeOperator;
+import org.n52.shetland.ogc.filter.TemporalFilter;
+import org.n52.shetland.ogc.gml.time.Time;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.gml.time.TimePeriod;
+import org.n52.sos.ds.hibernate.dao.observation.series.SeriesValueQueryPlanCache.Plan;
+
+public class SeriesValueQueryPlanCacheTest {
+
+    private static final String ENTITY = DataEntity.class.getName();
+
+    private static final String PHENOMENON_TIME = "om:phenomenonTime";
+
+    @Test
+    public void shouldReusePlanForSameShape() {
+        SeriesValueQueryPlanCache cache = new SeriesValueQueryPlanCache();
+        Plan first = cache.getPlan(ENTITY, DataEntity.PROPERTY_SAMPLING_TIME_START, false,
+                Collections.singletonList(filter(TimeOperator.TM_During, period(0, 10))));
+        Plan second = cache.getPlan(ENTITY, DataEntity.PROPERTY_SAMPLING_TIME_START, false,
+                Collections.singletonList(filter(TimeOperator.TM_During, period(20, 30))));
+        assertThat(second, is(sameInstance(first)));
+        assertThat(cache.getHits(), is(1L));
+        assertThat(cache.getMisses(), is(1L));
+        assertThat(cache.getHitRate(), is(0.5));
+    }
+
+    @Test
+    public void shouldCreatePlanPerShape() {
+        SeriesValueQueryPlanCache cache = new SeriesValueQueryPlanCache();
+        Plan during = cache.getPlan(ENTITY, DataEntity.PROPERTY_SAMPLING_TIME_START, false,
+                Collections.singletonList(filter(TimeOperator.TM_During, period(0, 10))));
+        Plan after = cache.getPlan(ENTITY, DataEntity.PROPERTY_SAMPLING_TIME_START, false,
+                Collections.singletonList(filter(TimeOperator.TM_After, period(0, 10))));
+        Plan multiple = cache.getPlan(ENTITY, DataEntity.PROPERTY_SAMPLING_TIME_START, true,
+                Collections.singletonList(filter(TimeOperator.TM_During, period(0, 10))));
+        Plan unfiltered = cache.getPlan(ENTITY, DataEntity.PROPERTY_SAMPLING_TIME_START, false,
+                Collections.emptyList());
+        assertThat(after, is(not(sameInstance(during))));
+        assertThat(multiple, is(not(sameInstance(during))));
+        assertThat(unfiltered, is(notNullValue()));
+        assertThat(cache.getSize(), is(4));
+        assertThat(cache.getHits(), is(0L));
+    }
+
+    @Test
+    public void shouldNotSupportOtherFilters() {
+        SeriesValueQueryPlanCache cache = new SeriesValueQueryPlanCache();
+        assertThat(cache.getPlan(ENTITY, DataEntity.PROPERTY_SAMPLING_TIME_START, false,
+                Collections.singletonList(new TemporalFilter(TimeOperator.TM_During, period(0, 10), "om:resultTime"))),
+                is(nullValue()));
+        assertThat(cache.getPlan(ENTITY, DataEntity.PROPERTY_SAMPLING_TIME_START, false,
+                Collections.singletonList(filter(TimeOperator.TM_Equals, new TimeInstant(time(0))))),
+                is(nullValue()));
+        assertThat(cache.getPlan(ENTITY, DataEntity.PROPERTY_SAMPLING_TIME_START, false,
+                Collections.singletonList(filter(TimeOperator.TM_During, period(10, 10)))), is(nullValue()));
+        assertThat(cache.getSize(), is(0));
+    }
+
+    @Test
+    public void shouldCombineFiltersLikeCriteria() {
+        Plan plan = new SeriesValueQueryPlanCache().getPlan(ENTITY, DataEntity.PROPERTY_SAMPLING_TIME_START, true,
+                Arrays.asList(filter(TimeOperator.TM_During, period(0, 10)),
+                        filter(TimeOperator.TM_After, period(20, 30))));
+        assertThat(plan.getValueQuery(),
+                containsString(" and (((o.samplingTimeStart > :b0 and o.samplingTimeEnd < :e0)"
+                        + " and o.samplingTimeStart <= :e0) or o.samplingTimeStart > :e1)"
+                        + " order by o.samplingTimeStart asc"));
+        assertThat(plan.getIdQuery(), containsString(" in (:series)"));
+        assertThat(plan.getValueByIdQuery(), containsString("left join fetch o.parameters"));
+    }
+
+    @Test
+    public void shouldReportStatistics() {
+        SeriesValueQueryPlanCache cache = new SeriesValueQueryPlanCache();
+        for (int i = 0; i < 4; i++) {
+            cache.getPlan(ENTITY, DataEntity.PROPERTY_SAMPLING_TIME_START, false,
+                    Collections.singletonList(filter(TimeOperator.TM_During, period(0, 10))));
+        }
+        Map<String, Object> statistics = cache.getStatistics();
+        assertThat(statistics.get("plans"), is(1));
+        assertThat(statistics.get("hits"), is(3L));
+        assertThat(statistics.get("misses"), is(1L));
+        assertThat(statistics.get("hitRatio"), is(0.75));
+
+        cache.resetStatistics();
+        assertThat(cache.getStatistics().get("hits"), is(0L));
+        assertThat(cache.getStatistics().get("plans"), is(1));
+    }
+
+    @Test
+    public void shouldBoundSamplingTimeStartExceptForAfter() {
+        assertThat(Plan.getTemporalRestriction(TimeOperator.TM_Before, 0),
+                is("(o.samplingTimeEnd < :b0 and o.samplingTimeStart <= :e0)"));
+        assertThat(Plan.getTemporalRestriction(TimeOperator.TM_Meets, 1),
+                is("(o.samplingTimeEnd = :b1 and o.samplingTimeStart <= :e1)"));
+        assertThat(Plan.getTemporalRestriction(TimeOperator.TM_After, 2), is("o.samplingTimeStart > :e2"));
+    }
+
+    private static TemporalFilter filter(TimeOperator operator, Time time) {
+        return new TemporalFilter(operator, time, PHENOMENON_TIME);
+    }
+
+    private static TimePeriod period(long begin, long end) {
+        return new TimePeriod(time(begin), time(end));
+    }
+
+    private static DateTime time(long seconds) {
+        return new DateTime(seconds * 1000, DateTimeZone.UTC);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.iceland.ds.ConnectionProvider;
+import org.n52.series.db.beans.PhenomenonEntity;
+import org.n52.series.db.beans.UnitEntity;
+import org.n52.shetland.ogc.sos.request.InsertSensorRequest;
+import org.n52.shetland.ogc.sos.request.UpdateSensorRequest;
+import org.n52.shetland.ogc.sos.response.InsertSensorResponse;
+import org.n52.shetland.ogc.sos.response.UpdateSensorResponse;
+import org.n52.sos.event.events.ObservationInsertion;
+import org.n52.sos.event.events.SensorInsertion;
+import org.n52.sos.event.events.SensorModification;
+import org.n52.sos.event.events.UpdateCache;
+
+public class ReferenceEntityCacheInvalidatorTest {
+
+    private ReferenceEntityCacheInvalidator invalidator;
+
+    private ConnectionProvider connectionProvider;
+
+    private Session session;
+
+    private SessionFactoryOptions options;
+
+    private Cache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        connectionProvider = mock(ConnectionProvider.class);
+        session = mock(Session.class);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        options = mock(SessionFactoryOptions.class);
+        cache = mock(Cache.class);
+        when(connectionProvider.getConnection()).thenReturn(session);
+        when(session.getSessionFactory()).thenReturn(sessionFactory);
+        when(sessionFactory.getSessionFactoryOptions()).thenReturn(options);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        when(sessionFactory.getStatistics()).thenReturn(mock(Statistics.class));
+        when(options.isSecondLevelCacheEnabled()).thenReturn(true);
+        invalidator = new ReferenceEntityCacheInvalidator();
+        invalidator.setConnectionProvider(connectionProvider);
+    }
+
+    @Test
+    public void shouldClearRegionsAfterSensorInsertion() {
+        invalidator.handle(new SensorInsertion(mock(InsertSensorRequest.class), mock(InsertSensorResponse.class)));
+        verifyEvicted();
+    }
+
+    @Test
+    public void shouldClearRegionsAfterSensorModification() {
+        invalidator.handle(new SensorModification(mock(UpdateSensorRequest.class), mock(UpdateSensorResponse.class)));
+        verifyEvicted();
+    }
+
+    @Test
+    public void shouldClearRegionsAfterCacheUpdate() {
+        invalidator.handle(new UpdateCache());
+        verifyEvicted();
+    }
+
+    @Test
+    public void shouldNotClearWithoutSecondLevelCache() {
+        when(options.isSecondLevelCacheEnabled()).thenReturn(false);
+        invalidator.handle(new UpdateCache());
+        verify(cache, never()).evictEntityData(any(Class.class));
+        verify(cache, never()).evictQueryRegion(any(String.class));
+        verify(connectionProvider).returnConnection(session);
+    }
+
+    @Test
+    public void shouldListenToSensorAndCacheUpdateEvents() {
+        assertThat(invalidator.getTypes(), hasItem(SensorInsertion.class));
+        assertThat(invalidator.getTypes(), hasItem(SensorModification.class));
+        assertThat(invalidator.getTypes(), hasItem(UpdateCache.class));
+        assertThat(invalidator.getTypes(), not(hasItem(ObservationInsertion.class)));
+    }
+
+    private void verifyEvicted() {
+        verify(cache).evictEntityData(PhenomenonEntity.class);
+        verify(cache).evictEntityData(UnitEntity.class);
+        verify(cache).evictQueryRegion(ReferenceEntityCache.IDENTIFIER_QUERY_REGION);
+        verify(connectionProvider).returnConnection(session);
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+import org.n52.series.db.beans.DataEntity;
+import org.n52.shetland.ogc.filter.FilterConstants.TimeOperator;
+import org.n52.shetland.ogc.filter.TemporalFilter;
+import org.n52.shetland.ogc.gml.time.Time;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.gml.time.TimePeriod;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.Sos2Constants;
+
+/**
+ * Checks the bound on the phenomenon time start used for partition pruning,
+ * the results of the restrictions are checked by the
+ * {@link TemporalRestrictionTest} implementations.
+ */
+public class SosTemporalRestrictionsTest {
+
+    private static final String LATEST_START = DataEntity.PROPERTY_SAMPLING_TIME_START + "<=";
+
+    private static final DateTime BEGIN = new DateTime(2026, 10, 1, 0, 0, DateTimeZone.UTC);
+
+    private static final DateTime END = new DateTime(2026, 11, 1, 0, 0, DateTimeZone.UTC);
+
+    @Test
+    public void should_bound_phenomenon_time_start() throws OwsExceptionReport {
+        for (TimeOperator operator : new TimeOperator[] { TimeOperator.TM_Before, TimeOperator.TM_Meets,
+            TimeOperator.TM_During, TimeOperator.TM_Ends, TimeOperator.TM_Overlaps }) {
+            assertThat(phenomenonTime(operator, new TimePeriod(BEGIN, END)), containsString(LATEST_START));
+        }
+        assertThat(phenomenonTime(TimeOperator.TM_Before, new TimeInstant(END)), containsString(LATEST_START));
+    }
+
+    @Test
+    public void should_not_bound_phenomenon_time_start_for_after() throws OwsExceptionReport {
+        assertThat(phenomenonTime(TimeOperator.TM_After, new TimePeriod(BEGIN, END)),
+                not(containsString(LATEST_START)));
+    }
+
+    @Test
+    public void should_not_bound_result_time() throws OwsExceptionReport {
+        assertThat(SosTemporalRestrictions.filter(new TemporalFilter(TimeOperator.TM_Before, new TimeInstant(END),
+                Sos2Constants.RESULT_TIME_VALUE_REFERENCE)).toString(), not(containsString(LATEST_START)));
+    }
+
+    private String phenomenonTime(TimeOperator operator, Time time) throws OwsExceptionReport {
+        return SosTemporalRestrictions.filter(
+                new TemporalFilter(operator, time, Sos2Constants.PHENOMENON_TIME_VALUE_REFERENCE)).toString();
+    }
+
+}
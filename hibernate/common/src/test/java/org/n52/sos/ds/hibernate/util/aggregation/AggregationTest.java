@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util.aggregation;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.n52.series.db.beans.CountDataEntity;
+import org.n52.series.db.beans.DataEntity;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.series.db.beans.QuantityDataEntity;
+import org.n52.series.db.beans.UnitEntity;
+import org.n52.shetland.ogc.om.values.Value;
+import org.n52.shetland.ogc.ows.exception.InvalidParameterValueException;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.sos.ds.hibernate.util.observation.ObservationValueCreator;
+
+public class AggregationTest {
+
+    private static final long HOUR = 3600000L;
+
+    @Test
+    public void shouldParseIntervalAggregation() throws InvalidParameterValueException {
+        Aggregation aggregation = Aggregation.parse("avg,PT1H");
+        Assert.assertEquals(AggregationFunction.AVG, aggregation.getFunction());
+        Assert.assertEquals(HOUR, aggregation.getInterval());
+    }
+
+    @Test
+    public void shouldParseDownsampling() throws InvalidParameterValueException {
+        Aggregation aggregation = Aggregation.parse("LTTB, 1000");
+        Assert.assertEquals(AggregationFunction.LTTB, aggregation.getFunction());
+        Assert.assertEquals(1000, aggregation.getPoints());
+    }
+
+    @Test(expected = InvalidParameterValueException.class)
+    public void shouldRejectUnknownFunction() throws InvalidParameterValueException {
+        Aggregation.parse("median,PT1H");
+    }
+
+    @Test(expected = InvalidParameterValueException.class)
+    public void shouldRejectIntervalWithoutStandardDuration() throws InvalidParameterValueException {
+        Aggregation.parse("avg,P1M");
+    }
+
+    @Test(expected = InvalidParameterValueException.class)
+    public void shouldRejectTooFewPoints() throws InvalidParameterValueException {
+        Aggregation.parse("lttb,2");
+    }
+
+    @Test
+    public void shouldAggregatePerInterval() throws InvalidParameterValueException {
+        ValueAggregator aggregator = Aggregation.parse("avg,PT1H").createAggregator(new DatasetEntity(), 0, 0);
+        aggregator.add(value(1, 0, 1.0));
+        aggregator.add(value(2, HOUR / 2, 2.0));
+        aggregator.add(value(3, HOUR, 6.0));
+        List<DataEntity<?>> values = aggregator.finish();
+        Assert.assertEquals(2, values.size());
+        Assert.assertEquals(1.5, ((QuantityDataEntity) values.get(0)).getValue().doubleValue(), 0.0);
+        Assert.assertEquals(new Date(HOUR / 2), values.get(0).getSamplingTimeEnd());
+        Assert.assertEquals(6.0, ((QuantityDataEntity) values.get(1)).getValue().doubleValue(), 0.0);
+        Assert.assertEquals(Long.valueOf(3), values.get(1).getId());
+    }
+
+    @Test
+    public void shouldCountWithoutUnit() throws OwsExceptionReport {
+        UnitEntity unit = new UnitEntity();
+        unit.setUnit("m");
+        DatasetEntity dataset = new DatasetEntity();
+        dataset.setUnit(unit);
+        ValueAggregator aggregator = Aggregation.parse("count,PT1H").createAggregator(dataset, 0, 0);
+        aggregator.add(value(1, 0, 1.0));
+        aggregator.add(value(2, HOUR / 2, 2.0));
+        List<DataEntity<?>> values = aggregator.finish();
+        Assert.assertEquals(1, values.size());
+        Assert.assertTrue(values.get(0) instanceof CountDataEntity);
+        Assert.assertEquals(Integer.valueOf(2), ((CountDataEntity) values.get(0)).getValue());
+
+        Value<?> value = new ObservationValueCreator(null).visit(values.get(0));
+        Assert.assertEquals(Integer.valueOf(2), value.getValue());
+        Assert.assertFalse(value.isSetUnit());
+
+        Value<?> quantity = new ObservationValueCreator(null)
+                .visit(ValueAggregator.createAggregatedValue(1L, dataset, new Date(0), null, null, BigDecimal.ONE));
+        Assert.assertEquals("m", quantity.getUnit());
+    }
+
+    @Test
+    public void shouldKeepMinimumAndMaximumPerBucket() throws InvalidParameterValueException {
+        ValueAggregator aggregator = Aggregation.parse("minmax,2").createAggregator(new DatasetEntity(), 0, 3);
+        aggregator.add(value(1, 0, 2.0));
+        aggregator.add(value(2, 1, 5.0));
+        aggregator.add(value(3, 2, -1.0));
+        aggregator.add(value(4, 3, 3.0));
+        List<DataEntity<?>> values = aggregator.finish();
+        Assert.assertEquals(2, values.size());
+        Assert.assertEquals(Long.valueOf(2), values.get(0).getId());
+        Assert.assertEquals(Long.valueOf(3), values.get(1).getId());
+    }
+
+    @Test
+    public void shouldKeepPeaksWhenDownsampling() throws InvalidParameterValueException {
+        ValueAggregator aggregator = Aggregation.parse("lttb,4").createAggregator(new DatasetEntity(), 0, 99);
+        for (int i = 0; i < 100; i++) {
+            aggregator.add(value(i, i, i == 20 ? 100.0 : i == 70 ? -100.0 : 0.0));
+        }
+        List<DataEntity<?>> values = aggregator.finish();
+        Assert.assertEquals(4, values.size());
+        Assert.assertEquals(Long.valueOf(0), values.get(0).getId());
+        Assert.assertEquals(Long.valueOf(20), values.get(1).getId());
+        Assert.assertEquals(Long.valueOf(70), values.get(2).getId());
+        Assert.assertEquals(Long.valueOf(99), values.get(3).getId());
+    }
+
+    private QuantityDataEntity value(long id, long time, double value) {
+        QuantityDataEntity observation = new QuantityDataEntity();
+        observation.setId(id);
+        observation.setSamplingTimeStart(new Date(time));
+        observation.setSamplingTimeEnd(new Date(time));
+        observation.setResultTime(new Date(time));
+        observation.setValue(BigDecimal.valueOf(value));
+        return observation;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util.partition;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQL95Dialect;
+import org.hibernate.dialect.SQLServer2012Dialect;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+import org.n52.sos.ds.HibernateDatasourceConstants.PartitionInterval;
+
+public class TablePartitioningTest {
+
+    private static final String TABLE = "public.observation";
+
+    private static final String COLUMN = "sampling_time_start";
+
+    private static final DateTime TIME = new DateTime(2026, 10, 19, 12, 30, DateTimeZone.UTC);
+
+    private static final String CREATE_OBSERVATION = "create table public.observation (observation_id int8 not null, "
+            + "sampling_time_start timestamp not null, fk_dataset_id int8 not null, primary key (observation_id));";
+
+    private static final String CREATE_DATASET =
+            "create table public.dataset (dataset_id int8 not null, fk_first_observation_id int8, "
+            + "primary key (dataset_id));";
+
+    private static final String UNIQUE_IDENTIFIER =
+            "alter table if exists public.observation add constraint un_observation_identifier unique (identifier);";
+
+    private static final String UNIQUE_IDENTITY = "alter table if exists public.observation "
+            + "add constraint un_data_identity unique (fk_dataset_id, sampling_time_start);";
+
+    private static final String FK_DATASET = "alter table if exists public.observation "
+            + "add constraint fk_data_dataset foreign key (fk_dataset_id) references public.dataset;";
+
+    private static final String FK_FIRST_OBSERVATION = "alter table if exists public.dataset "
+            + "add constraint fk_dataset_first_obs foreign key (fk_first_observation_id) "
+            + "references public.observation;";
+
+    private static final String INDEX = "create index idx_sampling_time_start on public.observation "
+            + "(sampling_time_start);";
+
+    private static final String[] SCRIPT = new String[] { CREATE_DATASET, CREATE_OBSERVATION, UNIQUE_IDENTIFIER,
+        UNIQUE_IDENTITY, FK_DATASET, FK_FIRST_OBSERVATION, INDEX };
+
+    @Test
+    public void should_not_partition_without_interval_or_support() {
+        assertThat(TablePartitioning.of(new PostgreSQL95Dialect(), TABLE, COLUMN, null, PartitionInterval.NONE),
+                is(nullValue()));
+        assertThat(TablePartitioning.of(new H2Dialect(), TABLE, COLUMN, null, PartitionInterval.MONTH),
+                is(nullValue()));
+        assertThat(TablePartitioning.getPartitionInterval(null), is(PartitionInterval.NONE));
+        assertThat(TablePartitioning.getPartitionInterval("year"), is(PartitionInterval.YEAR));
+    }
+
+    @Test
+    public void should_create_partitioned_table_for_postgres() {
+        TablePartitioning partitioning =
+                TablePartitioning.of(new PostgreSQL95Dialect(), TABLE, COLUMN, null, PartitionInterval.MONTH);
+        assertThat(partitioning, is(instanceOf(PostgresTablePartitioning.class)));
+        assertThat(partitioning.partition(SCRIPT, TIME), arrayContaining(CREATE_DATASET,
+                "create table public.observation (observation_id int8 not null, "
+                        + "sampling_time_start timestamp not null, fk_dataset_id int8 not null, "
+                        + "primary key (observation_id, sampling_time_start)) "
+                        + "partition by range (sampling_time_start);",
+                "create table public.observation_default partition of public.observation default;",
+                "create table if not exists public.observation_p202610 partition of public.observation "
+                        + "for values from ('2026-10-01 00:00:00+00:00') to ('2026-11-01 00:00:00+00:00');",
+                "create table if not exists public.observation_p202611 partition of public.observation "
+                        + "for values from ('2026-11-01 00:00:00+00:00') to ('2026-12-01 00:00:00+00:00');",
+                UNIQUE_IDENTITY, FK_DATASET, INDEX));
+    }
+
+    @Test
+    public void should_remove_unsupported_constraints_from_update_script() {
+        TablePartitioning partitioning =
+                TablePartitioning.of(new PostgreSQL95Dialect(), TABLE, COLUMN, null, PartitionInterval.MONTH);
+        assertThat(partitioning.filter(new String[] { UNIQUE_IDENTIFIER, FK_FIRST_OBSERVATION, INDEX }),
+                arrayContaining(INDEX));
+    }
+
+    @Test
+    public void should_create_future_and_detach_old_partitions() {
+        TablePartitioning partitioning =
+                TablePartitioning.of(new PostgreSQL95Dialect(), TABLE, COLUMN, null, PartitionInterval.YEAR);
+        List<String> statements = partitioning.getMaintenanceStatements(TIME, 1, 2);
+        assertThat(statements.size(), is(14));
+        assertThat(statements.subList(0, 3), contains(
+                "do $$ begin if to_regclass('public.observation_p2026') is null then "
+                        + "create table public.observation_p2026 (like public.observation "
+                        + "including defaults including constraints); "
+                        + "with moved as (delete from public.observation_default "
+                        + "where sampling_time_start >= '2026-01-01 00:00:00+00:00' "
+                        + "and sampling_time_start < '2027-01-01 00:00:00+00:00' returning *) "
+                        + "insert into public.observation_p2026 select * from moved; "
+                        + "alter table public.observation attach partition public.observation_p2026 "
+                        + "for values from ('2026-01-01 00:00:00+00:00') to ('2027-01-01 00:00:00+00:00'); "
+                        + "end if; end $$",
+                "do $$ begin if to_regclass('public.observation_p2027') is null then "
+                        + "create table public.observation_p2027 (like public.observation "
+                        + "including defaults including constraints); "
+                        + "with moved as (delete from public.observation_default "
+                        + "where sampling_time_start >= '2027-01-01 00:00:00+00:00' "
+                        + "and sampling_time_start < '2028-01-01 00:00:00+00:00' returning *) "
+                        + "insert into public.observation_p2027 select * from moved; "
+                        + "alter table public.observation attach partition public.observation_p2027 "
+                        + "for values from ('2027-01-01 00:00:00+00:00') to ('2028-01-01 00:00:00+00:00'); "
+                        + "end if; end $$",
+                "do $$ begin if exists (select 1 from pg_inherits "
+                        + "where inhrelid = to_regclass('public.observation_p2023') "
+                        + "and inhparent = to_regclass('public.observation')) "
+                        + "then alter table public.observation detach partition public.observation_p2023; "
+                        + "end if; end $$"));
+    }
+
+    @Test
+    public void should_require_postgres_11() throws SQLException {
+        TablePartitioning partitioning =
+                TablePartitioning.of(new PostgreSQL95Dialect(), TABLE, COLUMN, null, PartitionInterval.MONTH);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseMajorVersion()).thenReturn(10);
+        assertThat(partitioning.supports(metaData), is(false));
+        when(metaData.getDatabaseMajorVersion()).thenReturn(11);
+        assertThat(partitioning.supports(metaData), is(true));
+    }
+
+    @Test
+    public void should_check_if_table_is_partitioned() throws SQLException {
+        TablePartitioning partitioning =
+                TablePartitioning.of(new PostgreSQL95Dialect(), TABLE, COLUMN, null, PartitionInterval.MONTH);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement("select 1 from pg_partitioned_table where partrelid = to_regclass(?)"))
+                .thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(false, true);
+        assertThat(partitioning.isPartitioned(connection), is(false));
+        assertThat(partitioning.isPartitioned(connection), is(true));
+        verify(statement, times(2)).setString(1, TABLE);
+    }
+
+    @Test
+    public void should_create_partition_scheme_for_sql_server() {
+        TablePartitioning partitioning = TablePartitioning.of(new SQLServer2012Dialect(), "dbo.observation", COLUMN,
+                "datetimeoffset", PartitionInterval.MONTH);
+        assertThat(partitioning, is(instanceOf(SqlServerTablePartitioning.class)));
+        String[] script = partitioning.partition(new String[] {
+            "create table dbo.observation (observation_id numeric(19,0) not null, "
+                    + "sampling_time_start datetimeoffset not null, primary key (observation_id));" }, TIME);
+        assertThat(script.length, is(7));
+        assertThat(script[0], is("if not exists (select 1 from sys.partition_functions where name = 'pf_observation') "
+                + "create partition function pf_observation (datetimeoffset) as range right for values ();"));
+        assertThat(script[2], is("create table dbo.observation (observation_id numeric(19,0) not null, "
+                + "sampling_time_start datetimeoffset not null, primary key (observation_id, sampling_time_start)) "
+                + "on ps_observation (sampling_time_start);"));
+        assertThat(script[3], is("if not exists (select 1 from sys.partition_range_values v "
+                + "join sys.partition_functions f on f.function_id = v.function_id where f.name = 'pf_observation' "
+                + "and cast(v.value as datetimeoffset) = '2026-10-01 00:00:00+00:00') "
+                + "begin alter partition scheme ps_observation next used [primary]; "
+                + "alter partition function pf_observation() split range ('2026-10-01 00:00:00+00:00'); end;"));
+        assertThat(partitioning.supportsDetach(), is(false));
+    }
+
+}
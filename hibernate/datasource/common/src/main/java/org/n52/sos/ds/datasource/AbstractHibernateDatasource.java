@@ -58,6 +58,8 @@ import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.dialect.Dialect;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.PersistentClass;
 import org.hibernate.mapping.Table;
 import org.hibernate.tool.hbm2ddl.SchemaExport;
 import org.hibernate.tool.hbm2ddl.SchemaExport.Action;
@@ -70,11 +72,14 @@ import org.n52.faroe.settings.BooleanSettingDefinition;
 import org.n52.faroe.settings.ChoiceSettingDefinition;
 import org.n52.faroe.settings.IntegerSettingDefinition;
 import org.n52.faroe.settings.StringSettingDefinition;
+import org.joda.time.DateTime;
 import org.n52.hibernate.type.SmallBooleanType;
 import org.n52.iceland.ds.DatasourceCallback;
+import org.n52.series.db.beans.DataEntity;
 import org.n52.sos.ds.HibernateDatasourceConstants;
 import org.n52.sos.ds.hibernate.util.DefaultHibernateConstants;
 import org.n52.sos.ds.hibernate.util.HibernateConstants;
+import org.n52.sos.ds.hibernate.util.partition.TablePartitioning;
 import org.n52.sos.util.SQLConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -142,6 +147,20 @@ public abstract class AbstractHibernateDatasource extends AbstractHibernateCoreD
 
     protected static final Integer BATCH_SIZE_DEFAULT_VALUE = 20;
 
+    protected static final String PARTITION_INTERVAL_TITLE = "Observation table partitioning";
+
+    protected static final String PARTITION_INTERVAL_DESCRIPTION =
+            "Partition the observation table by the phenomenon time start, so that temporal filters only scan "
+            + "the matching partitions. Only applied when the schema is created.";
+
+    protected static final String REFERENCE_CACHE_TITLE = "Cache reference entities";
+
+    protected static final String REFERENCE_CACHE_DESCRIPTION =
+            "Keep observable properties, units, formats, codespaces, categories, offerings and procedures in an "
+            + "in-process second-level cache. Only activate it if no other application writes to these tables.";
+
+    protected static final Boolean REFERENCE_CACHE_DEFAULT_VALUE = Boolean.FALSE;
+
     private static final Logger LOG = LoggerFactory.getLogger(AbstractHibernateDatasource.class);
 
     private static final String SETTING_NOT_FOUND_TEMPLATE =
@@ -280,6 +299,41 @@ public abstract class AbstractHibernateDatasource extends AbstractHibernateCoreD
         return def;
     }
 
+    /**
+     * Create settings definition for the partitioning of the observation table
+     *
+     * @return Partition interval settings definition
+     */
+    protected ChoiceSettingDefinition createPartitionIntervalDefinition() {
+        ChoiceSettingDefinition def = new ChoiceSettingDefinition();
+        def.setTitle(PARTITION_INTERVAL_TITLE);
+        def.setDescription(PARTITION_INTERVAL_DESCRIPTION);
+        def.setGroup(ADVANCED_GROUP);
+        def.setOrder(9);
+        def.setKey(PARTITION_INTERVAL_KEY);
+        for (PartitionInterval interval : PartitionInterval.values()) {
+            def.addOption(interval.name(), interval.getDisplayName());
+        }
+        def.setDefaultValue(PartitionInterval.NONE.name());
+        return def;
+    }
+
+    /**
+     * Create settings definition for the second-level cache of reference entities
+     *
+     * @return Reference cache settings definition
+     */
+    protected BooleanSettingDefinition createReferenceCacheDefinition() {
+        BooleanSettingDefinition def = new BooleanSettingDefinition();
+        def.setTitle(REFERENCE_CACHE_TITLE);
+        def.setDescription(REFERENCE_CACHE_DESCRIPTION);
+        def.setGroup(ADVANCED_GROUP);
+        def.setOrder(10);
+        def.setKey(REFERENCE_CACHE_KEY);
+        def.setDefaultValue(REFERENCE_CACHE_DEFAULT_VALUE);
+        return def;
+    }
+
     /**
      * Get custom configuration from datasource settings
      *
@@ -457,7 +511,9 @@ public abstract class AbstractHibernateDatasource extends AbstractHibernateCoreD
             script = (pre == null) ? (post == null) ? script : concat(script, post)
                     : (post == null) ? concat(pre, script) : concat(pre, script, post);
 
-            return checkCreateSchema(script);
+            TablePartitioning partitioning = getTablePartitioning(m, settings);
+            return partitioning != null ? partitioning.partition(checkCreateSchema(script), new DateTime())
+                    : checkCreateSchema(script);
         } catch (IOException e) {
             throw new ConfigurationError(e);
         } finally {
@@ -507,7 +563,10 @@ public abstract class AbstractHibernateDatasource extends AbstractHibernateCoreD
                     .setOutputFile(createTempFile.toString());
             schemaUpdate.execute(EnumSet.of(TargetType.SCRIPT), getMetadata(settings));
             Set<String> nonDublicated = Sets.newLinkedHashSet(Files.readAllLines(createTempFile));
-            return nonDublicated.toArray(new String[nonDublicated.size()]);
+            String[] script = nonDublicated.toArray(new String[nonDublicated.size()]);
+            TablePartitioning partitioning = getTablePartitioning(getMetadata(settings), settings);
+            return partitioning != null && isPartitioned(partitioning, settings) ? partitioning.filter(script)
+                    : script;
         } catch (IOException ex) {
             throw new ConfigurationError(ex);
         } finally {
@@ -894,6 +953,73 @@ public abstract class AbstractHibernateDatasource extends AbstractHibernateCoreD
         return null;
     }
 
+    /**
+     * Check if the datasource supports the partitioning of the observation
+     * table
+     *
+     * @return <code>true</code>, if the observation table can be partitioned
+     */
+    protected boolean supportsPartitioning() {
+        return false;
+    }
+
+    /**
+     * Get the partitioning of the observation table selected in the settings
+     *
+     * @param metadata
+     *            Hibernate metadata
+     * @param settings
+     *            Datasource settings
+     * @return the partitioning or <code>null</code> if the observation table is
+     *         not partitioned
+     */
+    protected TablePartitioning getTablePartitioning(Metadata metadata, Map<String, Object> settings) {
+        if (!supportsPartitioning() || !settings.containsKey(PARTITION_INTERVAL_KEY)) {
+            return null;
+        }
+        PartitionInterval interval =
+                TablePartitioning.getPartitionInterval((String) settings.get(PARTITION_INTERVAL_KEY));
+        PersistentClass binding = metadata.getEntityBinding(DataEntity.class.getName());
+        if (PartitionInterval.NONE.equals(interval) || binding == null) {
+            return null;
+        }
+        Column column = (Column) binding.getProperty(DataEntity.PROPERTY_SAMPLING_TIME_START).getColumnIterator()
+                .next();
+        TablePartitioning partitioning = TablePartitioning.of(getDialectInternal(),
+                getSchema(settings) + binding.getTable().getName(), column.getName(),
+                column.getSqlType(getDialectInternal(), metadata), interval);
+        if (partitioning != null && !isSupported(partitioning, settings)) {
+            LOG.warn("The database version does not support the partitioning of table {}, the table is not "
+                    + "partitioned!", partitioning.getTable());
+            return null;
+        }
+        return partitioning;
+    }
+
+    private boolean isSupported(TablePartitioning partitioning, Map<String, Object> settings) {
+        Connection conn = null;
+        try {
+            conn = openConnection(settings);
+            return partitioning.supports(conn.getMetaData());
+        } catch (SQLException ex) {
+            throw new ConfigurationError(ex);
+        } finally {
+            close(conn);
+        }
+    }
+
+    private boolean isPartitioned(TablePartitioning partitioning, Map<String, Object> settings) {
+        Connection conn = null;
+        try {
+            conn = openConnection(settings);
+            return partitioning.isPartitioned(conn);
+        } catch (SQLException ex) {
+            throw new ConfigurationError(ex);
+        } finally {
+            close(conn);
+        }
+    }
+
     protected boolean isSetSchema(Map<String, Object> settings) {
         if (settings.containsKey(HibernateConstants.DEFAULT_SCHEMA)) {
             return !Strings.isNullOrEmpty((String) settings.get(HibernateConstants.DEFAULT_SCHEMA));
@@ -74,6 +74,10 @@ public abstract class AbstractHibernateFullDBDatasource extends AbstractHibernat
         set.add(getDatabaseConceptDefinition());
         set.add(getDatabaseExtensionDefinition());
         set.add(getFeatureConceptDefinition());
+        if (supportsPartitioning()) {
+            set.add(createPartitionIntervalDefinition());
+        }
+        set.add(createReferenceCacheDefinition());
         return set;
     }
 
@@ -91,7 +95,8 @@ public abstract class AbstractHibernateFullDBDatasource extends AbstractHibernat
                         createMinPoolSizeDefinition(JavaHelper.asInteger(settings.get(MIN_POOL_SIZE_KEY))),
                         createMaxPoolSizeDefinition(JavaHelper.asInteger(settings.get(MAX_POOL_SIZE_KEY))),
                         createBatchSizeDefinition(JavaHelper.asInteger(settings.get(BATCH_SIZE_KEY))),
-                        createTimeZoneDefinition((String) settings.get(TIMEZONE_KEY)));
+                        createTimeZoneDefinition((String) settings.get(TIMEZONE_KEY)),
+                        createReferenceCacheDefinition((Boolean) settings.get(REFERENCE_CACHE_KEY)));
         if (supportsSchema) {
             settingDefinitions.add(schemaSetting);
         }
@@ -111,6 +116,12 @@ public abstract class AbstractHibernateFullDBDatasource extends AbstractHibernat
         return def;
     }
 
+    protected SettingDefinition<?> createReferenceCacheDefinition(final Boolean defaultValue) {
+        BooleanSettingDefinition def = createReferenceCacheDefinition();
+        def.setDefaultValue(defaultValue);
+        return def;
+    }
+
     protected SettingDefinition<?> createProvidedJdbcDriverDefinition(final Boolean defaultValue) {
         BooleanSettingDefinition def = createProvidedJdbcDriverDefinition();
         def.setDefaultValue(defaultValue);
@@ -146,6 +157,12 @@ public abstract class AbstractHibernateFullDBDatasource extends AbstractHibernat
         p.put(PROVIDED_JDBC, settings.get(PROVIDED_JDBC_DRIVER_KEY).toString());
         p.put(DATABASE_CONCEPT_KEY, settings.get(DATABASE_CONCEPT_KEY));
         p.put(FEATURE_CONCEPT_KEY, settings.get(FEATURE_CONCEPT_KEY));
+        if (settings.containsKey(PARTITION_INTERVAL_KEY) && settings.get(PARTITION_INTERVAL_KEY) != null) {
+            p.put(PARTITION_INTERVAL_KEY, settings.get(PARTITION_INTERVAL_KEY));
+        }
+        if (settings.containsKey(REFERENCE_CACHE_KEY) && settings.get(REFERENCE_CACHE_KEY) != null) {
+            p.put(REFERENCE_CACHE_KEY, settings.get(REFERENCE_CACHE_KEY).toString());
+        }
         if (settings.containsKey(TIMEZONE_KEY)) {
             p.put(HibernateConstants.JDBC_TIME_ZONE, settings.get(TIMEZONE_KEY));
         }
@@ -176,6 +193,11 @@ public abstract class AbstractHibernateFullDBDatasource extends AbstractHibernat
         }
         settings.put(DATABASE_CONCEPT_KEY,  current.getProperty(DATABASE_CONCEPT_KEY));
         settings.put(FEATURE_CONCEPT_KEY,  current.getProperty(FEATURE_CONCEPT_KEY));
+        if (current.containsKey(PARTITION_INTERVAL_KEY)) {
+            settings.put(PARTITION_INTERVAL_KEY, current.getProperty(PARTITION_INTERVAL_KEY));
+        }
+        settings.put(REFERENCE_CACHE_KEY, Boolean.valueOf(
+                current.getProperty(REFERENCE_CACHE_KEY, REFERENCE_CACHE_DEFAULT_VALUE.toString())));
         settings.put(PROVIDED_JDBC_DRIVER_KEY,
                 current.getProperty(PROVIDED_JDBC, PROVIDED_JDBC_DRIVER_DEFAULT_VALUE.toString()));
         if (current.containsKey(HIBERNATE_DATASOURCE_TIMEZONE)) {
@@ -260,6 +260,11 @@ public abstract class AbstractPostgresDatasource extends AbstractHibernateFullDB
         return checkScriptForGeneratedAndDuplicatedEntries(checkedSchema.toArray(new String[checkedSchema.size()]));
     }
 
+    @Override
+    protected boolean supportsPartitioning() {
+        return true;
+    }
+
     @Override
     public Properties getDatasourceProperties(Map<String, Object> settings) {
         Properties p = super.getDatasourceProperties(settings);
@@ -253,6 +253,11 @@ public abstract class AbstractSqlServerDatasource extends AbstractHibernateFullD
         return settings;
     }
 
+    @Override
+    protected boolean supportsPartitioning() {
+        return true;
+    }
+
     @Override
     public boolean supportsClear() {
         return true;
@@ -28,14 +28,18 @@
  */
 package org.n52.sos.ds.hibernate;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
@@ -63,23 +67,29 @@ import org.n52.shetland.ogc.gml.AbstractFeature;
 import org.n52.shetland.ogc.gml.CodeWithAuthority;
 import org.n52.shetland.ogc.om.features.samplingFeatures.AbstractSamplingFeature;
 import org.n52.shetland.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.shetland.ogc.ows.exception.InvalidParameterValueException;
 import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.sos.SosConstants;
 import org.n52.shetland.util.IdGenerator;
 import org.n52.shetland.util.ReferencedEnvelope;
 import org.n52.sos.cache.SosContentCache;
+import org.n52.sos.ds.FeaturePage;
 import org.n52.sos.ds.FeatureQueryHandler;
 import org.n52.sos.ds.FeatureQueryHandlerQueryObject;
+import org.n52.sos.ds.GetFeatureOfInterestSettings;
 import org.n52.sos.ds.hibernate.create.FeatureVisitorContext;
 import org.n52.sos.ds.hibernate.create.HibernateFeatureVisitor;
 import org.n52.sos.ds.hibernate.create.HibernateGeometryVisitor;
+import org.n52.sos.ds.hibernate.create.TrajectoryCache;
 import org.n52.sos.ds.hibernate.dao.DaoFactory;
 import org.n52.sos.ds.hibernate.dao.HibernateSqlQueryConstants;
 import org.n52.sos.ds.hibernate.util.HibernateConstants;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
 import org.n52.sos.ds.hibernate.util.QueryHelper;
+import org.n52.sos.ds.hibernate.util.ScrollableIterable;
 import org.n52.sos.ds.hibernate.util.SpatialRestrictions;
+import org.n52.sos.i18n.I18NMetadataStore;
 import org.n52.sos.service.SosSettings;
 import org.n52.sos.util.GeometryHandler;
 import org.slf4j.Logger;
@@ -99,12 +109,20 @@ public class HibernateFeatureQueryHandler
 
     private I18NDAORepository i18NDAORepository;
 
+    private I18NMetadataStore i18NMetadataStore;
+
     private GeometryHandler geometryHandler;
 
     private DaoFactory daoFactory;
 
     private boolean updateFeatureGeometry;
 
+    private boolean trajectoryMode;
+
+    private double trajectorySimplificationTolerance;
+
+    private final TrajectoryCache trajectoryCache = new TrajectoryCache();
+
     private boolean createFeatureGeometryFromSamplingGeometries;
 
     private ContentCacheController contentCacheController;
@@ -119,6 +137,11 @@ public class HibernateFeatureQueryHandler
         this.i18NDAORepository = i18NDAORepository;
     }
 
+    @Inject
+    public void setI18NMetadataStore(I18NMetadataStore i18NMetadataStore) {
+        this.i18NMetadataStore = i18NMetadataStore;
+    }
+
     @Inject
     public void setGeometryHandler(GeometryHandler geometryHandler) {
         this.geometryHandler = geometryHandler;
@@ -184,9 +207,7 @@ public class HibernateFeatureQueryHandler
                     SpatialFilter filter = queryObject.getSpatialFitler();
                     final List<AbstractFeatureEntity> features = daoFactory.getFeatureDAO().getFeatures(session);
                     final Geometry envelope = getGeometryHandler().getFilterForNonSpatialDatasource(filter);
-                    FeatureVisitorContext context = getDefaultContext()
-                            .setSession(session)
-                            .setRequestedLanguage(queryObject.getI18N());
+                    FeatureVisitorContext context = getContext(queryObject, queryObject.getFeatures(), session);
                     for (final AbstractFeatureEntity feature : features) {
                         final Geometry geom = new HibernateGeometryVisitor(context).visit(feature);
                         if (geom != null && !geom.isEmpty() && envelope.contains(geom)) {
@@ -217,6 +238,53 @@ public class HibernateFeatureQueryHandler
         }
     }
 
+    @Override
+    public FeaturePage getFeaturePage(FeatureQueryHandlerQueryObject queryObject) throws OwsExceptionReport {
+        final Session session = HibernateSessionHolder.getSession(queryObject.getConnection());
+        final boolean spatialDatasource = getGeometryHandler().isSpatialDatasource();
+        List<Geometry> envelopes = null;
+        if (queryObject.isSetSpatialFilters()) {
+            if (spatialDatasource) {
+                for (final SpatialFilter filter : queryObject.getSpatialFilters()) {
+                    filter.setGeometry(getGeometryHandler()
+                            .switchCoordinateAxisFromToDatasourceIfNeeded(filter.getGeometry().toGeometry()));
+                }
+            } else {
+                envelopes = new ArrayList<>(queryObject.getSpatialFilters().size());
+                for (final SpatialFilter filter : queryObject.getSpatialFilters()) {
+                    envelopes.add(getGeometryHandler().getFilterForNonSpatialDatasource(filter));
+                }
+            }
+        }
+        final Map<String, AbstractFeature> features = new LinkedHashMap<>();
+        final FeatureVisitorContext context = getContext(queryObject, queryObject.getFeatures(), session);
+        Long lastId = null;
+        boolean truncated = false;
+        try (ScrollableIterable<AbstractFeatureEntity> entities = daoFactory.getFeatureDAO().scrollFeatures(
+                queryObject.getFeatures(),
+                spatialDatasource ? queryObject.getSpatialFilters() : Collections.emptyList(),
+                decodeContinuationToken(queryObject), queryObject.getFetchSize(), session)) {
+            for (AbstractFeatureEntity entity : entities) {
+                if (queryObject.isSetLimit() && features.size() >= queryObject.getLimit()) {
+                    truncated = true;
+                    break;
+                }
+                AbstractFeature feature = createSosAbstractFeature(entity, context);
+                if (envelopes == null || getGeometryHandler()
+                        .featureIsInFilter(((AbstractSamplingFeature) feature).getGeometry(), envelopes)) {
+                    features.put(entity.getIdentifier(), feature);
+                }
+                lastId = entity.getId();
+                // the converted feature is kept, the entity is not needed anymore
+                session.evict(entity);
+            }
+        } catch (final HibernateException he) {
+            throw new NoApplicableCodeException().causedBy(he)
+                    .withMessage("Error while querying features from data source!");
+        }
+        return new FeaturePage(features, truncated ? encodeContinuationToken(lastId) : null);
+    }
+
     @Override
     public ReferencedEnvelope getEnvelopeForFeatureIDs(FeatureQueryHandlerQueryObject queryObject)
             throws OwsExceptionReport {
@@ -257,6 +325,7 @@ public class HibernateFeatureQueryHandler
                     final Envelope envelope = new Envelope();
                     final List<AbstractFeatureEntity> featuresOfInterest =
                             daoFactory.getFeatureDAO().getFeatureOfInterestObjects(queryObject.getFeatures(), session);
+                    FeatureVisitorContext context = getContext(queryObject, queryObject.getFeatures(), session);
                     for (final AbstractFeatureEntity feature : featuresOfInterest) {
                         try {
                             // TODO Check if prepareGeometryForResponse required
@@ -264,9 +333,6 @@ public class HibernateFeatureQueryHandler
                             // final Geometry geom =
                             // getGeometryHandler().prepareGeometryForResponse(getGeomtery(feature),
                             // queryObject.getRequestedSrid());
-                            FeatureVisitorContext context = getDefaultContext()
-                                    .setSession(session)
-                                    .setRequestedLanguage(queryObject.getI18N());
                             final Geometry geom = new HibernateGeometryVisitor(context).visit(feature);
                             if (geom != null && !geom.isEmpty()) {
                                 envelope.expandToInclude(geom.getEnvelopeInternal());
@@ -344,8 +410,10 @@ public class HibernateFeatureQueryHandler
     protected Map<String, AbstractFeature> createSosFeatures(final List<AbstractFeatureEntity> features,
             final FeatureQueryHandlerQueryObject queryObject, Session session) throws OwsExceptionReport {
         final Map<String, AbstractFeature> sosAbstractFois = new HashMap<>(features.size());
+        final FeatureVisitorContext context = getContext(queryObject,
+                features.stream().map(AbstractFeatureEntity::getIdentifier).collect(Collectors.toSet()), session);
         for (final AbstractFeatureEntity feature : features) {
-            final AbstractFeature sosFeature = createSosAbstractFeature(feature, queryObject, session);
+            final AbstractFeature sosFeature = createSosAbstractFeature(feature, context);
             sosAbstractFois.put(feature.getIdentifier(), sosFeature);
         }
         // TODO if sampledFeatures are also in sosAbstractFois, reference them.
@@ -385,10 +453,49 @@ public class HibernateFeatureQueryHandler
         if (feature == null) {
             return null;
         }
+        return createSosAbstractFeature(feature,
+                getContext(queryObject, Collections.singleton(feature.getIdentifier()), session));
+    }
+
+    private AbstractFeature createSosAbstractFeature(AbstractFeatureEntity feature, FeatureVisitorContext context)
+            throws OwsExceptionReport {
+        return new HibernateFeatureVisitor(context).visit(feature);
+    }
+
+    private Long decodeContinuationToken(FeatureQueryHandlerQueryObject queryObject)
+            throws InvalidParameterValueException {
+        if (!queryObject.isSetContinuationToken()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(queryObject.getContinuationToken()),
+                    StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterValueException(GetFeatureOfInterestSettings.EXTENSION_CONTINUATION_TOKEN,
+                    queryObject.getContinuationToken());
+        }
+    }
+
+    private String encodeContinuationToken(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Create the context to create the features of a request. In trajectory
+     * mode the features observed by mobile sensors are queried once for all
+     * features.
+     */
+    private FeatureVisitorContext getContext(FeatureQueryHandlerQueryObject queryObject,
+            Collection<String> features, Session session) {
         FeatureVisitorContext context = getDefaultContext()
                 .setSession(session)
                 .setRequestedLanguage(queryObject.getI18N());
-        return new HibernateFeatureVisitor(context).visit(feature);
+        if (trajectoryMode && createFeatureGeometryFromSamplingGeometries) {
+            context.setMobileFeatures(daoFactory.getFeatureOfInterestDAO().getMobileFeatureIdentifiers(features,
+                    session));
+        }
+        return context;
     }
 
     private FeatureVisitorContext getDefaultContext() {
@@ -400,8 +507,12 @@ public class HibernateFeatureQueryHandler
         .setShowAllLanguages(showAllLanguages)
         .setDefaultLanguage(defaultLocale)
         .setUpdateFeatureGeometry(updateFeatureGeometry)
+        .setTrajectoryMode(trajectoryMode)
+        .setTrajectorySimplificationTolerance(trajectorySimplificationTolerance)
+        .setTrajectoryCache(trajectoryCache)
         .setCreateFeatureGeometryFromSamplingGeometries(createFeatureGeometryFromSamplingGeometries)
         .setI18NDAORepository(i18NDAORepository)
+        .setI18NMetadataStore(i18NMetadataStore)
         .setCache((SosContentCache) contentCacheController.getCache());
     }
 
@@ -428,9 +539,10 @@ public class HibernateFeatureQueryHandler
         }
         final List<AbstractFeatureEntity> featuresOfInterest =
                 daoFactory.getFeatureDAO().getFeatureOfInterestObjects(queryObject.getFeatures(), session);
+        final FeatureVisitorContext context = getContext(queryObject, queryObject.getFeatures(), session);
         for (final AbstractFeatureEntity feature : featuresOfInterest) {
             final AbstractSamplingFeature sosAbstractFeature =
-                    (AbstractSamplingFeature) createSosAbstractFeature(feature, queryObject, session);
+                    (AbstractSamplingFeature) createSosAbstractFeature(feature, context);
             if (!hasSpatialFilter) {
                 featureMap.put(sosAbstractFeature.getIdentifierCodeWithAuthority().getValue(), sosAbstractFeature);
             } else if (getGeometryHandler().featureIsInFilter(sosAbstractFeature.getGeometry(), envelopes)) {
@@ -479,4 +591,14 @@ public class HibernateFeatureQueryHandler
         this.updateFeatureGeometry = updateFeatureGeometry;
     }
 
+    @Setting(SosSettings.TRAJECTORY_MODE)
+    public void setTrajectoryMode(boolean trajectoryMode) {
+        this.trajectoryMode = trajectoryMode;
+    }
+
+    @Setting(SosSettings.TRAJECTORY_SIMPLIFICATION_TOLERANCE)
+    public void setTrajectorySimplificationTolerance(double trajectorySimplificationTolerance) {
+        this.trajectorySimplificationTolerance = Math.max(0, trajectorySimplificationTolerance);
+    }
+
 }
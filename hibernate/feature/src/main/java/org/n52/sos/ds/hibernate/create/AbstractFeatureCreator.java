@@ -33,6 +33,8 @@ import java.util.List;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.simplify.DouglasPeuckerSimplifier;
 import org.n52.series.db.beans.DescribableEntity;
 import org.n52.series.db.beans.FeatureEntity;
 import org.n52.shetland.ogc.gml.CodeWithAuthority;
@@ -48,6 +50,8 @@ public abstract class AbstractFeatureCreator<T extends FeatureEntity>
     public static final String CREATE_FOI_GEOM_FROM_SAMPLING_GEOMS =
             "service.createFeatureGeometryFromSamplingGeometries";
 
+    private static final long MAX_SAMPLING_GEOMETRIES = 100;
+
     private FeatureVisitorContext context;
 
     public AbstractFeatureCreator(FeatureVisitorContext context) {
@@ -184,51 +188,111 @@ public abstract class AbstractFeatureCreator<T extends FeatureEntity>
      *             If an error occurs
      */
     protected Geometry createGeometryFrom(FeatureEntity feature) throws OwsExceptionReport {
+        if (isTrajectory(feature)) {
+            Geometry trajectory = getTrajectory(feature);
+            if (trajectory != null) {
+                return trajectory;
+            }
+        }
         if (feature.isSetGeometry()) {
             return getContext().getGeometryHandler()
                     .switchCoordinateAxisFromToDatasourceIfNeeded(feature.getGeometryEntity().getGeometry());
         } else {
             if (!feature.isSetUrl() && getContext().getSession() != null) {
                 if (getContext().createFeatureGeometryFromSamplingGeometries()) {
-                    int srid = getContext().getGeometryHandler().getStorageEPSG();
                     if (getContext().getDaoFactory().getObservationDAO()
                             .getSamplingGeometriesCount(feature.getIdentifier(), getContext().getSession())
-                            .longValue() < 100) {
-                        List<Geometry> geometries = getContext().getDaoFactory().getObservationDAO()
-                                .getSamplingGeometries(feature.getIdentifier(), getContext().getSession());
-                        if (!CollectionHelper.nullEmptyOrContainsOnlyNulls(geometries)) {
-                            List<Coordinate> coordinates = Lists.newLinkedList();
-                            Geometry lastGeoemtry = null;
-                            for (Geometry geometry : geometries) {
-                                if (geometry != null) {
-                                    if (lastGeoemtry == null || !geometry.equalsTopo(lastGeoemtry)) {
-                                        coordinates.add(getContext().getGeometryHandler()
-                                                .switchCoordinateAxisFromToDatasourceIfNeeded(geometry)
-                                                .getCoordinate());
-                                        lastGeoemtry = geometry;
-                                    }
-                                    if (geometry.getSRID() != srid) {
-                                        srid = geometry.getSRID();
-                                    }
-                                }
-                            }
-                            Geometry geom = null;
-                            if (coordinates.size() == 1) {
-                                geom = new GeometryFactory().createPoint(coordinates.iterator().next());
-                            } else {
-                                geom = new GeometryFactory()
-                                        .createLineString(coordinates.toArray(new Coordinate[coordinates.size()]));
-                            }
-                            geom.setSRID(srid);
-                            return geom;
-                        }
+                            .longValue() < MAX_SAMPLING_GEOMETRIES) {
+                        return createGeometryFromSamplingGeometries(feature);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * In trajectory mode the geometry of features observed by mobile sensors
+     * is built from the sampling geometries like for features without a
+     * geometry, stationary features keep their stored geometry.
+     */
+    private boolean isTrajectory(FeatureEntity feature) {
+        return getContext().isTrajectoryMode() && getContext().createFeatureGeometryFromSamplingGeometries()
+                && feature.isSetGeometry() && !feature.isSetUrl() && getContext().getSession() != null
+                && getContext().isMobile(feature.getIdentifier());
+    }
+
+    /**
+     * Get the track of a mobile feature. It is built with the same limit of
+     * sampling geometries as features without a geometry and reused while
+     * their number is unchanged.
+     *
+     * @return the track or <code>null</code> if the feature has too many or
+     *         no sampling geometries
+     */
+    private Geometry getTrajectory(FeatureEntity feature) throws OwsExceptionReport {
+        long count = getContext().getDaoFactory().getObservationDAO()
+                .getSamplingGeometriesCount(feature.getIdentifier(), getContext().getSession()).longValue();
+        if (count == 0 || count >= MAX_SAMPLING_GEOMETRIES) {
+            return null;
+        }
+        TrajectoryCache cache = getContext().getTrajectoryCache();
+        Geometry trajectory = cache != null ? cache.get(feature.getIdentifier(), count) : null;
+        if (trajectory == null) {
+            trajectory = createGeometryFromSamplingGeometries(feature);
+            if (trajectory != null) {
+                trajectory = simplify(trajectory);
+                if (cache != null) {
+                    cache.put(feature.getIdentifier(), count, trajectory.copy());
+                }
+            }
+        }
+        return trajectory;
+    }
+
+    private Geometry createGeometryFromSamplingGeometries(FeatureEntity feature) throws OwsExceptionReport {
+        int srid = getContext().getGeometryHandler().getStorageEPSG();
+        List<Geometry> geometries = getContext().getDaoFactory().getObservationDAO()
+                .getSamplingGeometries(feature.getIdentifier(), getContext().getSession());
+        if (!CollectionHelper.nullEmptyOrContainsOnlyNulls(geometries)) {
+            List<Coordinate> coordinates = Lists.newLinkedList();
+            Geometry lastGeoemtry = null;
+            for (Geometry geometry : geometries) {
+                if (geometry != null) {
+                    if (lastGeoemtry == null || !geometry.equalsTopo(lastGeoemtry)) {
+                        coordinates.add(getContext().getGeometryHandler()
+                                .switchCoordinateAxisFromToDatasourceIfNeeded(geometry)
+                                .getCoordinate());
+                        lastGeoemtry = geometry;
+                    }
+                    if (geometry.getSRID() != srid) {
+                        srid = geometry.getSRID();
                     }
                 }
             }
+            Geometry geom = null;
+            if (coordinates.size() == 1) {
+                geom = new GeometryFactory().createPoint(coordinates.iterator().next());
+            } else {
+                geom = new GeometryFactory()
+                        .createLineString(coordinates.toArray(new Coordinate[coordinates.size()]));
+            }
+            geom.setSRID(srid);
+            return geom;
         }
         return null;
     }
 
+    private Geometry simplify(Geometry trajectory) {
+        double tolerance = getContext().getTrajectorySimplificationTolerance();
+        if (tolerance > 0 && trajectory instanceof LineString) {
+            Geometry simplified = DouglasPeuckerSimplifier.simplify(trajectory, tolerance);
+            simplified.setSRID(trajectory.getSRID());
+            return simplified;
+        }
+        return trajectory;
+    }
+
     protected FeatureVisitorContext getContext() {
         return context;
     }
@@ -32,6 +32,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
+import org.n52.iceland.i18n.metadata.I18NFeatureMetadata;
 import org.n52.series.db.beans.AbstractFeatureEntity;
 import org.n52.series.db.beans.FeatureEntity;
 import org.n52.shetland.ogc.gml.AbstractFeature;
@@ -55,7 +56,8 @@ public abstract class AbstractFeatureOfInerestCreator<T extends FeatureEntity> e
             identifier.setValue(null);
         }
         final AbstractFeature absFeat = createFeature(identifier);
-        addNameAndDescription(f, absFeat, getContext().getRequestedLanguage(), getContext().getDefaultLanguage(),
+        addNameAndDescription(getContext().getI18NMetadataStore(), I18NFeatureMetadata.class, f, absFeat,
+                getContext().getRequestedLanguage(), getContext().getDefaultLanguage(),
                 getContext().isShowAllLanguages());
         if (absFeat instanceof AbstractSamplingFeature) {
             AbstractSamplingFeature absSampFeat = (AbstractSamplingFeature) absFeat;
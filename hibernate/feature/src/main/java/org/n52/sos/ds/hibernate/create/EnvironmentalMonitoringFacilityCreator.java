@@ -34,6 +34,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import org.locationtech.jts.geom.Geometry;
+import org.n52.iceland.i18n.metadata.I18NFeatureMetadata;
 import org.n52.series.db.beans.AbstractFeatureEntity;
 import org.n52.series.db.beans.FeatureEntity;
 import org.n52.series.db.beans.feature.inspire.EnvironmentalMonitoringFacilityEntity;
@@ -79,7 +80,8 @@ public class EnvironmentalMonitoringFacilityCreator
             final org.n52.shetland.inspire.ef.EnvironmentalMonitoringFacility emFeature =
                     new org.n52.shetland.inspire.ef.EnvironmentalMonitoringFacility(new Identifier(identifier),
                             getMediaMonitored(f.getMediaMonitored()));
-            addNameAndDescription(f, emFeature, getContext().getRequestedLanguage(), getContext().getDefaultLanguage(),
+            addNameAndDescription(getContext().getI18NMetadataStore(), I18NFeatureMetadata.class, f, emFeature,
+                    getContext().getRequestedLanguage(), getContext().getDefaultLanguage(),
                     getContext().isShowAllLanguages());
             emFeature.setGeometry(createGeometry(f));
             // add measurementRegime, mobile, operationalActivityPeriod(Set)
@@ -28,12 +28,15 @@
  */
 package org.n52.sos.ds.hibernate.create;
 
+import java.util.Collections;
 import java.util.Locale;
+import java.util.Set;
 
 import org.hibernate.Session;
 import org.n52.iceland.i18n.I18NDAORepository;
 import org.n52.sos.cache.SosContentCache;
 import org.n52.sos.ds.hibernate.dao.DaoFactory;
+import org.n52.sos.i18n.I18NMetadataStore;
 import org.n52.sos.util.GeometryHandler;
 
 public class FeatureVisitorContext {
@@ -59,8 +62,18 @@ public class FeatureVisitorContext {
 
     private boolean updateFeatureGeometry;
 
+    private boolean trajectoryMode;
+
+    private double trajectorySimplificationTolerance;
+
+    private Set<String> mobileFeatures = Collections.emptySet();
+
+    private TrajectoryCache trajectoryCache;
+
     private I18NDAORepository i18NDAORepository;
 
+    private I18NMetadataStore i18NMetadataStore;
+
     private SosContentCache cache;
 
     /**
@@ -235,6 +248,61 @@ public class FeatureVisitorContext {
         return this;
     }
 
+    public boolean isTrajectoryMode() {
+        return trajectoryMode;
+    }
+
+    public FeatureVisitorContext setTrajectoryMode(boolean trajectoryMode) {
+        this.trajectoryMode = trajectoryMode;
+        return this;
+    }
+
+    public double getTrajectorySimplificationTolerance() {
+        return trajectorySimplificationTolerance;
+    }
+
+    public FeatureVisitorContext setTrajectorySimplificationTolerance(double trajectorySimplificationTolerance) {
+        this.trajectorySimplificationTolerance = trajectorySimplificationTolerance;
+        return this;
+    }
+
+    /**
+     * @param feature
+     *            the feature identifier
+     * @return <code>true</code>, if the feature is observed by a mobile sensor
+     */
+    public boolean isMobile(String feature) {
+        return mobileFeatures.contains(feature);
+    }
+
+    /**
+     * @param mobileFeatures
+     *            the identifiers of the features observed by mobile sensors,
+     *            queried once for all features to create
+     * @return This {@link FeatureVisitorContext}
+     */
+    public FeatureVisitorContext setMobileFeatures(Set<String> mobileFeatures) {
+        this.mobileFeatures = mobileFeatures != null ? mobileFeatures : Collections.emptySet();
+        return this;
+    }
+
+    /**
+     * @return the trajectoryCache
+     */
+    public TrajectoryCache getTrajectoryCache() {
+        return trajectoryCache;
+    }
+
+    /**
+     * @param trajectoryCache
+     *            the trajectoryCache to set
+     * @return This {@link FeatureVisitorContext}
+     */
+    public FeatureVisitorContext setTrajectoryCache(TrajectoryCache trajectoryCache) {
+        this.trajectoryCache = trajectoryCache;
+        return this;
+    }
+
     /**
      * @return the i18NDAORepository
      */
@@ -252,6 +320,23 @@ public class FeatureVisitorContext {
         return this;
     }
 
+    /**
+     * @return the i18NMetadataStore
+     */
+    public I18NMetadataStore getI18NMetadataStore() {
+        return i18NMetadataStore;
+    }
+
+    /**
+     * @param i18NMetadataStore
+     *            the i18NMetadataStore to set
+     * @return This {@link FeatureVisitorContext}
+     */
+    public FeatureVisitorContext setI18NMetadataStore(I18NMetadataStore i18NMetadataStore) {
+        this.i18NMetadataStore = i18NMetadataStore;
+        return this;
+    }
+
     /**
      * @param cache
      *            the cache to set
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.create;
+
+import org.locationtech.jts.geom.Geometry;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps the tracks of mobile features built from the sampling geometries, so
+ * they are not loaded again on each request. A track is only reused as long as
+ * the number of sampling geometries it was built from is unchanged.
+ *
+ * @since 5.3.2
+ */
+public class TrajectoryCache {
+
+    private static final int MAXIMUM_SIZE = 1000;
+
+    private final Cache<String, Track> tracks = CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE).build();
+
+    /**
+     * Get the cached track of the feature.
+     *
+     * @param feature
+     *            the feature identifier
+     * @param count
+     *            the current number of sampling geometries of the feature
+     * @return a copy of the track or <code>null</code> if none or an outdated
+     *         one is cached
+     */
+    public Geometry get(String feature, long count) {
+        Track track = tracks.getIfPresent(feature);
+        return track != null && track.count == count ? track.geometry.copy() : null;
+    }
+
+    /**
+     * Cache the track of the feature.
+     *
+     * @param feature
+     *            the feature identifier
+     * @param count
+     *            the number of sampling geometries the track was built from
+     * @param geometry
+     *            the track
+     */
+    public void put(String feature, long count, Geometry geometry) {
+        tracks.put(feature, new Track(count, geometry));
+    }
+
+    private static final class Track {
+        private final long count;
+
+        private final Geometry geometry;
+
+        Track(long count, Geometry geometry) {
+            this.count = count;
+            this.geometry = geometry;
+        }
+    }
+}
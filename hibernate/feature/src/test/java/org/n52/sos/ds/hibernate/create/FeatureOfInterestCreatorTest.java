@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.create;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Point;
+import org.n52.series.db.beans.FeatureEntity;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.sos.ds.hibernate.dao.DaoFactory;
+import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesObservationDAO;
+import org.n52.sos.util.GeometryHandler;
+
+public class FeatureOfInterestCreatorTest {
+
+    private static final String FEATURE = "feature";
+
+    private final GeometryFactory factory = new GeometryFactory();
+
+    private final Point position1 = factory.createPoint(new Coordinate(7.0, 52.0));
+
+    private final Point position2 = factory.createPoint(new Coordinate(7.1, 52.1));
+
+    private AbstractSeriesObservationDAO observationDAO;
+
+    private FeatureVisitorContext context;
+
+    @Before
+    public void setUp() throws OwsExceptionReport {
+        observationDAO = mock(AbstractSeriesObservationDAO.class);
+        when(observationDAO.getSamplingGeometries(anyString(), any(Session.class)))
+                .thenReturn(Arrays.asList(position1, position2));
+        when(observationDAO.getSamplingGeometriesCount(anyString(), any(Session.class))).thenReturn(2L);
+        DaoFactory daoFactory = mock(DaoFactory.class);
+        when(daoFactory.getObservationDAO()).thenReturn(observationDAO);
+        GeometryHandler geometryHandler = mock(GeometryHandler.class);
+        when(geometryHandler.getStorageEPSG()).thenReturn(4326);
+        when(geometryHandler.switchCoordinateAxisFromToDatasourceIfNeeded(any(Geometry.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        context = new FeatureVisitorContext().setSession(mock(Session.class)).setDaoFactory(daoFactory)
+                .setGeometryHandler(geometryHandler).setTrajectoryMode(true)
+                .setCreateFeatureGeometryFromSamplingGeometries(true).setTrajectoryCache(new TrajectoryCache())
+                .setMobileFeatures(Collections.singleton(FEATURE));
+    }
+
+    @Test
+    public void shouldKeepGeometryOfStationaryFeature() throws OwsExceptionReport {
+        context.setMobileFeatures(Collections.emptySet());
+        FeatureEntity feature = createFeature(position1);
+
+        Geometry geometry = new FeatureOfInterestCreator(context).createGeometry(feature);
+
+        assertThat(geometry, is((Geometry) position1));
+        verify(observationDAO, never()).getSamplingGeometriesCount(anyString(), any(Session.class));
+        verify(observationDAO, never()).getSamplingGeometries(anyString(), any(Session.class));
+    }
+
+    @Test
+    public void shouldBuildTrajectoryOfMobileFeature() throws OwsExceptionReport {
+        FeatureEntity feature = createFeature(position1);
+
+        Geometry geometry = new FeatureOfInterestCreator(context).createGeometry(feature);
+
+        assertThat(geometry, instanceOf(LineString.class));
+        assertThat(geometry.getCoordinates().length, is(2));
+        assertThat(geometry.getCoordinates()[0], is(position1.getCoordinate()));
+        assertThat(geometry.getCoordinates()[1], is(position2.getCoordinate()));
+    }
+
+    @Test
+    public void shouldReuseTrajectoryWhileSamplingGeometriesAreUnchanged() throws OwsExceptionReport {
+        FeatureEntity feature = createFeature(position1);
+
+        new FeatureOfInterestCreator(context).createGeometry(feature);
+        Geometry geometry = new FeatureOfInterestCreator(context).createGeometry(feature);
+
+        assertThat(geometry, instanceOf(LineString.class));
+        verify(observationDAO, times(1)).getSamplingGeometries(anyString(), any(Session.class));
+
+        when(observationDAO.getSamplingGeometriesCount(anyString(), any(Session.class))).thenReturn(3L);
+        new FeatureOfInterestCreator(context).createGeometry(feature);
+
+        verify(observationDAO, times(2)).getSamplingGeometries(anyString(), any(Session.class));
+    }
+
+    @Test
+    public void shouldKeepGeometryOfMobileFeatureWithTooManySamplingGeometries() throws OwsExceptionReport {
+        when(observationDAO.getSamplingGeometriesCount(anyString(), any(Session.class))).thenReturn(100L);
+        FeatureEntity feature = createFeature(position1);
+
+        Geometry geometry = new FeatureOfInterestCreator(context).createGeometry(feature);
+
+        assertThat(geometry, is((Geometry) position1));
+        verify(observationDAO, never()).getSamplingGeometries(anyString(), any(Session.class));
+    }
+
+    @Test
+    public void shouldKeepGeometryIfNotCreatedFromSamplingGeometries() throws OwsExceptionReport {
+        context.setCreateFeatureGeometryFromSamplingGeometries(false);
+        FeatureEntity feature = createFeature(position1);
+
+        Geometry geometry = new FeatureOfInterestCreator(context).createGeometry(feature);
+
+        assertThat(geometry, is((Geometry) position1));
+        verify(observationDAO, never()).getSamplingGeometries(anyString(), any(Session.class));
+    }
+
+    @Test
+    public void shouldBuildGeometryOfFeatureWithoutGeometry() throws OwsExceptionReport {
+        FeatureEntity feature = createFeature(null);
+
+        Geometry geometry = new FeatureOfInterestCreator(context).createGeometry(feature);
+
+        assertThat(geometry, instanceOf(LineString.class));
+    }
+
+    @Test
+    public void shouldKeepGeometryWithoutTrajectoryMode() throws OwsExceptionReport {
+        context.setTrajectoryMode(false);
+        FeatureEntity feature = createFeature(position1);
+
+        Geometry geometry = new FeatureOfInterestCreator(context).createGeometry(feature);
+
+        assertThat(geometry, is((Geometry) position1));
+        verify(observationDAO, never()).getSamplingGeometries(anyString(), any(Session.class));
+    }
+
+    private FeatureEntity createFeature(Geometry geometry) {
+        FeatureEntity feature = new FeatureEntity();
+        feature.setIdentifier(FEATURE);
+        if (geometry != null) {
+            geometry.setSRID(4326);
+            feature.setGeometry(geometry);
+        }
+        return feature;
+    }
+
+}
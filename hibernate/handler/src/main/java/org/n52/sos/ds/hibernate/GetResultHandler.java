@@ -28,8 +28,12 @@
  */
 package org.n52.sos.ds.hibernate;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -37,8 +41,11 @@ import javax.inject.Inject;
 
 import org.hibernate.Criteria;
 import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
 import org.hibernate.Session;
+import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.n52.faroe.annotation.Configurable;
 import org.n52.faroe.annotation.Setting;
@@ -48,6 +55,8 @@ import org.n52.janmayen.lifecycle.Constructable;
 import org.n52.series.db.beans.DataEntity;
 import org.n52.series.db.beans.DatasetEntity;
 import org.n52.series.db.beans.ResultTemplateEntity;
+import org.n52.series.db.beans.dataset.ObservationType;
+import org.n52.series.db.beans.dataset.ValueType;
 import org.n52.shetland.ogc.filter.TemporalFilter;
 import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
@@ -63,8 +72,11 @@ import org.n52.sos.ds.hibernate.dao.DaoFactory;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
 import org.n52.sos.ds.hibernate.util.QueryHelper;
 import org.n52.sos.ds.hibernate.util.ResultHandlingHelper;
+import org.n52.sos.ds.hibernate.util.ScrollableIterable;
 import org.n52.sos.ds.hibernate.util.SosTemporalRestrictions;
 import org.n52.sos.ds.hibernate.util.SpatialRestrictions;
+import org.n52.sos.ds.hibernate.util.aggregation.Aggregation;
+import org.n52.sos.ds.hibernate.util.aggregation.ValueAggregator;
 import org.n52.sos.exception.ows.concrete.UnsupportedOperatorException;
 import org.n52.sos.exception.ows.concrete.UnsupportedTimeException;
 import org.n52.sos.exception.ows.concrete.UnsupportedValueReferenceException;
@@ -183,7 +195,12 @@ public class GetResultHandler extends AbstractGetResultHandler implements Abstra
                         featureIdentifier, session);
             }
             final List<DataEntity<?>> observations;
-            observations = querySeriesObservation(request, featureIdentifier, session);
+            Optional<Aggregation> aggregation = Aggregation.fromRequest(request);
+            if (aggregation.isPresent()) {
+                observations = queryAggregatedSeriesObservation(request, aggregation.get(), featureIdentifier, session);
+            } else {
+                observations = querySeriesObservation(request, featureIdentifier, session);
+            }
             response.setResultValues(getResultHandlingHelper().createResultValuesFromObservations(observations,
                     sosResultEncoding, sosResultStructure, getProfileHandler().getActiveProfile()
                             .getResponseNoDataPlaceholder(),
@@ -216,28 +233,121 @@ public class GetResultHandler extends AbstractGetResultHandler implements Abstra
     @SuppressWarnings("unchecked")
     protected List<DataEntity<?>> querySeriesObservation(GetResultRequest request,
             Collection<String> featureIdentifiers, Session session) throws OwsExceptionReport {
+        List<DatasetEntity> series = getDaoFactory().getSeriesDAO()
+                .getSeries(request, featureIdentifiers, session);
+        if (CollectionHelper.isEmpty(series)) {
+            return null;
+        }
         final Criteria c = createCriteriaFor(DataEntity.class, session);
-        addSpatialFilteringProfileRestrictions(c, request, session);
-        addParentChildRestriction(c);
+        addSeriesObservationRestrictions(c, request, series.stream()
+                .map(DatasetEntity::getId)
+                .collect(Collectors.toSet()), session);
+        LOGGER.trace("QUERY queryObservation(request, featureIdentifiers): {}", HibernateHelper.getSqlString(c));
+        return c.list();
+
+    }
 
+    /**
+     * Query series observations aggregated as requested by the
+     * {@code aggregation} extension. The values of simple quantity series are
+     * aggregated by a grouped query if the database supports it, otherwise
+     * they are streamed through a {@link ValueAggregator}. The values of other
+     * series are returned unchanged.
+     *
+     * @param request
+     *            GetResult request
+     * @param aggregation
+     *            the requested aggregation
+     * @param featureIdentifiers
+     *            Set of feature identifiers. If <tt>null</tt>, query filter
+     *            will not be added. If <tt>empty</tt>, <tt>null</tt> will be
+     *            returned.
+     * @param session
+     *            Hibernate session
+     * @return List of Observation objects ordered by phenomenon time
+     * @throws OwsExceptionReport
+     *             If an error occurs.
+     */
+    @SuppressWarnings("unchecked")
+    protected List<DataEntity<?>> queryAggregatedSeriesObservation(GetResultRequest request, Aggregation aggregation,
+            Collection<String> featureIdentifiers, Session session) throws OwsExceptionReport {
         List<DatasetEntity> series = getDaoFactory().getSeriesDAO()
                 .getSeries(request, featureIdentifiers, session);
         if (CollectionHelper.isEmpty(series)) {
             return null;
-        } else {
-            c.add(Restrictions.in(DataEntity.PROPERTY_DATASET_ID, series.stream()
-                    .map(DatasetEntity::getId)
-                    .collect(Collectors.toSet())));
         }
-
+        Criterion temporalFilterCriterion = null;
         if (request.getTemporalFilter() != null && !request.getTemporalFilter()
                 .isEmpty()) {
-            addTemporalFilter(c, request.getTemporalFilter());
+            temporalFilterCriterion = SosTemporalRestrictions.filter(request.getTemporalFilter());
         }
+        List<DataEntity<?>> observations = new ArrayList<>();
+        for (DatasetEntity dataset : series) {
+            Set<Long> id = Sets.newHashSet(dataset.getId());
+            if (!ValueType.quantity.equals(dataset.getValueType())
+                    || !ObservationType.simple.equals(dataset.getObservationType())) {
+                Criteria c = createCriteriaFor(DataEntity.class, session);
+                addSeriesObservationRestrictions(c, request, id, session);
+                observations.addAll(c.list());
+                continue;
+            }
+            List<DataEntity<?>> values = null;
+            if (!request.hasSpatialFilteringProfileSpatialFilter()) {
+                values = getDaoFactory().getValueDAO().getAggregatedSeriesValuesFor(null, dataset.getId(),
+                        temporalFilterCriterion, aggregation, session);
+            }
+            if (values == null) {
+                values = aggregateSeriesObservation(request, aggregation, dataset, session);
+            }
+            observations.addAll(values);
+        }
+        observations.sort(Comparator.comparing(DataEntity::getSamplingTimeStart));
+        return observations;
+    }
 
-        LOGGER.trace("QUERY queryObservation(request, featureIdentifiers): {}", HibernateHelper.getSqlString(c));
-        return c.list();
+    private List<DataEntity<?>> aggregateSeriesObservation(GetResultRequest request, Aggregation aggregation,
+            DatasetEntity dataset, Session session) throws OwsExceptionReport {
+        Set<Long> id = Sets.newHashSet(dataset.getId());
+        long start = 0;
+        long end = 0;
+        if (aggregation.getFunction().isDownsampling()) {
+            Criteria c = session.createCriteria(DataEntity.class)
+                    .add(Restrictions.eq(DataEntity.PROPERTY_DELETED, false));
+            addSeriesObservationRestrictions(c, request, id, session);
+            Object[] range = (Object[]) c.setProjection(Projections.projectionList()
+                    .add(Projections.min(DataEntity.PROPERTY_SAMPLING_TIME_START))
+                    .add(Projections.max(DataEntity.PROPERTY_SAMPLING_TIME_START)))
+                    .uniqueResult();
+            if (range == null || range[0] == null) {
+                return new ArrayList<>();
+            }
+            start = ((Date) range[0]).getTime();
+            end = ((Date) range[1]).getTime();
+        }
+        ValueAggregator aggregator = aggregation.createAggregator(dataset, start, end);
+        Criteria c = createCriteriaFor(DataEntity.class, session).setReadOnly(true);
+        addSeriesObservationRestrictions(c, request, id, session);
+        LOGGER.trace("QUERY aggregateSeriesObservation(request, {}): {}", aggregation,
+                HibernateHelper.getSqlString(c));
+        try (ScrollableIterable<DataEntity<?>> values =
+                ScrollableIterable.fromResults(c.scroll(ScrollMode.FORWARD_ONLY))) {
+            for (DataEntity<?> value : values) {
+                aggregator.add(value);
+                session.evict(value);
+            }
+        }
+        return aggregator.finish();
+    }
 
+    private void addSeriesObservationRestrictions(Criteria c, GetResultRequest request, Set<Long> series,
+            Session session) throws OwsExceptionReport {
+        addSpatialFilteringProfileRestrictions(c, request, session);
+        addParentChildRestriction(c);
+        c.add(Restrictions.in(DataEntity.PROPERTY_DATASET_ID, series));
+        if (request.getTemporalFilter() != null && !request.getTemporalFilter()
+                .isEmpty()) {
+            addTemporalFilter(c, request.getTemporalFilter());
+        }
     }
 
     /**
@@ -31,8 +31,11 @@ package org.n52.sos.ds.hibernate;
 import java.sql.SQLException;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.persistence.PersistenceException;
@@ -55,6 +58,7 @@ import org.n52.series.db.beans.dataset.DatasetType;
 import org.n52.shetland.ogc.UoM;
 import org.n52.shetland.ogc.gml.AbstractFeature;
 import org.n52.shetland.ogc.om.MultiObservationValues;
+import org.n52.shetland.ogc.om.NamedValue;
 import org.n52.shetland.ogc.om.OmObservation;
 import org.n52.shetland.ogc.om.OmObservationConstellation;
 import org.n52.shetland.ogc.om.SingleObservationValue;
@@ -69,7 +73,9 @@ import org.n52.shetland.ogc.sos.request.InsertObservationRequest;
 import org.n52.shetland.ogc.sos.response.InsertObservationResponse;
 import org.n52.sos.ds.AbstractInsertObservationHandler;
 import org.n52.sos.ds.hibernate.dao.DaoFactory;
+import org.n52.sos.ds.hibernate.dao.ReferenceEntityResolver;
 import org.n52.sos.ds.hibernate.dao.observation.AbstractObservationDAO;
+import org.n52.sos.ds.hibernate.dao.observation.bulk.BulkObservationInserter;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
 import org.n52.sos.service.SosSettings;
 
@@ -146,6 +152,7 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
         response.setVersion(request.getVersion());
         Session session = null;
         Transaction transaction = null;
+        boolean committed = false;
 
         // TODO: checkConstellation unit and set if available and not defined in
         // DB
@@ -155,8 +162,11 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
 
             CompositeOwsException exceptions = new CompositeOwsException();
             InsertObservationCache cache = new InsertObservationCache();
+            BulkObservationInserter bulkInserter =
+                    getDaoFactory().isBulkIngest() ? getDaoFactory().getBulkObservationInserter() : null;
 
             cache.addOfferings(request.getOfferings());
+            resolveReferenceEntities(request.getObservations(), cache, session);
 
             // counter for batch flushing
             int obsCount = 0;
@@ -168,7 +178,7 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
                             .withMessage(LOG_SAMPLING_GEOMETRY);
                 }
 
-                insertObservation(sosObservation, cache, exceptions, session);
+                insertObservation(sosObservation, cache, bulkInserter, exceptions, session);
 
                 // flush every FLUSH_INTERVAL
                 if (++obsCount % FLUSH_THRESHOLD == 0) {
@@ -178,6 +188,10 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
                 }
             }
 
+            if (bulkInserter != null) {
+                bulkInserter.flush(session);
+            }
+
             request.setOfferings(Lists.newArrayList(cache.getAllOfferings()));
 
             // if no observationConstellation is valid, throw exception
@@ -188,12 +202,17 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
 
             session.flush();
             transaction.commit();
+            committed = true;
         } catch (PersistenceException pe) {
             if (transaction != null) {
                 transaction.rollback();
             }
             handleHibernateException(pe);
         } finally {
+            if (!committed) {
+                // ids of reference entities inserted by the uncommitted transaction are invalid now
+                getDaoFactory().getReferenceEntityResolver().clear();
+            }
             getHibernateSessionHolder().returnSession(session);
         }
         /*
@@ -205,7 +224,8 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
     }
 
     private void insertObservation(OmObservation sosObservation, InsertObservationCache cache,
-            CompositeOwsException exceptions, Session session) throws OwsExceptionReport, CodedException {
+            BulkObservationInserter bulkInserter, CompositeOwsException exceptions, Session session)
+            throws OwsExceptionReport, CodedException {
 
         checkSpatialFilteringProfile(sosObservation);
 
@@ -251,6 +271,9 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
             AbstractObservationDAO observationDAO = getDaoFactory().getObservationDAO();
             DatasetEntity dataset = null;
             if (sosObservation.getValue() instanceof SingleObservationValue) {
+                if (bulkInserter != null && bulkInserter.add(hDataset, hFeature, sosObservation, session)) {
+                    return;
+                }
                 dataset = observationDAO.insertObservationSingleValue(hDataset, hFeature, sosObservation,
                         cache.getCodespaceCache(), cache.getUnitCache(), cache.getFormatCache(), session);
             } else if (sosObservation.getValue() instanceof MultiObservationValues) {
@@ -264,6 +287,64 @@ public class InsertObservationHandler extends AbstractInsertObservationHandler i
         }
     }
 
+    /**
+     * Resolve the features, units, codespaces and observation types of all
+     * observations of the request in bulk and put them into the request cache,
+     * so that they are not queried one by one while inserting the observations.
+     *
+     * @param observations
+     *            the observations to insert
+     * @param cache
+     *            the request cache
+     * @param session
+     *            Hibernate session
+     */
+    private void resolveReferenceEntities(Collection<OmObservation> observations, InsertObservationCache cache,
+            Session session) {
+        ReferenceEntityResolver resolver = getDaoFactory().getReferenceEntityResolver();
+        List<AbstractFeature> features = new LinkedList<>();
+        Set<UoM> units = new HashSet<>();
+        Set<String> codespaces = new HashSet<>();
+        Set<String> observationTypes = new HashSet<>();
+        for (OmObservation observation : observations) {
+            OmObservationConstellation constellation = observation.getObservationConstellation();
+            if (constellation.getFeatureOfInterest() != null
+                    && constellation.getFeatureOfInterest().isSetIdentifier()) {
+                features.add(constellation.getFeatureOfInterest());
+            }
+            if (constellation.isSetObservationType()) {
+                observationTypes.add(constellation.getObservationType());
+            }
+            if (observation.isSetIdentifier() && observation.getIdentifierCodeWithAuthority().isSetCodeSpace()) {
+                codespaces.add(observation.getIdentifierCodeWithAuthority().getCodeSpace());
+            }
+            if (observation.isSetName() && observation.getFirstName().isSetCodeSpace()) {
+                codespaces.add(observation.getFirstName().getCodeSpace().toString());
+            }
+            if (observation.getValue() instanceof SingleObservationValue && observation.getValue().getValue() != null
+                    && observation.getValue().getValue().isSetUnit()) {
+                units.add(observation.getValue().getValue().getUnitObject());
+            }
+            if (observation.isSetParameter()) {
+                for (NamedValue<?> parameter : observation.getParameter()) {
+                    if (parameter.isSetValue() && parameter.getValue().isSetUnit()) {
+                        units.add(parameter.getValue().getUnitObject());
+                    }
+                }
+            }
+        }
+        cache.getUnitCache().putAll(resolver.resolveUnits(units, session));
+        cache.getCodespaceCache().putAll(resolver.resolveCodespaces(codespaces, session));
+        cache.getFormatCache().putAll(resolver.resolveFormats(observationTypes, session));
+        Map<String, AbstractFeatureEntity> existing = resolver.getFeatures(
+                features.stream().map(AbstractFeature::getIdentifier).collect(Collectors.toSet()), session);
+        for (AbstractFeature feature : features) {
+            if (existing.containsKey(feature.getIdentifier())) {
+                cache.putFeature(feature, existing.get(feature.getIdentifier()));
+            }
+        }
+    }
+
     protected void checkSpatialFilteringProfile(OmObservation sosObservation) throws CodedException {
         // checkConstellation
         if (isStrictSpatialFilteringProfile() && !sosObservation.isSetSpatialFilteringProfileParameter()) {
@@ -93,6 +93,7 @@ import org.n52.sos.ds.AbstractInsertResultHandler;
 import org.n52.sos.ds.hibernate.dao.DaoFactory;
 import org.n52.sos.ds.hibernate.dao.FormatDAO;
 import org.n52.sos.ds.hibernate.dao.observation.AbstractObservationDAO;
+import org.n52.sos.ds.hibernate.dao.observation.bulk.BulkObservationInserter;
 import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesDAO;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
 import org.n52.sos.ds.hibernate.util.ResultHandlingHelper;
@@ -180,6 +181,11 @@ public class InsertResultHandler extends AbstractInsertResultHandler implements
             int insertion = 0;
             final int size = observations.size();
             final AbstractObservationDAO observationDAO = getDaoFactory().getObservationDAO();
+            // existing observations can only be skipped one by one
+            final BulkObservationInserter bulkInserter =
+                    getDaoFactory().isBulkIngest() && abortInsertResultForExistingObservations()
+                            ? getDaoFactory().getBulkObservationInserter()
+                            : null;
             LOGGER.debug("Start saving {} observations.", size);
             Map<String, AbstractFeatureEntity> featureEntityMap = new HashMap<>();
             for (final OmObservation observation : observations) {
@@ -204,8 +210,10 @@ public class InsertResultHandler extends AbstractInsertResultHandler implements
                 }
                 try {
                     if (observation.getValue() instanceof SingleObservationValue) {
-                        observationDAO.insertObservationSingleValue(obsConst, feature, observation, codespaceCache,
-                                unitCache, formatCache, session);
+                        if (bulkInserter == null || !bulkInserter.add(obsConst, feature, observation, session)) {
+                            observationDAO.insertObservationSingleValue(obsConst, feature, observation,
+                                    codespaceCache, unitCache, formatCache, session);
+                        }
                     } else if (observation.getValue() instanceof MultiObservationValues) {
                         observationDAO.insertObservationMultiValue(obsConst, feature, observation, codespaceCache,
                                 unitCache, formatCache, session);
@@ -230,6 +238,9 @@ public class InsertResultHandler extends AbstractInsertResultHandler implements
                     LOGGER.debug("Saved {}/{} observations.", insertion, size);
                 }
             }
+            if (bulkInserter != null) {
+                bulkInserter.flush(session);
+            }
             LOGGER.debug("Saved {} observations.", size);
             transaction.commit();
         } catch (final HibernateException he) {
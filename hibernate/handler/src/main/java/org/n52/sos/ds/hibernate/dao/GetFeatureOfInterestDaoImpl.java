@@ -30,6 +30,7 @@ package org.n52.sos.ds.hibernate.dao;
 
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 
 import javax.inject.Inject;
 
@@ -42,11 +43,16 @@ import org.n52.iceland.i18n.I18NSettings;
 import org.n52.janmayen.http.HTTPStatus;
 import org.n52.janmayen.i18n.LocaleHelper;
 import org.n52.shetland.ogc.gml.AbstractFeature;
+import org.n52.shetland.ogc.ows.exception.InvalidParameterValueException;
 import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.ows.extension.Extension;
 import org.n52.shetland.ogc.sos.request.GetFeatureOfInterestRequest;
+import org.n52.shetland.ogc.swe.simpleType.SweText;
+import org.n52.sos.ds.FeaturePage;
 import org.n52.sos.ds.FeatureQueryHandler;
 import org.n52.sos.ds.FeatureQueryHandlerQueryObject;
+import org.n52.sos.ds.GetFeatureOfInterestSettings;
 import org.n52.sos.ds.hibernate.HibernateSessionHolder;
 
 @Configurable
@@ -58,6 +64,10 @@ public class GetFeatureOfInterestDaoImpl implements org.n52.sos.ds.dao.GetFeatur
 
     private Locale defaultLanguage;
 
+    private int responseLimit;
+
+    private int fetchSize;
+
     @Inject
     public void setConnectionProvider(ConnectionProvider connectionProvider) {
         this.sessionHolder = new HibernateSessionHolder(connectionProvider);
@@ -73,6 +83,16 @@ public class GetFeatureOfInterestDaoImpl implements org.n52.sos.ds.dao.GetFeatur
         this.defaultLanguage = LocaleHelper.decode(defaultLanguage);
     }
 
+    @Setting(GetFeatureOfInterestSettings.GFOI_RESPONSE_LIMIT)
+    public void setResponseLimit(int responseLimit) {
+        this.responseLimit = responseLimit;
+    }
+
+    @Setting(GetFeatureOfInterestSettings.GFOI_FETCH_SIZE)
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
     @Override
     public Map<String, AbstractFeature> getFeatureOfInterest(GetFeatureOfInterestRequest request)
             throws OwsExceptionReport {
@@ -97,13 +117,69 @@ public class GetFeatureOfInterestDaoImpl implements org.n52.sos.ds.dao.GetFeatur
         return getFeatureOfInterest(request);
     }
 
+    @Override
+    public FeaturePage getFeatureOfInterestPage(GetFeatureOfInterestRequest request, Object connection)
+            throws OwsExceptionReport {
+        if (checkConnection(connection)) {
+            return queryFeaturePage(request, HibernateSessionHolder.getSession(connection));
+        }
+        Session session = null;
+        try {
+            session = sessionHolder.getSession();
+            return queryFeaturePage(request, session);
+        } catch (HibernateException he) {
+            throw new NoApplicableCodeException().causedBy(he).withMessage("Error while querying observation data!")
+                    .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR);
+        } finally {
+            sessionHolder.returnSession(session);
+        }
+    }
+
     private Map<String, AbstractFeature> queryFeaturesOfInterest(GetFeatureOfInterestRequest request, Session session)
             throws OwsExceptionReport {
-        FeatureQueryHandlerQueryObject queryObject =
-                new FeatureQueryHandlerQueryObject(session).setFeatures(request.getFeatureIdentifiers())
-                        .setVersion(request.getVersion()).setI18N(getRequestedLocale(request))
-                        .setSpatialFilters(request.getSpatialFilters());
-        return featureQueryHandler.getFeatures(queryObject);
+        return featureQueryHandler.getFeatures(createQueryObject(request, session));
+    }
+
+    private FeaturePage queryFeaturePage(GetFeatureOfInterestRequest request, Session session)
+            throws OwsExceptionReport {
+        FeatureQueryHandlerQueryObject queryObject = createQueryObject(request, session)
+                .setLimit(getLimit(request))
+                .setFetchSize(fetchSize);
+        getExtensionValue(request, GetFeatureOfInterestSettings.EXTENSION_CONTINUATION_TOKEN)
+                .ifPresent(queryObject::setContinuationToken);
+        return featureQueryHandler.getFeaturePage(queryObject);
+    }
+
+    private FeatureQueryHandlerQueryObject createQueryObject(GetFeatureOfInterestRequest request, Session session)
+            throws OwsExceptionReport {
+        return new FeatureQueryHandlerQueryObject(session).setFeatures(request.getFeatureIdentifiers())
+                .setVersion(request.getVersion()).setI18N(getRequestedLocale(request))
+                .setSpatialFilters(request.getSpatialFilters());
+    }
+
+    private int getLimit(GetFeatureOfInterestRequest request) throws OwsExceptionReport {
+        Optional<String> value = getExtensionValue(request, GetFeatureOfInterestSettings.EXTENSION_LIMIT);
+        if (!value.isPresent()) {
+            return responseLimit;
+        }
+        int limit;
+        try {
+            limit = Integer.parseInt(value.get().trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidParameterValueException(GetFeatureOfInterestSettings.EXTENSION_LIMIT, value.get());
+        }
+        if (limit <= 0) {
+            throw new InvalidParameterValueException(GetFeatureOfInterestSettings.EXTENSION_LIMIT, value.get());
+        }
+        return responseLimit > 0 ? Math.min(limit, responseLimit) : limit;
+    }
+
+    private Optional<String> getExtensionValue(GetFeatureOfInterestRequest request, String name) {
+        Optional<Extension<?>> extension = request.getExtension(name);
+        if (extension.isPresent() && extension.get().getValue() instanceof SweText) {
+            return Optional.ofNullable(((SweText) extension.get().getValue()).getValue());
+        }
+        return Optional.empty();
     }
 
     @Override
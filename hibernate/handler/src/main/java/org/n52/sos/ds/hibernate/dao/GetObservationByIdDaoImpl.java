@@ -33,13 +33,14 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
 import org.hibernate.Criteria;
+import org.hibernate.FetchMode;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
-import org.hibernate.criterion.Restrictions;
 import org.n52.faroe.annotation.Configurable;
 import org.n52.faroe.annotation.Setting;
 import org.n52.iceland.convert.ConverterException;
@@ -48,8 +49,10 @@ import org.n52.iceland.i18n.I18NSettings;
 import org.n52.iceland.ogc.ows.OwsServiceMetadataRepository;
 import org.n52.janmayen.http.HTTPStatus;
 import org.n52.janmayen.i18n.LocaleHelper;
+import org.n52.series.db.beans.ComplexDataEntity;
 import org.n52.series.db.beans.DataEntity;
 import org.n52.series.db.beans.DatasetEntity;
+import org.n52.series.db.beans.ProfileDataEntity;
 import org.n52.shetland.ogc.om.ObservationStream;
 import org.n52.shetland.ogc.om.OmObservation;
 import org.n52.shetland.ogc.ows.exception.CodedException;
@@ -58,6 +61,7 @@ import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.sos.request.GetObservationByIdRequest;
 import org.n52.sos.ds.hibernate.HibernateSessionHolder;
 import org.n52.sos.ds.hibernate.util.HibernateHelper;
+import org.n52.sos.ds.hibernate.util.QueryHelper;
 import org.n52.sos.ds.hibernate.util.observation.HibernateObservationUtilities;
 import org.n52.sos.ds.hibernate.util.observation.OmObservationCreatorContext;
 import org.n52.sos.ds.hibernate.values.series.HibernateChunkSeriesStreamingValue;
@@ -69,6 +73,7 @@ import org.n52.svalbard.encode.XmlEncoderKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
@@ -78,6 +83,9 @@ public class GetObservationByIdDaoImpl extends AbstractObservationDao
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GetObservationByIdDaoImpl.class);
 
+    private static final String[] DATASET_ASSOCIATIONS = { DatasetEntity.PROPERTY_PROCEDURE,
+        DatasetEntity.PROPERTY_FEATURE, DatasetEntity.PROPERTY_PHENOMENON, DatasetEntity.PROPERTY_OFFERING };
+
     private HibernateSessionHolder sessionHolder;
 
     private OwsServiceMetadataRepository serviceMetadataRepository;
@@ -175,7 +183,12 @@ public class GetObservationByIdDaoImpl extends AbstractObservationDao
     }
 
     /**
-     * Query observations for observation identifiers
+     * Query observations for observation identifiers. The identifiers are
+     * resolved in a single query which also fetches the dataset with its
+     * procedure, feature, phenomenon and offering as well as the observation
+     * parameters, so that the observation creation does not trigger lazy
+     * loading per observation. The parameter join multiplies the rows, so the
+     * root entities are made distinct.
      *
      * @param request
      *            GetObservationById request
@@ -185,14 +198,53 @@ public class GetObservationByIdDaoImpl extends AbstractObservationDao
      * @throws CodedException
      *             If an error occurs during querying the database
      */
+    @VisibleForTesting
     @SuppressWarnings("unchecked")
-    private List<DataEntity<?>> queryObservation(GetObservationByIdRequest request, Session session)
+    List<DataEntity<?>> queryObservation(GetObservationByIdRequest request, Session session)
             throws OwsExceptionReport {
         Criteria c = daoFactory.getObservationDAO().getObservationClassCriteriaForResultModel(request.getResultModel(),
                 session);
-        c.add(Restrictions.in(DataEntity.IDENTIFIER, request.getObservationIdentifier()));
+        c.add(QueryHelper.getCriterionForObjects(DataEntity.IDENTIFIER, request.getObservationIdentifier()));
+        c.setFetchMode(DataEntity.PROPERTY_PARAMETERS, FetchMode.JOIN);
+        c.setFetchMode(DataEntity.PROPERTY_DATASET, FetchMode.JOIN);
+        for (String association : DATASET_ASSOCIATIONS) {
+            c.setFetchMode(DataEntity.PROPERTY_DATASET + "." + association, FetchMode.JOIN);
+        }
+        c.setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
         LOGGER.trace("QUERY queryObservation(request): {}", HibernateHelper.getSqlString(c));
-        return c.list();
+        List<DataEntity<?>> observations = c.list();
+        initializeChildObservations(observations, session);
+        return observations;
+    }
+
+    /**
+     * Initialize the child observations of complex and profile observations
+     * with one query per observation type instead of one query per
+     * observation.
+     *
+     * @param observations
+     *            The queried observations
+     * @param session
+     *            Hibernate session
+     */
+    private void initializeChildObservations(List<DataEntity<?>> observations, Session session) {
+        initializeChildObservations(ComplexDataEntity.class, observations, session);
+        initializeChildObservations(ProfileDataEntity.class, observations, session);
+    }
+
+    private void initializeChildObservations(Class<?> parentClass, List<DataEntity<?>> observations,
+            Session session) {
+        Set<Long> parents = observations.stream().filter(parentClass::isInstance).map(DataEntity::getId)
+                .collect(Collectors.toSet());
+        if (!parents.isEmpty()) {
+            Criteria c = session.createCriteria(parentClass)
+                    .add(QueryHelper.getCriterionForObjects(DataEntity.PROPERTY_ID, parents))
+                    .setFetchMode(DataEntity.PROPERTY_VALUE, FetchMode.JOIN)
+                    .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
+            LOGGER.trace("QUERY initializeChildObservations({}): {}", parentClass.getSimpleName(),
+                    HibernateHelper.getSqlString(c));
+            c.list();
+        }
     }
 
     /**
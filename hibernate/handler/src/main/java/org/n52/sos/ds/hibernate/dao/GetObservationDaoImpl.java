@@ -31,10 +31,14 @@ package org.n52.sos.ds.hibernate.dao;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
@@ -42,6 +46,8 @@ import org.apache.xmlbeans.XmlObject;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.criterion.Criterion;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.n52.faroe.annotation.Configurable;
 import org.n52.faroe.annotation.Setting;
 import org.n52.iceland.convert.ConverterException;
@@ -52,9 +58,17 @@ import org.n52.janmayen.http.HTTPStatus;
 import org.n52.janmayen.i18n.LocaleHelper;
 import org.n52.series.db.beans.DataEntity;
 import org.n52.series.db.beans.DatasetEntity;
+import org.n52.series.db.beans.dataset.ObservationType;
+import org.n52.series.db.beans.dataset.ValueType;
 import org.n52.shetland.ogc.gml.time.IndeterminateValue;
+import org.n52.shetland.ogc.gml.time.Time;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.gml.time.TimePeriod;
 import org.n52.shetland.ogc.om.ObservationStream;
 import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.SingleObservationValue;
+import org.n52.shetland.ogc.om.values.QuantityValue;
+import org.n52.shetland.ogc.om.values.Value;
 import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.sos.ExtendedIndeterminateTime;
@@ -63,11 +77,16 @@ import org.n52.shetland.ogc.sos.response.GetObservationResponse;
 import org.n52.shetland.ogc.sos.response.GlobalObservationResponseValues;
 import org.n52.sos.ds.hibernate.HibernateSessionHolder;
 import org.n52.sos.ds.hibernate.dao.observation.series.AbstractSeriesDAO;
+import org.n52.sos.ds.hibernate.dao.observation.series.DatasetLatestValueStore;
+import org.n52.sos.ds.hibernate.dao.observation.series.DatasetLatestValueStore.LatestValue;
 import org.n52.sos.ds.hibernate.util.ObservationTimeExtrema;
+import org.n52.sos.ds.hibernate.util.aggregation.Aggregation;
 import org.n52.sos.ds.hibernate.util.observation.HibernateObservationUtilities;
 import org.n52.sos.ds.hibernate.util.observation.OmObservationCreatorContext;
+import org.n52.sos.ds.hibernate.values.series.HibernateAggregatedSeriesStreamingValue;
 import org.n52.sos.ds.hibernate.values.series.HibernateChunkSeriesStreamingValue;
 import org.n52.sos.ds.hibernate.values.series.HibernateSeriesStreamingValue;
+import org.n52.sos.ds.hibernate.values.series.ParallelSeriesRetrieval;
 import org.n52.sos.service.profile.ProfileHandler;
 import org.n52.svalbard.encode.Encoder;
 import org.n52.svalbard.encode.ObservationEncoder;
@@ -96,6 +115,8 @@ public class GetObservationDaoImpl extends AbstractObservationDao implements org
 
     private Locale defaultLanguage;
 
+    private ParallelSeriesRetrieval parallelSeriesRetrieval;
+
     @Inject
     public void setDaoFactory(DaoFactory daoFactory) {
         this.daoFactory = daoFactory;
@@ -116,6 +137,11 @@ public class GetObservationDaoImpl extends AbstractObservationDao implements org
         this.observationCreatorContext = observationCreatorContext;
     }
 
+    @Inject
+    public void setParallelSeriesRetrieval(ParallelSeriesRetrieval parallelSeriesRetrieval) {
+        this.parallelSeriesRetrieval = parallelSeriesRetrieval;
+    }
+
     @Setting("profile.hydrology.overallExtrema")
     public void setOverallExtrema(boolean overallExtrema) {
         this.overallExtrema = overallExtrema;
@@ -191,14 +217,31 @@ public class GetObservationDaoImpl extends AbstractObservationDao implements org
         final long start = System.currentTimeMillis();
         List<String> features = request.getFeatureIdentifiers();
 
-        Collection<DataEntity<?>> seriesObservations = Lists.newArrayList();
+        List<DataEntity<?>> seriesObservations = Lists.newArrayList();
+        // latest observations served by the store, keyed by the number of
+        // loaded observations preceding them to keep the order of the series
+        Map<Integer, List<OmObservation>> latestObservations = Maps.newLinkedHashMap();
+        Set<Long> latestSeries = new HashSet<>();
         AbstractSeriesDAO seriesDAO = daoFactory.getSeriesDAO();
+        DatasetLatestValueStore latestValueStore = daoFactory.getLatestValueStore();
+        latestValueStore.initialize(session);
         for (IndeterminateValue sosIndeterminateTime : request.getFirstLatestTemporalFilter()) {
             for (DatasetEntity series : getSeries(seriesDAO, request, features, sosIndeterminateTime, session)) {
                 if (sosIndeterminateTime.equals(ExtendedIndeterminateTime.FIRST)) {
                     seriesObservations.add(series.getFirstObservation());
                 } else if (sosIndeterminateTime.equals(ExtendedIndeterminateTime.LATEST)) {
-                    seriesObservations.add(series.getLastObservation());
+                    Optional<LatestValue> latestValue =
+                            series.hasEreportingProfile() ? Optional.empty() : latestValueStore.get(series);
+                    if (latestValue.isPresent()) {
+                        latestObservations.computeIfAbsent(seriesObservations.size(), k -> new LinkedList<>())
+                                .add(createLatestObservation(series, latestValue.get(), request, requestedLocale, pdf,
+                                        session));
+                        latestSeries.add(series.getId());
+                    } else {
+                        DataEntity<?> lastObservation = series.getLastObservation();
+                        seriesObservations.add(lastObservation);
+                        latestValueStore.put(series, lastObservation);
+                    }
                 }
             }
         }
@@ -213,6 +256,7 @@ public class GetObservationDaoImpl extends AbstractObservationDao implements org
             }
 
             // check observations and remove any series found from the map
+            seriesToCheckMap.keySet().removeAll(latestSeries);
             for (DataEntity<?> seriesObs : seriesObservations) {
                 long seriesId = seriesObs.getDataset().getId();
                 if (seriesToCheckMap.containsKey(seriesId)) {
@@ -229,11 +273,67 @@ public class GetObservationDaoImpl extends AbstractObservationDao implements org
         }
 
         LOGGER.debug(LOG_TIME_TO_QUERY, System.currentTimeMillis() - start);
-        toSosObservation(new ArrayList<>(seriesObservations), request, requestedLocale, pdf, observationCreatorContext,
-                session).forEachRemaining(result::add);
+        int from = 0;
+        for (Map.Entry<Integer, List<OmObservation>> entry : latestObservations.entrySet()) {
+            addSosObservations(seriesObservations.subList(from, entry.getKey()), result, request, requestedLocale,
+                    pdf, session);
+            result.addAll(entry.getValue());
+            from = entry.getKey();
+        }
+        addSosObservations(seriesObservations.subList(from, seriesObservations.size()), result, request,
+                requestedLocale, pdf, session);
         return result;
     }
 
+    private void addSosObservations(List<DataEntity<?>> observations, List<OmObservation> result,
+            GetObservationRequest request, Locale requestedLocale, String pdf, Session session)
+            throws OwsExceptionReport, ConverterException {
+        toSosObservation(observations, request, requestedLocale, pdf, observationCreatorContext, session)
+                .forEachRemaining(result::add);
+    }
+
+    /**
+     * Create the latest observation of the series from the latest value store
+     * without loading the observation entity.
+     *
+     * @param series
+     *            the series
+     * @param latestValue
+     *            the stored latest value of the series
+     * @param request
+     *            GetObservation request
+     * @param requestedLocale
+     *            the requested locale
+     * @param pdf
+     *            the procedure description format
+     * @param session
+     *            Hibernate session
+     * @return the latest observation
+     * @throws OwsExceptionReport
+     *             If an error occurs.
+     * @throws ConverterException
+     *             If an error occurs during sensor description creation.
+     */
+    private OmObservation createLatestObservation(DatasetEntity series, LatestValue latestValue,
+            GetObservationRequest request, Locale requestedLocale, String pdf, Session session)
+            throws OwsExceptionReport, ConverterException {
+        OmObservation observation = HibernateObservationUtilities.createSosObservationFromSeries(series, request,
+                requestedLocale, pdf, observationCreatorContext, session).next();
+        Value<?> value = latestValue.createValue();
+        if (value instanceof QuantityValue && !value.isSetUnit() && observation.isSetValue()
+                && observation.getValue().getValue().isSetUnit()) {
+            value.setUnit(observation.getValue().getValue().getUnit());
+        }
+        observation.setResultTime(new TimeInstant(new DateTime(latestValue.getResultTime(), DateTimeZone.UTC)));
+        DateTime phenomenonTimeEnd = new DateTime(latestValue.getPhenomenonTime(), DateTimeZone.UTC);
+        Time phenomenonTime = latestValue.isPhenomenonTimePeriod()
+                ? new TimePeriod(new DateTime(latestValue.getPhenomenonTimeStart(), DateTimeZone.UTC),
+                        phenomenonTimeEnd)
+                : new TimeInstant(phenomenonTimeEnd);
+        observation.setValue(new SingleObservationValue<>(phenomenonTime, value));
+        return observation;
+    }
+
     private List<DatasetEntity> getSeries(AbstractSeriesDAO seriesDAO, GetObservationRequest request,
             List<String> features, IndeterminateValue sosIndeterminateTime, Session session) throws OwsExceptionReport {
         if (!overallExtrema) {
@@ -292,25 +392,44 @@ public class GetObservationDaoImpl extends AbstractObservationDao implements org
         List<DatasetEntity> serieses = daoFactory.getSeriesDAO().getSeries(request, features, session);
         checkMaxNumberOfReturnedSeriesSize(serieses.size());
         int maxNumberOfValuesPerSeries = getMaxNumberOfValuesPerSeries(serieses.size());
+        Map<Long, ObservationTimeExtrema> timeExtremaPerSeries = daoFactory.getValueTimeDAO().getTimeExtremaPerSeries(
+                request, serieses.stream().map(DatasetEntity::getId).collect(Collectors.toSet()),
+                temporalFilterCriterion, session);
+        Optional<Aggregation> aggregation = Aggregation.fromRequest(request);
+        List<HibernateChunkSeriesStreamingValue> streamingValues = new ArrayList<>(serieses.size());
         for (DatasetEntity series : serieses) {
             ObservationStream createSosObservationFromSeries =
                     HibernateObservationUtilities.createSosObservationFromSeries(series, request,
                             getRequestedLocale(request), getProcedureDescriptionFormat(request.getResponseFormat()),
                             observationCreatorContext, session);
             OmObservation observationTemplate = createSosObservationFromSeries.next();
-            HibernateSeriesStreamingValue streamingValue =
-                    new HibernateChunkSeriesStreamingValue(sessionHolder.getConnectionProvider(), daoFactory, request,
-                            series.getId(), observationCreatorContext.getBindingRepository(), getChunkSize());
+            HibernateSeriesStreamingValue streamingValue;
+            if (aggregation.isPresent() && isAggregatable(series)) {
+                streamingValue = new HibernateAggregatedSeriesStreamingValue(sessionHolder.getConnectionProvider(),
+                        daoFactory, request, series.getId(), observationCreatorContext.getBindingRepository(),
+                        getChunkSize(), aggregation.get());
+            } else {
+                HibernateChunkSeriesStreamingValue chunkValue =
+                        new HibernateChunkSeriesStreamingValue(sessionHolder.getConnectionProvider(), daoFactory,
+                                request, series.getId(), observationCreatorContext.getBindingRepository(),
+                                getChunkSize());
+                streamingValues.add(chunkValue);
+                streamingValue = chunkValue;
+            }
             streamingValue.setResponseFormat(request.getResponseFormat());
             streamingValue.setTemporalFilterCriterion(temporalFilterCriterion);
             streamingValue.setObservationTemplate(observationTemplate);
             streamingValue.setMaxNumberOfValues(maxNumberOfValuesPerSeries);
+            streamingValue.setTimeExtrema(
+                    timeExtremaPerSeries.getOrDefault(series.getId(), new ObservationTimeExtrema()));
             observationTemplate.setValue(streamingValue);
             result.add(observationTemplate);
         }
+        if (parallelSeriesRetrieval != null) {
+            parallelSeriesRetrieval.start(streamingValues);
+        }
 
-        ObservationTimeExtrema timeExtrema =
-                daoFactory.getValueTimeDAO().getTimeExtremaForSeries(serieses, temporalFilterCriterion, session);
+        ObservationTimeExtrema timeExtrema = getPhenomenonTimeExtrema(timeExtremaPerSeries.values());
         if (timeExtrema.isSetPhenomenonTimes()) {
             response.setGlobalObservationValues(
                     new GlobalObservationResponseValues().setPhenomenonTime(timeExtrema.getPhenomenonTime()));
@@ -319,6 +438,35 @@ public class GetObservationDaoImpl extends AbstractObservationDao implements org
         return result;
     }
 
+    /**
+     * Only simple quantity series are aggregated, the values of other series
+     * are returned unchanged.
+     */
+    private boolean isAggregatable(DatasetEntity series) {
+        return ValueType.quantity.equals(series.getValueType())
+                && ObservationType.simple.equals(series.getObservationType());
+    }
+
+    private ObservationTimeExtrema getPhenomenonTimeExtrema(Collection<ObservationTimeExtrema> timeExtremas) {
+        ObservationTimeExtrema phenomenonTimeExtrema = new ObservationTimeExtrema();
+        for (ObservationTimeExtrema timeExtrema : timeExtremas) {
+            if (timeExtrema.isSetPhenomenonTimes()) {
+                if (!phenomenonTimeExtrema.isSetPhenomenonTimes()) {
+                    phenomenonTimeExtrema.setMinPhenomenonTime(timeExtrema.getMinPhenomenonTime());
+                    phenomenonTimeExtrema.setMaxPhenomenonTime(timeExtrema.getMaxPhenomenonTime());
+                } else {
+                    if (timeExtrema.getMinPhenomenonTime().isBefore(phenomenonTimeExtrema.getMinPhenomenonTime())) {
+                        phenomenonTimeExtrema.setMinPhenomenonTime(timeExtrema.getMinPhenomenonTime());
+                    }
+                    if (timeExtrema.getMaxPhenomenonTime().isAfter(phenomenonTimeExtrema.getMaxPhenomenonTime())) {
+                        phenomenonTimeExtrema.setMaxPhenomenonTime(timeExtrema.getMaxPhenomenonTime());
+                    }
+                }
+            }
+        }
+        return phenomenonTimeExtrema;
+    }
+
     private String getProcedureDescriptionFormat(String responseFormat) {
         Encoder<XmlObject, OmObservation> encoder = getEncoder(new XmlEncoderKey(responseFormat, OmObservation.class));
         if (encoder != null && encoder instanceof ObservationEncoder) {
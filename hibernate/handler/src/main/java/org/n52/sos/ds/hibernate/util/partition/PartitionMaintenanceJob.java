@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util.partition;
+
+import java.sql.Statement;
+
+import javax.inject.Inject;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.joda.time.DateTime;
+import org.n52.io.task.ScheduledJob;
+import org.n52.iceland.ds.ConnectionProvider;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.sos.ds.hibernate.HibernateSessionHolder;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Job maintaining the partitions of the observation table. It creates the
+ * partitions for the current and the next {@link #setPremake(int) premake}
+ * intervals and detaches the partitions older than the
+ * {@link #setRetention(int) retention} intervals, if supported by the
+ * database. The job does nothing if the observation table is not
+ * partitioned.
+ *
+ * @since 5.3.2
+ */
+@DisallowConcurrentExecution
+public class PartitionMaintenanceJob extends ScheduledJob implements Job {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionMaintenanceJob.class);
+
+    private static final String PREMAKE = "premake";
+
+    private static final String RETENTION = "retention";
+
+    private int premake = 3;
+
+    private int retention;
+
+    private HibernateSessionHolder sessionHolder;
+
+    @Inject
+    public void setConnectionProvider(ConnectionProvider connectionProvider) {
+        this.sessionHolder = new HibernateSessionHolder(connectionProvider);
+    }
+
+    public int getPremake() {
+        return premake;
+    }
+
+    /**
+     * @param premake
+     *            the number of future partitions to create
+     */
+    public void setPremake(int premake) {
+        this.premake = premake;
+    }
+
+    public int getRetention() {
+        return retention;
+    }
+
+    /**
+     * @param retention
+     *            the number of past partitions to keep attached, {@code 0}
+     *            keeps all
+     */
+    public void setRetention(int retention) {
+        this.retention = retention;
+    }
+
+    @Override
+    public JobDetail createJobDetails() {
+        return JobBuilder.newJob(PartitionMaintenanceJob.class)
+                .withIdentity(getJobName())
+                .usingJobData(PREMAKE, premake)
+                .usingJobData(RETENTION, retention)
+                .build();
+    }
+
+    @Override
+    public void executeInternal(JobExecutionContext context) throws JobExecutionException {
+        JobDataMap data = context.getMergedJobDataMap();
+        Session session = null;
+        try {
+            session = sessionHolder.getSession();
+            TablePartitioning partitioning =
+                    TablePartitioning.of((SessionFactoryImplementor) session.getSessionFactory());
+            if (partitioning == null || !session.doReturningWork(
+                    connection -> partitioning.supports(connection.getMetaData())
+                            && partitioning.isPartitioned(connection))) {
+                LOGGER.debug("Observation table is not partitioned, nothing to maintain.");
+                return;
+            }
+            for (String statement : partitioning.getMaintenanceStatements(new DateTime(), data.getInt(PREMAKE),
+                    data.getInt(RETENTION))) {
+                execute(statement, session);
+            }
+        } catch (OwsExceptionReport | HibernateException e) {
+            throw new JobExecutionException("Error while maintaining the observation table partitions!", e);
+        } finally {
+            if (session != null) {
+                sessionHolder.returnSession(session);
+            }
+        }
+    }
+
+    private void execute(String statement, Session session) {
+        Transaction transaction = null;
+        try {
+            transaction = session.beginTransaction();
+            session.doWork(connection -> {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute(statement);
+                }
+            });
+            transaction.commit();
+        } catch (HibernateException e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            LOGGER.warn("Partition maintenance statement failed: {}", statement, e);
+        }
+    }
+
+}
@@ -152,6 +152,24 @@ public abstract class AbstractHibernateStreamingValue extends StreamingValue<Dat
         sessionHolder.returnSession(session);
     }
 
+    /**
+     * Take over a session that was opened for this value by another thread.
+     * A different session that is currently held is returned.
+     *
+     * @param session
+     *            the session to use
+     */
+    protected void setSession(Session session) {
+        if (this.session != null && this.session != session) {
+            sessionHolder.returnSession(this.session);
+        }
+        this.session = session;
+    }
+
+    protected HibernateSessionHolder getSessionHolder() {
+        return sessionHolder;
+    }
+
     @Override
     public ObservationStream merge() throws OwsExceptionReport {
         Map<String, OmObservation> observations = Maps.newHashMap();
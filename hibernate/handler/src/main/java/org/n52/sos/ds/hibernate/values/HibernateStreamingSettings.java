@@ -39,4 +39,14 @@ public interface HibernateStreamingSettings {
 
     String CHUNK_SIZE = "service.streaming.datasource.chunkSize";
 
+    String PARALLEL_THREADS = "service.streaming.datasource.parallel.threads";
+
+    String PARALLEL_REQUEST_LIMIT = "service.streaming.datasource.parallel.requestLimit";
+
+    String PARALLEL_BATCH_SIZE = "service.streaming.datasource.parallel.batchSize";
+
+    String PARALLEL_MAX_SESSIONS = "service.streaming.datasource.parallel.maxSessions";
+
+    String PARALLEL_HOLD_TIMEOUT = "service.streaming.datasource.parallel.holdTimeout";
+
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.values.series;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.n52.iceland.binding.BindingRepository;
+import org.n52.iceland.ds.ConnectionProvider;
+import org.n52.janmayen.http.HTTPStatus;
+import org.n52.series.db.beans.CountDataEntity;
+import org.n52.series.db.beans.DataEntity;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.shetland.ogc.UoM;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.TimeValuePair;
+import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.request.AbstractObservationRequest;
+import org.n52.sos.ds.hibernate.dao.DaoFactory;
+import org.n52.sos.ds.hibernate.util.ObservationTimeExtrema;
+import org.n52.sos.ds.hibernate.util.ScrollableIterable;
+import org.n52.sos.ds.hibernate.util.aggregation.Aggregation;
+import org.n52.sos.ds.hibernate.util.aggregation.ValueAggregator;
+
+/**
+ * Hibernate series streaming value implementation for values that are
+ * aggregated or downsampled as requested by the {@code aggregation}
+ * extension. The aggregation is computed by a grouped query if the database
+ * supports it, otherwise the values are scrolled forward only and streamed
+ * through a {@link ValueAggregator}.
+ *
+ * @since 5.3.2
+ */
+public class HibernateAggregatedSeriesStreamingValue extends HibernateSeriesStreamingValue {
+
+    private static final String ERROR_LOG = "Error while querying aggregated observation data!";
+
+    private final Aggregation aggregation;
+
+    private final int chunkSize;
+
+    private Iterator<DataEntity<?>> seriesValuesResult;
+
+    private boolean finished;
+
+    /**
+     * constructor
+     *
+     * @param connectionProvider
+     *            the connection provider
+     * @param daoFactory
+     *            the DAO factory
+     * @param request
+     *            {@link AbstractObservationRequest}
+     * @param series
+     *            Datasource series id
+     * @param bindingRepository
+     *            the binding repository
+     * @param chunkSize
+     *            fetch size to scroll through the values to aggregate
+     * @param aggregation
+     *            the requested aggregation
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    public HibernateAggregatedSeriesStreamingValue(ConnectionProvider connectionProvider, DaoFactory daoFactory,
+            AbstractObservationRequest request, long series, BindingRepository bindingRepository, int chunkSize,
+            Aggregation aggregation) throws OwsExceptionReport {
+        super(connectionProvider, daoFactory, request, series, bindingRepository);
+        this.chunkSize = chunkSize;
+        this.aggregation = aggregation;
+    }
+
+    @Override
+    public boolean hasNext() throws OwsExceptionReport {
+        if (finished) {
+            return false;
+        }
+        if (seriesValuesResult == null) {
+            seriesValuesResult = queryAggregatedValues().iterator();
+        }
+        boolean next = seriesValuesResult.hasNext();
+        if (!next) {
+            finished = true;
+            returnSession(getSession());
+        }
+        return next;
+    }
+
+    @Override
+    public DataEntity<?> nextEntity() throws OwsExceptionReport {
+        return seriesValuesResult.next();
+    }
+
+    @Override
+    public TimeValuePair nextValue() throws OwsExceptionReport {
+        if (hasNext()) {
+            return createTimeValuePairFrom(seriesValuesResult.next());
+        }
+        return null;
+    }
+
+    @Override
+    public OmObservation next() throws OwsExceptionReport {
+        if (hasNext()) {
+            OmObservation observation = getObservationTemplate().cloneTemplate();
+            addValuesToObservation(seriesValuesResult.next(), observation, getResponseFormat());
+            checkForModifications(observation);
+            return observation;
+        }
+        return null;
+    }
+
+    @Override
+    public OmObservation addValuesToObservation(DataEntity<?> o, OmObservation observation, String responseFormat)
+            throws OwsExceptionReport {
+        super.addValuesToObservation(o, observation, responseFormat);
+        if (o instanceof CountDataEntity && observation.getValue() != null) {
+            // a count of values has no unit, don't inherit the one of the
+            // observable property
+            observation.getValue().getValue().setUnit((UoM) null);
+        }
+        return observation;
+    }
+
+    /**
+     * Query the aggregated values. The session is kept open until all values
+     * are returned because the aggregated values reference the dataset.
+     *
+     * @return the aggregated values
+     * @throws OwsExceptionReport
+     *             If an error occurs when querying the values
+     */
+    private List<DataEntity<?>> queryAggregatedValues() throws OwsExceptionReport {
+        Session session = null;
+        try {
+            session = getSession();
+            List<DataEntity<?>> values = seriesValueDAO.getAggregatedSeriesValuesFor(request, series,
+                    temporalFilterCriterion, aggregation, session);
+            if (values == null) {
+                values = aggregateValues(session);
+            }
+            checkMaxNumberOfReturnedValues(values.size());
+            return values;
+        } catch (final HibernateException he) {
+            returnSession(session);
+            throw new NoApplicableCodeException().causedBy(he).withMessage(ERROR_LOG)
+                    .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private List<DataEntity<?>> aggregateValues(Session session) throws OwsExceptionReport {
+        ObservationTimeExtrema timeExtrema = getTimeExtrema(session);
+        if (!timeExtrema.isSetPhenomenonTimes()) {
+            return Collections.emptyList();
+        }
+        ValueAggregator aggregator = aggregation.createAggregator(session.load(DatasetEntity.class, series),
+                timeExtrema.getMinPhenomenonTime().getMillis(), timeExtrema.getMaxPhenomenonTime().getMillis());
+        try (ScrollableIterable<DataEntity<?>> values = seriesValueDAO.scrollSeriesValuesFor(request, series,
+                temporalFilterCriterion, chunkSize, session)) {
+            for (DataEntity<?> value : values) {
+                aggregator.add(value);
+                session.evict(value);
+            }
+        }
+        return aggregator.finish();
+    }
+
+}
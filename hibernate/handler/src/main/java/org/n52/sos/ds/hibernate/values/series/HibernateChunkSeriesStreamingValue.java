@@ -68,6 +68,12 @@ public class HibernateChunkSeriesStreamingValue extends HibernateSeriesStreaming
 
     private int currentResultSize;
 
+    private ParallelSeriesRetrieval.Request retrieval;
+
+    private int retrievalIndex;
+
+    private boolean retrieved;
+
     /**
      * constructor
      *
@@ -91,6 +97,7 @@ public class HibernateChunkSeriesStreamingValue extends HibernateSeriesStreaming
 
     @Override
     public boolean hasNext() throws OwsExceptionReport {
+        awaitRetrieval();
         boolean next = false;
         if ((seriesValuesResult == null || !seriesValuesResult.hasNext()) && getSession().isOpen()) {
             if (!noChunk) {
@@ -161,26 +168,121 @@ public class HibernateChunkSeriesStreamingValue extends HibernateSeriesStreaming
         Session session = null;
         try {
             session = getSession();
-            // query with temporal filter
-            Collection<DataEntity<?>> resutltValues = new ArrayList<>();
-            if (temporalFilterCriterion != null) {
-                resutltValues.addAll(seriesValueDAO.getStreamingSeriesValuesFor(request, series,
-                        temporalFilterCriterion, chunkSize, currentRow, session));
-            } else {
-                // query without temporal or indeterminate filters
-                resutltValues.addAll(seriesValueDAO.getStreamingSeriesValuesFor(request, series, chunkSize, currentRow,
-                        getSession()));
-            }
-            currentRow += chunkSize;
-            checkMaxNumberOfReturnedValues(resutltValues.size());
-            setSeriesValuesResult(resutltValues);
+            setNextResults(queryValues(currentRow, session));
         } catch (final HibernateException he) {
             returnSession(session);
+            closeRetrieval();
             throw new NoApplicableCodeException().causedBy(he).withMessage(ERROR_LOG)
                     .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    private Collection<DataEntity<?>> queryValues(int firstRow, Session session) throws OwsExceptionReport {
+        // query with temporal filter
+        Collection<DataEntity<?>> resultValues = new ArrayList<>();
+        if (temporalFilterCriterion != null) {
+            resultValues.addAll(seriesValueDAO.getStreamingSeriesValuesFor(request, series, temporalFilterCriterion,
+                    chunkSize, firstRow, session));
+        } else {
+            // query without temporal or indeterminate filters
+            resultValues.addAll(
+                    seriesValueDAO.getStreamingSeriesValuesFor(request, series, chunkSize, firstRow, session));
+        }
+        return resultValues;
+    }
+
+    private void setNextResults(Collection<DataEntity<?>> resultValues) throws OwsExceptionReport {
+        currentRow += chunkSize;
+        checkMaxNumberOfReturnedValues(resultValues.size());
+        setSeriesValuesResult(resultValues);
+    }
+
+    /**
+     * Register the parallel retrieval that queries the first chunk of this
+     * value in advance.
+     *
+     * @param retrieval
+     *            the retrieval of the request
+     * @param index
+     *            the index of this value in the retrieval
+     */
+    void setRetrieval(ParallelSeriesRetrieval.Request retrieval, int index) {
+        this.retrieval = retrieval;
+        this.retrievalIndex = index;
+    }
+
+    /**
+     * Query the first chunk of values on a separate read-only session. This is
+     * executed by a worker thread of the {@link ParallelSeriesRetrieval}, so
+     * the state of this value is not modified. The session is handed over to
+     * this value in {@link #hasNext()}.
+     *
+     * @return the first chunk
+     * @throws OwsExceptionReport
+     *             If an error occurs when querying the values
+     */
+    Chunk queryFirstChunk() throws OwsExceptionReport {
+        Session session = getSessionHolder().getSession();
+        try {
+            session.setDefaultReadOnly(true);
+            Collection<DataEntity<?>> values = queryValues(0, session);
+            if (values.isEmpty()) {
+                getSessionHolder().returnSession(session);
+                return new Chunk(null, values);
+            }
+            return new Chunk(session, values);
+        } catch (OwsExceptionReport | RuntimeException e) {
+            getSessionHolder().returnSession(session);
+            throw e;
+        }
+    }
+
+    /**
+     * Return the session of a first chunk that is not consumed by this value.
+     *
+     * @param chunk
+     *            the chunk queried by {@link #queryFirstChunk()}
+     */
+    void returnChunk(Chunk chunk) {
+        if (chunk.hasSession()) {
+            getSessionHolder().returnSession(chunk.session);
+        }
+    }
+
+    private void awaitRetrieval() throws OwsExceptionReport {
+        if (retrieval != null && !retrieved) {
+            retrieved = true;
+            Chunk chunk = retrieval.await(retrievalIndex);
+            if (chunk != null) {
+                if (chunk.hasSession()) {
+                    setSession(chunk.session);
+                }
+                try {
+                    setNextResults(chunk.values);
+                } catch (OwsExceptionReport e) {
+                    if (chunk.hasSession()) {
+                        returnSession(chunk.session);
+                    }
+                    closeRetrieval();
+                    throw e;
+                }
+                if (chunkSize <= 0 || currentResultSize < chunkSize) {
+                    noChunk = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * The response fails, so the prefetched chunks of the following values
+     * are not consumed anymore.
+     */
+    private void closeRetrieval() {
+        if (retrieval != null) {
+            retrieval.close();
+        }
+    }
+
     /**
      * Check the queried {@link DataEntity}s for null and set
      * them as iterator to local variable.
@@ -196,4 +298,21 @@ public class HibernateChunkSeriesStreamingValue extends HibernateSeriesStreaming
 
     }
 
+    /**
+     * The first chunk of values and the session they are attached to.
+     */
+    static final class Chunk {
+        private final Session session;
+        private final Collection<DataEntity<?>> values;
+
+        Chunk(Session session, Collection<DataEntity<?>> values) {
+            this.session = session;
+            this.values = values;
+        }
+
+        boolean hasSession() {
+            return session != null;
+        }
+    }
+
 }
@@ -64,6 +64,8 @@ public abstract class HibernateSeriesStreamingValue extends AbstractHibernateStr
 
     protected long series;
 
+    private ObservationTimeExtrema seriesTimeExtrema;
+
     /**
      * constructor
      *
@@ -85,13 +87,42 @@ public abstract class HibernateSeriesStreamingValue extends AbstractHibernateStr
         this.seriesDAO = daoFactory.getSeriesDAO();
     }
 
+    /**
+     * Set the time extrema of the series if they were already queried for a
+     * set of series, so {@link #queryTimes()} needs no own query.
+     *
+     * @param timeExtrema
+     *            the time extrema of the series
+     */
+    public void setTimeExtrema(ObservationTimeExtrema timeExtrema) {
+        this.seriesTimeExtrema = timeExtrema;
+    }
+
+    /**
+     * Get the time extrema of the series and query them if they were not set.
+     *
+     * @param session
+     *            Hibernate session
+     * @return the time extrema of the series
+     * @throws OwsExceptionReport
+     *             If an error occurs when querying the time extrema
+     */
+    protected ObservationTimeExtrema getTimeExtrema(Session session) throws OwsExceptionReport {
+        if (seriesTimeExtrema == null) {
+            seriesTimeExtrema = seriesValueTimeDAO.getTimeExtremaForSeries((GetObservationRequest) request, series,
+                    temporalFilterCriterion, session);
+        }
+        return seriesTimeExtrema;
+    }
+
     @Override
     protected void queryTimes() {
         Session session = null;
         try {
-            session = getSession();
-            ObservationTimeExtrema timeExtrema = seriesValueTimeDAO.getTimeExtremaForSeries(
-                    (GetObservationRequest) request, series, temporalFilterCriterion, session);
+            if (seriesTimeExtrema == null) {
+                session = getSession();
+            }
+            ObservationTimeExtrema timeExtrema = getTimeExtrema(session);
             if (timeExtrema.isSetPhenomenonTimes()) {
                 setPhenomenonTime(
                         GmlHelper.createTime(timeExtrema.getMinPhenomenonTime(), timeExtrema.getMaxPhenomenonTime()));
@@ -105,7 +136,9 @@ public abstract class HibernateSeriesStreamingValue extends AbstractHibernateStr
         } catch (OwsExceptionReport owse) {
             LOGGER.error("Error while querying times", owse);
         } finally {
-            returnSession(session);
+            if (session != null) {
+                returnSession(session);
+            }
         }
     }
 
@@ -0,0 +1,392 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.values.series;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.n52.faroe.annotation.Configurable;
+import org.n52.faroe.annotation.Setting;
+import org.n52.janmayen.GroupedAndNamedThreadFactory;
+import org.n52.janmayen.http.HTTPStatus;
+import org.n52.janmayen.lifecycle.Destroyable;
+import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.sos.ds.hibernate.values.HibernateStreamingSettings;
+import org.n52.sos.ds.hibernate.values.series.HibernateChunkSeriesStreamingValue.Chunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queries the first chunk of the values of multiple series concurrently. The
+ * series of a request are grouped into batches which are fetched on a shared
+ * fixed size executor, each series on its own read-only session. A request
+ * never has more than the configured number of batches fetched but not yet
+ * consumed, so a request with many series can neither occupy all threads nor
+ * all connections of the pool. The streaming values wait for their chunk
+ * when they are consumed, so the observations keep their original order.
+ *
+ * The sessions of fetched but not yet consumed chunks are limited for all
+ * requests together. If the limit is reached, the series is queried on demand
+ * by its streaming value. The sessions of chunks that are not consumed are
+ * returned when the response fails or the request does not consume a chunk
+ * within the hold timeout, e.g. because the client disconnected.
+ *
+ * @since 5.3.2
+ */
+@Configurable
+public class ParallelSeriesRetrieval implements Destroyable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelSeriesRetrieval.class);
+
+    private static final String THREAD_GROUP_NAME = "parallel-series-retrieval";
+
+    private static final String ERROR_LOG = "Error while querying observation data!";
+
+    private static final int DEFAULT_REQUEST_LIMIT = 2;
+
+    private static final int DEFAULT_BATCH_SIZE = 10;
+
+    private static final int DEFAULT_MAX_SESSIONS = 20;
+
+    private static final int DEFAULT_HOLD_TIMEOUT = 60;
+
+    private ScheduledExecutorService executor;
+
+    private int threads;
+
+    private int requestLimit = DEFAULT_REQUEST_LIMIT;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private Semaphore sessions = new Semaphore(DEFAULT_MAX_SESSIONS);
+
+    private long holdTimeout = TimeUnit.SECONDS.toMillis(DEFAULT_HOLD_TIMEOUT);
+
+    /**
+     * Set the number of threads shared by all requests. A value &lt;= 0
+     * disables the parallel retrieval.
+     *
+     * @param threads
+     *            the number of threads
+     */
+    @Setting(HibernateStreamingSettings.PARALLEL_THREADS)
+    public synchronized void setThreads(int threads) {
+        if (threads != this.threads) {
+            shutdown();
+            this.threads = threads;
+            if (threads > 0) {
+                this.executor = Executors.newScheduledThreadPool(threads,
+                        new GroupedAndNamedThreadFactory(THREAD_GROUP_NAME));
+            }
+        }
+    }
+
+    /**
+     * Set the maximum number of batches a single request may fetch ahead.
+     *
+     * @param requestLimit
+     *            the number of batches
+     */
+    @Setting(HibernateStreamingSettings.PARALLEL_REQUEST_LIMIT)
+    public void setRequestLimit(int requestLimit) {
+        this.requestLimit = Math.max(1, requestLimit);
+    }
+
+    /**
+     * Set the number of series that are fetched one after another in a batch.
+     *
+     * @param batchSize
+     *            the number of series
+     */
+    @Setting(HibernateStreamingSettings.PARALLEL_BATCH_SIZE)
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Set the maximum number of sessions all requests together may hold for
+     * fetched but not yet consumed chunks.
+     *
+     * @param maxSessions
+     *            the number of sessions
+     */
+    @Setting(HibernateStreamingSettings.PARALLEL_MAX_SESSIONS)
+    public synchronized void setMaxSessions(int maxSessions) {
+        this.sessions = new Semaphore(Math.max(1, maxSessions));
+    }
+
+    /**
+     * Set the time after which the sessions of chunks are returned if the
+     * request does not consume any chunk.
+     *
+     * @param seconds
+     *            the timeout in seconds
+     */
+    @Setting(HibernateStreamingSettings.PARALLEL_HOLD_TIMEOUT)
+    public synchronized void setHoldTimeout(int seconds) {
+        this.holdTimeout = TimeUnit.SECONDS.toMillis(Math.max(1, seconds));
+    }
+
+    /**
+     * Start the retrieval of the first chunk of the values. Does nothing if
+     * the parallel retrieval is disabled or there is only a single value.
+     *
+     * @param values
+     *            the streaming values in the order they are consumed
+     */
+    public void start(List<? extends HibernateChunkSeriesStreamingValue> values) {
+        ScheduledExecutorService current;
+        Semaphore currentSessions;
+        long timeout;
+        synchronized (this) {
+            current = this.executor;
+            currentSessions = this.sessions;
+            timeout = this.holdTimeout;
+        }
+        if (current != null && values.size() > 1) {
+            new Request(current, currentSessions, values, batchSize, requestLimit, timeout).start();
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        shutdown();
+    }
+
+    private void shutdown() {
+        if (executor != null) {
+            // pending hold timeouts are still executed and return the sessions
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * The retrieval of the values of a single request.
+     */
+    static final class Request {
+        private final ScheduledExecutorService executor;
+        private final Semaphore sessions;
+        private final List<? extends HibernateChunkSeriesStreamingValue> values;
+        private final List<CompletableFuture<Chunk>> chunks;
+        private final boolean[] taken;
+        private final int batchSize;
+        private final int window;
+        private final int batches;
+        private final long holdTimeout;
+        private int scheduled;
+        private int consumed;
+        private boolean closed;
+        private volatile long lastAccess;
+
+        Request(ScheduledExecutorService executor, Semaphore sessions,
+                List<? extends HibernateChunkSeriesStreamingValue> values, int batchSize, int window,
+                long holdTimeout) {
+            this.executor = executor;
+            this.sessions = sessions;
+            this.values = values;
+            this.batchSize = batchSize;
+            this.window = window;
+            this.holdTimeout = holdTimeout;
+            this.batches = (values.size() + batchSize - 1) / batchSize;
+            this.taken = new boolean[values.size()];
+            this.chunks = new ArrayList<>(values.size());
+            for (int i = 0; i < values.size(); i++) {
+                chunks.add(new CompletableFuture<>());
+            }
+        }
+
+        void start() {
+            for (int i = 0; i < values.size(); i++) {
+                values.get(i).setRetrieval(this, i);
+            }
+            lastAccess = System.currentTimeMillis();
+            scheduleExpiry(holdTimeout);
+            schedule(0);
+        }
+
+        /**
+         * Wait for the first chunk of a value and schedule the following
+         * batches. The request is closed if the chunk could not be queried.
+         *
+         * @param index
+         *            the index of the value
+         * @return the chunk or <code>null</code> if the value has to query it
+         *         itself
+         * @throws OwsExceptionReport
+         *             If an error occurred when querying the values
+         */
+        Chunk await(int index) throws OwsExceptionReport {
+            lastAccess = System.currentTimeMillis();
+            schedule(index / batchSize);
+            try {
+                return take(index, chunks.get(index).join());
+            } catch (CompletionException e) {
+                close();
+                if (e.getCause() instanceof OwsExceptionReport) {
+                    throw (OwsExceptionReport) e.getCause();
+                }
+                throw new NoApplicableCodeException().causedBy(e.getCause()).withMessage(ERROR_LOG)
+                        .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR);
+            }
+        }
+
+        /**
+         * Stop the retrieval and return the sessions of all chunks that are not
+         * consumed. Chunks that are fetched afterwards are returned
+         * immediately.
+         */
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (int i = 0; i < chunks.size(); i++) {
+                CompletableFuture<Chunk> chunk = chunks.get(i);
+                if (!chunk.complete(null) && !taken[i] && !chunk.isCompletedExceptionally()) {
+                    discard(i, chunk.join());
+                }
+            }
+        }
+
+        /**
+         * Close the request if it did not consume a chunk within the hold
+         * timeout, otherwise check again later.
+         */
+        void expire() {
+            synchronized (this) {
+                if (closed || consumed == values.size()) {
+                    return;
+                }
+            }
+            long idle = System.currentTimeMillis() - lastAccess;
+            if (idle >= holdTimeout) {
+                LOGGER.debug("Chunks of parallel series retrieval were not consumed within {} ms, returning sessions",
+                        holdTimeout);
+                close();
+            } else {
+                scheduleExpiry(holdTimeout - idle);
+            }
+        }
+
+        private synchronized Chunk take(int index, Chunk chunk) {
+            consumed++;
+            // a chunk completed before the request was closed is already discarded
+            if (closed || chunk == null) {
+                return null;
+            }
+            taken[index] = true;
+            if (chunk.hasSession()) {
+                sessions.release();
+            }
+            return chunk;
+        }
+
+        private synchronized void complete(int index, Chunk chunk) {
+            if (closed || !chunks.get(index).complete(chunk)) {
+                discard(index, chunk);
+            }
+        }
+
+        private void discard(int index, Chunk chunk) {
+            if (chunk != null && chunk.hasSession()) {
+                values.get(index).returnChunk(chunk);
+                sessions.release();
+            }
+        }
+
+        private synchronized boolean isClosed() {
+            return closed;
+        }
+
+        private void scheduleExpiry(long delay) {
+            try {
+                executor.schedule(this::expire, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                close();
+            }
+        }
+
+        private synchronized void schedule(int batch) {
+            if (closed) {
+                return;
+            }
+            int last = Math.min(batch + window, batches);
+            for (; scheduled < last; scheduled++) {
+                int current = scheduled;
+                try {
+                    executor.execute(() -> fetch(current));
+                } catch (RejectedExecutionException e) {
+                    LOGGER.debug("Parallel series retrieval was stopped, querying batch {} on demand", current);
+                    for (int i = getFirst(current); i < getLast(current); i++) {
+                        complete(i, null);
+                    }
+                }
+            }
+        }
+
+        private void fetch(int batch) {
+            for (int i = getFirst(batch); i < getLast(batch); i++) {
+                if (isClosed() || !sessions.tryAcquire()) {
+                    // the value queries its chunk on demand
+                    complete(i, null);
+                    continue;
+                }
+                Chunk chunk;
+                try {
+                    chunk = values.get(i).queryFirstChunk();
+                } catch (OwsExceptionReport | RuntimeException e) {
+                    sessions.release();
+                    chunks.get(i).completeExceptionally(e);
+                    continue;
+                }
+                if (!chunk.hasSession()) {
+                    sessions.release();
+                }
+                complete(i, chunk);
+            }
+        }
+
+        private int getFirst(int batch) {
+            return batch * batchSize;
+        }
+
+        private int getLast(int batch) {
+            return Math.min(getFirst(batch) + batchSize, values.size());
+        }
+    }
+}
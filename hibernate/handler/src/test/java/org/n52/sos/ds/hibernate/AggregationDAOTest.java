@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hibernate.Session;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.iceland.convert.ConverterException;
+import org.n52.series.db.beans.DataEntity;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.om.OmConstants;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.SingleObservationValue;
+import org.n52.shetland.ogc.om.values.QuantityValue;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.request.GetObservationRequest;
+import org.n52.shetland.ogc.sos.request.GetResultRequest;
+import org.n52.shetland.ogc.sos.request.InsertObservationRequest;
+import org.n52.sos.ds.hibernate.util.ScrollableIterable;
+import org.n52.sos.ds.hibernate.util.aggregation.Aggregation;
+import org.n52.sos.ds.hibernate.values.series.HibernateAggregatedSeriesStreamingValue;
+import org.n52.svalbard.encode.exception.EncodingException;
+
+import com.google.common.collect.Lists;
+
+public class AggregationDAOTest extends AbstractInsertDAOTest {
+
+    @Before
+    public void setUp() throws OwsExceptionReport, ConverterException, EncodingException {
+        super.setUp();
+        insertSensor(PROCEDURE1, OFFERING1, OBSPROP1, null, OmConstants.OBS_TYPE_MEASUREMENT);
+        insertObservations(PROCEDURE1, OFFERING1,
+                createMeasurement(PROCEDURE1, OBSPROP1, OFFERING1, TIME3, VAL3),
+                createMeasurement(PROCEDURE1, OBSPROP1, OFFERING1, TIME1, VAL1),
+                createMeasurement(PROCEDURE1, OBSPROP1, OFFERING1, TIME2, VAL2));
+    }
+
+    @Test
+    public void shouldScrollValuesOrderedByTime() throws OwsExceptionReport {
+        Session session = null;
+        try {
+            session = getSession();
+            List<DataEntity<?>> values = new ArrayList<>();
+            try (ScrollableIterable<DataEntity<?>> result = daoFactory.getValueDAO().scrollSeriesValuesFor(
+                    new GetObservationRequest(), getDatasetId(session), null, 1, session)) {
+                result.forEach(values::add);
+            }
+            assertThat(values, hasSize(3));
+            assertValue(values.get(0), TIME1, VAL1);
+            assertValue(values.get(1), TIME2, VAL2);
+            assertValue(values.get(2), TIME3, VAL3);
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void shouldAggregateStreamedValuesPerInterval() throws OwsExceptionReport {
+        long dataset;
+        Session session = null;
+        try {
+            session = getSession();
+            dataset = getDatasetId(session);
+        } finally {
+            returnSession(session);
+        }
+        HibernateAggregatedSeriesStreamingValue streamingValue = new HibernateAggregatedSeriesStreamingValue(this,
+                daoFactory, new GetObservationRequest(), dataset, bindingRepository, 1, Aggregation.parse("avg,PT2H"));
+        List<DataEntity<?>> values = new ArrayList<>();
+        while (streamingValue.hasNext()) {
+            values.add(streamingValue.nextEntity());
+        }
+        assertBuckets(values);
+    }
+
+    @Test
+    public void shouldAggregateResultPerInterval() throws OwsExceptionReport {
+        GetResultRequest request = new GetResultRequest();
+        request.setOffering(OFFERING1);
+        request.setObservedProperty(OBSPROP1);
+        Session session = null;
+        try {
+            session = getSession();
+            assertBuckets(getResultHandler.queryAggregatedSeriesObservation(request, Aggregation.parse("avg,PT2H"),
+                    null, session));
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Override
+    protected void assertInsertionAftermath(boolean afterCacheUpdate) throws OwsExceptionReport {
+        // not used, the observations are inserted in the set up
+    }
+
+    private void assertBuckets(List<DataEntity<?>> values) {
+        // the buckets are aligned to the epoch, so TIME1 and TIME2 share one
+        assertThat(values, hasSize(2));
+        assertValue(values.get(0), TIME1, (VAL1 + VAL2) / 2);
+        assertThat(values.get(0).getSamplingTimeEnd(), is(TIME2.toDate()));
+        assertValue(values.get(1), TIME3, VAL3);
+    }
+
+    private void assertValue(DataEntity<?> value, DateTime time, Double expected) {
+        assertThat(value, is(notNullValue()));
+        assertThat(value.getSamplingTimeStart(), is(time.toDate()));
+        assertThat(((BigDecimal) value.getValue()).doubleValue(), is(closeTo(expected, 0.000001)));
+    }
+
+    private long getDatasetId(Session session) {
+        List<DatasetEntity> datasets = daoFactory.getSeriesDAO().getSeries(PROCEDURE1, OBSPROP1, session)
+                .stream().filter(DatasetEntity::isSetLastValueAt).collect(Collectors.toList());
+        assertThat(datasets, hasSize(1));
+        return datasets.get(0).getId();
+    }
+
+    private void insertObservations(String procedure, String offering, OmObservation... observations)
+            throws OwsExceptionReport {
+        InsertObservationRequest req = new InsertObservationRequest();
+        req.setAssignedSensorId(procedure);
+        req.setOfferings(Lists.newArrayList(offering));
+        req.setObservation(Lists.newArrayList(observations));
+        insertObservationDAO.insertObservation(req);
+    }
+
+    private OmObservation createMeasurement(String procedure, String observableProperty, String offering,
+            DateTime time, Double value) throws OwsExceptionReport, ConverterException {
+        OmObservation obs = new OmObservation();
+        Session session = null;
+        try {
+            session = getSession();
+            obs.setObservationConstellation(getOmObsConst(procedure, observableProperty, TEMP_UNIT, offering,
+                    FEATURE3, OmConstants.OBS_TYPE_MEASUREMENT, session));
+        } finally {
+            returnSession(session);
+        }
+        obs.setResultTime(new TimeInstant(time));
+        SingleObservationValue<BigDecimal> obsVal = new SingleObservationValue<>();
+        obsVal.setPhenomenonTime(new TimeInstant(time));
+        obsVal.setValue(new QuantityValue(value, TEMP_UNIT));
+        obs.setValue(obsVal);
+        return obs;
+    }
+
+}
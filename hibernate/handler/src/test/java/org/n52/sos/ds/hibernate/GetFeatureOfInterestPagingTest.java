@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.iceland.convert.ConverterException;
+import org.n52.shetland.ogc.ows.exception.InvalidParameterValueException;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.Sos2Constants;
+import org.n52.sos.ds.FeaturePage;
+import org.n52.sos.ds.FeatureQueryHandlerQueryObject;
+import org.n52.sos.ds.hibernate.dao.FeatureOfInterestDAO;
+import org.n52.svalbard.encode.exception.EncodingException;
+
+/**
+ * Tests the keyset paging of the GetFeatureOfInterest response.
+ *
+ * @since 5.3.2
+ */
+public class GetFeatureOfInterestPagingTest extends AbstractInsertDAOTest {
+
+    private static final int LIMIT = 2;
+
+    @Before
+    public void setUp() throws OwsExceptionReport, ConverterException, EncodingException {
+        super.setUp();
+        insertFeatures("feature1", "feature2", "feature3", "feature4", "feature5");
+    }
+
+    @Test
+    public void shouldReturnFirstPageWithContinuationToken() throws OwsExceptionReport {
+        FeaturePage page = getPage(null);
+        assertThat(page.getFeatures().keySet(), contains("feature1", "feature2"));
+        assertThat(page.isTruncated(), is(true));
+        assertThat(page.getContinuationToken().isPresent(), is(true));
+    }
+
+    @Test
+    public void shouldReturnLastPageWithoutContinuationToken() throws OwsExceptionReport {
+        FeaturePage second = getPage(getPage(null).getContinuationToken().get());
+        assertThat(second.getFeatures().keySet(), contains("feature3", "feature4"));
+
+        FeaturePage last = getPage(second.getContinuationToken().get());
+        assertThat(last.getFeatures().keySet(), contains("feature5"));
+        assertThat(last.isTruncated(), is(false));
+        assertThat(last.getContinuationToken().isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldReturnAllFeaturesExactlyOnce() throws OwsExceptionReport {
+        List<String> identifiers = new ArrayList<>();
+        String token = null;
+        do {
+            FeaturePage page = getPage(token);
+            identifiers.addAll(page.getFeatures().keySet());
+            token = page.getContinuationToken().orElse(null);
+        } while (token != null);
+        assertThat(identifiers, contains("feature1", "feature2", "feature3", "feature4", "feature5"));
+    }
+
+    @Test(expected = InvalidParameterValueException.class)
+    public void shouldRejectInvalidContinuationToken() throws OwsExceptionReport {
+        getPage("not-a-token!");
+    }
+
+    @Test(expected = InvalidParameterValueException.class)
+    public void shouldRejectNonNumericContinuationToken() throws OwsExceptionReport {
+        // valid base64url, but not an encoded id
+        getPage("Zm9v");
+    }
+
+    @Test
+    public void shouldContinueAfterDataChanged() throws OwsExceptionReport {
+        String token = getPage(null).getContinuationToken().get();
+
+        deleteFeatures("feature1", "feature3");
+        insertFeatures("feature6");
+
+        FeaturePage page = getPage(token);
+        assertThat(page.getFeatures().keySet(), contains("feature4", "feature5"));
+        assertThat(page.getFeatures().keySet(), not(hasItems("feature1", "feature2", "feature3")));
+
+        FeaturePage last = getPage(page.getContinuationToken().get());
+        assertThat(last.getFeatures().keySet(), contains("feature6"));
+        assertThat(last.getContinuationToken().isPresent(), is(false));
+    }
+
+    @Override
+    protected void assertInsertionAftermath(boolean afterCacheUpdate) throws OwsExceptionReport {
+        // nothing inserted via the transactional operations
+    }
+
+    private FeaturePage getPage(String continuationToken) throws OwsExceptionReport {
+        Session session = null;
+        try {
+            session = getSession();
+            FeatureQueryHandlerQueryObject queryObject = new FeatureQueryHandlerQueryObject(session)
+                    .setVersion(Sos2Constants.SERVICEVERSION).setLimit(LIMIT);
+            if (continuationToken != null) {
+                queryObject.setContinuationToken(continuationToken);
+            }
+            return daoFactory.getFeatureQueryHandler().getFeaturePage(queryObject);
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    private void insertFeatures(String... identifiers) {
+        Session session = null;
+        try {
+            session = getSession();
+            Transaction transaction = session.beginTransaction();
+            FeatureOfInterestDAO featureDAO = daoFactory.getFeatureOfInterestDAO();
+            for (String identifier : identifiers) {
+                featureDAO.getOrInsert(identifier, null, session);
+            }
+            session.flush();
+            transaction.commit();
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    private void deleteFeatures(String... identifiers) {
+        Session session = null;
+        try {
+            session = getSession();
+            Transaction transaction = session.beginTransaction();
+            FeatureOfInterestDAO featureDAO = daoFactory.getFeatureOfInterestDAO();
+            for (String identifier : identifiers) {
+                session.delete(featureDAO.get(identifier, session));
+            }
+            session.flush();
+            transaction.commit();
+        } finally {
+            returnSession(session);
+        }
+    }
+
+}
@@ -28,12 +28,18 @@
  */
 package org.n52.sos.ds.hibernate;
 
+import static java.util.stream.Collectors.toList;
+
 import java.math.BigDecimal;
+import java.util.List;
 
 import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Test;
 import org.n52.iceland.convert.ConverterException;
+import org.n52.series.db.beans.DatasetEntity;
 import org.n52.shetland.ogc.gml.time.TimeInstant;
 import org.n52.shetland.ogc.om.OmConstants;
 import org.n52.shetland.ogc.om.OmObservation;
@@ -42,6 +48,7 @@ import org.n52.shetland.ogc.om.values.QuantityValue;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.shetland.ogc.sos.request.InsertObservationRequest;
 import org.n52.shetland.ogc.sos.response.InsertObservationResponse;
+import org.n52.sos.ds.hibernate.dao.observation.bulk.BulkObservationInserter;
 import org.n52.sos.ds.hibernate.util.HibernateMetadataCache;
 import org.n52.sos.event.events.ObservationInsertion;
 import org.n52.svalbard.encode.exception.EncodingException;
@@ -199,4 +206,90 @@ public class InsertObservationInsertDAOTest extends AbstractObservationInsertDAO
         assertInsertionAftermathBeforeAndAfterCacheReload();
     }
 
+    @Test
+    public void testInsertObservationWithBulkIngest()
+            throws OwsExceptionReport, ConverterException, InterruptedException {
+        // the first value of the dataset is inserted the normal way
+        insertObservations(createMeasurement(OBS_TIME, OBS_VAL));
+        daoFactory.setBulkIngest(true);
+        DateTime before = OBS_TIME.minusHours(1);
+        DateTime after = OBS_TIME.plusHours(1);
+        insertObservations(createMeasurement(after, VAL1), createMeasurement(before, VAL2));
+
+        checkObservation(OFFERING3, PROCEDURE3, OBSPROP3, after, PROCEDURE3, OBSPROP3, FEATURE3, VAL1, TEMP_UNIT);
+        checkObservation(OFFERING3, PROCEDURE3, OBSPROP3, before, PROCEDURE3, OBSPROP3, FEATURE3, VAL2, TEMP_UNIT);
+        Session session = null;
+        try {
+            session = getSession();
+            DatasetEntity dataset = getDatasetWithValues(session);
+            assertThat(dataset.getFirstValueAt(), is(before.toDate()));
+            assertThat(dataset.getLastValueAt(), is(after.toDate()));
+            assertThat(dataset.getLastQuantityValue().doubleValue(), is(VAL1));
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void testBulkIngestOnlyAcceptsSimpleObservations()
+            throws OwsExceptionReport, ConverterException, InterruptedException {
+        insertObservations(createMeasurement(OBS_TIME, OBS_VAL));
+        OmObservation withParameter = createMeasurement(OBS_TIME_PARAM, OBS_VAL);
+        addParameter(withParameter);
+        Session session = null;
+        Transaction transaction = null;
+        try {
+            session = getSession();
+            transaction = session.beginTransaction();
+            DatasetEntity dataset = getDatasetWithValues(session);
+            BulkObservationInserter inserter = daoFactory.getBulkObservationInserter();
+            assertThat(inserter.add(dataset, dataset.getFeature(), withParameter, session), is(false));
+            assertThat(inserter.add(dataset, dataset.getFeature(), createMeasurement(OBS_TIME_SP, OBS_VAL), session),
+                    is(true));
+            assertThat(inserter.flush(session), is(1L));
+            transaction.commit();
+        } finally {
+            returnSession(session);
+        }
+        checkObservation(OFFERING3, PROCEDURE3, OBSPROP3, OBS_TIME_SP, PROCEDURE3, OBSPROP3, FEATURE3, OBS_VAL,
+                TEMP_UNIT);
+    }
+
+    private void insertObservations(OmObservation... observations)
+            throws OwsExceptionReport, InterruptedException {
+        InsertObservationRequest req = new InsertObservationRequest();
+        req.setAssignedSensorId(PROCEDURE3);
+        req.setOfferings(Lists.newArrayList(OFFERING3));
+        req.setObservation(Lists.newArrayList(observations));
+        InsertObservationResponse resp = insertObservationDAO.insertObservation(req);
+        this.serviceEventBus.submit(new ObservationInsertion(req, resp));
+        assertInsertionAftermathBeforeAndAfterCacheReload();
+    }
+
+    private OmObservation createMeasurement(DateTime time, Double value)
+            throws OwsExceptionReport, ConverterException {
+        OmObservation obs = new OmObservation();
+        Session session = null;
+        try {
+            session = getSession();
+            obs.setObservationConstellation(getOmObsConst(PROCEDURE3, OBSPROP3, TEMP_UNIT, OFFERING3, FEATURE3,
+                    OmConstants.OBS_TYPE_MEASUREMENT, session));
+        } finally {
+            returnSession(session);
+        }
+        obs.setResultTime(new TimeInstant(time));
+        SingleObservationValue<BigDecimal> obsVal = new SingleObservationValue<BigDecimal>();
+        obsVal.setPhenomenonTime(new TimeInstant(time));
+        obsVal.setValue(new QuantityValue(value, TEMP_UNIT));
+        obs.setValue(obsVal);
+        return obs;
+    }
+
+    private DatasetEntity getDatasetWithValues(Session session) {
+        List<DatasetEntity> datasets = daoFactory.getSeriesDAO().getSeries(PROCEDURE3, OBSPROP3, session).stream()
+                .filter(DatasetEntity::isSetFirstValueAt).collect(toList());
+        assertThat(datasets, hasSize(1));
+        return datasets.get(0);
+    }
+
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.iceland.convert.ConverterException;
+import org.n52.series.db.beans.DataEntity;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.om.OmConstants;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.SingleObservationValue;
+import org.n52.shetland.ogc.om.values.QuantityValue;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.request.GetObservationByIdRequest;
+import org.n52.shetland.ogc.sos.request.InsertObservationRequest;
+import org.n52.sos.ds.hibernate.AbstractInsertDAOTest;
+import org.n52.svalbard.encode.exception.EncodingException;
+
+import com.google.common.collect.Lists;
+
+public class GetObservationByIdDaoImplTest extends AbstractInsertDAOTest {
+
+    private static final String OBSERVATION1 = "observation1";
+
+    private static final String OBSERVATION2 = "observation2";
+
+    private final GetObservationByIdDaoImpl getObservationByIdDAO = new GetObservationByIdDaoImpl();
+
+    @Before
+    public void setUp() throws OwsExceptionReport, ConverterException, EncodingException {
+        super.setUp();
+        getObservationByIdDAO.setConnectionProvider(this);
+        getObservationByIdDAO.setDaoFactory(daoFactory);
+        getObservationByIdDAO.setEncoderRepository(encoderRepository);
+        getObservationByIdDAO.setOmObservationCreatorContext(observationCtx);
+        getObservationByIdDAO.setDefaultLanguage("eng");
+        insertSensor(PROCEDURE3, OFFERING3, OBSPROP3, null, OmConstants.OBS_TYPE_MEASUREMENT);
+        InsertObservationRequest req = new InsertObservationRequest();
+        req.setAssignedSensorId(PROCEDURE3);
+        req.setOfferings(Lists.newArrayList(OFFERING3));
+        req.setObservation(Lists.newArrayList(createObservation(OBSERVATION1, OBS_TIME),
+                createObservation(OBSERVATION2, OBS_TIME_PARAM)));
+        insertObservationDAO.insertObservation(req);
+    }
+
+    @Test
+    public void shouldFetchObservationsWithParametersInOneQuery() throws OwsExceptionReport {
+        GetObservationByIdRequest request = new GetObservationByIdRequest();
+        request.setObservationIdentifier(Arrays.asList(OBSERVATION1, OBSERVATION2));
+        Session session = null;
+        try {
+            session = getSession();
+            Statistics statistics = session.getSessionFactory().getStatistics();
+            boolean enabled = statistics.isStatisticsEnabled();
+            statistics.setStatisticsEnabled(true);
+            statistics.clear();
+            try {
+                List<DataEntity<?>> observations = getObservationByIdDAO.queryObservation(request, session);
+                // the parameter join must not duplicate the observations
+                assertThat(observations, hasSize(2));
+                for (DataEntity<?> observation : observations) {
+                    assertThat(Hibernate.isInitialized(observation.getParameters()), is(true));
+                    assertThat(observation.getParameters(), hasSize(5));
+                    assertThat(Hibernate.isInitialized(observation.getDataset()), is(true));
+                    assertThat(Hibernate.isInitialized(observation.getDataset().getProcedure()), is(true));
+                    assertThat(Hibernate.isInitialized(observation.getDataset().getFeature()), is(true));
+                }
+                assertThat(statistics.getPrepareStatementCount(), is(1L));
+            } finally {
+                statistics.setStatisticsEnabled(enabled);
+            }
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Override
+    protected void assertInsertionAftermath(boolean afterCacheUpdate) throws OwsExceptionReport {
+        // not used, the observations are inserted in the set up
+    }
+
+    private OmObservation createObservation(String identifier, DateTime time)
+            throws OwsExceptionReport, ConverterException {
+        OmObservation obs = new OmObservation();
+        Session session = null;
+        try {
+            session = getSession();
+            obs.setObservationConstellation(getOmObsConst(PROCEDURE3, OBSPROP3, TEMP_UNIT, OFFERING3, FEATURE3,
+                    OmConstants.OBS_TYPE_MEASUREMENT, session));
+        } finally {
+            returnSession(session);
+        }
+        obs.setIdentifier(identifier);
+        obs.setResultTime(new TimeInstant(time));
+        SingleObservationValue<BigDecimal> obsVal = new SingleObservationValue<>();
+        obsVal.setPhenomenonTime(new TimeInstant(time));
+        obsVal.setValue(new QuantityValue(OBS_VAL, TEMP_UNIT));
+        obs.setValue(obsVal);
+        addParameter(obs);
+        return obs;
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.series;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.hibernate.Session;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.iceland.convert.ConverterException;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.shetland.ogc.gml.time.Time;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.gml.time.TimePeriod;
+import org.n52.shetland.ogc.om.OmConstants;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.SingleObservationValue;
+import org.n52.shetland.ogc.om.values.QuantityValue;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.request.InsertObservationRequest;
+import org.n52.sos.ds.hibernate.AbstractInsertDAOTest;
+import org.n52.sos.ds.hibernate.dao.observation.series.DatasetLatestValueStore.LatestValue;
+import org.n52.svalbard.encode.exception.EncodingException;
+
+import com.google.common.collect.Lists;
+
+public class DatasetLatestValueStoreRebuildTest extends AbstractInsertDAOTest {
+
+    @Before
+    public void setUp() throws OwsExceptionReport, ConverterException, EncodingException {
+        super.setUp();
+        insertSensor(PROCEDURE1, OFFERING1, OBSPROP1, null, OmConstants.OBS_TYPE_MEASUREMENT);
+        insertSensor(PROCEDURE2, OFFERING2, OBSPROP2, null, OmConstants.OBS_TYPE_MEASUREMENT);
+        insertObservations(PROCEDURE1, OFFERING1,
+                createMeasurement(PROCEDURE1, OBSPROP1, OFFERING1, new TimeInstant(TIME1), VAL1),
+                createMeasurement(PROCEDURE1, OBSPROP1, OFFERING1, new TimePeriod(TIME2, TIME3), VAL2));
+        OmObservation withParameter =
+                createMeasurement(PROCEDURE2, OBSPROP2, OFFERING2, new TimeInstant(OBS_TIME), VAL3);
+        addParameter(withParameter);
+        insertObservations(PROCEDURE2, OFFERING2, withParameter);
+    }
+
+    @Test
+    public void shouldRebuildSameEntriesAsGetObservation() {
+        DatasetLatestValueStore store = daoFactory.getLatestValueStore();
+        store.clear();
+        Session session = null;
+        try {
+            session = getSession();
+            store.initialize(session);
+            List<DatasetEntity> datasets = getDatasetsWithValues(session);
+            assertThat(datasets, hasSize(2));
+            for (DatasetEntity dataset : datasets) {
+                LatestValue expected = LatestValue.of(dataset, dataset.getLastObservation());
+                Optional<LatestValue> actual = store.get(dataset);
+                if (expected == null) {
+                    assertThat(actual.isPresent(), is(false));
+                } else {
+                    assertThat(actual.isPresent(), is(true));
+                    assertSameLatestValue(actual.get(), expected);
+                }
+            }
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void shouldKeepPhenomenonPeriodAndResultTime() {
+        DatasetLatestValueStore store = daoFactory.getLatestValueStore();
+        store.clear();
+        Session session = null;
+        try {
+            session = getSession();
+            store.initialize(session);
+            DatasetEntity dataset = getDataset(PROCEDURE1, OBSPROP1, session);
+            LatestValue value = store.get(dataset).get();
+            assertThat(value.isPhenomenonTimePeriod(), is(true));
+            assertThat(value.getPhenomenonTimeStart(), is(TIME2.toDate()));
+            assertThat(value.getPhenomenonTime(), is(TIME3.toDate()));
+            assertThat(value.getResultTime(), is(TIME3.toDate()));
+            assertThat(((QuantityValue) value.createValue()).getValue().doubleValue(), is(VAL2));
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void shouldNotRebuildObservationsWithParameters() {
+        DatasetLatestValueStore store = daoFactory.getLatestValueStore();
+        store.clear();
+        Session session = null;
+        try {
+            session = getSession();
+            store.initialize(session);
+            assertThat(store.get(getDataset(PROCEDURE2, OBSPROP2, session)).isPresent(), is(false));
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void shouldBuildStoreAtStartup() {
+        DatasetLatestValueStore store = daoFactory.getLatestValueStore();
+        store.clear();
+        DatasetLatestValueStoreInitializer initializer = new DatasetLatestValueStoreInitializer();
+        initializer.setConnectionProvider(this);
+        initializer.setDaoFactory(daoFactory);
+        initializer.init();
+        assertThat(store.isInitialized(), is(true));
+        Session session = null;
+        try {
+            session = getSession();
+            assertThat(store.get(getDataset(PROCEDURE1, OBSPROP1, session)).isPresent(), is(true));
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Override
+    protected void assertInsertionAftermath(boolean afterCacheUpdate) throws OwsExceptionReport {
+        // not used, the observations are inserted in the set up
+    }
+
+    private void assertSameLatestValue(LatestValue actual, LatestValue expected) {
+        assertThat(actual.getPhenomenonTimeStart(), is(expected.getPhenomenonTimeStart()));
+        assertThat(actual.getPhenomenonTime(), is(expected.getPhenomenonTime()));
+        assertThat(actual.getResultTime(), is(expected.getResultTime()));
+        assertThat(actual.getUnit(), is(expected.getUnit()));
+        assertThat(actual.createValue().getValue(), is(expected.createValue().getValue()));
+    }
+
+    private List<DatasetEntity> getDatasetsWithValues(Session session) {
+        List<DatasetEntity> datasets = Lists.newArrayList(getDataset(PROCEDURE1, OBSPROP1, session),
+                getDataset(PROCEDURE2, OBSPROP2, session));
+        return datasets.stream().filter(DatasetEntity::isSetLastValueAt).collect(Collectors.toList());
+    }
+
+    private DatasetEntity getDataset(String procedure, String observableProperty, Session session) {
+        List<DatasetEntity> datasets = daoFactory.getSeriesDAO().getSeries(procedure, observableProperty, session)
+                .stream().filter(DatasetEntity::isSetLastValueAt).collect(Collectors.toList());
+        assertThat(datasets, hasSize(1));
+        return datasets.get(0);
+    }
+
+    private void insertObservations(String procedure, String offering, OmObservation... observations)
+            throws OwsExceptionReport {
+        InsertObservationRequest req = new InsertObservationRequest();
+        req.setAssignedSensorId(procedure);
+        req.setOfferings(Lists.newArrayList(offering));
+        req.setObservation(Lists.newArrayList(observations));
+        insertObservationDAO.insertObservation(req);
+    }
+
+    private OmObservation createMeasurement(String procedure, String observableProperty, String offering,
+            Time phenomenonTime, Double value) throws OwsExceptionReport, ConverterException {
+        OmObservation obs = new OmObservation();
+        Session session = null;
+        try {
+            session = getSession();
+            obs.setObservationConstellation(getOmObsConst(procedure, observableProperty, TEMP_UNIT, offering,
+                    FEATURE3, OmConstants.OBS_TYPE_MEASUREMENT, session));
+        } finally {
+            returnSession(session);
+        }
+        DateTime resultTime = phenomenonTime instanceof TimePeriod ? ((TimePeriod) phenomenonTime).getEnd()
+                : ((TimeInstant) phenomenonTime).getValue();
+        obs.setResultTime(new TimeInstant(resultTime));
+        SingleObservationValue<BigDecimal> obsVal = new SingleObservationValue<>();
+        obsVal.setPhenomenonTime(phenomenonTime);
+        obsVal.setValue(new QuantityValue(value, TEMP_UNIT));
+        obs.setValue(obsVal);
+        return obs;
+    }
+
+}
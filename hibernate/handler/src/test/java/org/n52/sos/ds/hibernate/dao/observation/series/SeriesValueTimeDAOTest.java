@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.dao.observation.series;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.hibernate.Session;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.iceland.convert.ConverterException;
+import org.n52.series.db.beans.DataEntity;
+import org.n52.series.db.beans.DatasetEntity;
+import org.n52.shetland.ogc.gml.time.TimeInstant;
+import org.n52.shetland.ogc.om.OmConstants;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.SingleObservationValue;
+import org.n52.shetland.ogc.om.values.QuantityValue;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.request.GetObservationRequest;
+import org.n52.shetland.ogc.sos.request.InsertObservationRequest;
+import org.n52.sos.ds.hibernate.AbstractInsertDAOTest;
+import org.n52.svalbard.encode.exception.EncodingException;
+
+import com.google.common.collect.Lists;
+
+public class SeriesValueTimeDAOTest extends AbstractInsertDAOTest {
+
+    @Before
+    public void setUp() throws OwsExceptionReport, ConverterException, EncodingException {
+        super.setUp();
+        insertSensor(PROCEDURE1, OFFERING1, OBSPROP1, null, OmConstants.OBS_TYPE_MEASUREMENT);
+        insertSensor(PROCEDURE2, OFFERING2, OBSPROP2, null, OmConstants.OBS_TYPE_MEASUREMENT);
+        insertObservations(PROCEDURE1, OFFERING1,
+                createMeasurement(PROCEDURE1, OBSPROP1, OFFERING1, TIME2, VAL2),
+                createMeasurement(PROCEDURE1, OBSPROP1, OFFERING1, TIME1, VAL1));
+        insertObservations(PROCEDURE2, OFFERING2,
+                createMeasurement(PROCEDURE2, OBSPROP2, OFFERING2, TIME3, VAL3),
+                createMeasurement(PROCEDURE2, OBSPROP2, OFFERING2, OBS_TIME, VAL1));
+    }
+
+    @Test
+    public void shouldQueryMinValuesPerSeries() throws OwsExceptionReport {
+        Session session = null;
+        try {
+            session = getSession();
+            long series1 = getDatasetId(PROCEDURE1, OBSPROP1, session);
+            long series2 = getDatasetId(PROCEDURE2, OBSPROP2, session);
+            Map<Long, DataEntity<?>> values = daoFactory.getValueTimeDAO()
+                    .getMinSeriesValuesFor(new GetObservationRequest(), Arrays.asList(series1, series2), null, session);
+            assertThat(values.size(), is(2));
+            assertValue(values.get(series1), TIME1, VAL1);
+            assertValue(values.get(series2), TIME3, VAL3);
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void shouldQueryMaxValuesPerSeries() throws OwsExceptionReport {
+        Session session = null;
+        try {
+            session = getSession();
+            long series1 = getDatasetId(PROCEDURE1, OBSPROP1, session);
+            long series2 = getDatasetId(PROCEDURE2, OBSPROP2, session);
+            Map<Long, DataEntity<?>> values = daoFactory.getValueTimeDAO()
+                    .getMaxSeriesValuesFor(new GetObservationRequest(), Arrays.asList(series1, series2), null, session);
+            assertThat(values.size(), is(2));
+            assertValue(values.get(series1), TIME2, VAL2);
+            assertValue(values.get(series2), OBS_TIME, VAL1);
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void shouldQuerySameValuesForSingleSeries() throws OwsExceptionReport {
+        Session session = null;
+        try {
+            session = getSession();
+            long series = getDatasetId(PROCEDURE2, OBSPROP2, session);
+            AbstractSeriesValueTimeDAO dao = daoFactory.getValueTimeDAO();
+            GetObservationRequest request = new GetObservationRequest();
+            assertValue(dao.getMinSeriesValueFor(request, series, session), TIME3, VAL3);
+            assertValue(dao.getMaxSeriesValueFor(request, series, session), OBS_TIME, VAL1);
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void shouldSkipSeriesWithoutValues() throws OwsExceptionReport {
+        Session session = null;
+        try {
+            session = getSession();
+            long series = getDatasetId(PROCEDURE1, OBSPROP1, session);
+            Map<Long, DataEntity<?>> values = daoFactory.getValueTimeDAO()
+                    .getMinSeriesValuesFor(new GetObservationRequest(), Arrays.asList(series, -1L), null, session);
+            assertThat(values.keySet(), contains(series));
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Override
+    protected void assertInsertionAftermath(boolean afterCacheUpdate) throws OwsExceptionReport {
+        // not used, the observations are inserted in the set up
+    }
+
+    private void assertValue(DataEntity<?> value, DateTime time, Double expected) {
+        assertThat(value, is(notNullValue()));
+        assertThat(value.getSamplingTimeStart(), is(time.toDate()));
+        assertThat(((BigDecimal) value.getValue()).doubleValue(), is(expected));
+    }
+
+    private long getDatasetId(String procedure, String observableProperty, Session session) {
+        List<DatasetEntity> datasets = daoFactory.getSeriesDAO().getSeries(procedure, observableProperty, session)
+                .stream().filter(DatasetEntity::isSetLastValueAt).collect(Collectors.toList());
+        assertThat(datasets, hasSize(1));
+        return datasets.get(0).getId();
+    }
+
+    private void insertObservations(String procedure, String offering, OmObservation... observations)
+            throws OwsExceptionReport {
+        InsertObservationRequest req = new InsertObservationRequest();
+        req.setAssignedSensorId(procedure);
+        req.setOfferings(Lists.newArrayList(offering));
+        req.setObservation(Lists.newArrayList(observations));
+        insertObservationDAO.insertObservation(req);
+    }
+
+    private OmObservation createMeasurement(String procedure, String observableProperty, String offering,
+            DateTime time, Double value) throws OwsExceptionReport, ConverterException {
+        OmObservation obs = new OmObservation();
+        Session session = null;
+        try {
+            session = getSession();
+            obs.setObservationConstellation(getOmObsConst(procedure, observableProperty, TEMP_UNIT, offering,
+                    FEATURE3, OmConstants.OBS_TYPE_MEASUREMENT, session));
+        } finally {
+            returnSession(session);
+        }
+        obs.setResultTime(new TimeInstant(time));
+        SingleObservationValue<BigDecimal> obsVal = new SingleObservationValue<>();
+        obsVal.setPhenomenonTime(new TimeInstant(time));
+        obsVal.setValue(new QuantityValue(value, TEMP_UNIT));
+        obs.setValue(obsVal);
+        return obs;
+    }
+
+}
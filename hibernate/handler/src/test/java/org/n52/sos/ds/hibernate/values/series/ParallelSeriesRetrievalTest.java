@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.values.series;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.sos.ds.hibernate.values.series.HibernateChunkSeriesStreamingValue.Chunk;
+
+public class ParallelSeriesRetrievalTest {
+
+    private static final int SESSIONS = 10;
+
+    private final LinkedList<Runnable> tasks = new LinkedList<>();
+
+    private final List<Chunk> chunks = new ArrayList<>();
+
+    private ScheduledExecutorService executor;
+
+    private Semaphore sessions;
+
+    @Before
+    public void setUp() {
+        executor = mock(ScheduledExecutorService.class);
+        doAnswer(invocation -> tasks.add(invocation.getArgument(0))).when(executor).execute(any(Runnable.class));
+        sessions = new Semaphore(SESSIONS);
+    }
+
+    @Test
+    public void shouldFetchBatchesWithinWindowInOrder() throws OwsExceptionReport {
+        List<HibernateChunkSeriesStreamingValue> values = createValues(6);
+        ParallelSeriesRetrieval.Request request = start(values, 2, 2, 60000);
+        assertThat(tasks.size(), is(2));
+        runTasks();
+
+        InOrder order = inOrder(values.get(0), values.get(1));
+        order.verify(values.get(0)).queryFirstChunk();
+        order.verify(values.get(1)).queryFirstChunk();
+        verify(values.get(4), never()).queryFirstChunk();
+
+        assertThat(request.await(0), is(sameInstance(chunks.get(0))));
+        assertThat(tasks.size(), is(0));
+        assertThat(request.await(2), is(sameInstance(chunks.get(2))));
+        assertThat(tasks.size(), is(1));
+        runTasks();
+        assertThat(request.await(1), is(sameInstance(chunks.get(1))));
+        assertThat(request.await(4), is(sameInstance(chunks.get(4))));
+        assertThat(sessions.availablePermits(), is(SESSIONS - 2));
+    }
+
+    @Test
+    public void shouldReturnSessionsOfUnconsumedChunksOnClose() throws OwsExceptionReport {
+        List<HibernateChunkSeriesStreamingValue> values = createValues(4);
+        ParallelSeriesRetrieval.Request request = start(values, 2, 2, 60000);
+        runTasks();
+        Chunk consumed = request.await(0);
+
+        request.close();
+        verify(values.get(0), never()).returnChunk(any(Chunk.class));
+        for (int i = 1; i < values.size(); i++) {
+            verify(values.get(i)).returnChunk(chunks.get(i));
+        }
+        assertThat(sessions.availablePermits(), is(SESSIONS));
+        assertThat(request.await(1), is(nullValue()));
+        assertThat(consumed, is(sameInstance(chunks.get(0))));
+    }
+
+    @Test
+    public void shouldReturnSessionsOnFailure() throws OwsExceptionReport {
+        List<HibernateChunkSeriesStreamingValue> values = createValues(4);
+        when(values.get(1).queryFirstChunk()).thenThrow(new NoApplicableCodeException());
+        ParallelSeriesRetrieval.Request request = start(values, 2, 2, 60000);
+        runTasks();
+        request.await(0);
+        try {
+            request.await(1);
+            fail("Failure of the retrieval was not reported");
+        } catch (OwsExceptionReport e) {
+            verify(values.get(2)).returnChunk(chunks.get(2));
+            verify(values.get(3)).returnChunk(chunks.get(3));
+            assertThat(sessions.availablePermits(), is(SESSIONS));
+        }
+    }
+
+    @Test
+    public void shouldQueryOnDemandWithoutFreeSession() throws OwsExceptionReport {
+        sessions = new Semaphore(1);
+        List<HibernateChunkSeriesStreamingValue> values = createValues(3);
+        ParallelSeriesRetrieval.Request request = start(values, 3, 1, 60000);
+        runTasks();
+
+        verify(values.get(1), never()).queryFirstChunk();
+        verify(values.get(2), never()).queryFirstChunk();
+        assertThat(request.await(0), is(sameInstance(chunks.get(0))));
+        assertThat(request.await(1), is(nullValue()));
+        assertThat(sessions.availablePermits(), is(1));
+    }
+
+    @Test
+    public void shouldReturnSessionsAfterHoldTimeout() throws OwsExceptionReport {
+        List<HibernateChunkSeriesStreamingValue> values = createValues(2);
+        ParallelSeriesRetrieval.Request request = start(values, 1, 1, 0);
+        verify(executor).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        runTasks();
+
+        request.expire();
+        verify(values.get(0)).returnChunk(chunks.get(0));
+        runTasks();
+        verify(values.get(1), never()).queryFirstChunk();
+        assertThat(request.await(1), is(nullValue()));
+        assertThat(sessions.availablePermits(), is(SESSIONS));
+    }
+
+    private ParallelSeriesRetrieval.Request start(List<HibernateChunkSeriesStreamingValue> values, int batchSize,
+            int window, long holdTimeout) {
+        ParallelSeriesRetrieval.Request request =
+                new ParallelSeriesRetrieval.Request(executor, sessions, values, batchSize, window, holdTimeout);
+        request.start();
+        return request;
+    }
+
+    private List<HibernateChunkSeriesStreamingValue> createValues(int size) throws OwsExceptionReport {
+        List<HibernateChunkSeriesStreamingValue> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            HibernateChunkSeriesStreamingValue value = mock(HibernateChunkSeriesStreamingValue.class);
+            Chunk chunk = new Chunk(mock(Session.class), Collections.emptyList());
+            when(value.queryFirstChunk()).thenReturn(chunk);
+            values.add(value);
+            chunks.add(chunk);
+        }
+        return values;
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+
+}
@@ -55,7 +55,9 @@ import org.n52.sos.ds.HibernateDatasourceConstants;
 //import org.n52.sos.ds.hibernate.type.IsoTimeStringType;
 //import org.n52.sos.ds.hibernate.type.UtcTimestampType;
 //import org.n52.sos.ds.hibernate.util.HibernateConstants;
+import org.n52.sos.ds.hibernate.monitor.SessionMonitor;
 import org.n52.sos.ds.hibernate.util.HibernateMetadataCache;
+import org.n52.sos.ds.hibernate.util.ReferenceEntityCache;
 import org.n52.sos.service.DriverCleanupListener;
 
 public abstract class UnspecifiedSessionFactoryProvider
@@ -70,6 +72,8 @@ public abstract class UnspecifiedSessionFactoryProvider
     private static Configuration configuration;
     private DriverCleanupListener driverCleanupListener;
     private DatabaseSettingsHandler databaseSettingsHandler;
+    private SessionMonitor sessionMonitor;
+    private CacheMode cacheMode = CacheMode.IGNORE;
 
     @Inject
     public void setDriverCleanupListener(DriverCleanupListener driverCleanupListener) {
@@ -81,6 +85,11 @@ public abstract class UnspecifiedSessionFactoryProvider
         this.databaseSettingsHandler = databaseSettingsHandler;
     }
 
+    @Inject
+    public void setSessionMonitor(SessionMonitor sessionMonitor) {
+        this.sessionMonitor = sessionMonitor;
+    }
+
     protected Configuration getConfiguration() {
         return configuration;
     }
@@ -99,8 +108,11 @@ public abstract class UnspecifiedSessionFactoryProvider
                 return null;
             }
             Session session = sessionFactory.openSession();
-            session.setCacheMode(CacheMode.IGNORE);
+            session.setCacheMode(cacheMode);
             session.setHibernateFlushMode(FlushMode.COMMIT);
+            if (sessionMonitor != null) {
+                sessionMonitor.register(session);
+            }
             return session;
         } catch (HibernateException he) {
             String exceptionText = "Error while getting connection!";
@@ -162,6 +174,13 @@ public abstract class UnspecifiedSessionFactoryProvider
             LOGGER.debug("Instantiating configuration and session factory");
             configuration = getConfiguration(properties);
             configuration.mergeProperties(properties);
+            if (ReferenceEntityCache.isEnabled(properties)) {
+                LOGGER.debug("Activating the second-level cache for reference entities");
+                ReferenceEntityCache.configure(configuration);
+                cacheMode = CacheMode.NORMAL;
+            } else {
+                cacheMode = CacheMode.IGNORE;
+            }
 
             /*
              * set timestamp mapping to a special type to ensure time is always
@@ -171,6 +190,9 @@ public abstract class UnspecifiedSessionFactoryProvider
             ServiceRegistry serviceRegistry =
                     new StandardServiceRegistryBuilder().applySettings(configuration.getProperties()).build();
             UnspecifiedSessionFactoryProvider.sessionFactory = configuration.buildSessionFactory(serviceRegistry);
+            if (sessionMonitor != null) {
+                sessionMonitor.setSessionFactory(UnspecifiedSessionFactoryProvider.sessionFactory, getMaxConnections());
+            }
             Session s = UnspecifiedSessionFactoryProvider.sessionFactory.openSession();
             try {
                 HibernateMetadataCache.init(s);
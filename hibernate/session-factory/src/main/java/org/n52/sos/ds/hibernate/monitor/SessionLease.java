@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.monitor;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+
+/**
+ * Tracks a single {@link Session} handed out by the session factory provider
+ * from its creation until it is closed.
+ *
+ * @since 5.3.2
+ */
+class SessionLease extends BaseSessionEventListener {
+
+    static final String UNKNOWN_ACQUIRER = "unknown";
+
+    private static final long serialVersionUID = 4466395669932735818L;
+
+    private static final List<String> SKIPPED_FRAMES = Arrays.asList(SessionLease.class.getPackage().getName() + ".",
+            "org.n52.sos.ds.hibernate.SessionFactoryProvider",
+            "org.n52.sos.ds.hibernate.UnspecifiedSessionFactoryProvider",
+            "org.n52.sos.ds.hibernate.HibernateSessionHolder",
+            "org.n52.sos.ds.cache.ThreadLocalSessionFactory",
+            "org.n52.series.db.",
+            "java.",
+            "sun.");
+
+    private final transient SessionMonitor monitor;
+
+    private final long acquiredAt = System.currentTimeMillis();
+
+    private final String thread = Thread.currentThread().getName();
+
+    private final StackTraceElement[] stack;
+
+    private final String acquirer;
+
+    private final AtomicLong statements = new AtomicLong();
+
+    private volatile long connectionAcquisitionStart;
+
+    SessionLease(SessionMonitor monitor, boolean captureStack) {
+        this.monitor = monitor;
+        this.stack = captureStack ? new Throwable().getStackTrace() : null;
+        this.acquirer = stack != null ? findAcquirer(stack) : UNKNOWN_ACQUIRER;
+    }
+
+    private static String findAcquirer(StackTraceElement[] stack) {
+        return Arrays.stream(stack)
+                .filter(e -> SKIPPED_FRAMES.stream().noneMatch(e.getClassName()::startsWith))
+                .findFirst()
+                .map(e -> e.getClassName().substring(e.getClassName().lastIndexOf('.') + 1) + "#"
+                        + e.getMethodName())
+                .orElse(UNKNOWN_ACQUIRER);
+    }
+
+    String getAcquirer() {
+        return acquirer;
+    }
+
+    long getStatements() {
+        return statements.get();
+    }
+
+    long getHeldMillis() {
+        return System.currentTimeMillis() - acquiredAt;
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        connectionAcquisitionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        if (connectionAcquisitionStart > 0) {
+            monitor.recordCheckout(System.nanoTime() - connectionAcquisitionStart);
+            connectionAcquisitionStart = 0;
+        }
+    }
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        statements.incrementAndGet();
+    }
+
+    @Override
+    public void end() {
+        monitor.release(this);
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("acquirer", acquirer);
+        map.put("thread", thread);
+        map.put("heldSeconds", TimeUnit.MILLISECONDS.toSeconds(getHeldMillis()));
+        map.put("statements", statements.get());
+        if (stack != null) {
+            map.put("stack", Arrays.stream(stack).map(StackTraceElement::toString).collect(Collectors.toList()));
+        }
+        return map;
+    }
+
+    String getStackAsString() {
+        if (stack == null) {
+            return "";
+        }
+        return Arrays.stream(stack).map(e -> "\tat " + e).collect(Collectors.joining("\n"));
+    }
+}
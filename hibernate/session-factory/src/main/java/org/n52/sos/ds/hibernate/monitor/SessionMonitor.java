@@ -0,0 +1,380 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.monitor;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.n52.faroe.annotation.Configurable;
+import org.n52.faroe.annotation.Setting;
+import org.n52.sos.ds.DatasourceMonitor;
+import org.n52.sos.ds.hibernate.util.ReferenceEntityCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects connection pool and session statistics of the Hibernate session
+ * factory: the connection checkout latency, the c3p0 pool gauges, the number
+ * of prepared JDBC statements and the sessions that are held longer than a
+ * threshold.
+ *
+ * The c3p0 pool gauges are read from the MBeans c3p0 registers, so c3p0 is
+ * not required on the class path. As the SOS creates a single pool, the
+ * gauges of all c3p0 pools of the JVM are summed up.
+ *
+ * If the detailed monitoring is enabled, the stack of the acquirer of each
+ * session is captured to attribute the statements to the acquiring method
+ * and to report where long held sessions were opened. Hibernate's
+ * {@link Statistics} are enabled as well in this case.
+ *
+ * If the {@link ReferenceEntityCache} is active, the hit, miss and put counts
+ * of its regions are reported. Hibernate's statistics stay enabled for them
+ * regardless of the detailed monitoring. Further caches of the data source,
+ * like query plan caches, can be registered to report their statistics next
+ * to the regions.
+ *
+ * @since 5.3.2
+ */
+@Configurable
+public class SessionMonitor implements DatasourceMonitor {
+
+    public static final String DETAILED_MONITORING = "misc.datasource.monitoring.detailed";
+
+    public static final String LONG_HELD_SESSION_THRESHOLD = "misc.datasource.monitoring.longHeldSessionThreshold";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionMonitor.class);
+
+    private static final int MAX_REPORTED_ACQUIRERS = 50;
+
+    private static final String C3P0_PACKAGE = "com.mchange.v2.c3p0.";
+
+    private static final String C3P0_POOL_QUERY = "com.mchange.v2.c3p0:type=PooledDataSource,*";
+
+    private static final String[][] C3P0_POOL_ATTRIBUTES = { { "connections", "numConnectionsDefaultUser" },
+            { "active", "numBusyConnectionsDefaultUser" }, { "idle", "numIdleConnectionsDefaultUser" },
+            { "waiting", "numThreadsAwaitingCheckoutDefaultUser" },
+            { "unclosedOrphaned", "numUnclosedOrphanedConnectionsDefaultUser" } };
+
+    private final Set<SessionLease> activeSessions = ConcurrentHashMap.newKeySet();
+
+    private final LatencyHistogram checkoutLatency = new LatencyHistogram();
+
+    private final LongAdder openedSessions = new LongAdder();
+
+    private final LongAdder longHeldSessions = new LongAdder();
+
+    private final LongAccumulator maxActiveSessions = new LongAccumulator(Math::max, 0);
+
+    private final Map<String, AcquirerStatistics> acquirerStatistics = new ConcurrentHashMap<>();
+
+    private final Map<String, DatasourceMonitor> caches = new ConcurrentHashMap<>();
+
+    private volatile SessionFactory sessionFactory;
+
+    private volatile int maxConnections = -1;
+
+    private volatile boolean detailed;
+
+    private volatile long longHeldSessionThreshold = TimeUnit.SECONDS.toMillis(60);
+
+    @Setting(DETAILED_MONITORING)
+    public void setDetailed(boolean detailed) {
+        this.detailed = detailed;
+        updateStatisticsEnabled(this.sessionFactory);
+    }
+
+    @Setting(LONG_HELD_SESSION_THRESHOLD)
+    public void setLongHeldSessionThreshold(int seconds) {
+        this.longHeldSessionThreshold = TimeUnit.SECONDS.toMillis(seconds);
+    }
+
+    /**
+     * Set the monitored session factory after it is created.
+     *
+     * @param sessionFactory
+     *            the session factory
+     * @param maxConnections
+     *            the maximum pool size or <code>-1</code> if unknown
+     */
+    public void setSessionFactory(SessionFactory sessionFactory, int maxConnections) {
+        this.sessionFactory = sessionFactory;
+        this.maxConnections = maxConnections;
+        updateStatisticsEnabled(sessionFactory);
+    }
+
+    /**
+     * Start tracking a session that was opened by the session factory
+     * provider. The session is tracked until it is closed.
+     *
+     * @param session
+     *            the opened session
+     */
+    public void register(Session session) {
+        SessionLease lease = new SessionLease(this, detailed);
+        session.addEventListeners(lease);
+        activeSessions.add(lease);
+        openedSessions.increment();
+        maxActiveSessions.accumulate(activeSessions.size());
+    }
+
+    /**
+     * Register a cache whose statistics are reported in the cache statistics.
+     *
+     * @param name
+     *            the name to report the statistics under
+     * @param cache
+     *            the statistics of the cache
+     */
+    public void registerCache(String name, DatasourceMonitor cache) {
+        caches.put(name, cache);
+    }
+
+    void recordCheckout(long nanos) {
+        checkoutLatency.record(nanos);
+    }
+
+    void release(SessionLease lease) {
+        if (!activeSessions.remove(lease)) {
+            return;
+        }
+        if (detailed) {
+            acquirerStatistics.computeIfAbsent(lease.getAcquirer(), k -> new AcquirerStatistics()).add(lease);
+        }
+        long threshold = longHeldSessionThreshold;
+        long held = lease.getHeldMillis();
+        if (threshold > 0 && held > threshold) {
+            longHeldSessions.increment();
+            if (detailed) {
+                LOGGER.warn("Session acquired by {} was held for {} ms and prepared {} statements, acquired at\n{}",
+                        lease.getAcquirer(), held, lease.getStatements(), lease.getStackAsString());
+            } else {
+                LOGGER.warn("Session was held for {} ms and prepared {} statements", held,
+                        lease.getStatements());
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("pool", getPoolStatistics());
+        statistics.put("checkout", checkoutLatency.toMap());
+        statistics.put("sessions", getSessionStatistics());
+        SessionFactory factory = this.sessionFactory;
+        if (isCacheEnabled(factory) || !caches.isEmpty()) {
+            statistics.put("cache", getCacheStatistics(factory));
+        }
+        if (detailed) {
+            statistics.put("acquirers", getAcquirerStatistics());
+            if (factory != null) {
+                statistics.put("hibernate", getHibernateStatistics(factory.getStatistics()));
+            }
+        }
+        return statistics;
+    }
+
+    @Override
+    public void resetStatistics() {
+        checkoutLatency.reset();
+        openedSessions.reset();
+        longHeldSessions.reset();
+        maxActiveSessions.reset();
+        acquirerStatistics.clear();
+        caches.values().forEach(DatasourceMonitor::resetStatistics);
+        SessionFactory factory = this.sessionFactory;
+        if (factory != null) {
+            factory.getStatistics().clear();
+        }
+    }
+
+    private void updateStatisticsEnabled(SessionFactory factory) {
+        if (factory != null) {
+            factory.getStatistics().setStatisticsEnabled(detailed || isCacheEnabled(factory));
+        }
+    }
+
+    private static boolean isCacheEnabled(SessionFactory factory) {
+        return factory != null && factory.getSessionFactoryOptions().isSecondLevelCacheEnabled();
+    }
+
+    private Map<String, Object> getCacheStatistics(SessionFactory factory) {
+        Map<String, Object> cache = new LinkedHashMap<>();
+        caches.forEach((name, statistics) -> cache.put(name, statistics.getStatistics()));
+        if (!isCacheEnabled(factory)) {
+            return cache;
+        }
+        for (Map.Entry<String, CacheRegionStatistics> region : ReferenceEntityCache.getStatistics(factory)
+                .entrySet()) {
+            CacheRegionStatistics regionStatistics = region.getValue();
+            Map<String, Object> map = new LinkedHashMap<>();
+            long hits = regionStatistics.getHitCount();
+            long misses = regionStatistics.getMissCount();
+            map.put("hits", hits);
+            map.put("misses", misses);
+            map.put("puts", regionStatistics.getPutCount());
+            map.put("hitRatio", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+            cache.put(region.getKey(), map);
+        }
+        return cache;
+    }
+
+    private Map<String, Object> getPoolStatistics() {
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("maxSize", maxConnections);
+        SessionFactory factory = this.sessionFactory;
+        if (factory instanceof SessionFactoryImplementor) {
+            ConnectionProvider provider = ((SessionFactoryImplementor) factory).getServiceRegistry()
+                    .getService(ConnectionProvider.class);
+            if (provider != null && provider.isUnwrappableAs(DataSource.class)
+                    && provider.unwrap(DataSource.class).getClass().getName().startsWith(C3P0_PACKAGE)) {
+                pool.putAll(getC3p0PoolStatistics(ManagementFactory.getPlatformMBeanServer()));
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Sum up the gauges of the c3p0 pool MBeans.
+     *
+     * @param server
+     *            the MBean server c3p0 registered its pools at
+     * @return the gauges, empty if no pool is registered
+     */
+    static Map<String, Object> getC3p0PoolStatistics(MBeanServer server) {
+        Map<String, Object> pool = new LinkedHashMap<>();
+        try {
+            Set<ObjectName> names = server.queryNames(new ObjectName(C3P0_POOL_QUERY), null);
+            if (names.isEmpty()) {
+                return pool;
+            }
+            for (String[] attribute : C3P0_POOL_ATTRIBUTES) {
+                long sum = 0;
+                for (ObjectName name : names) {
+                    sum += ((Number) server.getAttribute(name, attribute[1])).longValue();
+                }
+                pool.put(attribute[0], sum);
+            }
+        } catch (JMException | RuntimeException e) {
+            LOGGER.debug("Error while querying the connection pool statistics", e);
+            pool.clear();
+        }
+        return pool;
+    }
+
+    private Map<String, Object> getSessionStatistics() {
+        Map<String, Object> sessions = new LinkedHashMap<>();
+        long threshold = longHeldSessionThreshold;
+        sessions.put("open", activeSessions.size());
+        sessions.put("maxOpen", maxActiveSessions.get());
+        sessions.put("opened", openedSessions.sum());
+        sessions.put("longHeldThresholdSeconds", TimeUnit.MILLISECONDS.toSeconds(threshold));
+        sessions.put("closedAfterThreshold", longHeldSessions.sum());
+        if (threshold > 0) {
+            List<Map<String, Object>> longHeld = activeSessions.stream()
+                    .filter(lease -> lease.getHeldMillis() > threshold)
+                    .sorted(Comparator.comparingLong(SessionLease::getHeldMillis).reversed())
+                    .map(SessionLease::toMap)
+                    .collect(Collectors.toList());
+            sessions.put("longHeld", longHeld);
+        }
+        return sessions;
+    }
+
+    private Map<String, Object> getAcquirerStatistics() {
+        Map<String, Object> acquirers = new LinkedHashMap<>();
+        acquirerStatistics.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().statements.sum(), a.getValue().statements.sum()))
+                .limit(MAX_REPORTED_ACQUIRERS)
+                .forEach(e -> acquirers.put(e.getKey(), e.getValue().toMap()));
+        return acquirers;
+    }
+
+    private Map<String, Object> getHibernateStatistics(Statistics statistics) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("connections", statistics.getConnectCount());
+        map.put("preparedStatements", statistics.getPrepareStatementCount());
+        map.put("transactions", statistics.getTransactionCount());
+        map.put("queries", statistics.getQueryExecutionCount());
+        map.put("queryExecutionMaxTimeMillis", statistics.getQueryExecutionMaxTime());
+        map.put("slowestQuery", statistics.getQueryExecutionMaxTimeQueryString());
+        map.put("entityLoads", statistics.getEntityLoadCount());
+        map.put("collectionLoads", statistics.getCollectionLoadCount());
+        return map;
+    }
+
+    /**
+     * Accumulated statistics of the closed sessions of a single acquirer.
+     */
+    private static final class AcquirerStatistics {
+
+        private final LongAdder sessions = new LongAdder();
+
+        private final LongAdder statements = new LongAdder();
+
+        private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+
+        private final LongAccumulator maxHeldMillis = new LongAccumulator(Math::max, 0);
+
+        void add(SessionLease lease) {
+            sessions.increment();
+            statements.add(lease.getStatements());
+            maxStatements.accumulate(lease.getStatements());
+            maxHeldMillis.accumulate(lease.getHeldMillis());
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("sessions", sessions.sum());
+            map.put("statements", statements.sum());
+            map.put("maxStatements", maxStatements.get());
+            map.put("maxHeldMillis", maxHeldMillis.get());
+            return map;
+        }
+    }
+}
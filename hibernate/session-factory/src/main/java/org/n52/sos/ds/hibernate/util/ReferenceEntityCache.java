@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+
+import org.hibernate.Criteria;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.n52.series.db.beans.CategoryEntity;
+import org.n52.series.db.beans.CodespaceEntity;
+import org.n52.series.db.beans.FormatEntity;
+import org.n52.series.db.beans.OfferingEntity;
+import org.n52.series.db.beans.PhenomenonEntity;
+import org.n52.series.db.beans.ProcedureEntity;
+import org.n52.series.db.beans.UnitEntity;
+import org.n52.sos.ds.HibernateDatasourceConstants;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+
+/**
+ * In-process second-level cache for the reference entities (phenomena, units, formats, codespaces, categories,
+ * offerings and procedures) that are resolved by identifier in nearly every request. Each entity type gets its own
+ * region and the identifier lookups share one query cache region. The regions are held by Caffeine through the
+ * JCache region factory, so no external cache service is required.
+ *
+ * @since 5.3.2
+ */
+public final class ReferenceEntityCache {
+
+    public static final String REGION_PREFIX = "sos.reference.";
+
+    public static final String IDENTIFIER_QUERY_REGION = REGION_PREFIX + "identifier";
+
+    private static final String JCACHE_REGION_FACTORY = "jcache";
+
+    private static final String JCACHE_PROVIDER = "hibernate.javax.cache.provider";
+
+    private static final String JCACHE_MISSING_CACHE_STRATEGY = "hibernate.javax.cache.missing_cache_strategy";
+
+    private static final String CAFFEINE_CACHING_PROVIDER =
+            "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider";
+
+    private static final String READ_WRITE = "read-write";
+
+    private static final Map<Class<?>, String> ENTITY_REGIONS = ImmutableMap.<Class<?>, String> builder()
+            .put(PhenomenonEntity.class, REGION_PREFIX + "phenomenon")
+            .put(UnitEntity.class, REGION_PREFIX + "unit")
+            .put(FormatEntity.class, REGION_PREFIX + "format")
+            .put(CodespaceEntity.class, REGION_PREFIX + "codespace")
+            .put(CategoryEntity.class, REGION_PREFIX + "category")
+            .put(OfferingEntity.class, REGION_PREFIX + "offering")
+            .put(ProcedureEntity.class, REGION_PREFIX + "procedure")
+            .build();
+
+    private ReferenceEntityCache() {
+    }
+
+    /**
+     * @param properties
+     *            the datasource properties
+     * @return <code>true</code> if the reference entity cache is activated
+     */
+    public static boolean isEnabled(Properties properties) {
+        return properties != null
+                && Boolean.parseBoolean(properties.getProperty(HibernateDatasourceConstants.REFERENCE_CACHE_KEY));
+    }
+
+    /**
+     * Activates the second-level and query cache and assigns the reference entities to their regions. The
+     * statistics are generated only with the cache, they provide the hit and miss counts per region.
+     *
+     * @param configuration
+     *            the configuration to modify before the session factory is built
+     */
+    public static void configure(Configuration configuration) {
+        configuration.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, Boolean.TRUE.toString());
+        configuration.setProperty(AvailableSettings.USE_QUERY_CACHE, Boolean.TRUE.toString());
+        configuration.setProperty(AvailableSettings.CACHE_REGION_FACTORY, JCACHE_REGION_FACTORY);
+        configuration.setProperty(JCACHE_PROVIDER, CAFFEINE_CACHING_PROVIDER);
+        configuration.setProperty(JCACHE_MISSING_CACHE_STRATEGY, "create");
+        configuration.setProperty(AvailableSettings.GENERATE_STATISTICS, Boolean.TRUE.toString());
+        ENTITY_REGIONS.forEach((entity, region) -> configuration.setCacheConcurrencyStrategy(entity.getName(),
+                READ_WRITE, region));
+    }
+
+    /**
+     * Marks an identifier lookup as cacheable. This is a no-op if the query cache is not activated.
+     *
+     * @param criteria
+     *            the identifier lookup
+     * @return the criteria
+     */
+    public static Criteria cacheable(Criteria criteria) {
+        return criteria.setCacheable(true).setCacheRegion(IDENTIFIER_QUERY_REGION);
+    }
+
+    /**
+     * Removes all reference entities and identifier lookups from the cache.
+     *
+     * @param sessionFactory
+     *            the session factory
+     */
+    public static void evict(SessionFactory sessionFactory) {
+        if (sessionFactory != null) {
+            ENTITY_REGIONS.keySet().forEach(sessionFactory.getCache()::evictEntityData);
+            sessionFactory.getCache().evictQueryRegion(IDENTIFIER_QUERY_REGION);
+        }
+    }
+
+    /**
+     * @param sessionFactory
+     *            the session factory
+     * @return the hit, miss and put counts per region, empty if statistics are not activated
+     */
+    public static Map<String, CacheRegionStatistics> getStatistics(SessionFactory sessionFactory) {
+        ImmutableMap.Builder<String, CacheRegionStatistics> builder = ImmutableMap.builder();
+        if (sessionFactory != null && sessionFactory.getStatistics().isStatisticsEnabled()) {
+            Statistics statistics = sessionFactory.getStatistics();
+            for (String region : Iterables.concat(ENTITY_REGIONS.values(),
+                    Collections.singleton(IDENTIFIER_QUERY_REGION))) {
+                CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+                if (regionStatistics != null) {
+                    builder.put(region, regionStatistics);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+}
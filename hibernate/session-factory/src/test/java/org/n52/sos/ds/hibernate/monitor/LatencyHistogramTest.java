@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.monitor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldRecordIntoBucketsByExclusiveUpperBound() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(500));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(4));
+        histogram.record(TimeUnit.SECONDS.toNanos(7));
+
+        Map<String, Long> buckets = getBuckets(histogram);
+        assertThat(buckets.get("<1ms"), is(1L));
+        assertThat(buckets.get("<5ms"), is(2L));
+        assertThat(buckets.get("<10ms"), is(0L));
+        assertThat(buckets.get(">=5000ms"), is(1L));
+        assertThat(histogram.getCount(), is(4L));
+        assertThat(histogram.toMap().get("maxMillis"), is(7000.0));
+    }
+
+    @Test
+    public void shouldEstimatePercentilesByBucketUpperBound() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(70));
+        }
+        histogram.record(TimeUnit.SECONDS.toNanos(6));
+
+        assertThat(histogram.getPercentileMillis(50), is(5.0));
+        assertThat(histogram.getPercentileMillis(90), is(5.0));
+        assertThat(histogram.getPercentileMillis(95), is(100.0));
+        assertThat(histogram.getPercentileMillis(99), is(100.0));
+        assertThat(histogram.getPercentileMillis(100), is(6000.0));
+    }
+
+    @Test
+    public void shouldReturnZeroWithoutValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getPercentileMillis(99), is(0.0));
+        assertThat(histogram.toMap().get("meanMillis"), is(0.0));
+    }
+
+    @Test
+    public void shouldResetAllBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(20));
+        histogram.reset();
+
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(getBuckets(histogram).get("<50ms"), is(0L));
+        assertThat(histogram.toMap().get("maxMillis"), is(0.0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> getBuckets(LatencyHistogram histogram) {
+        return (Map<String, Long>) histogram.toMap().get("buckets");
+    }
+
+}
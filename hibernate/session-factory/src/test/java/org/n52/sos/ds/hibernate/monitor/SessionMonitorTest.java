@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.ds.hibernate.monitor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.aMapWithSize;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.hibernate.Session;
+import org.hibernate.SessionEventListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.n52.sos.ds.DatasourceMonitor;
+import org.n52.sos.ds.hibernate.util.ReferenceEntityCache;
+
+public class SessionMonitorTest {
+
+    private static final String REGION = ReferenceEntityCache.REGION_PREFIX + "unit";
+
+    @Test
+    public void shouldTrackOpenAndClosedSessions() {
+        SessionMonitor monitor = new SessionMonitor();
+        monitor.setSessionFactory(null, 10);
+        SessionEventListener lease = register(monitor);
+
+        assertThat(getSessions(monitor).get("open"), is(1));
+        lease.jdbcConnectionAcquisitionStart();
+        lease.jdbcConnectionAcquisitionEnd();
+        lease.end();
+
+        Map<String, Object> sessions = getSessions(monitor);
+        assertThat(sessions.get("open"), is(0));
+        assertThat(sessions.get("maxOpen"), is(1L));
+        assertThat(sessions.get("opened"), is(1L));
+        assertThat(getMap(monitor.getStatistics(), "checkout").get("count"), is(1L));
+        assertThat(getMap(monitor.getStatistics(), "pool").get("maxSize"), is(10));
+    }
+
+    @Test
+    public void shouldReportAcquirersOnlyIfDetailed() {
+        SessionMonitor monitor = new SessionMonitor();
+        assertThat(monitor.getStatistics(), not(hasKey("acquirers")));
+
+        monitor.setDetailed(true);
+        SessionEventListener lease = register(monitor);
+        lease.jdbcPrepareStatementStart();
+        lease.jdbcPrepareStatementStart();
+        lease.end();
+
+        Map<String, Object> acquirers = getMap(monitor.getStatistics(), "acquirers");
+        assertThat(acquirers, is(aMapWithSize(1)));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> acquirer = (Map<String, Object>) acquirers.values().iterator().next();
+        assertThat(acquirer.get("sessions"), is(1L));
+        assertThat(acquirer.get("statements"), is(2L));
+    }
+
+    @Test
+    public void shouldResetStatistics() {
+        SessionMonitor monitor = new SessionMonitor();
+        monitor.setDetailed(true);
+        SessionEventListener lease = register(monitor);
+        lease.jdbcConnectionAcquisitionStart();
+        lease.jdbcConnectionAcquisitionEnd();
+        lease.end();
+        monitor.resetStatistics();
+
+        assertThat(getSessions(monitor).get("opened"), is(0L));
+        assertThat(getMap(monitor.getStatistics(), "checkout").get("count"), is(0L));
+        assertThat(getMap(monitor.getStatistics(), "acquirers"), is(anEmptyMap()));
+    }
+
+    @Test
+    public void shouldSumC3p0PoolGauges() throws Exception {
+        MBeanServer server = mock(MBeanServer.class);
+        ObjectName pool1 = new ObjectName("com.mchange.v2.c3p0:type=PooledDataSource,name=pool1");
+        ObjectName pool2 = new ObjectName("com.mchange.v2.c3p0:type=PooledDataSource,name=pool2");
+        when(server.queryNames(any(ObjectName.class), isNull())).thenReturn(new HashSet<>(Arrays.asList(pool1, pool2)));
+        when(server.getAttribute(any(ObjectName.class), any(String.class))).thenReturn(0);
+        when(server.getAttribute(pool1, "numConnectionsDefaultUser")).thenReturn(5);
+        when(server.getAttribute(pool2, "numConnectionsDefaultUser")).thenReturn(3);
+        when(server.getAttribute(pool1, "numBusyConnectionsDefaultUser")).thenReturn(2);
+
+        Map<String, Object> statistics = SessionMonitor.getC3p0PoolStatistics(server);
+        assertThat(statistics.get("connections"), is(8L));
+        assertThat(statistics.get("active"), is(2L));
+        assertThat(statistics.get("idle"), is(0L));
+    }
+
+    @Test
+    public void shouldReturnNoPoolGaugesWithoutC3p0() {
+        MBeanServer server = mock(MBeanServer.class);
+        when(server.queryNames(any(ObjectName.class), isNull())).thenReturn(new HashSet<>());
+        assertThat(SessionMonitor.getC3p0PoolStatistics(server), is(anEmptyMap()));
+    }
+
+    @Test
+    public void shouldReportCacheRegionStatistics() {
+        Statistics hibernateStatistics = mock(Statistics.class);
+        SessionFactory sessionFactory = mockSessionFactory(true, hibernateStatistics);
+        CacheRegionStatistics region = mock(CacheRegionStatistics.class);
+        when(hibernateStatistics.isStatisticsEnabled()).thenReturn(true);
+        when(hibernateStatistics.getCacheRegionStatistics(REGION)).thenReturn(region);
+        when(region.getHitCount()).thenReturn(3L);
+        when(region.getMissCount()).thenReturn(1L);
+        when(region.getPutCount()).thenReturn(1L);
+
+        SessionMonitor monitor = new SessionMonitor();
+        monitor.setSessionFactory(sessionFactory, 10);
+        verify(hibernateStatistics).setStatisticsEnabled(true);
+
+        Map<String, Object> cache = getMap(monitor.getStatistics(), "cache");
+        assertThat(cache, is(aMapWithSize(1)));
+        Map<String, Object> statistics = getMap(cache, REGION);
+        assertThat(statistics.get("hits"), is(3L));
+        assertThat(statistics.get("misses"), is(1L));
+        assertThat(statistics.get("puts"), is(1L));
+        assertThat(statistics.get("hitRatio"), is(0.75));
+    }
+
+    @Test
+    public void shouldNotEnableStatisticsWithoutCache() {
+        Statistics hibernateStatistics = mock(Statistics.class);
+        SessionMonitor monitor = new SessionMonitor();
+        monitor.setSessionFactory(mockSessionFactory(false, hibernateStatistics), 10);
+
+        verify(hibernateStatistics).setStatisticsEnabled(false);
+        assertThat(monitor.getStatistics(), not(hasKey("cache")));
+    }
+
+    @Test
+    public void shouldReportRegisteredCacheWithoutSecondLevelCache() {
+        DatasourceMonitor plans = mock(DatasourceMonitor.class);
+        when(plans.getStatistics()).thenReturn(Collections.singletonMap("hits", 2L));
+        SessionMonitor monitor = new SessionMonitor();
+        monitor.setSessionFactory(mockSessionFactory(false, mock(Statistics.class)), 10);
+        monitor.registerCache("plans", plans);
+
+        Map<String, Object> cache = getMap(monitor.getStatistics(), "cache");
+        assertThat(cache, is(aMapWithSize(1)));
+        assertThat(getMap(cache, "plans").get("hits"), is(2L));
+
+        monitor.resetStatistics();
+        verify(plans).resetStatistics();
+    }
+
+    private SessionFactory mockSessionFactory(boolean cache, Statistics statistics) {
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        SessionFactoryOptions options = mock(SessionFactoryOptions.class);
+        when(sessionFactory.getSessionFactoryOptions()).thenReturn(options);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+        when(options.isSecondLevelCacheEnabled()).thenReturn(cache);
+        return sessionFactory;
+    }
+
+    private SessionEventListener register(SessionMonitor monitor) {
+        Session session = mock(Session.class);
+        monitor.register(session);
+        ArgumentCaptor<SessionEventListener> listener = ArgumentCaptor.forClass(SessionEventListener.class);
+        verify(session).addEventListeners(listener.capture());
+        return listener.getValue();
+    }
+
+    private Map<String, Object> getSessions(SessionMonitor monitor) {
+        return getMap(monitor.getStatistics(), "sessions");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getMap(Map<String, Object> statistics, String key) {
+        return (Map<String, Object>) statistics.get(key);
+    }
+
+}
@@ -30,17 +30,13 @@ package org.n52.sos.request.operator;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import org.n52.faroe.annotation.Configurable;
 import org.n52.faroe.annotation.Setting;
-import org.n52.shetland.ogc.SupportedType;
 import org.n52.shetland.ogc.filter.FilterConstants.TimeOperator;
 import org.n52.shetland.ogc.filter.TemporalFilter;
 import org.n52.shetland.ogc.gml.time.TimeInstant;
-import org.n52.shetland.ogc.om.ObservationType;
 import org.n52.shetland.ogc.ows.exception.CompositeOwsException;
 import org.n52.shetland.ogc.ows.exception.InvalidParameterValueException;
 import org.n52.shetland.ogc.ows.exception.MissingParameterValueException;
@@ -61,10 +57,6 @@ import org.n52.sos.exception.ows.concrete.MissingOfferingParameterException;
 import org.n52.sos.wsdl.Metadata;
 import org.n52.sos.wsdl.Metadatas;
 import org.n52.svalbard.ConformanceClasses;
-import org.n52.svalbard.encode.Encoder;
-import org.n52.svalbard.encode.ObservationEncoder;
-
-import com.google.common.collect.Sets;
 
 /**
  * class and forwards requests to the GetObservationDAO; after query of
@@ -276,27 +268,7 @@ public class SosGetObservationOperatorV20 extends
 
     protected Set<String> getResponseFormatsForObservationType(String observationType, String service,
             String version) {
-        Set<String> responseFormats = Sets.newHashSet();
-        for (Encoder<?, ?> e : getEncoderRepository().getEncoders()) {
-            if (e instanceof ObservationEncoder) {
-                final ObservationEncoder<?, ?> oe = (ObservationEncoder<?, ?>) e;
-                Map<String, Set<SupportedType>> supportedResponseFormatObservationTypes =
-                        oe.getSupportedResponseFormatObservationTypes();
-                if (supportedResponseFormatObservationTypes != null
-                        && !supportedResponseFormatObservationTypes.isEmpty()) {
-                    for (final Entry<String, Set<SupportedType>> entry : supportedResponseFormatObservationTypes
-                            .entrySet()) {
-                        for (SupportedType st : entry.getValue()) {
-                            if (st instanceof ObservationType
-                                    && observationType.equals(((ObservationType) st).getValue())) {
-                                responseFormats.add(entry.getKey());
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return responseFormats;
+        return getResponseFormatRepository().getResponseFormatsForObservationType(service, version, observationType);
     }
 
     @Override
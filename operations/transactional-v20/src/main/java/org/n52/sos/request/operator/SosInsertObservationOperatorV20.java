@@ -28,8 +28,13 @@
  */
 package org.n52.sos.request.operator;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.n52.shetland.ogc.gml.ReferenceType;
@@ -168,28 +173,53 @@ public class SosInsertObservationOperatorV20 extends
         }
     }
 
+    /**
+     * Check the observations of the request. Observations of large requests
+     * usually share a small number of observation constellations, so the
+     * constellation and observation type checks are evaluated once per
+     * distinct constellation respectively observation type/offering pair
+     * against a single cache snapshot. Only the value dependent observation
+     * type check is performed for each observation.
+     *
+     * @param request
+     *            Request
+     *
+     * @throws OwsExceptionReport
+     *             If an observation is invalid
+     */
     private void checkObservations(final InsertObservationRequest request) throws OwsExceptionReport {
         if (CollectionHelper.isEmpty(request.getObservations())) {
             throw new MissingObservationParameterException();
         } else {
             final SosContentCache cache = getCache();
+            final boolean splitObservations = isSplitObservations(request);
+            final Set<List<Object>> checkedConstellations = new HashSet<>();
+            final Map<String, Boolean> supportedObservationTypes = new HashMap<>();
+            final Map<List<String>, Boolean> allowedObservationTypes = new HashMap<>();
             final CompositeOwsException exceptions = new CompositeOwsException();
             for (final OmObservation observation : request.getObservations()) {
                 final OmObservationConstellation obsConstallation = observation.getObservationConstellation();
-                checkObservationConstellationParameter(obsConstallation);
+                // the first invalid constellation aborts the check, so a
+                // constellation has to be checked only once
+                if (checkedConstellations.add(getConstellationKey(obsConstallation))) {
+                    checkObservationConstellationParameter(obsConstallation);
+                }
                 // Requirement 67
-                checkOrSetObservationType(observation, isSplitObservations(request));
-                if (!cache.getObservationTypes().contains(obsConstallation.getObservationType())) {
-                    exceptions.add(new InvalidObservationTypeException(obsConstallation.getObservationType()));
+                checkOrSetObservationType(observation, splitObservations);
+                final String observationType = obsConstallation.getObservationType();
+                if (!supportedObservationTypes.computeIfAbsent(observationType,
+                        type -> cache.getObservationTypes().contains(type))) {
+                    exceptions.add(new InvalidObservationTypeException(observationType));
                 } else if (obsConstallation.isSetOfferings()) {
                     for (final String offeringID : obsConstallation.getOfferings()) {
-                        final Collection<String> allowedObservationTypes =
-                                cache.getAllowedObservationTypesForOffering(offeringID);
-                        if ((allowedObservationTypes == null
-                                || !allowedObservationTypes.contains(obsConstallation.getObservationType()))
-                                && !request.isSetExtensionSplitDataArrayIntoObservations()) {
-                            exceptions.add(new InvalidObservationTypeForOfferingException(
-                                    obsConstallation.getObservationType(), offeringID));
+                        final boolean allowed = allowedObservationTypes.computeIfAbsent(
+                                Arrays.asList(offeringID, observationType), key -> {
+                                    Collection<String> types = cache.getAllowedObservationTypesForOffering(offeringID);
+                                    return types != null && types.contains(observationType);
+                                });
+                        if (!allowed && !request.isSetExtensionSplitDataArrayIntoObservations()) {
+                            exceptions.add(new InvalidObservationTypeForOfferingException(observationType,
+                                    offeringID));
                         }
                     }
                 }
@@ -198,6 +228,30 @@ public class SosInsertObservationOperatorV20 extends
         }
     }
 
+    /**
+     * Create the key of all values of the observation constellation that are
+     * evaluated by
+     * {@link #checkObservationConstellationParameter(OmObservationConstellation)}.
+     *
+     * @param obsConstallation
+     *            the observation constellation
+     *
+     * @return the key
+     */
+    private List<Object> getConstellationKey(final OmObservationConstellation obsConstallation) {
+        AbstractPhenomenon observableProperty = obsConstallation.getObservableProperty();
+        return Arrays.asList(obsConstallation.getProcedure() != null
+                ? obsConstallation.getProcedure().getIdentifier()
+                : null,
+                observableProperty != null ? observableProperty.getIdentifier() : null,
+                observableProperty != null && observableProperty.isComposite(),
+                obsConstallation.getFeatureOfInterest() != null
+                        ? obsConstallation.getFeatureOfInterest().getIdentifier()
+                        : null,
+                obsConstallation.getOfferings() != null ? new HashSet<>(obsConstallation.getOfferings())
+                        : Collections.emptySet());
+    }
+
     private boolean isSplitObservations(HasExtension<?> extensions) {
         return extensions.getBooleanExtension(Sos2Constants.Extensions.SplitDataArrayIntoObservations);
 
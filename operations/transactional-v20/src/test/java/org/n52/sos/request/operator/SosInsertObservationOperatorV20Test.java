@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.request.operator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.shetland.ogc.gml.CodeWithAuthority;
+import org.n52.shetland.ogc.om.OmConstants;
+import org.n52.shetland.ogc.om.OmObservableProperty;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.OmObservationConstellation;
+import org.n52.shetland.ogc.om.SingleObservationValue;
+import org.n52.shetland.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.shetland.ogc.om.values.QuantityValue;
+import org.n52.shetland.ogc.ows.OwsServiceRequest;
+import org.n52.shetland.ogc.ows.exception.CodedException;
+import org.n52.shetland.ogc.ows.exception.InvalidParameterValueException;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.sos.Sos2Constants;
+import org.n52.shetland.ogc.sos.SosConstants;
+import org.n52.shetland.ogc.sos.SosProcedureDescriptionUnknownType;
+import org.n52.shetland.ogc.sos.request.InsertObservationRequest;
+import org.n52.sos.cache.SosContentCache;
+import org.n52.sos.exception.ows.concrete.InvalidObservationTypeForOfferingException;
+
+public class SosInsertObservationOperatorV20Test {
+
+    private static final String PROCEDURE = "procedure";
+
+    private static final String OBSERVABLE_PROPERTY = "observableProperty";
+
+    private static final String FEATURE = "feature";
+
+    private static final String OTHER_FEATURE = "otherFeature";
+
+    private static final String OFFERING = "offering";
+
+    private static final String UNKNOWN_PROCEDURE = "unknownProcedure";
+
+    private static final String MEASUREMENT = OmConstants.OBS_TYPE_MEASUREMENT;
+
+    private SosContentCache cache;
+
+    private SosInsertObservationOperatorV20 operator;
+
+    @Before
+    public void setUp() throws OwsExceptionReport {
+        cache = mock(SosContentCache.class);
+        when(cache.getOfferings()).thenReturn(Collections.singleton(OFFERING));
+        when(cache.hasTransactionalObservationProcedure(PROCEDURE)).thenReturn(true);
+        when(cache.hasObservableProperty(OBSERVABLE_PROPERTY)).thenReturn(true);
+        when(cache.hasObservationType(MEASUREMENT)).thenReturn(true);
+        when(cache.getObservationTypes()).thenReturn(Collections.singleton(MEASUREMENT));
+        when(cache.getAllowedObservationTypesForOffering(OFFERING)).thenReturn(Collections.singleton(MEASUREMENT));
+        operator = spy(new SosInsertObservationOperatorV20());
+        doReturn(cache).when(operator).getCache();
+        doNothing().when(operator).checkSingleVersionParameter(any(OwsServiceRequest.class));
+    }
+
+    @Test
+    public void shouldCheckEachConstellationOnce() throws OwsExceptionReport {
+        operator.checkParameters(createRequest(createObservation(PROCEDURE, FEATURE),
+                createObservation(PROCEDURE, OTHER_FEATURE), createObservation(PROCEDURE, FEATURE),
+                createObservation(PROCEDURE, OTHER_FEATURE), createObservation(PROCEDURE, FEATURE)));
+
+        verify(operator, times(2)).checkTransactionalProcedure(eq(PROCEDURE), anyString());
+        verify(operator, times(2)).checkObservedProperty(eq(OBSERVABLE_PROPERTY), any(Enum.class), eq(true));
+        verify(operator).checkReservedCharacter(eq(FEATURE), any(Enum.class));
+        verify(operator).checkReservedCharacter(eq(OTHER_FEATURE), any(Enum.class));
+        verify(cache).getObservationTypes();
+        verify(cache).getAllowedObservationTypesForOffering(OFFERING);
+    }
+
+    @Test
+    public void shouldReportObservationTypeForOfferingOfEachObservation() {
+        when(cache.getAllowedObservationTypesForOffering(OFFERING)).thenReturn(Collections.emptySet());
+
+        OwsExceptionReport report = check(createRequest(createObservation(PROCEDURE, FEATURE),
+                createObservation(PROCEDURE, OTHER_FEATURE), createObservation(PROCEDURE, FEATURE)));
+
+        CodedException expected = new InvalidObservationTypeForOfferingException(MEASUREMENT, OFFERING);
+        assertThat(describe(report), contains(describe(expected), describe(expected), describe(expected)));
+    }
+
+    @Test
+    public void shouldReportFirstInvalidConstellationOnly() {
+        OwsExceptionReport report = check(createRequest(createObservation(UNKNOWN_PROCEDURE, FEATURE),
+                createObservation(UNKNOWN_PROCEDURE, OTHER_FEATURE), createObservation(UNKNOWN_PROCEDURE, FEATURE)));
+
+        CodedException expected = new InvalidParameterValueException(
+                Sos2Constants.InsertObservationParams.procedure.name(), UNKNOWN_PROCEDURE);
+        assertThat(describe(report), contains(describe(expected)));
+        verify(operator).checkTransactionalProcedure(eq(UNKNOWN_PROCEDURE), anyString());
+    }
+
+    @Test
+    public void shouldCheckConstellationsThatDifferInFeatureOnly() {
+        OmObservation invalid = createObservation(PROCEDURE, FEATURE);
+        invalid.getObservationConstellation().setFeatureOfInterest(new SamplingFeature(new CodeWithAuthority("a,b")));
+
+        OwsExceptionReport report = check(createRequest(createObservation(PROCEDURE, FEATURE), invalid));
+
+        assertThat(report.getExceptions().size(), is(1));
+        assertThat(report.getExceptions().get(0).getLocator(),
+                is(Sos2Constants.InsertObservationParams.featureOfInterest.name()));
+    }
+
+    private OwsExceptionReport check(InsertObservationRequest request) {
+        try {
+            operator.checkParameters(request);
+            fail("invalid observations should be reported");
+            return null;
+        } catch (OwsExceptionReport e) {
+            return e;
+        }
+    }
+
+    private List<String> describe(OwsExceptionReport report) {
+        return report.getExceptions().stream().map(this::describe).collect(Collectors.toList());
+    }
+
+    private String describe(CodedException exception) {
+        return exception.getClass().getName() + "|" + exception.getCode() + "|" + exception.getLocator() + "|"
+                + exception.getMessage();
+    }
+
+    private InsertObservationRequest createRequest(OmObservation... observations) {
+        InsertObservationRequest request = new InsertObservationRequest(SosConstants.SOS, Sos2Constants.SERVICEVERSION);
+        request.setOfferings(Collections.singletonList(OFFERING));
+        request.setObservation(Arrays.asList(observations));
+        return request;
+    }
+
+    private OmObservation createObservation(String procedure, String feature) {
+        OmObservationConstellation constellation = new OmObservationConstellation();
+        constellation.setProcedure(new SosProcedureDescriptionUnknownType(procedure, "format", "xml"));
+        constellation.setObservableProperty(new OmObservableProperty(OBSERVABLE_PROPERTY));
+        constellation.setFeatureOfInterest(new SamplingFeature(new CodeWithAuthority(feature)));
+        constellation.setObservationType(MEASUREMENT);
+        SingleObservationValue<BigDecimal> value = new SingleObservationValue<>();
+        value.setValue(new QuantityValue(1.0, "m"));
+        OmObservation observation = new OmObservation();
+        observation.setObservationConstellation(constellation);
+        observation.setValue(value);
+        return observation;
+    }
+
+}
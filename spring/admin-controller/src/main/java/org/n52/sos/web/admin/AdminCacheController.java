@@ -28,6 +28,8 @@
  */
 package org.n52.sos.web.admin;
 
+import java.util.Collections;
+import java.util.Optional;
 
 import javax.inject.Inject;
 
@@ -36,6 +38,7 @@ import org.n52.iceland.cache.ContentCacheController;
 import org.n52.janmayen.Json;
 import org.n52.shetland.ogc.gml.time.TimePeriod;
 import org.n52.shetland.util.ReferencedEnvelope;
+import org.n52.sos.cache.CacheUpdateProgress;
 import org.n52.sos.web.common.AbstractController;
 import org.n52.sos.web.common.ControllerConstants;
 import org.springframework.stereotype.Controller;
@@ -66,6 +69,9 @@ public class AdminCacheController extends AbstractController {
     @Inject
     private CacheSummaryHandler cacheSummaryHandler;
 
+    @Inject
+    private Optional<CacheUpdateProgress> cacheUpdateProgress;
+
     @RequestMapping(value = ControllerConstants.Paths.ADMIN_CACHE, method = RequestMethod.GET)
     public String view() {
         return ControllerConstants.Views.ADMIN_CACHE;
@@ -79,6 +85,15 @@ public class AdminCacheController extends AbstractController {
         return Json.print(Json.toJSON(cacheSummaryHandler.getCacheValues(cacheController)));
     }
 
+    @ResponseBody
+    @RequestMapping(value = ControllerConstants.Paths.ADMIN_CACHE_PROGRESS,
+                    method = RequestMethod.GET,
+                    produces = "application/json; charset=UTF-8")
+    public String getCacheUpdateProgress() throws JsonProcessingException {
+        return OBJECT_MAPPER.writeValueAsString(cacheUpdateProgress.map(CacheUpdateProgress::toMap)
+                .orElse(Collections.singletonMap("running", false)));
+    }
+
     @ResponseBody
     @RequestMapping(value = ControllerConstants.Paths.ADMIN_CACHE_DUMP,
                     method = RequestMethod.GET,
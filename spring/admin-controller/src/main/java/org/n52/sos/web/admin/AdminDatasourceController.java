@@ -30,7 +30,12 @@ package org.n52.sos.web.admin;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.sql.SQLException;
 import java.util.Collection;
 import java.util.LinkedHashMap;
@@ -41,6 +46,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
@@ -48,8 +55,11 @@ import javax.servlet.http.HttpServletRequest;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.FileFilterUtils;
 import org.apache.xmlbeans.XmlException;
+import org.n52.iceland.convert.RequestResponseModifierRepository;
 import org.n52.iceland.ds.ConnectionProviderException;
+import org.n52.iceland.request.handler.OperationHandlerRepository;
 import org.n52.iceland.request.operator.RequestOperatorRepository;
+import org.n52.janmayen.GroupedAndNamedThreadFactory;
 import org.n52.janmayen.Json;
 import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
 import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
@@ -114,6 +124,12 @@ public class AdminDatasourceController extends AbstractDatasourceController {
     @Inject
     private RequestOperatorRepository requestOperatorRepository;
 
+    @Inject
+    private OperationHandlerRepository operationHandlerRepository;
+
+    @Inject
+    private RequestResponseModifierRepository requestResponseModifierRepository;
+
     @Inject
     private Optional<PredefinedInsertionHandler> handler;
 
@@ -121,6 +137,8 @@ public class AdminDatasourceController extends AbstractDatasourceController {
 
     private SampleDataInserter sampleDataInserter;
 
+    private BulkLoadProgress bulkLoadProgress;
+
     @RequestMapping(value = ControllerConstants.Paths.ADMIN_DATABASE)
     public ModelAndView index() throws SQLException, OwsExceptionReport {
         Map<String, Object> model = Maps.newHashMap();
@@ -174,19 +192,71 @@ public class AdminDatasourceController extends AbstractDatasourceController {
         if (sampleDataInserter == null) {
             try {
                 sampleDataInserter = new SampleDataInserter(OwsServiceRequestContext.fromRequest(request),
-                        decoderRepository, requestOperatorRepository);
-                boolean sampledataAdded = sampleDataInserter.insertSampleData();
-                if (sampledataAdded) {
-                    updateCache();
-                }
+                        decoderRepository, requestOperatorRepository, operationHandlerRepository,
+                        requestResponseModifierRepository);
+                sampleDataInserter.insertSampleData();
                 return "OK";
             } finally {
+                // also cache the batches committed before a failure
+                if (sampleDataInserter != null && sampleDataInserter.hasInsertedData()) {
+                    updateCache();
+                }
                 sampleDataInserter = null;
             }
         }
         return "Insert is still in progress!";
     }
 
+    /**
+     * Start loading a zipped {@link BulkDataLoader} package sent as request
+     * body. The cache is updated once after the package is loaded, or after
+     * loading failed if batches were already committed.
+     */
+    @ResponseBody
+    @RequestMapping(value = ControllerConstants.Paths.ADMIN_DATABASE_BULK_LOAD,
+                    method = RequestMethod.POST,
+                    produces = "application/json; charset=UTF-8")
+    public synchronized String bulkLoad(HttpServletRequest request,
+            @RequestParam(value = "batchSize", required = false, defaultValue = "500") int batchSize)
+            throws IOException {
+        if (bulkLoadProgress != null && !bulkLoadProgress.isDone()) {
+            return Json.print(bulkLoadProgress.toJson().put("message", "Insert is still in progress!"));
+        }
+        File folder = unpack(request.getInputStream());
+        BulkLoadProgress progress = new BulkLoadProgress();
+        BulkDataLoader loader;
+        try {
+            loader = new BulkDataLoader(folder, OwsServiceRequestContext.fromRequest(request), decoderRepository,
+                    requestOperatorRepository, operationHandlerRepository, requestResponseModifierRepository,
+                    progress).setBatchSize(batchSize);
+        } catch (IOException | RuntimeException e) {
+            FileUtils.deleteQuietly(folder);
+            throw e;
+        }
+        // the loader starts the progress, until then it is pending
+        bulkLoadProgress = progress;
+        new GroupedAndNamedThreadFactory("52n-bulk-load").newThread(() -> {
+            try {
+                loader.load();
+            } catch (Exception e) {
+                LOG.error("Error while loading data from '{}'!", folder, e);
+            } finally {
+                FileUtils.deleteQuietly(folder);
+                updateCacheAfterLoad(loader);
+            }
+        }).start();
+        return Json.print(progress.toJson());
+    }
+
+    @ResponseBody
+    @RequestMapping(value = ControllerConstants.Paths.ADMIN_DATABASE_BULK_LOAD_STATUS,
+                    method = RequestMethod.GET,
+                    produces = "application/json; charset=UTF-8")
+    public synchronized String getBulkLoadStatus() {
+        BulkLoadProgress progress = bulkLoadProgress != null ? bulkLoadProgress : new BulkLoadProgress();
+        return Json.print(progress.toJson());
+    }
+
     @ResponseBody
     @RequestMapping(value = ControllerConstants.Paths.ADMIN_DATABASE_LOAD_PREDEFINED_PHENOMENA,
                     method = RequestMethod.GET)
@@ -213,6 +283,36 @@ public class AdminDatasourceController extends AbstractDatasourceController {
         }
     }
 
+    private void updateCacheAfterLoad(BulkDataLoader loader) {
+        if (loader.hasInsertedData()) {
+            try {
+                updateCache();
+            } catch (OwsExceptionReport e) {
+                LOG.error("Error while updating the cache after loading data!", e);
+            }
+        }
+    }
+
+    private File unpack(InputStream in) throws IOException {
+        Path folder = Files.createTempDirectory("52n-sos-bulk-load");
+        try (ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (!entry.isDirectory()) {
+                    // flatten the package, this also keeps entries inside the folder
+                    Path name = Paths.get(entry.getName()).getFileName();
+                    if (name != null) {
+                        Files.copy(zip, folder.resolve(name.toString()), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(folder.toFile());
+            throw e;
+        }
+        return folder.toFile();
+    }
+
     private Set<String> getPredefinedObservedProperties() throws OwsExceptionReport {
         return getPredefined(PredefinedType.PHENOMENA);
     }
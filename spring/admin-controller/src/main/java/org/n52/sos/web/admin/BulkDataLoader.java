@@ -0,0 +1,602 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.web.admin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.n52.iceland.convert.RequestResponseModifier;
+import org.n52.iceland.convert.RequestResponseModifierRepository;
+import org.n52.iceland.request.handler.OperationHandler;
+import org.n52.iceland.request.handler.OperationHandlerRepository;
+import org.n52.iceland.request.operator.RequestOperator;
+import org.n52.iceland.request.operator.RequestOperatorKey;
+import org.n52.iceland.request.operator.RequestOperatorRepository;
+import org.n52.janmayen.GroupedAndNamedThreadFactory;
+import org.n52.janmayen.http.HTTPStatus;
+import org.n52.shetland.ogc.gml.AbstractFeature;
+import org.n52.shetland.ogc.om.MultiObservationValues;
+import org.n52.shetland.ogc.om.OmObservation;
+import org.n52.shetland.ogc.om.values.SweDataArrayValue;
+import org.n52.shetland.ogc.ows.exception.CodedException;
+import org.n52.shetland.ogc.ows.exception.CompositeOwsException;
+import org.n52.shetland.ogc.ows.exception.NoApplicableCodeException;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.shetland.ogc.ows.extension.Extension;
+import org.n52.shetland.ogc.ows.service.OwsServiceKey;
+import org.n52.shetland.ogc.ows.service.OwsServiceRequestContext;
+import org.n52.shetland.ogc.sensorML.v20.PhysicalSystem;
+import org.n52.shetland.ogc.sos.Sos2Constants;
+import org.n52.shetland.ogc.sos.SosConstants;
+import org.n52.shetland.ogc.sos.SosInsertionMetadata;
+import org.n52.shetland.ogc.sos.SosProcedureDescription;
+import org.n52.shetland.ogc.sos.ifoi.InsertFeatureOfInterestRequest;
+import org.n52.shetland.ogc.sos.ifoi.InsertFeatureOfInterestResponse;
+import org.n52.shetland.ogc.sos.request.InsertObservationRequest;
+import org.n52.shetland.ogc.sos.request.InsertSensorRequest;
+import org.n52.shetland.ogc.sos.response.InsertSensorResponse;
+import org.n52.shetland.ogc.swe.SweDataArray;
+import org.n52.shetland.ogc.swe.simpleType.SweBoolean;
+import org.n52.shetland.ogc.swes.SwesExtension;
+import org.n52.shetland.util.OMHelper;
+import org.n52.sos.ds.AbstractInsertObservationHandler;
+import org.n52.sos.exception.MissingServiceOperatorException;
+import org.n52.svalbard.decode.DecoderRepository;
+import org.n52.svalbard.decode.exception.DecodingException;
+import org.n52.svalbard.util.CodingHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.opengis.om.x20.OMObservationType;
+import net.opengis.sos.x20.GetObservationResponseDocument;
+import net.opengis.sos.x20.GetObservationResponseType.ObservationData;
+
+/**
+ * Loads a packaged dataset into the database. The package is a folder
+ * containing a property file, sensor descriptions (
+ * <code>&lt;procedure&gt;_sensor-desc.xml</code>), features (
+ * <code>*_feature.xml</code>) and observations as GetObservation responses (
+ * <code>&lt;procedure&gt;_obs.xml</code>).
+ *
+ * The whole package is checked once before anything is written. Sensors and
+ * features are inserted through the request operators, observations are
+ * written in batches directly through the InsertObservation handler. This
+ * skips the per request parameter checks, which are replaced by the package
+ * check, and the {@code ObservationInsertion} event, whose only effect is a
+ * cache partial update per batch. Instead the caller has to update the cache
+ * once loading has finished, also if it failed after some batches were
+ * committed (see {@link #hasInsertedData()}).
+ *
+ * @since 5.3.2
+ */
+public class BulkDataLoader implements Sos2Constants {
+
+    public static final String PROPERTY_FILE = "dataset.properties";
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    protected static final String OBS_XML_FILE_ENDING = "_obs.xml";
+
+    protected static final String SENSOR_XML_FILE_ENDING = "_sensor-desc.xml";
+
+    protected static final String FEATURE_XML_FILE_ENDING = "_feature.xml";
+
+    private static final String INSERT_FEATURE_OF_INTEREST = "InsertFeatureOfInterest";
+
+    private static final String UTF_8 = "UTF-8";
+
+    private static final int THREADPOOL_SIZE = 5;
+
+    private static final int THREADPOOL_SLEEP_BETWEEN_CHECKS = 1000;
+
+    private static final long LOG_INTERVAL = 10000;
+
+    private static final OwsServiceKey SERVICE_OPERATOR_KEY = new OwsServiceKey(SOS, SERVICEVERSION);
+
+    private static final String LOG_EXPECTED_EXCEPTION_CACHED = "Expected exception catched.";
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkDataLoader.class);
+
+    private final File folder;
+
+    private final Properties properties;
+
+    private final String propertySource;
+
+    private final OwsServiceRequestContext requestContext;
+
+    private final DecoderRepository decoderRepository;
+
+    private final RequestOperatorRepository requestOperatorRepository;
+
+    private final OperationHandlerRepository operationHandlerRepository;
+
+    private final RequestResponseModifierRepository requestResponseModifierRepository;
+
+    private final Extension<?> splitExtension;
+
+    private final CompositeOwsException exceptions = new CompositeOwsException();
+
+    private final Map<String, String> insertedSensors = new ConcurrentHashMap<>();
+
+    private final BulkLoadProgress progress;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private RequestOperator insertSensorOperator;
+
+    private RequestOperator insertFeatureOperator;
+
+    private AbstractInsertObservationHandler insertObservationHandler;
+
+    private List<InsertSensorRequest> insertSensorRequests;
+
+    private volatile boolean insertedData;
+
+    private long lastLog;
+
+    public BulkDataLoader(File folder, OwsServiceRequestContext requestContext, DecoderRepository decoderRepository,
+            RequestOperatorRepository requestOperatorRepository,
+            OperationHandlerRepository operationHandlerRepository,
+            RequestResponseModifierRepository requestResponseModifierRepository, BulkLoadProgress progress)
+            throws IOException {
+        this(folder, loadProperties(new File(folder, PROPERTY_FILE)), PROPERTY_FILE, requestContext,
+                decoderRepository, requestOperatorRepository, operationHandlerRepository,
+                requestResponseModifierRepository, progress);
+    }
+
+    protected BulkDataLoader(File folder, Properties properties, String propertySource,
+            OwsServiceRequestContext requestContext, DecoderRepository decoderRepository,
+            RequestOperatorRepository requestOperatorRepository,
+            OperationHandlerRepository operationHandlerRepository,
+            RequestResponseModifierRepository requestResponseModifierRepository, BulkLoadProgress progress) {
+        this.folder = folder;
+        this.properties = properties;
+        this.propertySource = propertySource;
+        this.requestContext = requestContext;
+        this.decoderRepository = decoderRepository;
+        this.requestOperatorRepository = requestOperatorRepository;
+        this.operationHandlerRepository = operationHandlerRepository;
+        this.requestResponseModifierRepository = requestResponseModifierRepository;
+        this.splitExtension = new SwesExtension<>()
+                .setValue((SweBoolean) new SweBoolean().setValue(true)
+                        .setDefinition(Sos2Constants.Extensions.SplitDataArrayIntoObservations.name()))
+                .setDefinition(Sos2Constants.Extensions.SplitDataArrayIntoObservations.name());
+        this.progress = progress != null ? progress : new BulkLoadProgress();
+    }
+
+    public BulkDataLoader setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+        return this;
+    }
+
+    public BulkLoadProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * @return <code>true</code>, if at least one batch of observations was
+     *         committed, even if loading failed afterwards
+     */
+    public boolean hasInsertedData() {
+        return insertedData;
+    }
+
+    /**
+     * Check and load the package.
+     *
+     * @return <code>true</code>, if observations were inserted
+     */
+    public boolean load() throws OwsExceptionReport, IOException, XmlException, DecodingException,
+            MissingServiceOperatorException {
+        LOG.info("Start loading data from '{}'.", folder);
+        progress.start();
+        try {
+            check();
+            progress.setPhase(BulkLoadProgress.Phase.SENSORS);
+            insertSensors();
+            progress.setPhase(BulkLoadProgress.Phase.FEATURES);
+            insertFeatures();
+            progress.setPhase(BulkLoadProgress.Phase.OBSERVATIONS);
+            insertObservations();
+            progress.finish();
+        } catch (OwsExceptionReport | IOException | XmlException | DecodingException
+                | MissingServiceOperatorException | RuntimeException e) {
+            progress.fail(e.getMessage());
+            throw e;
+        }
+        LOG.info("Finished loading data from '{}': {}", folder, progress);
+        return insertedData;
+    }
+
+    /**
+     * Hook to modify the observation document before it is parsed
+     *
+     * @param xml
+     *            the content of an observation file
+     * @return the content to parse
+     */
+    protected String prepareObservations(String xml) {
+        return xml;
+    }
+
+    protected File getFolder() {
+        return folder;
+    }
+
+    private void check() throws OwsExceptionReport, IOException, XmlException, DecodingException,
+            MissingServiceOperatorException {
+        checkOperators();
+        createInsertSensorRequests();
+        Set<String> procedures = getFilesBySuffix(SENSOR_XML_FILE_ENDING).stream()
+                .map(f -> f.getName().replace(SENSOR_XML_FILE_ENDING, "")).collect(Collectors.toSet());
+        for (File observationFile : getFilesBySuffix(OBS_XML_FILE_ENDING)) {
+            String procedureId = observationFile.getName().replace(OBS_XML_FILE_ENDING, "");
+            if (!procedures.contains(procedureId)) {
+                exceptions.add(new NoApplicableCodeException().withMessage(
+                        "The observation file '%s' has no sensor description '%s%s'!", observationFile.getName(),
+                        procedureId, SENSOR_XML_FILE_ENDING));
+            }
+        }
+        exceptions.throwIfNotEmpty();
+    }
+
+    private void checkOperators() throws MissingServiceOperatorException {
+        final String insertSensor = Sos2Constants.Operations.InsertSensor.name();
+        insertSensorOperator = requestOperatorRepository
+                .getRequestOperator(new RequestOperatorKey(SERVICE_OPERATOR_KEY, insertSensor, false));
+        if (insertSensorOperator == null) {
+            missingServiceOperator(SOS, SERVICEVERSION, insertSensor);
+        }
+        final String insertObservation = SosConstants.Operations.InsertObservation.name();
+        if (requestOperatorRepository
+                .getRequestOperator(new RequestOperatorKey(SERVICE_OPERATOR_KEY, insertObservation, false)) == null) {
+            missingServiceOperator(SOS, SERVICEVERSION, insertObservation);
+        }
+        OperationHandler handler = operationHandlerRepository.getOperationHandler(SOS, insertObservation);
+        if (!(handler instanceof AbstractInsertObservationHandler)) {
+            missingServiceOperator(SOS, SERVICEVERSION, insertObservation);
+        }
+        insertObservationHandler = (AbstractInsertObservationHandler) handler;
+        insertFeatureOperator = requestOperatorRepository
+                .getRequestOperator(new RequestOperatorKey(SERVICE_OPERATOR_KEY, INSERT_FEATURE_OF_INTEREST, false));
+        if (insertFeatureOperator == null) {
+            missingServiceOperator(SOS, SERVICEVERSION, INSERT_FEATURE_OF_INTEREST);
+        }
+    }
+
+    private void insertSensors() throws OwsExceptionReport {
+        ExecutorService threadPool = Executors.newFixedThreadPool(THREADPOOL_SIZE,
+                new GroupedAndNamedThreadFactory("52n-bulk-load-insert-sensors"));
+        for (final InsertSensorRequest request : insertSensorRequests) {
+            threadPool.submit(new InsertSensorTask(request));
+        }
+        await(threadPool, "Insert sensors");
+        exceptions.throwIfNotEmpty();
+    }
+
+    private void insertFeatures() throws OwsExceptionReport {
+        ExecutorService threadPool = Executors.newFixedThreadPool(THREADPOOL_SIZE,
+                new GroupedAndNamedThreadFactory("52n-bulk-load-insert-features"));
+        for (File featureFile : getFilesBySuffix(FEATURE_XML_FILE_ENDING)) {
+            threadPool.submit(new InsertFeatureTask(featureFile));
+        }
+        await(threadPool, "Insert features");
+        exceptions.throwIfNotEmpty();
+    }
+
+    /**
+     * The InsertObservation handler serializes all insertions, so the files
+     * are processed sequentially and each file is split into batches of
+     * {@link #batchSize} observations, each inserted in a single transaction.
+     */
+    private void insertObservations() throws OwsExceptionReport, IOException, XmlException, DecodingException {
+        lastLog = System.currentTimeMillis();
+        for (File observationFile : getFilesBySuffix(OBS_XML_FILE_ENDING)) {
+            insertObservations(observationFile);
+            progress.addFile();
+        }
+    }
+
+    private void insertObservations(File observationFile)
+            throws OwsExceptionReport, IOException, XmlException, DecodingException {
+        final String procedureId = observationFile.getName().replace(OBS_XML_FILE_ENDING, "");
+        final String offering = insertedSensors.get(procedureId);
+        String xmlString = prepareObservations(readFile(observationFile));
+        ObservationData[] observations = ((GetObservationResponseDocument) XmlObject.Factory.parse(xmlString))
+                .getGetObservationResponse().getObservationDataArray();
+        List<OmObservation> batch = new ArrayList<>(Math.min(batchSize, observations.length));
+        long rows = 0;
+        for (ObservationData observationData : observations) {
+            OmObservation observation = decodeXmlElement(observationData.getOMObservation());
+            observation.getObservationConstellation().addOffering(offering);
+            if (!observation.getObservationConstellation().isSetObservationType()) {
+                observation.getObservationConstellation()
+                        .setObservationType(OMHelper.getObservationTypeFor(observation.getValue().getValue()));
+            }
+            batch.add(observation);
+            rows += countRows(observation);
+            if (batch.size() >= batchSize) {
+                insertObservations(offering, batch, rows);
+                batch = new ArrayList<>(batchSize);
+                rows = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertObservations(offering, batch, rows);
+        }
+    }
+
+    private void insertObservations(String offering, List<OmObservation> observations, long rows)
+            throws OwsExceptionReport {
+        InsertObservationRequest request = (InsertObservationRequest) new InsertObservationRequest()
+                .setOfferings(Collections.singletonList(offering)).setObservation(observations)
+                .addExtension(splitExtension).setRequestContext(requestContext).setService(SOS)
+                .setVersion(SERVICEVERSION);
+        modifyRequest(request);
+        if (insertObservationHandler.insertObservation(request) != null) {
+            insertedData = true;
+        }
+        progress.addRows(rows);
+        long now = System.currentTimeMillis();
+        if (now - lastLog > LOG_INTERVAL) {
+            LOG.info("Loading data from '{}': {}", folder, progress);
+            lastLog = now;
+        }
+    }
+
+    /**
+     * Apply the request modifiers like the request operator would, e.g. to
+     * split data arrays into single observations.
+     */
+    private void modifyRequest(InsertObservationRequest request) throws OwsExceptionReport {
+        if (requestResponseModifierRepository.hasRequestResponseModifier(request)) {
+            List<RequestResponseModifier> splitter = new ArrayList<>();
+            List<RequestResponseModifier> remover = new ArrayList<>();
+            List<RequestResponseModifier> defaultModifier = new ArrayList<>();
+            for (RequestResponseModifier modifier : requestResponseModifierRepository
+                    .getRequestResponseModifier(request)) {
+                if (modifier.getFacilitator().isSplitter()) {
+                    splitter.add(modifier);
+                } else if (modifier.getFacilitator().isAdderRemover()) {
+                    remover.add(modifier);
+                } else {
+                    defaultModifier.add(modifier);
+                }
+            }
+            for (RequestResponseModifier modifier : remover) {
+                modifier.modifyRequest(request);
+            }
+            for (RequestResponseModifier modifier : defaultModifier) {
+                modifier.modifyRequest(request);
+            }
+            for (RequestResponseModifier modifier : splitter) {
+                modifier.modifyRequest(request);
+            }
+        }
+    }
+
+    private long countRows(OmObservation observation) {
+        if (observation.getValue() instanceof MultiObservationValues
+                && observation.getValue().getValue() instanceof SweDataArrayValue) {
+            SweDataArray array = ((SweDataArrayValue) observation.getValue().getValue()).getValue();
+            return array != null && array.getValues() != null ? array.getValues().size() : 0;
+        }
+        return 1;
+    }
+
+    private void createInsertSensorRequests()
+            throws OwsExceptionReport, IOException, XmlException, DecodingException {
+        insertSensorRequests = new ArrayList<>();
+        for (File sensorDescriptionFile : getFilesBySuffix(SENSOR_XML_FILE_ENDING)) {
+            final String procedureId = sensorDescriptionFile.getName().replace(SENSOR_XML_FILE_ENDING, "");
+            XmlObject xml = XmlObject.Factory.parse(readFile(sensorDescriptionFile));
+            PhysicalSystem physicalSystem =
+                    (PhysicalSystem) decoderRepository.getDecoder(CodingHelper.getDecoderKey(xml)).decode(xml);
+            InsertSensorRequest insertSensorRequest = (InsertSensorRequest) new InsertSensorRequest()
+                    .setProcedureDescriptionFormat("http://www.opengis.net/sensorml/2.0")
+                    .setProcedureDescription(new SosProcedureDescription<AbstractFeature>(physicalSystem))
+                    .setObservableProperty(getPropertyList(procedureId + "_observedProperties"))
+                    .setMetadata(new SosInsertionMetadata()
+                            .setObservationTypes(getPropertyList(procedureId + "_observationTypes"))
+                            .setFeatureOfInterestTypes(getPropertyList(procedureId + "_featureTypes")))
+                    .setRequestContext(requestContext).setService(SOS).setVersion(SERVICEVERSION);
+            insertSensorRequests.add(insertSensorRequest);
+        }
+    }
+
+    private List<File> getFilesBySuffix(final String suffix) {
+        final File[] files = folder.listFiles(
+            pathname -> pathname.isFile() && pathname.canRead() && pathname.getName().endsWith(suffix));
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    private List<String> getPropertyList(final String propertyId) throws CodedException {
+        if (!properties.containsKey(propertyId)
+                || !properties.get(propertyId).getClass().isAssignableFrom(String.class)) {
+            throw new NoApplicableCodeException().withMessage("Property '%s' not defined in %s. Please update!",
+                    propertyId, propertySource);
+        }
+        if (properties.get(propertyId).toString().isEmpty()) {
+            throw new NoApplicableCodeException().withMessage("Property '%s' MUST not be empty in %s. Please update!",
+                    propertyId, propertySource);
+        }
+        return Arrays.asList(properties.getProperty(propertyId).split(","));
+    }
+
+    private String readFile(File file) throws IOException {
+        return new String(Files.readAllBytes(Paths.get(getUri(file))), UTF_8);
+    }
+
+    private OmObservation decodeXmlElement(OMObservationType xml) throws DecodingException {
+        return (OmObservation) decoderRepository.getDecoder(CodingHelper.getDecoderKey(xml)).decode(xml);
+    }
+
+    private void await(ExecutorService threadPool, String task) {
+        try {
+            threadPool.shutdown();
+            while (!threadPool.isTerminated()) {
+                Thread.sleep(THREADPOOL_SLEEP_BETWEEN_CHECKS);
+            }
+        } catch (InterruptedException e) {
+            LOG.error("{} thread was interrupted!", task, e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void missingServiceOperator(final String service, final String version, final String operation)
+            throws MissingServiceOperatorException {
+        String msg = String.format(
+                "Could not load request operator for: %s, %s, %s. Please activate the according "
+                        + "operation in the <a href=\"../admin/operations\">settings</a>.",
+                service, version, operation);
+        LOG.error(msg);
+        throw new MissingServiceOperatorException(msg);
+    }
+
+    protected static Properties loadProperties(File file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream is = Files.newInputStream(file.toPath())) {
+            properties.load(is);
+        }
+        return properties;
+    }
+
+    protected static URI getUri(File file) {
+        URI uri;
+        try {
+            uri = file.toPath().toUri();
+        } catch (InvalidPathException ipe) {
+            uri = file.toURI();
+            LOG.debug("Cannot convert '{}'. Falling back to '{}'.", file, uri);
+            LOG.trace(LOG_EXPECTED_EXCEPTION_CACHED, ipe);
+        }
+        if (uri.toString().startsWith("file:///")) {
+            try {
+                uri = new URI(uri.getScheme(), uri.getUserInfo(), uri.getHost(), uri.getPort(), uri.getPath(),
+                        uri.getQuery(), uri.getFragment());
+            } catch (URISyntaxException use) {
+                LOG.debug("Could not convert '{}' to URI.", file);
+                LOG.trace(LOG_EXPECTED_EXCEPTION_CACHED, use);
+            }
+        }
+        return uri;
+    }
+
+    private class InsertSensorTask implements Runnable {
+
+        private final InsertSensorRequest request;
+
+        InsertSensorTask(InsertSensorRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public void run() {
+            if (exceptions.hasExceptions()) {
+                return;
+            }
+            try {
+                InsertSensorResponse response = (InsertSensorResponse) insertSensorOperator.receiveRequest(request);
+                insertedSensors.put(response.getAssignedProcedure(), response.getAssignedOffering());
+            } catch (OwsExceptionReport e) {
+                if (e.getMessage()
+                        .equals("The offering with the identifier '"
+                                + request.getProcedureDescription().getIdentifier()
+                                + "' still exists in this service and it is not allowed to "
+                                + "insert more than one procedure to an offering!")) {
+                    insertedSensors.put(request.getProcedureDescription().getIdentifier(),
+                            request.getProcedureDescription().getIdentifier());
+                } else {
+                    exceptions.add(e);
+                }
+            }
+        }
+    }
+
+    private class InsertFeatureTask implements Runnable {
+
+        private final File featureFile;
+
+        InsertFeatureTask(File featureFile) {
+            this.featureFile = featureFile;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if ((InsertFeatureOfInterestResponse) insertFeatureOperator
+                        .receiveRequest((InsertFeatureOfInterestRequest) new InsertFeatureOfInterestRequest()
+                                .addFeatureMember(decodeXmlObject(readFile(featureFile)))
+                                .setRequestContext(requestContext).setService(SOS)
+                                .setVersion(SERVICEVERSION)) == null) {
+                    exceptions
+                            .add(new NoApplicableCodeException().withMessage("Could not insert feature of interest."));
+                }
+                progress.addFile();
+            } catch (XmlException | DecodingException e) {
+                exceptions.add(new NoApplicableCodeException().causedBy(e));
+            } catch (IOException e) {
+                exceptions.add(new NoApplicableCodeException().causedBy(e)
+                        .withMessage("Could not read file '%s' containing feature of interest.", featureFile)
+                        .setStatus(HTTPStatus.INTERNAL_SERVER_ERROR));
+            } catch (OwsExceptionReport e) {
+                exceptions.add(e);
+            }
+        }
+
+        private AbstractFeature decodeXmlObject(String string) throws XmlException, DecodingException {
+            XmlObject xml = XmlObject.Factory.parse(string);
+            return (AbstractFeature) decoderRepository.getDecoder(CodingHelper.getDecoderKey(xml)).decode(xml);
+        }
+    }
+}
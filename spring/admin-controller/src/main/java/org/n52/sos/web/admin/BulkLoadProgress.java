@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.web.admin;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.n52.janmayen.Json;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Progress of a {@link BulkDataLoader} run. Updated by the loading thread and
+ * read by the admin status endpoint.
+ *
+ * @since 5.3.2
+ */
+public class BulkLoadProgress {
+
+    public enum Phase {
+        PENDING, CHECKING, SENSORS, FEATURES, OBSERVATIONS, FINISHED, FAILED
+    }
+
+    private final AtomicLong rows = new AtomicLong();
+
+    private final AtomicLong files = new AtomicLong();
+
+    private volatile Phase phase = Phase.PENDING;
+
+    private volatile long start;
+
+    private volatile long end;
+
+    private volatile String message;
+
+    public void start() {
+        this.start = System.nanoTime();
+        this.end = 0;
+        setPhase(Phase.CHECKING);
+    }
+
+    public void setPhase(Phase phase) {
+        this.phase = phase;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public void addRows(long count) {
+        rows.addAndGet(count);
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    public void addFile() {
+        files.incrementAndGet();
+    }
+
+    public long getFiles() {
+        return files.get();
+    }
+
+    public void finish() {
+        this.end = System.nanoTime();
+        setPhase(Phase.FINISHED);
+    }
+
+    public void fail(String message) {
+        this.end = System.nanoTime();
+        this.message = message;
+        setPhase(Phase.FAILED);
+    }
+
+    public boolean isRunning() {
+        return phase != Phase.PENDING && phase != Phase.FINISHED && phase != Phase.FAILED;
+    }
+
+    /**
+     * @return <code>true</code>, if the run has finished or failed
+     */
+    public boolean isDone() {
+        return phase == Phase.FINISHED || phase == Phase.FAILED;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public long getElapsedMillis() {
+        if (start == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis((end != 0 ? end : System.nanoTime()) - start);
+    }
+
+    public double getRowsPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed > 0 ? getRows() * 1000d / elapsed : 0d;
+    }
+
+    public ObjectNode toJson() {
+        ObjectNode node = Json.nodeFactory().objectNode()
+                .put("phase", getPhase().name())
+                .put("running", isRunning())
+                .put("files", getFiles())
+                .put("rows", getRows())
+                .put("elapsed", getElapsedMillis())
+                .put("rowsPerSecond", Math.round(getRowsPerSecond()));
+        if (getMessage() != null) {
+            node.put("message", getMessage());
+        }
+        return node;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d rows from %d files in %d ms (%.1f rows/s)", getPhase(), getRows(), getFiles(),
+                getElapsedMillis(), getRowsPerSecond());
+    }
+}
@@ -44,6 +44,7 @@ import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
 import org.n52.sos.cache.SosContentCache;
 import org.n52.sos.cache.SosWritableContentCache;
 import org.n52.sos.exception.NoSuchIdentifierException;
+import org.n52.sos.i18n.I18NMetadataStore;
 import org.n52.sos.web.admin.AbstractAdminController;
 import org.n52.sos.web.common.ControllerConstants;
 import org.slf4j.Logger;
@@ -66,11 +67,18 @@ public abstract class AbstractAdminI18NAjaxEndpoint<T extends AbstractI18NMetada
 
     private I18NDAORepository i18NDAORepository;
 
+    private I18NMetadataStore i18NMetadataStore;
+
     @Inject
     public void setI18NDAORepository(I18NDAORepository i18NDAORepository) {
         this.i18NDAORepository = i18NDAORepository;
     }
 
+    @Inject
+    public void setI18NMetadataStore(I18NMetadataStore i18NMetadataStore) {
+        this.i18NMetadataStore = i18NMetadataStore;
+    }
+
     public I18NDAORepository getI18NDAORepository() {
         return i18NDAORepository;
     }
@@ -149,6 +157,7 @@ public abstract class AbstractAdminI18NAjaxEndpoint<T extends AbstractI18NMetada
         checkIdentifier(i18n.getIdentifier());
         LOGGER.debug("Saving I18N: {}", i18n);
         getDao().saveMetadata(i18n);
+        i18NMetadataStore.update(i18n);
         ContentCacheUpdate update = getContentCacheUpdate(i18n);
         getContentCacheController().update(update);
     }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.web.admin;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.n52.iceland.convert.RequestResponseModifierRepository;
+import org.n52.iceland.request.handler.OperationHandlerRepository;
+import org.n52.iceland.request.operator.RequestOperator;
+import org.n52.iceland.request.operator.RequestOperatorKey;
+import org.n52.iceland.request.operator.RequestOperatorRepository;
+import org.n52.shetland.ogc.ows.exception.OwsExceptionReport;
+import org.n52.sos.ds.AbstractInsertObservationHandler;
+import org.n52.sos.exception.MissingServiceOperatorException;
+import org.n52.sos.web.admin.BulkLoadProgress.Phase;
+import org.n52.svalbard.decode.DecoderRepository;
+
+public class BulkDataLoaderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private RequestOperatorRepository requestOperatorRepository;
+
+    private OperationHandlerRepository operationHandlerRepository;
+
+    private AbstractInsertObservationHandler insertObservationHandler;
+
+    private DecoderRepository decoderRepository;
+
+    private BulkLoadProgress progress;
+
+    @Before
+    public void setUp() {
+        requestOperatorRepository = mock(RequestOperatorRepository.class);
+        operationHandlerRepository = mock(OperationHandlerRepository.class);
+        insertObservationHandler = mock(AbstractInsertObservationHandler.class);
+        decoderRepository = mock(DecoderRepository.class);
+        progress = new BulkLoadProgress();
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailWithoutPropertyFile() throws IOException {
+        new BulkDataLoader(temporaryFolder.getRoot(), null, decoderRepository, requestOperatorRepository,
+                operationHandlerRepository, mock(RequestResponseModifierRepository.class), progress);
+    }
+
+    @Test
+    public void shouldFinishEmptyPackage() throws Exception {
+        activateOperators();
+        BulkDataLoader loader = createLoader();
+        assertThat(loader.load(), is(false));
+        assertThat(progress.getPhase(), is(Phase.FINISHED));
+        assertThat(progress.isDone(), is(true));
+        assertThat(progress.getFiles(), is(0L));
+        assertThat(progress.getRows(), is(0L));
+    }
+
+    @Test
+    public void shouldFailForMissingOperator() throws Exception {
+        BulkDataLoader loader = createLoader();
+        try {
+            loader.load();
+            fail("missing operators should be reported");
+        } catch (MissingServiceOperatorException e) {
+            assertThat(e.getMessage(), containsString("InsertSensor"));
+        }
+        assertThat(progress.getPhase(), is(Phase.FAILED));
+        assertThat(progress.isDone(), is(true));
+    }
+
+    @Test
+    public void shouldCheckPackageBeforeLoading() throws Exception {
+        activateOperators();
+        temporaryFolder.newFile("procedure1" + BulkDataLoader.OBS_XML_FILE_ENDING);
+        BulkDataLoader loader = createLoader();
+        try {
+            loader.load();
+            fail("observations without sensor description should be rejected");
+        } catch (OwsExceptionReport e) {
+            assertThat(e.getExceptions().get(0).getMessage(),
+                    containsString("procedure1" + BulkDataLoader.SENSOR_XML_FILE_ENDING));
+        }
+        assertThat(progress.getPhase(), is(Phase.FAILED));
+        assertThat(progress.getRows(), is(0L));
+        assertThat(loader.hasInsertedData(), is(false));
+        verifyNoInteractions(insertObservationHandler);
+    }
+
+    private void activateOperators() {
+        when(requestOperatorRepository.getRequestOperator(any(RequestOperatorKey.class)))
+                .thenReturn(mock(RequestOperator.class));
+        when(operationHandlerRepository.getOperationHandler(anyString(), anyString()))
+                .thenReturn(insertObservationHandler);
+    }
+
+    private BulkDataLoader createLoader() {
+        return new BulkDataLoader(temporaryFolder.getRoot(), new Properties(), BulkDataLoader.PROPERTY_FILE, null,
+                decoderRepository, requestOperatorRepository, operationHandlerRepository,
+                mock(RequestResponseModifierRepository.class), progress);
+    }
+
+}
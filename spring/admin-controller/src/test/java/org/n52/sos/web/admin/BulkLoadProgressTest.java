@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2012-2021 52°North Initiative for Geospatial Open Source
+ * Software GmbH
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 as published
+ * by the Free Software Foundation.
+ *
+ * If the program is linked with libraries which are licensed under one of
+ * the following licenses, the combination of the program with the linked
+ * library is not considered a "derivative work" of the program:
+ *
+ *     - Apache License, version 2.0
+ *     - Apache Software License, version 1.0
+ *     - GNU Lesser General Public License, version 3
+ *     - Mozilla Public License, versions 1.0, 1.1 and 2.0
+ *     - Common Development and Distribution License (CDDL), version 1.0
+ *
+ * Therefore the distribution of the program linked with libraries licensed
+ * under the aforementioned licenses, is permitted by the copyright holders
+ * if the distribution is compliant with both the GNU General Public
+ * License version 2 and the aforementioned licenses.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ */
+package org.n52.sos.web.admin;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+import org.n52.sos.web.admin.BulkLoadProgress.Phase;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class BulkLoadProgressTest {
+
+    @Test
+    public void shouldBePendingBeforeStart() {
+        BulkLoadProgress progress = new BulkLoadProgress();
+        assertThat(progress.getPhase(), is(Phase.PENDING));
+        assertThat(progress.isRunning(), is(false));
+        assertThat(progress.isDone(), is(false));
+        assertThat(progress.getElapsedMillis(), is(0L));
+        assertThat(progress.getRowsPerSecond(), is(0d));
+    }
+
+    @Test
+    public void shouldBeRunningAfterStart() {
+        BulkLoadProgress progress = new BulkLoadProgress();
+        progress.start();
+        assertThat(progress.getPhase(), is(Phase.CHECKING));
+        assertThat(progress.isRunning(), is(true));
+        assertThat(progress.isDone(), is(false));
+        progress.setPhase(Phase.OBSERVATIONS);
+        assertThat(progress.isRunning(), is(true));
+    }
+
+    @Test
+    public void shouldCountRowsAndFiles() {
+        BulkLoadProgress progress = new BulkLoadProgress();
+        progress.start();
+        progress.addRows(500);
+        progress.addRows(250);
+        progress.addFile();
+        progress.addFile();
+        assertThat(progress.getRows(), is(750L));
+        assertThat(progress.getFiles(), is(2L));
+    }
+
+    @Test
+    public void shouldStopClockWhenFinished() throws InterruptedException {
+        BulkLoadProgress progress = new BulkLoadProgress();
+        progress.start();
+        progress.addRows(100);
+        Thread.sleep(5);
+        progress.finish();
+        long elapsed = progress.getElapsedMillis();
+        assertThat(elapsed, greaterThanOrEqualTo(5L));
+        Thread.sleep(5);
+        assertThat(progress.getElapsedMillis(), is(elapsed));
+        assertThat(progress.getRowsPerSecond(), is(100 * 1000d / elapsed));
+        assertThat(progress.getPhase(), is(Phase.FINISHED));
+        assertThat(progress.isRunning(), is(false));
+        assertThat(progress.isDone(), is(true));
+    }
+
+    @Test
+    public void shouldReportFailure() {
+        BulkLoadProgress progress = new BulkLoadProgress();
+        progress.start();
+        progress.fail("broken package");
+        assertThat(progress.getPhase(), is(Phase.FAILED));
+        assertThat(progress.isRunning(), is(false));
+        assertThat(progress.isDone(), is(true));
+        assertThat(progress.getMessage(), is("broken package"));
+    }
+
+    @Test
+    public void shouldEncodeAsJson() {
+        BulkLoadProgress progress = new BulkLoadProgress();
+        progress.start();
+        progress.addRows(10);
+        progress.addFile();
+        progress.fail("broken package");
+        ObjectNode json = progress.toJson();
+        assertThat(json.path("phase").asText(), is("FAILED"));
+        assertThat(json.path("running").asBoolean(), is(false));
+        assertThat(json.path("rows").asLong(), is(10L));
+        assertThat(json.path("files").asLong(), is(1L));
+        assertThat(json.path("message").asText(), is("broken package"));
+    }
+
+}
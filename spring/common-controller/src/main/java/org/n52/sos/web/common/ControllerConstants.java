@@ -195,12 +195,22 @@ public interface ControllerConstants {
 
         String ADMIN_DATABASE_ADD_SAMPLEDATA = "/admin/datasource/addSampledata";
 
+        String ADMIN_DATABASE_BULK_LOAD = "/admin/datasource/bulkload";
+
+        String ADMIN_DATABASE_BULK_LOAD_STATUS = "/admin/datasource/bulkload/status";
+
+        String ADMIN_DATABASE_MONITOR = "/admin/datasource/monitor";
+
+        String ADMIN_DATABASE_MONITOR_RESET = "/admin/datasource/monitor/reset";
+
         String ADMIN_CACHE = "/admin/cache";
 
         String ADMIN_CACHE_SUMMARY = "/admin/cache/summary";
 
         String ADMIN_CACHE_LOADING = "/admin/cache/loading";
 
+        String ADMIN_CACHE_PROGRESS = "/admin/cache/progress";
+
         String ADMIN_CACHE_DUMP = "/admin/cache/dump";
 
         String ADMIN_RELOAD_CAPABILITIES_CACHE = "/admin/cache/reload";
@@ -61,23 +61,67 @@
         });
     };
 
+    var formatDuration = function(ms) {
+        var s = Math.round(ms / 1000);
+        return Math.floor(s / 60) + "m " + (s % 60) + "s";
+    };
+
+    var loadCacheProgress = function() {
+        $.ajax({
+            url: "<c:url value="/admin/cache/progress"/>",
+            type: "GET",
+            dataType: "json"
+        }).done(function(data) {
+            var $cacheProgressDiv = $("#cacheProgress");
+            $cacheProgressDiv.empty();
+            if (!data.phases) {
+                return;
+            }
+            var status = (data.running ? "Running: " : "Last update: ") + data.percent + "% in "
+                    + formatDuration(data.elapsed);
+            if (data.eta !== undefined) {
+                status += ", about " + formatDuration(data.eta) + " remaining";
+            }
+            $("<p />").appendTo($cacheProgressDiv).text(status);
+            var $table = $("<table />").appendTo($cacheProgressDiv);
+            $.each(data.phases, function (i, phase) {
+                var $tr = $("<tr />").appendTo($table);
+                $("<td />").appendTo($tr).text(phase.name);
+                $("<td />").appendTo($tr).text(phase.state);
+                $("<td />").appendTo($tr).text(phase.duration !== undefined ? formatDuration(phase.duration) : "");
+                $("<td />").appendTo($tr).text(phase.total !== undefined ? phase.completed + " / " + phase.total : "");
+            });
+            if (data.running) {
+                setTimeout(loadCacheProgress, 2000);
+            }
+        }).fail(function(error){
+            showError("Capabilites cache progress request failed: " + error.responseText);
+        });
+    };
+
     $(document).on("cache-loading-complete", function(){
     	loadCacheSummary();
+    	loadCacheProgress();
+    });
+
+    $(document).on("click", "#reloadCapsCache", function(){
+        setTimeout(loadCacheProgress, 1000);
     });
 
     //document ready
     $(function() {
         loadCacheSummary();
+        loadCacheProgress();
     });
 </script>
 
 <style>
-div#cacheSummary table {
+div#cacheSummary table, div#cacheProgress table {
   border-collapse:collapse;
   
 }
 
-div#cacheSummary table td {
+div#cacheSummary table td, div#cacheProgress table td {
   text-align: left;
   padding: 3px;
 }
@@ -88,5 +132,8 @@ div#cacheSummary table td:first-child{
 </style>
 
 <div id="cacheSummary" class="row"></div>
+
+<h3>Cache Update Progress</h3>
+<div id="cacheProgress" class="row"></div>
         
 <jsp:include page="../common/footer.jsp" />
@@ -29,12 +29,17 @@
 package org.n52.sos;
 
 import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.n52.iceland.service.DatabaseSettingsHandler;
 import org.n52.sos.context.ContextSwitcher;
+import org.n52.sos.service.compression.CompressingResponseWrapper;
+import org.n52.sos.service.compression.ResponseCompression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.target.HotSwappableTargetSource;
+import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.web.context.ConfigurableWebApplicationContext;
@@ -141,6 +146,30 @@ public class SOSDispatcherServlet
         }
     }
 
+    @Override
+    protected void doService(HttpServletRequest request, HttpServletResponse response) throws Exception {
+        HttpServletResponse wrapped = wrapResponse(request, response);
+        try {
+            super.doService(request, wrapped);
+        } finally {
+            if (wrapped instanceof CompressingResponseWrapper) {
+                ((CompressingResponseWrapper) wrapped).finish();
+            }
+        }
+    }
+
+    private HttpServletResponse wrapResponse(HttpServletRequest request, HttpServletResponse response) {
+        WebApplicationContext applicationContext = getWebApplicationContext();
+        if (applicationContext != null) {
+            try {
+                return applicationContext.getBean(ResponseCompression.class).wrap(request, response);
+            } catch (BeansException | IllegalStateException e) {
+                // not configured or currently reloading
+            }
+        }
+        return response;
+    }
+
     @Override
     public void reloadContext() {
         WebApplicationContext applicationContext = getWebApplicationContext();